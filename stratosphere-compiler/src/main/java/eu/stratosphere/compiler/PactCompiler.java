@@ -187,6 +187,22 @@ public class PactCompiler {
 	 */
 	public static final String HINT_SHIP_STRATEGY_BROADCAST = "SHIP_BROADCAST";
 
+	/**
+	 * Compiler hint key for the compression of the operator's input channels. This String is a key to the
+	 * operator's stub parameters. The corresponding value is the name of the
+	 * {@link eu.stratosphere.nephele.io.compression.CompressionCodec} that the network channels which repartition
+	 * or broadcast data to this operator compress their buffers with, for example <tt>LZ4</tt>.
+	 */
+	public static final String HINT_NETWORK_COMPRESSION = "INPUT_NETWORK_COMPRESSION";
+
+	/**
+	 * Compiler hint key for the buffer timeout of the operator's input channels. This String is a key to the
+	 * operator's stub parameters. The corresponding value is the maximum time in milliseconds that the channels
+	 * sending to this operator hold a partially filled buffer before they ship it. A value of <tt>0</tt> ships
+	 * a buffer after every record, <tt>-1</tt> ships buffers only when they are full.
+	 */
+	public static final String HINT_NETWORK_BUFFER_TIMEOUT = "INPUT_NETWORK_BUFFER_TIMEOUT";
+
 	/**
 	 * Compiler hint key for the operator's local strategy. This String is a key to the operator's stub
 	 * parameters. The corresponding value tells the compiler which local strategy to use to process the
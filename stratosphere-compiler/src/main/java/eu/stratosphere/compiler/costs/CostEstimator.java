@@ -45,6 +45,8 @@ public abstract class CostEstimator {
 	public abstract void addLocalMergeCost(EstimateProvider estimates1, EstimateProvider estimates2, long memorySize, Costs costs);
 	
 	public abstract void addHybridHashCosts(EstimateProvider buildSide, EstimateProvider probeSide, long memorySize, Costs costs);
+	
+	public abstract void addHashAggregationCosts(EstimateProvider estimates, long memorySize, Costs costs);
 
 	public abstract void addStreamedNestedLoopsCosts(EstimateProvider outerSide, EstimateProvider innerSide, long bufferSize, Costs costs);
 
@@ -178,6 +180,9 @@ public abstract class CostEstimator {
 		case MERGE:
 			addLocalMergeCost(firstInput, secondInput, availableMemory, driverCosts);
 			break;
+		case HASHED_REDUCE:
+			addHashAggregationCosts(firstInput, availableMemory, driverCosts);
+			break;
 		case HYBRIDHASH_BUILD_FIRST:
 			addHybridHashCosts(firstInput, secondInput, availableMemory, driverCosts);
 			break;
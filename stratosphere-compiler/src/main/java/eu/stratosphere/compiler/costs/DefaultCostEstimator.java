@@ -156,6 +156,18 @@ public class DefaultCostEstimator extends CostEstimator {
 		costs.addHeuristicCpuCost((long) (HEURISTIC_COST_BASE * HASHING_CPU_FACTOR));
 	}
 
+	@Override
+	public void addHashAggregationCosts(EstimateProvider estimates, long availableMemory, Costs costs) {
+		// the aggregates are assumed to fit into memory, so every record is hashed once and no I/O occurs
+		final long s = estimates.getEstimatedOutputSize();
+		if (s > 0) {
+			costs.addCpuCost((long) (s * HASHING_CPU_FACTOR));
+		} else {
+			costs.setCpuCost(Costs.UNKNOWN);
+		}
+		costs.addHeuristicCpuCost((long) (HEURISTIC_COST_BASE * HASHING_CPU_FACTOR));
+	}
+
 	@Override
 	public void addStreamedNestedLoopsCosts(EstimateProvider outerSide, EstimateProvider innerSide, long bufferSize, Costs costs) {
 		long is = innerSide.getEstimatedOutputSize(); 
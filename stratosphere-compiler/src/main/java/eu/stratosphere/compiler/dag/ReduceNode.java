@@ -13,20 +13,29 @@
 
 package eu.stratosphere.compiler.dag;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 
 import eu.stratosphere.api.common.operators.base.ReduceOperatorBase;
+import eu.stratosphere.api.common.operators.base.ReduceOperatorBase.CombineHint;
 import eu.stratosphere.compiler.DataStatistics;
 import eu.stratosphere.compiler.operators.AllReduceProperties;
 import eu.stratosphere.compiler.operators.OperatorDescriptorSingle;
 import eu.stratosphere.compiler.operators.ReduceProperties;
+import eu.stratosphere.pact.runtime.task.DriverStrategy;
 
 /**
  * The Optimizer representation of a <i>Reduce</i> operator.
  */
 public class ReduceNode extends SingleInputNode {
 	
+	/**
+	 * The minimal estimated average number of records per key and parallel instance of the input, for which
+	 * the reducer is considered to have few distinct keys.
+	 */
+	public static final int MIN_RECORDS_PER_KEY_FOR_HASHING = 4;
+	
 	private ReduceNode preReduceUtilityNode;
 	
 
@@ -58,11 +67,39 @@ public class ReduceNode extends SingleInputNode {
 	
 	@Override
 	protected List<OperatorDescriptorSingle> getPossibleProperties() {
-		OperatorDescriptorSingle props = this.keys == null ?
-			new AllReduceProperties() :
-			new ReduceProperties(this.keys);
+		if (this.keys == null) {
+			return Collections.<OperatorDescriptorSingle>singletonList(new AllReduceProperties());
+		}
+		
+		// the hash-based reducer is only an alternative, if the aggregates are expected to fit into memory
+		if (getPactContract().getCombineHint() != CombineHint.SORT && hasFewDistinctKeys()) {
+			List<OperatorDescriptorSingle> props = new ArrayList<OperatorDescriptorSingle>(2);
+			props.add(new ReduceProperties(this.keys));
+			props.add(new ReduceProperties(this.keys, DriverStrategy.HASHED_REDUCE));
+			return props;
+		} else {
+			return Collections.<OperatorDescriptorSingle>singletonList(new ReduceProperties(this.keys));
+		}
+	}
+	
+	/**
+	 * Checks whether the estimates indicate that this reducer has few distinct keys, such that every parallel
+	 * instance of the input sees each key several times. The estimated number of records of a reducer is its
+	 * number of distinct keys. Without estimates, the keys are not considered to be few.
+	 * 
+	 * @return True, if the estimates indicate few distinct keys, false otherwise.
+	 */
+	public boolean hasFewDistinctKeys() {
+		final OptimizerNode pred = getPredecessorNode();
+		if (pred == null) {
+			return false;
+		}
+		
+		final long numKeys = getEstimatedNumRecords();
+		final long numRecords = pred.getEstimatedNumRecords();
+		final int dop = Math.max(1, pred.getDegreeOfParallelism());
 		
-			return Collections.singletonList(props);
+		return numKeys > 0 && numRecords > 0 && numRecords / dop >= numKeys * MIN_RECORDS_PER_KEY_FOR_HASHING;
 	}
 	
 	// --------------------------------------------------------------------------------------------
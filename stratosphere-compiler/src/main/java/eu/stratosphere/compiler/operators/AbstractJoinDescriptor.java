@@ -17,9 +17,15 @@ import java.util.ArrayList;
 import java.util.List;
 
 import eu.stratosphere.api.common.operators.util.FieldList;
+import eu.stratosphere.compiler.dag.TempMode;
+import eu.stratosphere.compiler.dag.TwoInputNode;
 import eu.stratosphere.compiler.dataproperties.GlobalProperties;
 import eu.stratosphere.compiler.dataproperties.PartitioningProperty;
 import eu.stratosphere.compiler.dataproperties.RequestedGlobalProperties;
+import eu.stratosphere.compiler.plan.Channel;
+import eu.stratosphere.pact.runtime.shipping.ShipStrategyType;
+import eu.stratosphere.pact.runtime.task.DamBehavior;
+import eu.stratosphere.pact.runtime.task.util.LocalStrategy;
 
 
 public abstract class AbstractJoinDescriptor extends OperatorDescriptorDual {
@@ -65,4 +71,33 @@ public abstract class AbstractJoinDescriptor extends OperatorDescriptorDual {
 		gp.clearUniqueFieldCombinations();
 		return gp;
 	}
+	
+	/**
+	 * Decides whether a hash join should publish a filter over the keys of its build side to the producers
+	 * of its probe side, such that the producers drop the records without join partner before shipping them.
+	 * The filter is only used if the build side is fully consumed before the probe side is read, and if both
+	 * sides are hash partitioned on their join keys, which guarantees that the producers hash the keys exactly
+	 * like the join does. The probe side must be pipelined into the join, and the join must be executed only
+	 * once, i.e., not be on the dynamic path of an iteration.
+	 * 
+	 * @param buildSide The channel of the build side.
+	 * @param probeSide The channel of the probe side.
+	 * @param buildKeys The join keys of the build side.
+	 * @param probeKeys The join keys of the probe side.
+	 * @param buildInput The index of the build side input.
+	 * @param node The join node.
+	 * @return True, if the join should publish a join filter, false otherwise.
+	 */
+	protected boolean useJoinFilter(Channel buildSide, Channel probeSide, FieldList buildKeys, FieldList probeKeys,
+			int buildInput, TwoInputNode node)
+	{
+		return getStrategy().damOnInput(buildInput) == DamBehavior.FULL_DAM &&
+				!node.isOnDynamicPath() &&
+				buildSide.getShipStrategy() == ShipStrategyType.PARTITION_HASH &&
+				buildKeys.equals(buildSide.getShipStrategyKeys()) &&
+				probeSide.getShipStrategy() == ShipStrategyType.PARTITION_HASH &&
+				probeKeys.equals(probeSide.getShipStrategyKeys()) &&
+				probeSide.getLocalStrategy() == LocalStrategy.NONE &&
+				probeSide.getTempMode() == TempMode.NONE;
+	}
 }
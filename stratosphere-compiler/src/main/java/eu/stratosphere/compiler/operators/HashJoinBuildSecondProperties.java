@@ -51,7 +51,9 @@ public final class HashJoinBuildSecondProperties extends AbstractJoinDescriptor
 
 	@Override
 	public DualInputPlanNode instantiate(Channel in1, Channel in2, TwoInputNode node) {
-		return new DualInputPlanNode(node, "Join("+node.getPactContract().getName()+")", in1, in2, DriverStrategy.HYBRIDHASH_BUILD_SECOND, this.keys1, this.keys2);
+		DualInputPlanNode dipn = new DualInputPlanNode(node, "Join("+node.getPactContract().getName()+")", in1, in2, DriverStrategy.HYBRIDHASH_BUILD_SECOND, this.keys1, this.keys2);
+		dipn.setUseJoinFilter(useJoinFilter(in2, in1, this.keys2, this.keys1, 1, node));
+		return dipn;
 	}
 	
 	@Override
@@ -30,15 +30,31 @@ import eu.stratosphere.pact.runtime.shipping.ShipStrategyType;
 import eu.stratosphere.pact.runtime.task.DriverStrategy;
 import eu.stratosphere.pact.runtime.task.util.LocalStrategy;
 
+/**
+ * The properties of a Reduce with keys. The reducer either reduces an input that is sorted on the keys
+ * ({@link DriverStrategy#SORTED_REDUCE}), or aggregates an unsorted input in a hash table
+ * ({@link DriverStrategy#HASHED_REDUCE}). Both need the input partitioned on the keys and insert a combiner
+ * before a repartitioning. The hash-based reducer's output is neither grouped nor sorted.
+ */
 public final class ReduceProperties extends OperatorDescriptorSingle {
 	
+	private final DriverStrategy strategy;
+	
 	public ReduceProperties(FieldSet keys) {
+		this(keys, DriverStrategy.SORTED_REDUCE);
+	}
+	
+	public ReduceProperties(FieldSet keys, DriverStrategy strategy) {
 		super(keys);
+		if (strategy != DriverStrategy.SORTED_REDUCE && strategy != DriverStrategy.HASHED_REDUCE) {
+			throw new IllegalArgumentException("Unsupported strategy for a Reduce: " + strategy);
+		}
+		this.strategy = strategy;
 	}
 	
 	@Override
 	public DriverStrategy getStrategy() {
-		return DriverStrategy.SORTED_REDUCE;
+		return this.strategy;
 	}
 
 	@Override
@@ -46,7 +62,7 @@ public final class ReduceProperties extends OperatorDescriptorSingle {
 		if (in.getShipStrategy() == ShipStrategyType.FORWARD ||
 				(node.getBroadcastConnections() != null && !node.getBroadcastConnections().isEmpty()))
 		{
-			return new SingleInputPlanNode(node, "Reduce ("+node.getPactContract().getName()+")", in, DriverStrategy.SORTED_REDUCE, this.keyList);
+			return new SingleInputPlanNode(node, "Reduce ("+node.getPactContract().getName()+")", in, this.strategy, this.keyList);
 		}
 		else {
 			// non forward case. all local properties are killed anyways, so we can safely plug in a combiner
@@ -58,17 +74,37 @@ public final class ReduceProperties extends OperatorDescriptorSingle {
 			combinerNode.setDegreeOfParallelism(in.getSource().getDegreeOfParallelism());
 			combinerNode.setSubtasksPerInstance(in.getSource().getSubtasksPerInstance());
 			
-			SingleInputPlanNode combiner = new SingleInputPlanNode(combinerNode, "Combine ("+node.getPactContract().getName()+")", toCombiner, DriverStrategy.SORTED_PARTIAL_REDUCE, this.keyList);
+			final DriverStrategy combinerStrategy = getCombinerStrategy((ReduceNode) node);
+			
+			SingleInputPlanNode combiner = new SingleInputPlanNode(combinerNode, "Combine ("+node.getPactContract().getName()+")", toCombiner, combinerStrategy, this.keyList);
 			combiner.setCosts(new Costs(0, 0));
 			combiner.initProperties(toCombiner.getGlobalProperties(), toCombiner.getLocalProperties());
 			
 			Channel toReducer = new Channel(combiner);
 			toReducer.setShipStrategy(in.getShipStrategy(), in.getShipStrategyKeys(), in.getShipStrategySortOrder());
-			toReducer.setLocalStrategy(LocalStrategy.SORT, in.getLocalStrategyKeys(), in.getLocalStrategySortOrder());
-			return new SingleInputPlanNode(node, "Reduce("+node.getPactContract().getName()+")", toReducer, DriverStrategy.SORTED_REDUCE, this.keyList);
+			// the hash table needs no local strategy
+			if (this.strategy == DriverStrategy.SORTED_REDUCE) {
+				toReducer.setLocalStrategy(LocalStrategy.SORT, in.getLocalStrategyKeys(), in.getLocalStrategySortOrder());
+			}
+			return new SingleInputPlanNode(node, "Reduce("+node.getPactContract().getName()+")", toReducer, this.strategy, this.keyList);
 		}
 	}
 
+	/**
+	 * Picks the strategy for the combiner. If the reduce operator does not hint for a strategy, the combiner is
+	 * hash-based when the estimates indicate few distinct keys.
+	 */
+	private static DriverStrategy getCombinerStrategy(ReduceNode node) {
+		switch (node.getPactContract().getCombineHint()) {
+		case HASH:
+			return DriverStrategy.HASHED_PARTIAL_REDUCE;
+		case SORT:
+			return DriverStrategy.SORTED_PARTIAL_REDUCE;
+		default:
+			return node.hasFewDistinctKeys() ? DriverStrategy.HASHED_PARTIAL_REDUCE : DriverStrategy.SORTED_PARTIAL_REDUCE;
+		}
+	}
+	
 	@Override
 	protected List<RequestedGlobalProperties> createPossibleGlobalProperties() {
 		RequestedGlobalProperties props = new RequestedGlobalProperties();
@@ -79,7 +115,9 @@ public final class ReduceProperties extends OperatorDescriptorSingle {
 	@Override
 	protected List<RequestedLocalProperties> createPossibleLocalProperties() {
 		RequestedLocalProperties props = new RequestedLocalProperties();
-		props.setGroupedFields(this.keys);
+		if (this.strategy == DriverStrategy.SORTED_REDUCE) {
+			props.setGroupedFields(this.keys);
+		}
 		return Collections.singletonList(props);
 	}
 
@@ -96,6 +134,10 @@ public final class ReduceProperties extends OperatorDescriptorSingle {
 
 	@Override
 	public LocalProperties computeLocalProperties(LocalProperties lProps) {
+		if (this.strategy == DriverStrategy.HASHED_REDUCE) {
+			// the records are emitted in the order of the hash table
+			return new LocalProperties();
+		}
 		lProps.clearUniqueFieldSets();
 		return lProps;
 	}
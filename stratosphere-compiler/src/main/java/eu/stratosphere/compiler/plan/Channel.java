@@ -24,6 +24,7 @@ import eu.stratosphere.compiler.dataproperties.GlobalProperties;
 import eu.stratosphere.compiler.dataproperties.LocalProperties;
 import eu.stratosphere.compiler.plandump.DumpableConnection;
 import eu.stratosphere.compiler.util.Utils;
+import eu.stratosphere.nephele.io.compression.CompressionCodec;
 import eu.stratosphere.pact.runtime.shipping.ShipStrategyType;
 import eu.stratosphere.pact.runtime.task.util.LocalStrategy;
 
@@ -70,6 +71,8 @@ public class Channel implements EstimateProvider, Cloneable, DumpableConnection<
 	
 	private int replicationFactor = 1;
 	
+	private CompressionCodec compressionCodec;
+	
 	// --------------------------------------------------------------------------------------------
 	
 	public Channel(PlanNode sourceNode) {
@@ -225,6 +228,24 @@ public class Channel implements EstimateProvider, Cloneable, DumpableConnection<
 		return this.replicationFactor;
 	}
 	
+	/**
+	 * Sets the codec that the network channels created for this channel compress their buffers with.
+	 * 
+	 * @param compressionCodec The compression codec, or <code>null</code> to use the default.
+	 */
+	public void setCompressionCodec(CompressionCodec compressionCodec) {
+		this.compressionCodec = compressionCodec;
+	}
+	
+	/**
+	 * Gets the codec that the network channels created for this channel compress their buffers with.
+	 * 
+	 * @return The compression codec, or <code>null</code>, if the default is to be used.
+	 */
+	public CompressionCodec getCompressionCodec() {
+		return this.compressionCodec;
+	}
+	
 	/**
 	 * Gets the serializer from this Channel.
 	 *
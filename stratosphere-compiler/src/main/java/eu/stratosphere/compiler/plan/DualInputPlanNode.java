@@ -49,6 +49,8 @@ public class DualInputPlanNode extends PlanNode {
 	private TypeComparatorFactory<?> comparator2;
 	private TypePairComparatorFactory<?, ?> pairComparator;
 	
+	private boolean useJoinFilter;
+	
 	public Object postPassHelper1;
 	public Object postPassHelper2;
 	
@@ -131,6 +133,20 @@ public class DualInputPlanNode extends PlanNode {
 		this.pairComparator = comparator;
 	}
 	
+	/**
+	 * Checks whether this node's hash join publishes a filter over its build side keys to the
+	 * producers of its probe side.
+	 * 
+	 * @return True, if the join publishes a join filter, false otherwise.
+	 */
+	public boolean isUseJoinFilter() {
+		return this.useJoinFilter;
+	}
+	
+	public void setUseJoinFilter(boolean useJoinFilter) {
+		this.useJoinFilter = useJoinFilter;
+	}
+	
 	/**
 	 * Gets the first input channel to this node.
 	 * 
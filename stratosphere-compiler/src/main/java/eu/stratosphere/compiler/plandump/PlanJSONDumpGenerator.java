@@ -421,10 +421,18 @@ public class PlanJSONDumpGenerator {
 				locString = "Sorted Reduce";
 				break;
 				
+			case HASHED_REDUCE:
+				locString = "Hash Reduce";
+				break;
+				
 			case SORTED_PARTIAL_REDUCE:
 				locString = "Sorted Combine/Reduce";
 				break;
 
+			case HASHED_PARTIAL_REDUCE:
+				locString = "Hash Combine/Reduce";
+				break;
+
 			case SORTED_GROUP_REDUCE:
 				locString = "Sorted Group Reduce";
 				break;
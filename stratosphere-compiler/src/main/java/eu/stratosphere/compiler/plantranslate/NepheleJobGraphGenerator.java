@@ -25,14 +25,19 @@ import java.util.Map.Entry;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
+import eu.stratosphere.api.common.Plan;
 import eu.stratosphere.api.common.aggregators.AggregatorRegistry;
 import eu.stratosphere.api.common.aggregators.AggregatorWithName;
 import eu.stratosphere.api.common.aggregators.ConvergenceCriterion;
 import eu.stratosphere.api.common.aggregators.LongSumAggregator;
 import eu.stratosphere.api.common.cache.DistributedCache;
-import eu.stratosphere.api.common.distributions.DataDistribution;
 import eu.stratosphere.api.common.typeutils.TypeSerializerFactory;
+import eu.stratosphere.api.java.typeutils.runtime.RuntimeStatefulSerializerFactory;
+import eu.stratosphere.api.java.typeutils.runtime.record.RecordComparator;
+import eu.stratosphere.api.java.typeutils.runtime.record.RecordComparatorFactory;
+import eu.stratosphere.api.java.typeutils.runtime.record.RecordSerializerFactory;
 import eu.stratosphere.compiler.CompilerException;
+import eu.stratosphere.compiler.PactCompiler;
 import eu.stratosphere.compiler.dag.TempMode;
 import eu.stratosphere.compiler.plan.BulkIterationPlanNode;
 import eu.stratosphere.compiler.plan.BulkPartialSolutionPlanNode;
@@ -54,8 +59,10 @@ import eu.stratosphere.configuration.Configuration;
 import eu.stratosphere.configuration.GlobalConfiguration;
 import eu.stratosphere.nephele.io.DistributionPattern;
 import eu.stratosphere.nephele.io.channels.ChannelType;
+import eu.stratosphere.nephele.io.compression.CompressionCodec;
 import eu.stratosphere.nephele.jobgraph.AbstractJobOutputVertex;
 import eu.stratosphere.nephele.jobgraph.AbstractJobVertex;
+import eu.stratosphere.nephele.jobgraph.JobEdge;
 import eu.stratosphere.nephele.jobgraph.JobGraph;
 import eu.stratosphere.nephele.jobgraph.JobGraphDefinitionException;
 import eu.stratosphere.nephele.jobgraph.JobInputVertex;
@@ -68,6 +75,7 @@ import eu.stratosphere.pact.runtime.iterative.task.IterationHeadPactTask;
 import eu.stratosphere.pact.runtime.iterative.task.IterationIntermediatePactTask;
 import eu.stratosphere.pact.runtime.iterative.task.IterationSynchronizationSinkTask;
 import eu.stratosphere.pact.runtime.iterative.task.IterationTailPactTask;
+import eu.stratosphere.pact.runtime.shipping.SampledDataDistribution;
 import eu.stratosphere.pact.runtime.shipping.ShipStrategyType;
 import eu.stratosphere.pact.runtime.task.CoGroupDriver;
 import eu.stratosphere.pact.runtime.task.CoGroupWithSolutionSetFirstDriver;
@@ -79,10 +87,15 @@ import eu.stratosphere.pact.runtime.task.JoinWithSolutionSetFirstDriver;
 import eu.stratosphere.pact.runtime.task.JoinWithSolutionSetSecondDriver;
 import eu.stratosphere.pact.runtime.task.MatchDriver;
 import eu.stratosphere.pact.runtime.task.NoOpDriver;
+import eu.stratosphere.pact.runtime.task.RangeBoundaryDriver;
 import eu.stratosphere.pact.runtime.task.RegularPactTask;
+import eu.stratosphere.pact.runtime.task.ReservoirSamplingDriver;
 import eu.stratosphere.pact.runtime.task.chaining.ChainedDriver;
 import eu.stratosphere.pact.runtime.task.util.LocalStrategy;
 import eu.stratosphere.pact.runtime.task.util.TaskConfig;
+import eu.stratosphere.pact.runtime.task.util.WeightedSample;
+import eu.stratosphere.pact.runtime.task.util.WeightedSampleSerializer;
+import eu.stratosphere.types.Record;
 import eu.stratosphere.util.Visitor;
 
 /**
@@ -104,6 +117,10 @@ public class NepheleJobGraphGenerator implements Visitor<PlanNode> {
 	
 	private static final TaskInChain ALREADY_VISITED_PLACEHOLDER = new TaskInChain(null, null, null);
 	
+	private static final String RANGE_BOUNDARIES_BROADCAST_NAME = "range-boundaries";
+	
+	private static final int SAMPLED_RANGE_PARTITION_MEMORY_SHARE = 4; // the partitioner takes 1/4 of the receiver's memory
+	
 	// ------------------------------------------------------------------------
 
 	private JobGraph jobGraph; // the job that is currently built
@@ -124,6 +141,14 @@ public class NepheleJobGraphGenerator implements Visitor<PlanNode> {
 	
 	private final float defaultSortSpillingThreshold;
 	
+	private final CompressionCodec defaultCompressionCodec;
+	
+	private final long defaultBufferTimeout;
+	
+	private long jobBufferTimeout;	// the buffer timeout of the plan currently translated
+	
+	private final int rangePartitionSampleSize;
+	
 	private int iterationIdEnumerator = 1;
 	
 	private IterationPlanNode currentIteration;	// hack: as long as no nesting is possible, remember the enclosing iteration
@@ -136,6 +161,9 @@ public class NepheleJobGraphGenerator implements Visitor<PlanNode> {
 	public NepheleJobGraphGenerator() {
 		this.defaultMaxFan = ConfigConstants.DEFAULT_SPILLING_MAX_FAN;
 		this.defaultSortSpillingThreshold = ConfigConstants.DEFAULT_SORT_SPILLING_THRESHOLD;
+		this.defaultCompressionCodec = CompressionCodec.valueOf(ConfigConstants.DEFAULT_NETWORK_COMPRESSION_CODEC);
+		this.defaultBufferTimeout = ConfigConstants.DEFAULT_NETWORK_BUFFER_TIMEOUT;
+		this.rangePartitionSampleSize = ConfigConstants.DEFAULT_RANGE_PARTITION_SAMPLE_SIZE;
 	}
 	
 	public NepheleJobGraphGenerator(Configuration config) {
@@ -143,6 +171,35 @@ public class NepheleJobGraphGenerator implements Visitor<PlanNode> {
 				ConfigConstants.DEFAULT_SPILLING_MAX_FAN);
 		this.defaultSortSpillingThreshold = config.getFloat(ConfigConstants.DEFAULT_SORT_SPILLING_THRESHOLD_KEY,
 			ConfigConstants.DEFAULT_SORT_SPILLING_THRESHOLD);
+		
+		final String codec = config.getString(ConfigConstants.NETWORK_COMPRESSION_CODEC_KEY,
+			ConfigConstants.DEFAULT_NETWORK_COMPRESSION_CODEC);
+		CompressionCodec defaultCodec;
+		try {
+			defaultCodec = CompressionCodec.valueOf(codec.toUpperCase());
+		} catch (IllegalArgumentException iaex) {
+			LOG.error("Invalid network compression codec: " + codec + ". Ignoring parameter.");
+			defaultCodec = CompressionCodec.valueOf(ConfigConstants.DEFAULT_NETWORK_COMPRESSION_CODEC);
+		}
+		this.defaultCompressionCodec = defaultCodec;
+		
+		final long bufferTimeout = config.getLong(ConfigConstants.NETWORK_BUFFER_TIMEOUT_KEY,
+			ConfigConstants.DEFAULT_NETWORK_BUFFER_TIMEOUT);
+		if (bufferTimeout < -1) {
+			LOG.error("Invalid network buffer timeout: " + bufferTimeout + ". Ignoring parameter.");
+			this.defaultBufferTimeout = ConfigConstants.DEFAULT_NETWORK_BUFFER_TIMEOUT;
+		} else {
+			this.defaultBufferTimeout = bufferTimeout;
+		}
+		
+		final int sampleSize = config.getInteger(ConfigConstants.RANGE_PARTITION_SAMPLE_SIZE_KEY,
+			ConfigConstants.DEFAULT_RANGE_PARTITION_SAMPLE_SIZE);
+		if (sampleSize < 1) {
+			LOG.error("Invalid range partition sample size: " + sampleSize + ". Ignoring parameter.");
+			this.rangePartitionSampleSize = ConfigConstants.DEFAULT_RANGE_PARTITION_SAMPLE_SIZE;
+		} else {
+			this.rangePartitionSampleSize = sampleSize;
+		}
 	}
 
 	/**
@@ -162,6 +219,8 @@ public class NepheleJobGraphGenerator implements Visitor<PlanNode> {
 		this.auxVertices = new ArrayList<AbstractJobVertex>();
 		this.iterations = new HashMap<IterationPlanNode, IterationDescriptor>();
 		this.maxDegreeVertex = null;
+		this.jobBufferTimeout = program.getOriginalPactPlan() == null ? Plan.BUFFER_TIMEOUT_DEFAULT :
+			program.getOriginalPactPlan().getBufferTimeout();
 		
 		// generate Nephele job graph
 		program.accept(this);
@@ -551,6 +610,7 @@ public class NepheleJobGraphGenerator implements Visitor<PlanNode> {
 			for (NamedChannel broadcastInput: node.getBroadcastInputs()) {
 				int broadcastInputIndexDelta = translateChannel(broadcastInput, broadcastInputIndex, targetVertex, targetVertexConfig, true);
 				targetVertexConfig.setBroadcastInputName(broadcastInput.getName(), broadcastInputIndex);
+				targetVertexConfig.setBroadcastInputSharingId(targetVertex.getID() + "#" + broadcastInput.getName(), broadcastInputIndex);
 				targetVertexConfig.setBroadcastInputSerializer(broadcastInput.getSerializer(), broadcastInputIndex);
 				broadcastInputIndex += broadcastInputIndexDelta;
 			}
@@ -818,6 +878,13 @@ public class NepheleJobGraphGenerator implements Visitor<PlanNode> {
 		if (node.getPairComparator() != null) {
 			config.setDriverPairComparator(node.getPairComparator());
 		}
+		if (node.isUseJoinFilter()) {
+			// the record data model partitions with its own emitters, which do not evaluate join filters
+			final Channel probeSide = ds == DriverStrategy.HYBRIDHASH_BUILD_FIRST ? node.getInput2() : node.getInput1();
+			if (!(probeSide.getSerializer() instanceof RecordSerializerFactory)) {
+				config.setUseJoinFilter(true);
+			}
+		}
 		
 		// assign memory, file-handles, etc.
 		assignDriverResources(node, config);
@@ -1034,15 +1101,23 @@ public class NepheleJobGraphGenerator implements Visitor<PlanNode> {
 			final AbstractJobVertex targetVertex, final TaskConfig targetConfig, boolean isBroadcast)
 	throws JobGraphDefinitionException, CompilerException
 	{
+		if (channel.getShipStrategy() == ShipStrategyType.PARTITION_RANGE && channel.getDataDistribution() == null) {
+			return connectWithSampledRangePartitioning(channel, inputNumber, sourceVertex, sourceConfig, targetVertex, targetConfig);
+		}
+		
 		// ------------ connect the vertices to the job graph --------------
 		final ChannelType channelType;
 		final DistributionPattern distributionPattern;
+		final CompressionCodec compressionCodec;
 
 		switch (channel.getShipStrategy()) {
 			case FORWARD:
 			case PARTITION_LOCAL_HASH:
 				distributionPattern = DistributionPattern.POINTWISE;
 				channelType = ChannelType.NETWORK;
+				// forward channels mostly stay within an instance, where compression only costs time
+				compressionCodec = channel.getCompressionCodec() == null ?
+					CompressionCodec.NONE : channel.getCompressionCodec();
 				break;
 			case PARTITION_RANDOM:
 			case BROADCAST:
@@ -1050,12 +1125,14 @@ public class NepheleJobGraphGenerator implements Visitor<PlanNode> {
 			case PARTITION_RANGE:
 				distributionPattern = DistributionPattern.BIPARTITE;
 				channelType = ChannelType.NETWORK;
+				compressionCodec = getCompressionCodec(channel);
 				break;
 			default:
 				throw new RuntimeException("Unknown runtime ship strategy: " + channel.getShipStrategy());
 		}
 		
-		sourceVertex.connectTo(targetVertex, channelType, distributionPattern);
+		sourceVertex.connectTo(targetVertex, channelType, compressionCodec, distributionPattern);
+		setBufferTimeout(sourceVertex, channel);
 
 		// -------------- configure the source task's ship strategy strategies in task config --------------
 		final int outputIndex = sourceConfig.getNumOutputs();
@@ -1068,14 +1145,7 @@ public class NepheleJobGraphGenerator implements Visitor<PlanNode> {
 		}
 		
 		if (channel.getShipStrategy() == ShipStrategyType.PARTITION_RANGE) {
-			
-			final DataDistribution dataDistribution = channel.getDataDistribution();
-			if(dataDistribution != null) {
-				sourceConfig.setOutputDataDistribution(dataDistribution, outputIndex);
-			} else {
-				throw new RuntimeException("Range partitioning requires data distribution");
-				// TODO: inject code and configuration for automatic histogram generation
-			}
+			sourceConfig.setOutputDataDistribution(channel.getDataDistribution(), outputIndex);
 		}
 //		if (targetContract instanceof GenericDataSink) {
 //			final DataDistribution distri = ((GenericDataSink) targetContract).getDataDistribution();
@@ -1093,6 +1163,193 @@ public class NepheleJobGraphGenerator implements Visitor<PlanNode> {
 		return distributionPattern;
 	}
 	
+	/**
+	 * Connects the vertices of a range partitioned channel for which the program gives no data distribution.
+	 * The boundaries of the partitioning are determined from a sample of the data, for which the following
+	 * tasks are inserted between the source and the target:
+	 * <pre>
+	 *   source ---forward---> partitioner ---range---> target
+	 *     |                       ^
+	 *   forward               broadcast
+	 *     v                       |
+	 *   sampler ---random---> boundaries
+	 * </pre>
+	 * Every sampler draws a fixed size sample from its instance of the source and weights it by the number of
+	 * records it saw. The single boundary task sorts the samples and picks the weighted quantiles, which the partitioner receives as a broadcast variable before it partitions
+	 * its input. Because the partitioner cannot ship any record before the boundaries are known, it materializes
+	 * its input, such that the source can go on producing data for the samplers.
+	 */
+	private DistributionPattern connectWithSampledRangePartitioning(Channel channel, int inputNumber,
+			final AbstractJobVertex sourceVertex, final TaskConfig sourceConfig,
+			final AbstractJobVertex targetVertex, final TaskConfig targetConfig)
+	throws JobGraphDefinitionException, CompilerException
+	{
+		final TypeSerializerFactory<?> serializer = channel.getSerializer();
+		if (!(serializer instanceof RecordSerializerFactory) ||
+				!(channel.getShipStrategyComparator() instanceof RecordComparatorFactory))
+		{
+			throw new CompilerException("Range partitioning without a data distribution is only supported for records.");
+		}
+		final RecordComparator keyComparator = ((RecordComparatorFactory) channel.getShipStrategyComparator()).createComparator();
+		if (channel.getTarget() instanceof DualInputPlanNode) {
+			throw new CompilerException("Range partitioning the inputs of a binary operator requires a data distribution, " +
+					"because both inputs must be partitioned with the same boundaries.");
+		}
+		if (this.currentIteration != null) {
+			throw new CompilerException("Range partitioning without a data distribution is not supported in iterations.");
+		}
+		
+		// the partitioner takes the memory to materialize its input from the receiver
+		final long materializationMemory;
+		final long localStrategyMemory = channel.getMemoryLocalStrategy();
+		final long driverMemory = channel.getTarget().getMemoryPerSubTask();
+		if (localStrategyMemory > 0) {
+			materializationMemory = localStrategyMemory / SAMPLED_RANGE_PARTITION_MEMORY_SHARE;
+			channel.setMemoryLocalStrategy(localStrategyMemory - materializationMemory);
+		} else if (driverMemory > 0) {
+			materializationMemory = driverMemory / SAMPLED_RANGE_PARTITION_MEMORY_SHARE;
+			targetConfig.setMemoryDriver(driverMemory - materializationMemory);
+		} else {
+			throw new CompilerException("Range partitioning without a data distribution requires memory at the receiver " +
+					"to buffer the data while the boundaries are determined.");
+		}
+		
+		final int dop = sourceVertex.getNumberOfSubtasks();
+		final int subtasksPerInstance = sourceVertex.getNumberOfSubtasksPerInstance();
+		final String targetName = targetVertex.getName();
+		
+		// --------------------------- create the sampler ---------------------------
+		final JobTaskVertex sampler = new JobTaskVertex("Range Sampler (" + targetName + ")", this.jobGraph);
+		sampler.setTaskClass(RegularPactTask.class);
+		sampler.setNumberOfSubtasks(dop);
+		sampler.setNumberOfSubtasksPerInstance(subtasksPerInstance);
+		this.auxVertices.add(sampler);
+		
+		// the samples travel to the boundary task together with their weights
+		@SuppressWarnings("unchecked")
+		final Class<WeightedSample<Record>> sampleType = (Class<WeightedSample<Record>>) (Class<?>) WeightedSample.class;
+		final TypeSerializerFactory<WeightedSample<Record>> sampleSerializer =
+			new RuntimeStatefulSerializerFactory<WeightedSample<Record>>(
+				new WeightedSampleSerializer<Record>(((RecordSerializerFactory) serializer).getSerializer()), sampleType);
+		
+		final TaskConfig samplerConfig = new TaskConfig(sampler.getConfiguration());
+		samplerConfig.setDriver(ReservoirSamplingDriver.class);
+		samplerConfig.setDriverStrategy(DriverStrategy.SAMPLE);
+		samplerConfig.setSampleSize(this.rangePartitionSampleSize);
+		samplerConfig.setInputSerializer(serializer, 0);
+		samplerConfig.addInputToGroup(0);
+		samplerConfig.setOutputSerializer(sampleSerializer);
+		
+		// ------------------------ create the boundary task ------------------------
+		final JobTaskVertex boundaries = new JobTaskVertex("Range Boundaries (" + targetName + ")", this.jobGraph);
+		boundaries.setTaskClass(RegularPactTask.class);
+		boundaries.setNumberOfSubtasks(1);
+		this.auxVertices.add(boundaries);
+		
+		final TaskConfig boundariesConfig = new TaskConfig(boundaries.getConfiguration());
+		boundariesConfig.setDriver(RangeBoundaryDriver.class);
+		boundariesConfig.setDriverStrategy(DriverStrategy.RANGE_BOUNDARIES);
+		boundariesConfig.setDriverComparator(channel.getShipStrategyComparator(), 0);
+		boundariesConfig.setNumRangePartitions(targetVertex.getNumberOfSubtasks());
+		boundariesConfig.setInputSerializer(sampleSerializer, 0);
+		boundariesConfig.addInputToGroup(0);
+		boundariesConfig.setOutputSerializer(serializer);
+		
+		// ------------------------- create the partitioner -------------------------
+		final JobTaskVertex partitioner = new JobTaskVertex("Range Partitioner (" + targetName + ")", this.jobGraph);
+		partitioner.setTaskClass(RegularPactTask.class);
+		partitioner.setNumberOfSubtasks(dop);
+		partitioner.setNumberOfSubtasksPerInstance(subtasksPerInstance);
+		this.auxVertices.add(partitioner);
+		
+		final TaskConfig partitionerConfig = new TaskConfig(partitioner.getConfiguration());
+		partitionerConfig.setDriver(NoOpDriver.class);
+		partitionerConfig.setDriverStrategy(DriverStrategy.UNARY_NO_OP);
+		partitionerConfig.setInputSerializer(serializer, 0);
+		partitionerConfig.addInputToGroup(0);
+		partitionerConfig.setInputAsynchronouslyMaterialized(0, true);
+		partitionerConfig.setInputMaterializationMemory(0, materializationMemory);
+		partitionerConfig.setBroadcastInputSerializer(serializer, 0);
+		partitionerConfig.addBroadcastInputToGroup(0);
+		partitionerConfig.setBroadcastInputName(RANGE_BOUNDARIES_BROADCAST_NAME, 0);
+		partitionerConfig.setOutputSerializer(serializer);
+		
+		// -------------------------- connect the vertices --------------------------
+		// the data input of the partitioner must be connected before its broadcast input
+		if (sourceConfig.getNumOutputs() == 0) {
+			sourceConfig.setOutputSerializer(serializer);
+		}
+		sourceVertex.connectTo(partitioner, ChannelType.NETWORK, CompressionCodec.NONE, DistributionPattern.POINTWISE);
+		sourceConfig.addOutputShipStrategy(ShipStrategyType.FORWARD);
+		sourceVertex.connectTo(sampler, ChannelType.NETWORK, CompressionCodec.NONE, DistributionPattern.POINTWISE);
+		sourceConfig.addOutputShipStrategy(ShipStrategyType.FORWARD);
+		
+		sampler.connectTo(boundaries, ChannelType.NETWORK, CompressionCodec.NONE, DistributionPattern.BIPARTITE);
+		samplerConfig.addOutputShipStrategy(ShipStrategyType.PARTITION_RANDOM);
+		
+		boundaries.connectTo(partitioner, ChannelType.NETWORK, CompressionCodec.NONE, DistributionPattern.BIPARTITE);
+		boundariesConfig.addOutputShipStrategy(ShipStrategyType.BROADCAST);
+		
+		partitioner.connectTo(targetVertex, ChannelType.NETWORK, getCompressionCodec(channel), DistributionPattern.BIPARTITE);
+		setBufferTimeout(partitioner, channel);
+		partitionerConfig.addOutputShipStrategy(ShipStrategyType.PARTITION_RANGE);
+		partitionerConfig.setOutputComparator(channel.getShipStrategyComparator(), 0);
+		partitionerConfig.setOutputDataDistribution(new SampledDataDistribution(RANGE_BOUNDARIES_BROADCAST_NAME,
+			keyComparator.getKeyPositions(), keyComparator.getKeyTypes()), 0);
+		
+		targetConfig.addInputToGroup(inputNumber);
+		return DistributionPattern.BIPARTITE;
+	}
+	
+	/**
+	 * Determines the codec that the network channels for the given repartitioning or broadcasting channel
+	 * compress their buffers with. A codec set on the channel takes precedence over a hint on the receiving
+	 * operator, which takes precedence over the configured default.
+	 */
+	private CompressionCodec getCompressionCodec(Channel channel) throws CompilerException {
+		if (channel.getCompressionCodec() != null) {
+			return channel.getCompressionCodec();
+		}
+		
+		final String hint = channel.getTarget().getPactContract().getParameters().getString(
+			PactCompiler.HINT_NETWORK_COMPRESSION, null);
+		if (hint == null) {
+			return this.defaultCompressionCodec;
+		}
+		try {
+			return CompressionCodec.valueOf(hint.toUpperCase());
+		} catch (IllegalArgumentException iaex) {
+			throw new CompilerException("Unrecognized network compression hint: " + hint);
+		}
+	}
+	
+	/**
+	 * Sets the buffer timeout for the given channel on the edge that was last connected from the given vertex.
+	 * A hint on the receiving operator takes precedence over the timeout of the program, which takes precedence
+	 * over the configured default.
+	 */
+	private void setBufferTimeout(AbstractJobVertex sourceVertex, Channel channel) throws CompilerException {
+		long timeout = Plan.BUFFER_TIMEOUT_DEFAULT;
+		final String hint = channel.getTarget().getPactContract().getParameters().getString(
+			PactCompiler.HINT_NETWORK_BUFFER_TIMEOUT, null);
+		if (hint != null) {
+			try {
+				timeout = Long.parseLong(hint.trim());
+			} catch (NumberFormatException nfex) {
+				throw new CompilerException("Unrecognized network buffer timeout hint: " + hint);
+			}
+			if (timeout < Plan.BUFFER_TIMEOUT_FULL_BUFFERS) {
+				throw new CompilerException("Invalid network buffer timeout hint: " + hint);
+			}
+		}
+		if (timeout == Plan.BUFFER_TIMEOUT_DEFAULT) {
+			timeout = this.jobBufferTimeout == Plan.BUFFER_TIMEOUT_DEFAULT ? this.defaultBufferTimeout : this.jobBufferTimeout;
+		}
+		
+		final JobEdge edge = sourceVertex.getForwardConnection(sourceVertex.getNumberOfForwardConnections() - 1);
+		edge.setBufferTimeout(timeout);
+	}
+	
 	private void addLocalInfoFromChannelToConfig(Channel channel, TaskConfig config, int inputNum, boolean isBroadcastChannel) {
 		// serializer
 		if (isBroadcastChannel) {
@@ -0,0 +1,105 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2013 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.pact.compiler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+import eu.stratosphere.api.common.Plan;
+import eu.stratosphere.api.java.record.operators.FileDataSink;
+import eu.stratosphere.api.java.record.operators.FileDataSource;
+import eu.stratosphere.api.java.record.operators.ReduceOperator;
+import eu.stratosphere.compiler.plan.OptimizedPlan;
+import eu.stratosphere.compiler.plantranslate.NepheleJobGraphGenerator;
+import eu.stratosphere.configuration.ConfigConstants;
+import eu.stratosphere.configuration.Configuration;
+import eu.stratosphere.nephele.jobgraph.AbstractJobVertex;
+import eu.stratosphere.nephele.jobgraph.JobGraph;
+import eu.stratosphere.pact.compiler.util.DummyInputFormat;
+import eu.stratosphere.pact.compiler.util.DummyOutputFormat;
+import eu.stratosphere.pact.compiler.util.IdentityReduce;
+import eu.stratosphere.util.StringUtils;
+
+/**
+ * Tests that the buffer timeout of a program is resolved against the configured default.
+ */
+@SuppressWarnings("serial")
+public class BufferTimeoutTranslationTest extends CompilerTestBase {
+
+	private static final long CONFIGURED_TIMEOUT = 50;
+
+	@Test
+	public void testConfiguredDefault() {
+		try {
+			JobGraph jobGraph = translate(getPlan(Plan.BUFFER_TIMEOUT_DEFAULT));
+			assertEdgeTimeouts(jobGraph, CONFIGURED_TIMEOUT);
+		} catch (Exception e) {
+			e.printStackTrace();
+			fail(StringUtils.stringifyException(e));
+		}
+	}
+
+	@Test
+	public void testFullBuffersOverrideConfiguredDefault() {
+		try {
+			JobGraph jobGraph = translate(getPlan(Plan.BUFFER_TIMEOUT_FULL_BUFFERS));
+			assertEdgeTimeouts(jobGraph, Plan.BUFFER_TIMEOUT_FULL_BUFFERS);
+		} catch (Exception e) {
+			e.printStackTrace();
+			fail(StringUtils.stringifyException(e));
+		}
+	}
+
+	@Test
+	public void testExplicitTimeout() {
+		try {
+			JobGraph jobGraph = translate(getPlan(0));
+			assertEdgeTimeouts(jobGraph, 0);
+		} catch (Exception e) {
+			e.printStackTrace();
+			fail(StringUtils.stringifyException(e));
+		}
+	}
+
+	private Plan getPlan(long bufferTimeout) {
+		FileDataSource source = new FileDataSource(new DummyInputFormat(), IN_FILE, "Source");
+		ReduceOperator reduce = ReduceOperator.builder(new IdentityReduce()).name("Reduce").input(source).build();
+		FileDataSink sink = new FileDataSink(new DummyOutputFormat(), OUT_FILE, "Sink");
+		sink.setInput(reduce);
+		Plan plan = new Plan(sink, "Buffer Timeout Test");
+		plan.setDefaultParallelism(DEFAULT_PARALLELISM);
+		plan.setBufferTimeout(bufferTimeout);
+		return plan;
+	}
+
+	private JobGraph translate(Plan plan) {
+		Configuration config = new Configuration();
+		config.setLong(ConfigConstants.NETWORK_BUFFER_TIMEOUT_KEY, CONFIGURED_TIMEOUT);
+		OptimizedPlan oPlan = compileNoStats(plan);
+		return new NepheleJobGraphGenerator(config).compileJobGraph(oPlan);
+	}
+
+	private static void assertEdgeTimeouts(JobGraph jobGraph, long expected) {
+		int numEdges = 0;
+		for (AbstractJobVertex vertex : jobGraph.getAllJobVertices()) {
+			for (int i = 0; i < vertex.getNumberOfForwardConnections(); i++) {
+				assertEquals(expected, vertex.getForwardConnection(i).getBufferTimeout());
+				numEdges++;
+			}
+		}
+		assertEquals(2, numEdges);
+	}
+}
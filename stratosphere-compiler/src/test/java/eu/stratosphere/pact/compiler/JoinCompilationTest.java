@@ -0,0 +1,159 @@
+/***********************************************************************************************************************
+ *
+ * Copyright (C) 2010-2013 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ **********************************************************************************************************************/
+
+package eu.stratosphere.pact.compiler;
+
+import static org.junit.Assert.*;
+
+import java.util.Iterator;
+
+import org.junit.Test;
+
+import eu.stratosphere.api.common.Plan;
+import eu.stratosphere.api.common.operators.Operator;
+import eu.stratosphere.api.java.DataSet;
+import eu.stratosphere.api.java.ExecutionEnvironment;
+import eu.stratosphere.api.java.tuple.Tuple2;
+import eu.stratosphere.compiler.PactCompiler;
+import eu.stratosphere.compiler.plan.DualInputPlanNode;
+import eu.stratosphere.compiler.plan.OptimizedPlan;
+import eu.stratosphere.compiler.plantranslate.NepheleJobGraphGenerator;
+import eu.stratosphere.nephele.jobgraph.JobGraph;
+import eu.stratosphere.nephele.jobgraph.JobTaskVertex;
+import eu.stratosphere.pact.runtime.shipping.ShipStrategyType;
+import eu.stratosphere.pact.runtime.task.DriverStrategy;
+import eu.stratosphere.pact.runtime.task.util.TaskConfig;
+
+/**
+ * Tests that the compiler plans the filters that hash joins publish over their build side keys
+ * to the producers of their probe side.
+ */
+@SuppressWarnings("serial")
+public class JoinCompilationTest extends CompilerTestBase {
+
+	@Test
+	public void testRepartitionHashJoinUsesJoinFilter() {
+		try {
+			Plan p = createJoinPlan(PactCompiler.HINT_SHIP_STRATEGY_REPARTITION_HASH, PactCompiler.HINT_SHIP_STRATEGY_REPARTITION_HASH,
+				PactCompiler.HINT_LOCAL_STRATEGY_HASH_BUILD_FIRST);
+			OptimizedPlan op = compileNoStats(p);
+			
+			DualInputPlanNode joinNode = getOptimizerPlanNodeResolver(op).getNode("join");
+			assertEquals(DriverStrategy.HYBRIDHASH_BUILD_FIRST, joinNode.getDriverStrategy());
+			assertEquals(ShipStrategyType.PARTITION_HASH, joinNode.getInput1().getShipStrategy());
+			assertEquals(ShipStrategyType.PARTITION_HASH, joinNode.getInput2().getShipStrategy());
+			assertTrue(joinNode.isUseJoinFilter());
+			
+			// the flag must reach the task configuration
+			assertTrue(getJoinTaskConfig(op).getUseJoinFilter());
+		}
+		catch (Exception e) {
+			System.err.println(e.getMessage());
+			e.printStackTrace();
+			fail(e.getClass().getSimpleName() + " in test: " + e.getMessage());
+		}
+	}
+	
+	@Test
+	public void testBuildSecondRepartitionHashJoinUsesJoinFilter() {
+		try {
+			Plan p = createJoinPlan(PactCompiler.HINT_SHIP_STRATEGY_REPARTITION_HASH, PactCompiler.HINT_SHIP_STRATEGY_REPARTITION_HASH,
+				PactCompiler.HINT_LOCAL_STRATEGY_HASH_BUILD_SECOND);
+			OptimizedPlan op = compileNoStats(p);
+			
+			DualInputPlanNode joinNode = getOptimizerPlanNodeResolver(op).getNode("join");
+			assertEquals(DriverStrategy.HYBRIDHASH_BUILD_SECOND, joinNode.getDriverStrategy());
+			assertTrue(joinNode.isUseJoinFilter());
+			assertTrue(getJoinTaskConfig(op).getUseJoinFilter());
+		}
+		catch (Exception e) {
+			System.err.println(e.getMessage());
+			e.printStackTrace();
+			fail(e.getClass().getSimpleName() + " in test: " + e.getMessage());
+		}
+	}
+	
+	@Test
+	public void testBroadcastHashJoinUsesNoJoinFilter() {
+		try {
+			Plan p = createJoinPlan(PactCompiler.HINT_SHIP_STRATEGY_BROADCAST, PactCompiler.HINT_SHIP_STRATEGY_FORWARD,
+				PactCompiler.HINT_LOCAL_STRATEGY_HASH_BUILD_FIRST);
+			OptimizedPlan op = compileNoStats(p);
+			
+			DualInputPlanNode joinNode = getOptimizerPlanNodeResolver(op).getNode("join");
+			assertEquals(DriverStrategy.HYBRIDHASH_BUILD_FIRST, joinNode.getDriverStrategy());
+			assertEquals(ShipStrategyType.BROADCAST, joinNode.getInput1().getShipStrategy());
+			assertFalse(joinNode.isUseJoinFilter());
+			assertFalse(getJoinTaskConfig(op).getUseJoinFilter());
+		}
+		catch (Exception e) {
+			System.err.println(e.getMessage());
+			e.printStackTrace();
+			fail(e.getClass().getSimpleName() + " in test: " + e.getMessage());
+		}
+	}
+	
+	@Test
+	public void testSortMergeJoinUsesNoJoinFilter() {
+		try {
+			Plan p = createJoinPlan(PactCompiler.HINT_SHIP_STRATEGY_REPARTITION_HASH, PactCompiler.HINT_SHIP_STRATEGY_REPARTITION_HASH,
+				PactCompiler.HINT_LOCAL_STRATEGY_SORT_BOTH_MERGE);
+			OptimizedPlan op = compileNoStats(p);
+			
+			DualInputPlanNode joinNode = getOptimizerPlanNodeResolver(op).getNode("join");
+			assertEquals(DriverStrategy.MERGE, joinNode.getDriverStrategy());
+			assertFalse(joinNode.isUseJoinFilter());
+			assertFalse(getJoinTaskConfig(op).getUseJoinFilter());
+		}
+		catch (Exception e) {
+			System.err.println(e.getMessage());
+			e.printStackTrace();
+			fail(e.getClass().getSimpleName() + " in test: " + e.getMessage());
+		}
+	}
+	
+	// --------------------------------------------------------------------------------------------
+	
+	private static Plan createJoinPlan(String shipStrategy1, String shipStrategy2, String localStrategy) {
+		ExecutionEnvironment env = ExecutionEnvironment.getExecutionEnvironment();
+		env.setDegreeOfParallelism(DEFAULT_PARALLELISM);
+		
+		DataSet<Tuple2<Long, Long>> set1 = env.readCsvFile(IN_FILE).types(Long.class, Long.class).name("source1");
+		DataSet<Tuple2<Long, Long>> set2 = env.readCsvFile(IN_FILE).types(Long.class, Long.class).name("source2");
+		
+		set1.join(set2).where(0).equalTo(1).name("join")
+			.print().name("sink");
+		
+		Plan p = env.createProgramPlan();
+		
+		Operator<?> join = getContractResolver(p).getNode("join");
+		join.setParameter(PactCompiler.HINT_SHIP_STRATEGY_FIRST_INPUT, shipStrategy1);
+		join.setParameter(PactCompiler.HINT_SHIP_STRATEGY_SECOND_INPUT, shipStrategy2);
+		join.setParameter(PactCompiler.HINT_LOCAL_STRATEGY, localStrategy);
+		return p;
+	}
+	
+	private static TaskConfig getJoinTaskConfig(OptimizedPlan op) {
+		JobGraph jobGraph = new NepheleJobGraphGenerator().compileJobGraph(op);
+		
+		for (Iterator<JobTaskVertex> vertices = jobGraph.getTaskVertices(); vertices.hasNext(); ) {
+			JobTaskVertex vertex = vertices.next();
+			if (vertex.getName().startsWith("Join")) {
+				return new TaskConfig(vertex.getConfiguration());
+			}
+		}
+		throw new IllegalStateException("No join vertex in job graph.");
+	}
+}
@@ -0,0 +1,134 @@
+/***********************************************************************************************************************
+ *
+ * Copyright (C) 2010-2013 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ **********************************************************************************************************************/
+
+package eu.stratosphere.pact.compiler;
+
+import static org.junit.Assert.*;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import org.junit.Test;
+
+import eu.stratosphere.api.common.Plan;
+import eu.stratosphere.api.common.distributions.SimpleDistribution;
+import eu.stratosphere.api.common.operators.Order;
+import eu.stratosphere.api.common.operators.Ordering;
+import eu.stratosphere.api.java.record.operators.FileDataSink;
+import eu.stratosphere.api.java.record.operators.FileDataSource;
+import eu.stratosphere.compiler.plan.OptimizedPlan;
+import eu.stratosphere.compiler.plantranslate.NepheleJobGraphGenerator;
+import eu.stratosphere.nephele.jobgraph.JobGraph;
+import eu.stratosphere.nephele.jobgraph.JobTaskVertex;
+import eu.stratosphere.pact.compiler.util.DummyInputFormat;
+import eu.stratosphere.pact.compiler.util.DummyOutputFormat;
+import eu.stratosphere.pact.runtime.shipping.SampledDataDistribution;
+import eu.stratosphere.pact.runtime.shipping.ShipStrategyType;
+import eu.stratosphere.pact.runtime.task.DriverStrategy;
+import eu.stratosphere.pact.runtime.task.util.TaskConfig;
+import eu.stratosphere.types.LongValue;
+
+/**
+ * Tests that range partitionings without a data distribution are translated into a sampling pre-pass that
+ * determines the partition boundaries at runtime.
+ */
+public class RangePartitionCompilationTest extends CompilerTestBase {
+
+	@Test
+	public void testGlobalSortWithoutDistributionIsSampled() {
+		try {
+			FileDataSource source = new FileDataSource(new DummyInputFormat(), IN_FILE, "Source");
+			FileDataSink sink = new FileDataSink(new DummyOutputFormat(), OUT_FILE, source, "Sink");
+			sink.setGlobalOrder(new Ordering(0, LongValue.class, Order.DESCENDING));
+			
+			Plan plan = new Plan(sink);
+			plan.setDefaultParallelism(DEFAULT_PARALLELISM);
+			OptimizedPlan op = compileNoStats(plan);
+			
+			Map<String, JobTaskVertex> vertices = getTaskVertices(new NepheleJobGraphGenerator().compileJobGraph(op));
+			ClassLoader cl = getClass().getClassLoader();
+			
+			JobTaskVertex sampler = vertices.get("Range Sampler");
+			assertNotNull(sampler);
+			assertEquals(DEFAULT_PARALLELISM, sampler.getNumberOfSubtasks());
+			TaskConfig samplerConfig = new TaskConfig(sampler.getConfiguration());
+			assertEquals(DriverStrategy.SAMPLE, samplerConfig.getDriverStrategy());
+			assertTrue(samplerConfig.getSampleSize() > 0);
+			
+			JobTaskVertex boundaries = vertices.get("Range Boundaries");
+			assertNotNull(boundaries);
+			assertEquals(1, boundaries.getNumberOfSubtasks());
+			TaskConfig boundariesConfig = new TaskConfig(boundaries.getConfiguration());
+			assertEquals(DriverStrategy.RANGE_BOUNDARIES, boundariesConfig.getDriverStrategy());
+			assertEquals(DEFAULT_PARALLELISM, boundariesConfig.getNumRangePartitions());
+			assertEquals(ShipStrategyType.BROADCAST, boundariesConfig.getOutputShipStrategy(0));
+			
+			JobTaskVertex partitioner = vertices.get("Range Partitioner");
+			assertNotNull(partitioner);
+			assertEquals(DEFAULT_PARALLELISM, partitioner.getNumberOfSubtasks());
+			TaskConfig partitionerConfig = new TaskConfig(partitioner.getConfiguration());
+			assertEquals(1, partitionerConfig.getNumBroadcastInputs());
+			assertTrue(partitionerConfig.isInputAsynchronouslyMaterialized(0));
+			assertTrue(partitionerConfig.getInputMaterializationMemory(0) > 0);
+			assertEquals(ShipStrategyType.PARTITION_RANGE, partitionerConfig.getOutputShipStrategy(0));
+			assertTrue(partitionerConfig.getOutputDataDistribution(0, cl) instanceof SampledDataDistribution);
+		}
+		catch (Exception e) {
+			System.err.println(e.getMessage());
+			e.printStackTrace();
+			fail(e.getClass().getSimpleName() + " in test: " + e.getMessage());
+		}
+	}
+	
+	@Test
+	public void testGlobalSortWithDistributionIsNotSampled() {
+		try {
+			FileDataSource source = new FileDataSource(new DummyInputFormat(), IN_FILE, "Source");
+			FileDataSink sink = new FileDataSink(new DummyOutputFormat(), OUT_FILE, source, "Sink");
+			sink.setGlobalOrder(new Ordering(0, LongValue.class, Order.ASCENDING),
+				new SimpleDistribution(new LongValue[] { new LongValue(100) }));
+			
+			Plan plan = new Plan(sink);
+			plan.setDefaultParallelism(2);
+			OptimizedPlan op = compileNoStats(plan);
+			
+			Map<String, JobTaskVertex> vertices = getTaskVertices(new NepheleJobGraphGenerator().compileJobGraph(op));
+			assertNull(vertices.get("Range Sampler"));
+			assertNull(vertices.get("Range Boundaries"));
+			assertNull(vertices.get("Range Partitioner"));
+		}
+		catch (Exception e) {
+			System.err.println(e.getMessage());
+			e.printStackTrace();
+			fail(e.getClass().getSimpleName() + " in test: " + e.getMessage());
+		}
+	}
+	
+	// --------------------------------------------------------------------------------------------
+	
+	private static Map<String, JobTaskVertex> getTaskVertices(JobGraph jobGraph) {
+		Map<String, JobTaskVertex> vertices = new HashMap<String, JobTaskVertex>();
+		for (Iterator<JobTaskVertex> iter = jobGraph.getTaskVertices(); iter.hasNext(); ) {
+			JobTaskVertex vertex = iter.next();
+			
+			// strip the name of the target task
+			String name = vertex.getName();
+			int pos = name.indexOf(" (");
+			vertices.put(pos < 0 ? name : name.substring(0, pos), vertex);
+		}
+		return vertices;
+	}
+}
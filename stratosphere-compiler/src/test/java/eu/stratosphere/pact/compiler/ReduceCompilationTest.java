@@ -18,6 +18,7 @@ package eu.stratosphere.pact.compiler;
 import org.junit.Test;
 
 import eu.stratosphere.api.common.Plan;
+import eu.stratosphere.api.common.operators.SingleInputOperator;
 import eu.stratosphere.api.common.operators.util.FieldList;
 import eu.stratosphere.api.java.DataSet;
 import eu.stratosphere.api.java.ExecutionEnvironment;
@@ -29,6 +30,7 @@ import eu.stratosphere.compiler.plan.SingleInputPlanNode;
 import eu.stratosphere.compiler.plan.SinkPlanNode;
 import eu.stratosphere.compiler.plan.SourcePlanNode;
 import eu.stratosphere.pact.runtime.task.DriverStrategy;
+import eu.stratosphere.pact.runtime.task.util.LocalStrategy;
 import static org.junit.Assert.*;
 
 @SuppressWarnings("serial")
@@ -254,4 +256,56 @@ public class ReduceCompilationTest extends CompilerTestBase implements java.io.S
 			fail(e.getClass().getSimpleName() + " in test: " + e.getMessage());
 		}
 	}
+	
+	@Test
+	public void testGroupedReduceStrategiesFromKeyCardinality() {
+		try {
+			// few keys, every combiner sees each key many times and the aggregates fit into a hash table
+			SingleInputPlanNode reduceNode = getReducerForEstimates(6000000, 200);
+			SingleInputPlanNode combineNode = (SingleInputPlanNode) reduceNode.getInput().getSource();
+			assertEquals(DriverStrategy.HASHED_REDUCE, reduceNode.getDriverStrategy());
+			assertEquals(LocalStrategy.NONE, reduceNode.getInput().getLocalStrategy());
+			assertEquals(DriverStrategy.HASHED_PARTIAL_REDUCE, combineNode.getDriverStrategy());
+			
+			// almost unique keys
+			reduceNode = getReducerForEstimates(6000000, 5000000);
+			combineNode = (SingleInputPlanNode) reduceNode.getInput().getSource();
+			assertEquals(DriverStrategy.SORTED_REDUCE, reduceNode.getDriverStrategy());
+			assertEquals(LocalStrategy.SORT, reduceNode.getInput().getLocalStrategy());
+			assertEquals(DriverStrategy.SORTED_PARTIAL_REDUCE, combineNode.getDriverStrategy());
+		}
+		catch (Exception e) {
+			System.err.println(e.getMessage());
+			e.printStackTrace();
+			fail(e.getClass().getSimpleName() + " in test: " + e.getMessage());
+		}
+	}
+	
+	private SingleInputPlanNode getReducerForEstimates(long numRecords, long numKeys) {
+		ExecutionEnvironment env = ExecutionEnvironment.getExecutionEnvironment();
+		env.setDegreeOfParallelism(8);
+		
+		DataSet<Tuple2<String, Double>> data = env.readCsvFile("file:///will/never/be/read").types(String.class, Double.class)
+			.name("source").setParallelism(6);
+		
+		data
+			.groupBy(0)
+			.reduce(new ReduceFunction<Tuple2<String,Double>>() {
+			@Override
+			public Tuple2<String, Double> reduce(Tuple2<String, Double> value1, Tuple2<String, Double> value2){
+				return null;
+			}
+		}).name("reducer")
+		.print().name("sink");
+		
+		Plan p = env.createProgramPlan();
+		
+		// the output cardinality of a reducer is its number of distinct keys
+		SingleInputOperator<?, ?, ?> reducer = (SingleInputOperator<?, ?, ?>) p.getDataSinks().iterator().next().getInput();
+		reducer.getCompilerHints().setOutputCardinality(numKeys);
+		reducer.getInput().getCompilerHints().setOutputCardinality(numRecords);
+		
+		OptimizedPlan op = compileNoStats(p);
+		return getOptimizerPlanNodeResolver(op).getNode("reducer");
+	}
 }
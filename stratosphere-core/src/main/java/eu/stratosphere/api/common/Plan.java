@@ -45,6 +45,16 @@ public class Plan implements Visitable<Operator<?>> {
 
 	private static final int DEFAULT_PARALELLISM = -1;
 	
+	/**
+	 * The buffer timeout with which network channels ship a buffer only when it is full.
+	 */
+	public static final long BUFFER_TIMEOUT_FULL_BUFFERS = -1;
+	
+	/**
+	 * The buffer timeout that leaves the choice to the globally configured default.
+	 */
+	public static final long BUFFER_TIMEOUT_DEFAULT = -2;
+	
 	/**
 	 * A collection of all sinks in the plan. Since the plan is traversed from the sinks to the sources, this
 	 * collection must contain all the sinks.
@@ -66,6 +76,13 @@ public class Plan implements Visitable<Operator<?>> {
 	 */
 	protected int maxNumberMachines;
 
+	/**
+	 * The maximum time in milliseconds that network channels hold a partially filled buffer,
+	 * {@link #BUFFER_TIMEOUT_FULL_BUFFERS} to ship only full buffers, or {@link #BUFFER_TIMEOUT_DEFAULT}
+	 * for the configured default.
+	 */
+	protected long bufferTimeout = BUFFER_TIMEOUT_DEFAULT;
+
 	protected HashMap<String, String> cacheFile = new HashMap<String, String>();
 
 	// ------------------------------------------------------------------------
@@ -275,6 +292,33 @@ public class Plan implements Visitable<Operator<?>> {
 		this.defaultParallelism = defaultParallelism;
 	}
 	
+	/**
+	 * Gets the maximum time in milliseconds that the network channels of this job hold a partially filled buffer
+	 * before they ship it.
+	 *
+	 * @return The buffer timeout, {@link #BUFFER_TIMEOUT_FULL_BUFFERS} if only full buffers are shipped, or
+	 *         {@link #BUFFER_TIMEOUT_DEFAULT} if the globally configured default is used.
+	 */
+	public long getBufferTimeout() {
+		return this.bufferTimeout;
+	}
+	
+	/**
+	 * Sets the maximum time in milliseconds that the network channels of this job hold a partially filled buffer
+	 * before they ship it. Lower values reduce the latency of streaming programs, at the cost of shipping more,
+	 * smaller buffers. A value of zero ships a buffer after every record.
+	 *
+	 * @param bufferTimeout The buffer timeout, {@link #BUFFER_TIMEOUT_FULL_BUFFERS} to ship only full buffers, or
+	 *                      {@link #BUFFER_TIMEOUT_DEFAULT} to use the globally configured default.
+	 */
+	public void setBufferTimeout(long bufferTimeout) {
+		checkArgument(bufferTimeout >= BUFFER_TIMEOUT_DEFAULT,
+			"The buffer timeout must be at least zero, -1 if only full buffers should be shipped, "
+				+ "or -2 if the system should use the globally configured default.");
+		
+		this.bufferTimeout = bufferTimeout;
+	}
+	
 	/**
 	 * Gets the optimizer post-pass class for this job. The post-pass typically creates utility classes
 	 * for data types and is specific to a particular data model (record, tuple, Scala, ...)
@@ -301,7 +301,14 @@ public abstract class BinaryInputFormat<T extends IOReadableWritable> extends Fi
 
 		private void skipHeader() throws IOException {
 			byte[] dummy = new byte[BinaryInputFormat.this.blockInfo.getInfoSize()];
-			this.in.read(dummy, 0, dummy.length);
+			// streams such as the memory-mapped one may return fewer bytes than requested
+			for (int off = 0; off < dummy.length;) {
+				int read = this.in.read(dummy, off, dummy.length - off);
+				if (read < 0) {
+					break;
+				}
+				off += read;
+			}
 			this.blockPos = 0;
 		}
 
@@ -0,0 +1,298 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2013 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.api.common.io;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import eu.stratosphere.core.fs.FSDataInputStream;
+
+/**
+ * A stream that decompresses a split of a block-compressed gzip file, as written by <i>bgzip</i>. Such a file is a
+ * concatenation of gzip members of at most 64 KiBytes each, whose headers carry the compressed size of the member
+ * in an extra field. Any member can be decompressed on its own, which makes the file splittable.
+ * <p>
+ * The split is defined on the compressed bytes: It consists of all members that start within its range. The stream
+ * starts with the first of these members. Its uncompressed length is not known before the members are decompressed,
+ * so readers tell the end of the split by {@link #isPastSplitEnd()} instead of counting bytes. A single read never
+ * returns bytes of more than one member. Reading beyond the split continues with the following members, such that
+ * records crossing the end of the split can be completed, exactly as for uncompressed files.
+ * <p>
+ * The stream can not seek within the decompressed data. The only supported position is the start of the split,
+ * before the first read, where the stream is positioned anyways. Any other position is rejected with an
+ * {@link IOException}.
+ */
+public class BlockGzipInputStreamFSInputWrapper extends FSDataInputStream {
+
+	/**
+	 * The maximal size of a member, compressed or uncompressed.
+	 */
+	private static final int MAX_BLOCK_SIZE = 64 * 1024;
+
+	private static final int HEADER_SIZE = 18;
+
+	private static final int FOOTER_SIZE = 8;
+
+	private final FSDataInputStream inStream;
+
+	private final long fileLength;
+
+	private final long splitStart;
+
+	private final long splitEnd;
+
+	private final byte[] compressed = new byte[MAX_BLOCK_SIZE];
+
+	private final byte[] uncompressed = new byte[MAX_BLOCK_SIZE];
+
+	private final Inflater inflater = new Inflater(true);
+
+	private final CRC32 crc = new CRC32();
+
+	private long nextMember;
+
+	private long currentMember;
+
+	private int position;
+
+	private int limit;
+
+	private boolean started;
+
+	/**
+	 * Creates a stream that decompresses the given split of a block-compressed file.
+	 * 
+	 * @param inStream The stream to the compressed file.
+	 * @param splitStart The offset of the split in the compressed file.
+	 * @param splitLength The length of the split in the compressed file.
+	 * @param fileLength The length of the compressed file.
+	 * @throws IOException Thrown, if the file could not be read or is not block-compressed.
+	 */
+	public BlockGzipInputStreamFSInputWrapper(FSDataInputStream inStream, long splitStart, long splitLength,
+			long fileLength) throws IOException
+	{
+		this.inStream = inStream;
+		this.fileLength = fileLength;
+		this.splitStart = splitStart;
+		this.splitEnd = splitStart + splitLength;
+
+		final long firstMember = findFirstMember(splitStart);
+		this.nextMember = firstMember;
+		this.currentMember = firstMember;
+		if (firstMember < fileLength) {
+			this.inStream.seek(firstMember);
+		}
+	}
+
+	/**
+	 * Checks whether the bytes returned by the last read belong to a member that starts at or after the end of the
+	 * split. Such bytes are only needed to complete a record that started within the split.
+	 * 
+	 * @return True, if the last read went past the end of the split, false otherwise.
+	 */
+	public boolean isPastSplitEnd() {
+		return this.started && this.currentMember >= this.splitEnd;
+	}
+
+	// --------------------------------------------------------------------------------------------
+
+	/**
+	 * Seeks to the given position, which must be the start of the split. The stream is positioned there initially,
+	 * so this is only accepted before the first read.
+	 * 
+	 * @throws IOException Thrown, if the position is not the start of the split or the stream has been read from.
+	 */
+	@Override
+	public void seek(long desired) throws IOException {
+		if (desired != this.splitStart || this.started) {
+			throw new IOException("Block-compressed streams can only seek to the start of their split (" +
+					this.splitStart + ") before the first read, but seek to " + desired + " was requested.");
+		}
+	}
+
+	@Override
+	public int read() throws IOException {
+		if (this.position >= this.limit && !nextBlock()) {
+			return -1;
+		}
+		return this.uncompressed[this.position++] & 0xff;
+	}
+
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException {
+		if (len == 0) {
+			return 0;
+		}
+		if (this.position >= this.limit && !nextBlock()) {
+			return -1;
+		}
+
+		final int toRead = Math.min(len, this.limit - this.position);
+		System.arraycopy(this.uncompressed, this.position, b, off, toRead);
+		this.position += toRead;
+		return toRead;
+	}
+
+	@Override
+	public int available() throws IOException {
+		return this.limit - this.position;
+	}
+
+	@Override
+	public void close() throws IOException {
+		this.inflater.end();
+		this.inStream.close();
+	}
+
+	// --------------------------------------------------------------------------------------------
+
+	/**
+	 * Decompresses the next non-empty member into the buffer.
+	 * 
+	 * @return True, if a member was decompressed, false if the end of the file is reached.
+	 */
+	private boolean nextBlock() throws IOException {
+		this.started = true;
+
+		while (this.nextMember < this.fileLength) {
+			readFully(this.compressed, 0, HEADER_SIZE);
+			final int blockSize = getBlockSize(this.compressed, 0);
+			if (blockSize < 0) {
+				throw new IOException("Corrupt block-compressed file: No member header at position " + this.nextMember);
+			}
+			readFully(this.compressed, HEADER_SIZE, blockSize - HEADER_SIZE);
+
+			final int footer = blockSize - FOOTER_SIZE;
+			final int expectedCrc = getInt(this.compressed, footer);
+			final int expectedSize = getInt(this.compressed, footer + 4);
+			if (expectedSize < 0 || expectedSize > MAX_BLOCK_SIZE) {
+				throw new IOException("Corrupt block-compressed file: Invalid member size at position " + this.nextMember);
+			}
+
+			this.inflater.reset();
+			this.inflater.setInput(this.compressed, HEADER_SIZE, footer - HEADER_SIZE);
+			int size = 0;
+			try {
+				while (size < expectedSize && !this.inflater.finished()) {
+					final int inflated = this.inflater.inflate(this.uncompressed, size, expectedSize - size);
+					if (inflated == 0 && (this.inflater.needsInput() || this.inflater.needsDictionary())) {
+						break;
+					}
+					size += inflated;
+				}
+			}
+			catch (DataFormatException dfex) {
+				throw new IOException("Corrupt block-compressed file: " + dfex.getMessage(), dfex);
+			}
+
+			this.crc.reset();
+			this.crc.update(this.uncompressed, 0, size);
+			if (size != expectedSize || (int) this.crc.getValue() != expectedCrc) {
+				throw new IOException("Corrupt block-compressed file: Checksum mismatch in member at position " +
+						this.nextMember);
+			}
+
+			this.currentMember = this.nextMember;
+			this.nextMember += blockSize;
+			this.position = 0;
+			this.limit = size;
+			if (size > 0) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Finds the first member that starts at or after the given position. Because members are at most 64 KiBytes
+	 * large, a member starts within the first 64 KiBytes after any position, unless the file ends before. A member
+	 * header is accepted if it is followed by another header or by the end of the file, which makes it very unlikely
+	 * to mistake compressed data for a header.
+	 */
+	private long findFirstMember(long from) throws IOException {
+		if (from == 0) {
+			if (this.fileLength > 0) {
+				this.inStream.seek(0);
+				readFully(this.compressed, 0, (int) Math.min(HEADER_SIZE, this.fileLength));
+				if (this.fileLength < HEADER_SIZE || getBlockSize(this.compressed, 0) < 0) {
+					throw new IOException("The file is not block-compressed: It does not start with a member header.");
+				}
+			}
+			return 0;
+		}
+		if (from >= this.fileLength) {
+			return this.fileLength;
+		}
+
+		final int windowSize = (int) Math.min(MAX_BLOCK_SIZE + HEADER_SIZE, this.fileLength - from);
+		final byte[] window = new byte[windowSize];
+		this.inStream.seek(from);
+		readFully(window, 0, windowSize);
+
+		final byte[] nextHeader = new byte[HEADER_SIZE];
+		for (int i = 0; i <= windowSize - HEADER_SIZE; i++) {
+			final int blockSize = getBlockSize(window, i);
+			if (blockSize < 0) {
+				continue;
+			}
+			final long candidate = from + i;
+			final long next = candidate + blockSize;
+			if (next == this.fileLength) {
+				return candidate;
+			} else if (next + HEADER_SIZE <= this.fileLength) {
+				this.inStream.seek(next);
+				readFully(nextHeader, 0, HEADER_SIZE);
+				if (getBlockSize(nextHeader, 0) >= 0) {
+					return candidate;
+				}
+			}
+		}
+		return this.fileLength;
+	}
+
+	/**
+	 * Checks for a member header at the given position and returns the compressed size of the member.
+	 * 
+	 * @return The size of the member including header and footer, or <code>-1</code>, if there is no header.
+	 */
+	private static int getBlockSize(byte[] b, int off) {
+		if (b[off] == (byte) 0x1f && b[off + 1] == (byte) 0x8b && b[off + 2] == 8 && b[off + 3] == 4 &&
+				b[off + 10] == 6 && b[off + 11] == 0 && b[off + 12] == 'B' && b[off + 13] == 'C' &&
+				b[off + 14] == 2 && b[off + 15] == 0)
+		{
+			final int blockSize = ((b[off + 16] & 0xff) | ((b[off + 17] & 0xff) << 8)) + 1;
+			return blockSize >= HEADER_SIZE + FOOTER_SIZE ? blockSize : -1;
+		} else {
+			return -1;
+		}
+	}
+
+	private static int getInt(byte[] b, int off) {
+		return (b[off] & 0xff) | ((b[off + 1] & 0xff) << 8) | ((b[off + 2] & 0xff) << 16) | ((b[off + 3] & 0xff) << 24);
+	}
+
+	private void readFully(byte[] b, int off, int len) throws IOException {
+		while (len > 0) {
+			final int read = this.inStream.read(b, off, len);
+			if (read < 0) {
+				throw new EOFException("Unexpected end of the block-compressed file.");
+			}
+			off += read;
+			len -= read;
+		}
+	}
+}
@@ -33,6 +33,7 @@ import eu.stratosphere.core.fs.FileInputSplit;
 import eu.stratosphere.core.fs.FileStatus;
 import eu.stratosphere.core.fs.FileSystem;
 import eu.stratosphere.core.fs.Path;
+import eu.stratosphere.util.ByteScanner;
 
 /**
  * Base implementation for input formats that split the input at a delimiter into records.
@@ -342,6 +343,13 @@ public abstract class DelimitedInputFormat<OT> extends FileInputFormat<OT> {
 				return stats;
 			}
 			
+			// the sampled record widths of block-compressed files are uncompressed, while the total size is not
+			for (FileStatus file : allFiles) {
+				if (isBlockCompressed(file.getPath())) {
+					return stats;
+				}
+			}
+			
 			// compute how many samples to take, depending on the defined upper and lower bound
 			final int numSamples;
 			if (this.numLineSamples != NUM_SAMPLES_UNDEFINED) {
@@ -527,13 +535,23 @@ public abstract class DelimitedInputFormat<OT> extends FileInputFormat<OT> {
 			int startPos = this.readPos;
 			int count = 0;
 
-			while (this.readPos < this.limit && i < this.delimiter.length) {
-				if ((this.readBuffer[this.readPos++]) == this.delimiter[i]) {
-					i++;
+			if (this.delimiter.length == 1) {
+				// the common case of a single byte delimiter, searched for eight bytes at a time
+				final int delimPos = ByteScanner.indexOf(this.readBuffer, this.readPos, this.limit, this.delimiter[0]);
+				if (delimPos >= 0) {
+					this.readPos = delimPos + 1;
+					i = 1;
 				} else {
-					i = 0;
+					this.readPos = this.limit;
+				}
+			} else {
+				while (this.readPos < this.limit && i < this.delimiter.length) {
+					if ((this.readBuffer[this.readPos++]) == this.delimiter[i]) {
+						i++;
+					} else {
+						i = 0;
+					}
 				}
-
 			}
 
 			// check why we dropped out
@@ -596,6 +614,12 @@ public abstract class DelimitedInputFormat<OT> extends FileInputFormat<OT> {
 				this.stream = null;
 				return false;
 			} else {
+				// block-compressed splits end with the last block that starts within their compressed range
+				if (this.stream instanceof BlockGzipInputStreamFSInputWrapper &&
+						((BlockGzipInputStreamFSInputWrapper) this.stream).isPastSplitEnd())
+				{
+					this.overLimit = true;
+				}
 				this.readPos = 0;
 				this.limit = read;
 				return true;
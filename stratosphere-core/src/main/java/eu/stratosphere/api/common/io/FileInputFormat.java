@@ -92,6 +92,13 @@ public abstract class FileInputFormat<OT> implements InputFormat<OT, FileInputSp
 	 */
 	protected static final String DEFLATE_SUFFIX = ".deflate";
 	
+	/**
+	 * Files with that suffix are block-compressed gzip files (as written by <i>bgzip</i>), which are
+	 * splittable, because each block can be decompressed on its own. Their streams can not seek, so
+	 * only formats that read their splits sequentially, like the {@link DelimitedInputFormat}, can read them.
+	 */
+	protected static final String BLOCK_GZIP_SUFFIX = ".bgz";
+	
 	/**
 	 * The splitLength is set to -1L for reading the whole split.
 	 */
@@ -533,6 +540,17 @@ public abstract class FileInputFormat<OT> implements InputFormat<OT, FileInputSp
 		return false;
 	}
 
+	/**
+	 * Checks whether the given file is block-compressed. Such files are split like uncompressed files,
+	 * but the splits are decompressed when they are read.
+	 * 
+	 * @param path The path of the file.
+	 * @return True, if the file is block-compressed, false otherwise.
+	 */
+	protected static boolean isBlockCompressed(Path path) {
+		return path.getName().endsWith(BLOCK_GZIP_SUFFIX);
+	}
+
 	/**
 	 * A simple hook to filter files and directories from the input.
 	 * The method may be overridden. Hadoop's FileInputFormat has a similar mechanism and applies the
@@ -610,6 +628,15 @@ public abstract class FileInputFormat<OT> implements InputFormat<OT, FileInputSp
 			if(fileSplit.getPath().getName().endsWith(DEFLATE_SUFFIX)) {
 				this.stream = new InflaterInputStreamFSInputWrapper(stream);
 			}
+			// block-compressed splits are read from their first block. their uncompressed length is not known up
+			// front, the stream tells when the split is exhausted
+			else if (isBlockCompressed(fileSplit.getPath())) {
+				final long fileLength = fileSplit.getPath().getFileSystem().getFileStatus(fileSplit.getPath()).getLen();
+				final long compressedLength = this.splitLength == READ_WHOLE_SPLIT_FLAG ? fileLength : this.splitLength;
+				
+				this.stream = new BlockGzipInputStreamFSInputWrapper(this.stream, this.splitStart, compressedLength, fileLength);
+				this.splitLength = READ_WHOLE_SPLIT_FLAG;
+			}
 			
 		}
 		catch (Throwable t) {
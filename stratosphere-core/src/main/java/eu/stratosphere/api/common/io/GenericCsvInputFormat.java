@@ -22,6 +22,7 @@ import com.google.common.primitives.Ints;
 import eu.stratosphere.core.fs.FileInputSplit;
 import eu.stratosphere.core.fs.Path;
 import eu.stratosphere.types.parser.FieldParser;
+import eu.stratosphere.util.ByteScanner;
 import eu.stratosphere.util.InstantiationUtil;
 
 
@@ -283,7 +284,19 @@ public abstract class GenericCsvInputFormat<OT> extends DelimitedInputFormat<OT>
 				// parse field
 				FieldParser<Object> parser = (FieldParser<Object>) this.fieldParsers[output];
 				Object reuse = holders[output];
-				startPos = parser.parseField(bytes, startPos, limit, this.fieldDelim, reuse);
+				
+				// unquoted fields end at the next delimiter, which is found up front, so that the parser
+				// only sees the field's bytes. quoted fields may contain the delimiter and are left to the parser
+				final int fieldEnd = isQuoted(bytes, startPos, limit) ? -1 : 
+						ByteScanner.indexOf(bytes, startPos, limit, (byte) this.fieldDelim);
+				if (fieldEnd >= 0) {
+					startPos = parser.parseField(bytes, startPos, fieldEnd, this.fieldDelim, reuse);
+					if (startPos >= 0) {
+						startPos = fieldEnd + 1;
+					}
+				} else {
+					startPos = parser.parseField(bytes, startPos, limit, this.fieldDelim, reuse);
+				}
 				holders[output] = parser.getLastResult();
 				
 				// check parse result
@@ -369,10 +382,21 @@ public abstract class GenericCsvInputFormat<OT> extends DelimitedInputFormat<OT>
 		}
 		else {
 			// unquoted field
-			while (i < limit && bytes[i] != delByte) {
-				i++;
-			}
-			return (i == limit ? limit : i+1);
+			final int delimPos = ByteScanner.indexOf(bytes, i, limit, delByte);
+			return (delimPos < 0 ? limit : delimPos+1);
+		}
+	}
+	
+	/**
+	 * Checks whether the field starting at the given position is quoted, i.e., whether its first character
+	 * that is not a whitespace is a double quote.
+	 */
+	private static boolean isQuoted(byte[] bytes, int startPos, int limit) {
+		int i = startPos;
+		byte current;
+		while (i < limit && ((current = bytes[i]) == ' ' || current == '\t')) {
+			i++;
 		}
+		return i < limit && bytes[i] == '"';
 	}
 }
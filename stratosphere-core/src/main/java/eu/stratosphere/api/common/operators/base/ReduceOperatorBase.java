@@ -32,6 +32,32 @@ import eu.stratosphere.api.common.operators.util.UserCodeWrapper;
  */
 public class ReduceOperatorBase<T, FT extends GenericReduce<T>> extends SingleInputOperator<T, T, FT> {
 
+	/**
+	 * An enumeration of hints, optionally usable to tell the system how to execute the combiner
+	 * that pre-reduces the data before it is shipped to the reducers.
+	 */
+	public static enum CombineHint {
+		
+		/**
+		 * Leave the choice how to do the combine to the optimizer.
+		 */
+		OPTIMIZER_CHOOSES,
+		
+		/**
+		 * Hint that the combiner should sort its input and reduce the sorted groups.
+		 */
+		SORT,
+		
+		/**
+		 * Hint that the combiner should aggregate the records in a hash table. This is typically
+		 * faster than sorting if the number of distinct keys is small compared to the number of records.
+		 */
+		HASH
+	}
+	
+	private CombineHint combineHint = CombineHint.OPTIMIZER_CHOOSES;
+	
+
 	/**
 	 * Creates a grouped reduce data flow operator.
 	 * 
@@ -104,4 +130,27 @@ public class ReduceOperatorBase<T, FT extends GenericReduce<T>> extends SingleIn
 	public ReduceOperatorBase(Class<? extends FT> udf, UnaryOperatorInformation<T, T> operatorInfo, String name) {
 		super(new UserCodeClassWrapper<FT>(udf), operatorInfo, name);
 	}
+	
+	// --------------------------------------------------------------------------------------------
+	
+	/**
+	 * Sets the hint that tells the optimizer how to execute the combiner of this reduce operation.
+	 * 
+	 * @param combineHint The hint for the combine strategy.
+	 */
+	public void setCombineHint(CombineHint combineHint) {
+		if (combineHint == null) {
+			throw new NullPointerException("The combine hint must not be null.");
+		}
+		this.combineHint = combineHint;
+	}
+	
+	/**
+	 * Gets the hint that tells the optimizer how to execute the combiner of this reduce operation.
+	 * 
+	 * @return The hint for the combine strategy.
+	 */
+	public CombineHint getCombineHint() {
+		return this.combineHint;
+	}
 }
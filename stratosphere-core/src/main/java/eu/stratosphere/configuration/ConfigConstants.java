@@ -86,6 +86,13 @@ public final class ConfigConstants {
 	 * The key for the config parameter defining whether the memory manager allocates memory lazy.
 	 */
 	public static final String TASK_MANAGER_MEMORY_LAZY_ALLOCATION_KEY = "taskmanager.memory.lazyalloc";
+
+	/**
+	 * The key for the config parameter defining whether the memory manager allocates its memory outside the
+	 * Java heap. Off-heap memory is not covered by the heap fraction, so its size should be given explicitly
+	 * via {@link #TASK_MANAGER_MEMORY_SIZE_KEY}, and the JVM's maximum direct memory size must allow for it.
+	 */
+	public static final String TASK_MANAGER_MEMORY_OFF_HEAP_KEY = "taskmanager.memory.off-heap";
 	
 	
 	/**
@@ -98,6 +105,13 @@ public final class ConfigConstants {
 	 * The config parameter defining the size of the buffers used in the network stack.
 	 */
 	public static final String TASK_MANAGER_NETWORK_BUFFER_SIZE_KEY = "taskmanager.network.bufferSizeInBytes";
+
+	/**
+	 * The key for the config parameter defining whether the buffers of the network stack are allocated outside the
+	 * Java heap. Direct buffers spare the socket reads and writes a copy, but count against the JVM's maximum
+	 * direct memory size.
+	 */
+	public static final String TASK_MANAGER_NETWORK_OFF_HEAP_KEY = "taskmanager.network.off-heap";
 	
 	/**
 	 * Parameter for the interval in which the RaskManager sends the periodic heart beat messages
@@ -130,6 +144,41 @@ public final class ConfigConstants {
 	 */
 	public static final String USE_MULTICAST_FOR_BROADCAST = "taskmanager.runtime.multicast-for-broadcast";
 	
+	/**
+	 * The config parameter defining whether the hybrid hash join builds bloom filters for the spilled
+	 * partitions, in order to drop probe-side records that cannot match before they are spilled.
+	 */
+	public static final String HASH_JOIN_BLOOM_FILTERS_KEY = "taskmanager.runtime.hashjoin-bloom-filters";
+	
+	/**
+	 * The config parameter defining whether the solution set of delta iterations spills partitions to disk
+	 * when it exceeds its memory, rather than failing.
+	 */
+	public static final String SOLUTION_SET_SPILLING_KEY = "taskmanager.runtime.solutionset-spilling";
+	
+	/**
+	 * The config parameter defining whether the parallel tasks of an operator that run on the same task manager
+	 * share a single materialized copy of each broadcast variable.
+	 */
+	public static final String SHARED_BROADCAST_VARIABLES_KEY = "taskmanager.runtime.shared-broadcast-variables";
+	
+	/**
+	 * The config parameter defining the codec used to compress the data that sorters and hash joins spill to disk.
+	 */
+	public static final String SPILL_COMPRESSION_CODEC_KEY = "taskmanager.runtime.spill-compression-codec";
+	
+	/**
+	 * The config parameter defining the number of reader threads and writer threads that serve each
+	 * temp directory of the task manager's I/O manager.
+	 */
+	public static final String IO_THREADS_PER_PATH_KEY = "taskmanager.runtime.io-threads-per-path";
+	
+	/**
+	 * The config parameter defining the number of threads with which each sorter sorts its in-memory buffers,
+	 * unless the task configuration specifies otherwise.
+	 */
+	public static final String SORT_THREADS_KEY = "taskmanager.runtime.sort-threads";
+	
 	/**
 	 * The parameter defining the polling interval (in seconds) for the JobClient.
 	 */
@@ -166,6 +215,11 @@ public final class ConfigConstants {
 	 */
 	public static final String FILESYSTEM_OUTPUT_ALWAYS_CREATE_DIRECTORY_KEY = "fs.output.always-create-directory";
 
+	/**
+	 * Key to specify whether files of the local file system are read through a memory mapping.
+	 */
+	public static final String FILESYSTEM_LOCAL_MEMORY_MAPPED_KEY = "fs.local.memory-mapped";
+
 	// ---------------------------- Compiler -------------------------------
 
 	/**
@@ -184,6 +238,25 @@ public final class ConfigConstants {
 	 * The maximum length of a single sampled record before the sampling is aborted.
 	 */
 	public static final String DELIMITED_FORMAT_MAX_SAMPLE_LENGTH_KEY = "compiler.delimited-informat.max-sample-len";
+
+	/**
+	 * The codec that network channels which repartition or broadcast data compress their buffers with, if the
+	 * receiving operator gives no hint. Valid values are <code>NONE</code> and <code>LZ4</code>.
+	 */
+	public static final String NETWORK_COMPRESSION_CODEC_KEY = "compiler.network.compression-codec";
+
+	/**
+	 * The maximum time in milliseconds that network channels hold a partially filled buffer before they ship it,
+	 * if neither the program nor the receiving operator set one. A value of <code>0</code> ships a buffer after
+	 * every record, <code>-1</code> ships buffers only when they are full.
+	 */
+	public static final String NETWORK_BUFFER_TIMEOUT_KEY = "compiler.network.buffer-timeout";
+
+	/**
+	 * The number of records that each parallel instance samples from its output, when the compiler determines the
+	 * boundaries for a range partitioning for which the program gives no data distribution.
+	 */
+	public static final String RANGE_PARTITION_SAMPLE_SIZE_KEY = "compiler.range-partition.sample-size";
 	
 	
 	// ------------------------- JobManager Web Frontend ----------------------
@@ -308,6 +381,11 @@ public final class ConfigConstants {
 	 * The default setting for the memory manager lazy allocation feature.
 	 */
 	public static final boolean DEFAULT_TASK_MANAGER_MEMORY_LAZY_ALLOCATION = false;
+	
+	/**
+	 * The default setting for the memory manager's off-heap memory: the memory is allocated on the heap.
+	 */
+	public static final boolean DEFAULT_TASK_MANAGER_MEMORY_OFF_HEAP = false;
 
 	/**
 	 * Default number of buffers used in the network stack.
@@ -318,6 +396,11 @@ public final class ConfigConstants {
 	 * Default size of network stack buffers.
 	 */
 	public static final int DEFAULT_TASK_MANAGER_NETWORK_BUFFER_SIZE = 32768;
+
+	/**
+	 * The default setting for the network stack's buffers: the buffers are allocated on the heap.
+	 */
+	public static final boolean DEFAULT_TASK_MANAGER_NETWORK_OFF_HEAP = false;
 	
 	/**
 	 * The default interval for TaskManager heart beats (2000 msecs).
@@ -350,6 +433,36 @@ public final class ConfigConstants {
 	 */
 	public static final boolean DEFAULT_USE_MULTICAST_FOR_BROADCAST = false;
 	
+	/**
+	 * The default setting for the bloom filters of the hybrid hash join: disabled.
+	 */
+	public static final boolean DEFAULT_HASH_JOIN_BLOOM_FILTERS = false;
+	
+	/**
+	 * The default setting for spilling the solution set of delta iterations: enabled.
+	 */
+	public static final boolean DEFAULT_SOLUTION_SET_SPILLING = true;
+	
+	/**
+	 * The default setting for sharing broadcast variables among the tasks of a task manager: enabled.
+	 */
+	public static final boolean DEFAULT_SHARED_BROADCAST_VARIABLES = true;
+	
+	/**
+	 * The default codec for data spilled to disk: none, the data is written uncompressed.
+	 */
+	public static final String DEFAULT_SPILL_COMPRESSION_CODEC = "NONE";
+	
+	/**
+	 * The default number of reader threads and writer threads per temp directory: one each.
+	 */
+	public static final int DEFAULT_IO_THREADS_PER_PATH = 1;
+	
+	/**
+	 * The default number of threads that sort the in-memory buffers of a sorter: a single thread.
+	 */
+	public static final int DEFAULT_SORT_THREADS = 1;
+	
 	
 	// ------------------------ File System Bahavior ------------------------
 
@@ -362,6 +475,11 @@ public final class ConfigConstants {
 	 * The default behavior for output directory creating (create only directory when parallelism > 1).
 	 */
 	public static final boolean DEFAULT_FILESYSTEM_ALWAYS_CREATE_DIRECTORY = false;
+
+	/**
+	 * The default behavior for reading local files (read through streams, not memory-mapped).
+	 */
+	public static final boolean DEFAULT_FILESYSTEM_LOCAL_MEMORY_MAPPED = false;
 	
 	
 	// ---------------------------- Compiler -------------------------------
@@ -381,6 +499,21 @@ public final class ConfigConstants {
 	 */
 	public static final int DEFAULT_DELIMITED_FORMAT_MAX_SAMPLE_LEN = 2 * 1024 * 1024;
 	
+	/**
+	 * The default codec for repartitioning and broadcasting network channels: no compression.
+	 */
+	public static final String DEFAULT_NETWORK_COMPRESSION_CODEC = "NONE";
+	
+	/**
+	 * The default buffer timeout for network channels: buffers are shipped only when they are full.
+	 */
+	public static final long DEFAULT_NETWORK_BUFFER_TIMEOUT = -1;
+	
+	/**
+	 * The default number of records sampled per parallel instance to determine range partition boundaries.
+	 */
+	public static final int DEFAULT_RANGE_PARTITION_SAMPLE_SIZE = 1000;
+	
 	
 	// ------------------------- JobManager Web Frontend ----------------------
 	
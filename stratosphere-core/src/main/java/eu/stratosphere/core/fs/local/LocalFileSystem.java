@@ -29,6 +29,8 @@ import java.net.UnknownHostException;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
+import eu.stratosphere.configuration.ConfigConstants;
+import eu.stratosphere.configuration.GlobalConfiguration;
 import eu.stratosphere.core.fs.BlockLocation;
 import eu.stratosphere.core.fs.FSDataInputStream;
 import eu.stratosphere.core.fs.FSDataOutputStream;
@@ -132,7 +134,12 @@ public class LocalFileSystem extends FileSystem {
 
 		final File file = pathToFile(f);
 
-		return new LocalDataInputStream(file);
+		if (GlobalConfiguration.getBoolean(ConfigConstants.FILESYSTEM_LOCAL_MEMORY_MAPPED_KEY,
+				ConfigConstants.DEFAULT_FILESYSTEM_LOCAL_MEMORY_MAPPED)) {
+			return new LocalMappedDataInputStream(file);
+		} else {
+			return new LocalDataInputStream(file);
+		}
 	}
 
 
@@ -0,0 +1,265 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2013 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.core.fs.local;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+import eu.stratosphere.core.fs.FSDataInputStream;
+
+/**
+ * The <code>LocalMappedDataInputStream</code> reads a file of the local file system through a memory mapping
+ * of the file. The file is mapped in regions of limited size, which are replaced as the stream moves on.
+ * Reads are served directly from the mapped region (and thus the operating system's page cache), without
+ * a system call and the copy into a user buffer that goes along with it.
+ * <p>
+ * A region is unmapped as soon as the stream moves past it or is closed, rather than when the garbage collector
+ * collects it, so that closing the stream releases the file. The stream assumes that the file is not changed while
+ * it is read.
+ */
+public class LocalMappedDataInputStream extends FSDataInputStream {
+
+	/**
+	 * The maximum size of a region that is mapped at a time.
+	 */
+	static final int MAX_REGION_SIZE = 64 * 1024 * 1024;
+
+	/**
+	 * The file from which the channel was obtained, kept to close it.
+	 */
+	private final RandomAccessFile file;
+
+	/**
+	 * The channel through which the regions are mapped.
+	 */
+	private final FileChannel channel;
+
+	/**
+	 * The size of the file, determined when the stream is opened.
+	 */
+	private final long fileSize;
+
+	/**
+	 * The size of the regions that are mapped.
+	 */
+	private final int regionSize;
+
+	/**
+	 * The currently mapped region, or <code>null</code>, if the region must be mapped before the next read.
+	 */
+	private MappedByteBuffer region;
+
+	/**
+	 * The position in the file at which the current region starts.
+	 */
+	private long regionStart;
+
+	/**
+	 * The position in the file from which the next read happens, valid only while no region is mapped.
+	 */
+	private long nextPosition;
+
+	/**
+	 * Constructs a new <code>LocalMappedDataInputStream</code> object from a given {@link File} object.
+	 * 
+	 * @param file
+	 *        the {@link File} object the data stream is read from
+	 * @throws IOException
+	 *         thrown if the data input stream cannot be created
+	 */
+	public LocalMappedDataInputStream(final File file) throws IOException {
+		this(file, MAX_REGION_SIZE);
+	}
+
+	/**
+	 * Constructs a new <code>LocalMappedDataInputStream</code> object from a given {@link File} object, mapping
+	 * regions of the given size.
+	 * 
+	 * @param file
+	 *        the {@link File} object the data stream is read from
+	 * @param regionSize
+	 *        the size of the regions that are mapped at a time
+	 * @throws IOException
+	 *         thrown if the data input stream cannot be created
+	 */
+	LocalMappedDataInputStream(final File file, final int regionSize) throws IOException {
+		if (regionSize <= 0) {
+			throw new IllegalArgumentException("The region size must be positive.");
+		}
+
+		this.file = new RandomAccessFile(file, "r");
+		this.channel = this.file.getChannel();
+		this.fileSize = this.channel.size();
+		this.regionSize = regionSize;
+	}
+
+
+	@Override
+	public void seek(final long desired) throws IOException {
+
+		if (desired < 0) {
+			throw new IOException("Cannot seek to a negative position.");
+		}
+
+		if (this.region != null && desired >= this.regionStart && desired <= this.regionStart + this.region.limit()) {
+			this.region.position((int) (desired - this.regionStart));
+		} else {
+			releaseRegion();
+			this.nextPosition = desired;
+		}
+	}
+
+
+	@Override
+	public int read() throws IOException {
+
+		if (ensureRemaining()) {
+			return this.region.get() & 0xff;
+		} else {
+			return -1;
+		}
+	}
+
+
+	@Override
+	public int read(final byte[] buffer, final int offset, final int length) throws IOException {
+
+		if (length == 0) {
+			return 0;
+		}
+		if (!ensureRemaining()) {
+			return -1;
+		}
+
+		final int toRead = Math.min(length, this.region.remaining());
+		this.region.get(buffer, offset, toRead);
+		return toRead;
+	}
+
+
+	@Override
+	public void close() throws IOException {
+
+		if (this.region != null) {
+			this.nextPosition = getPosition();
+			releaseRegion();
+		}
+		this.file.close();
+	}
+
+
+	@Override
+	public int available() throws IOException {
+		return (int) Math.min(Integer.MAX_VALUE, this.fileSize - getPosition());
+	}
+
+
+	@Override
+	public long skip(final long n) throws IOException {
+
+		if (n <= 0) {
+			return 0;
+		}
+
+		final long position = getPosition();
+		final long skipped = Math.min(n, Math.max(0, this.fileSize - position));
+		seek(position + skipped);
+		return skipped;
+	}
+
+	/**
+	 * Gets the position in the file from which the next byte is read.
+	 * 
+	 * @return The current position in the file.
+	 */
+	public long getPosition() {
+		return this.region == null ? this.nextPosition : this.regionStart + this.region.position();
+	}
+
+	/**
+	 * Makes sure that the current region has bytes remaining, mapping the next region if necessary.
+	 * 
+	 * @return True, if bytes remain, false if the end of the file is reached.
+	 * @throws IOException Thrown, if the next region could not be mapped.
+	 */
+	private boolean ensureRemaining() throws IOException {
+
+		if (this.region != null) {
+			if (this.region.hasRemaining()) {
+				return true;
+			}
+			this.nextPosition = this.regionStart + this.region.limit();
+			releaseRegion();
+		}
+
+		if (this.nextPosition >= this.fileSize) {
+			return false;
+		}
+
+		final long size = Math.min(this.regionSize, this.fileSize - this.nextPosition);
+		this.region = this.channel.map(FileChannel.MapMode.READ_ONLY, this.nextPosition, size);
+		this.regionStart = this.nextPosition;
+		return true;
+	}
+
+	/**
+	 * Unmaps the current region. The region is never handed out of this stream, so no reference to it remains.
+	 */
+	private void releaseRegion() {
+
+		final MappedByteBuffer region = this.region;
+		this.region = null;
+		if (region != null) {
+			unmap(region);
+		}
+	}
+
+	/**
+	 * Unmaps the given buffer right away. Java offers no public way to do this, so the buffer's cleaner is invoked
+	 * through reflection, via <code>sun.misc.Unsafe</code> on Java 9 and later. If neither is available, the
+	 * buffer is unmapped when it is garbage collected.
+	 * 
+	 * @param buffer
+	 *        the buffer to unmap, which must not be used afterwards
+	 */
+	private static void unmap(final MappedByteBuffer buffer) {
+
+		try {
+			final Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+			cleanerMethod.setAccessible(true);
+			final Object cleaner = cleanerMethod.invoke(buffer);
+			if (cleaner != null) {
+				cleaner.getClass().getMethod("clean").invoke(cleaner);
+			}
+			return;
+		} catch (Throwable t) {
+			// not available on this JVM, try the next way
+		}
+
+		try {
+			final Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+			final Field unsafeField = unsafeClass.getDeclaredField("theUnsafe");
+			unsafeField.setAccessible(true);
+			unsafeClass.getMethod("invokeCleaner", ByteBuffer.class).invoke(unsafeField.get(null), buffer);
+		} catch (Throwable t) {
+			// leave the buffer to the garbage collector
+		}
+	}
+}
@@ -21,8 +21,11 @@ import java.nio.ByteOrder;
 
 /**
  * This class represents a piece of memory allocated from the memory manager. The segment is backed
- * by a byte array and features random put and get methods for the basic types that are stored in a byte-wise
- * fashion in the memory.
+ * either by a byte array on the heap, or by a direct byte buffer outside the heap, and features random put and
+ * get methods for the basic types that are stored in a byte-wise fashion in the memory. Both kinds of segments
+ * are accessed through the same code paths: all accesses go through the "unsafe" with a base object (the byte
+ * array, or null for off-heap memory) and an address (the array base offset, or the native address of the
+ * buffer), so that sorters, hash tables and I/O channels work on either kind without copying.
  * 
  * <p>
  * 
@@ -68,10 +71,25 @@ public class MemorySegment {
 	private static final boolean CHECKED = true;
 	
 	/**
-	 * The array in which the data is stored.
+	 * The array in which the data is stored, or null, if the segment is backed by off-heap memory.
 	 */
 	protected byte[] memory;
 	
+	/**
+	 * The direct buffer that holds the data, or null, if the segment is backed by a byte array.
+	 */
+	protected ByteBuffer offHeapBuffer;
+	
+	/**
+	 * The address of the first byte, relative to the byte array, or absolute for off-heap memory.
+	 */
+	protected long address;
+	
+	/**
+	 * The size of the segment in bytes. Zero, once the segment has been freed.
+	 */
+	protected int size;
+	
 	/**
 	 * Wrapper for I/O requests.
 	 */
@@ -88,6 +106,32 @@ public class MemorySegment {
 	 */
 	public MemorySegment(byte[] memory) {
 		this.memory = memory;
+		this.address = BASE_OFFSET;
+		this.size = memory.length;
+	}
+	
+	/**
+	 * Creates a new memory segment that represents the data in the given byte buffer, between its position zero
+	 * and its capacity. The data is accessed in place, the segment does not copy it. A direct buffer gives an
+	 * off-heap segment. A heap buffer must span its entire backing array and gives a segment on that array.
+	 * 
+	 * @param buffer The byte buffer that holds the data.
+	 * @throws IllegalArgumentException Thrown, if the buffer is a heap buffer that covers only a part of its array.
+	 */
+	public MemorySegment(ByteBuffer buffer) {
+		if (buffer.isDirect()) {
+			this.offHeapBuffer = buffer;
+			this.address = MemoryUtils.getAddress(buffer);
+			this.size = buffer.capacity();
+		}
+		else if (buffer.hasArray() && buffer.arrayOffset() == 0 && buffer.capacity() == buffer.array().length) {
+			this.memory = buffer.array();
+			this.address = BASE_OFFSET;
+			this.size = this.memory.length;
+		}
+		else {
+			throw new IllegalArgumentException("A heap buffer must span its entire backing array.");
+		}
 	}
 
 	// -------------------------------------------------------------------------
@@ -101,7 +145,16 @@ public class MemorySegment {
 	 * @return True, if the segment has been freed, false otherwise.
 	 */
 	public final boolean isFreed() {
-		return this.memory == null;
+		return this.memory == null && this.offHeapBuffer == null;
+	}
+	
+	/**
+	 * Checks whether this memory segment is backed by memory outside the Java heap.
+	 * 
+	 * @return True, if the segment is backed by off-heap memory, false if it is backed by a byte array.
+	 */
+	public final boolean isOffHeap() {
+		return this.offHeapBuffer != null;
 	}
 	
 	/**
@@ -111,7 +164,7 @@ public class MemorySegment {
 	 * @return The size in bytes.
 	 */
 	public final int size() {
-		return this.memory.length;
+		return this.size;
 	}
 
 	/**
@@ -125,18 +178,26 @@ public class MemorySegment {
 	 *                                   or if the offset plus the length is larger than the segment size.
 	 */
 	public ByteBuffer wrap(int offset, int length) {
-		if (offset > this.memory.length || offset > this.memory.length - length) {
+		if (isFreed()) {
+			// the I/O threads recognize segments that were freed asynchronously by this exception
+			throw new NullPointerException("The memory segment has been freed.");
+		}
+		if (offset > this.size || offset > this.size - length) {
 			throw new IndexOutOfBoundsException();
 		}
 		
 		if (this.wrapper == null) {
-			this.wrapper = ByteBuffer.wrap(this.memory, offset, length);
-		}
-		else {
-			this.wrapper.position(offset);
-			this.wrapper.limit(offset + length);
+			if (this.memory != null) {
+				this.wrapper = ByteBuffer.wrap(this.memory, offset, length);
+				return this.wrapper;
+			} else {
+				this.wrapper = this.offHeapBuffer.duplicate();
+			}
 		}
 		
+		// the limit must be set before the position, as the position must not exceed the limit
+		this.wrapper.limit(offset + length);
+		this.wrapper.position(offset);
 		return this.wrapper;
 	}
 
@@ -164,8 +225,13 @@ public class MemorySegment {
 	 * @throws IndexOutOfBoundsException Thrown, if the index is negative, or larger or equal to the size of
 	 *                                   the memory segment.
 	 */
+	@SuppressWarnings("restriction")
 	public final byte get(int index) {
-		return this.memory[index];
+		if (index >= 0 && index < this.size) {
+			return UNSAFE.getByte(this.memory, this.address + index);
+		} else {
+			throw new IndexOutOfBoundsException();
+		}
 	}
 
 	/**
@@ -177,8 +243,13 @@ public class MemorySegment {
 	 * @throws IndexOutOfBoundsException Thrown, if the index is negative, or larger or equal to the size of
 	 *                                   the memory segment.
 	 */
+	@SuppressWarnings("restriction")
 	public final void put(int index, byte b) {
-		this.memory[index] = b;
+		if (index >= 0 && index < this.size) {
+			UNSAFE.putByte(this.memory, this.address + index, b);
+		} else {
+			throw new IndexOutOfBoundsException();
+		}
 	}
 
 	/**
@@ -223,9 +294,18 @@ public class MemorySegment {
 	 *                                   bytes exceed the amount of memory between the index and the memory
 	 *                                   segment's end.
 	 */
+	@SuppressWarnings("restriction")
 	public final void get(int index, byte[] dst, int offset, int length) {
-		// system arraycopy does the boundary checks anyways, no need to check extra
-		System.arraycopy(this.memory, index, dst, offset, length);
+		if (this.memory != null) {
+			// system arraycopy does the boundary checks anyways, no need to check extra
+			System.arraycopy(this.memory, index, dst, offset, length);
+		}
+		else if ((index | offset | length) >= 0 && index <= this.size - length && offset <= dst.length - length) {
+			UNSAFE.copyMemory(null, this.address + index, dst, BASE_OFFSET + offset, length);
+		}
+		else {
+			throw new IndexOutOfBoundsException();
+		}
 	}
 
 	/**
@@ -242,9 +322,18 @@ public class MemorySegment {
 	 *                                   portion to copy exceed the amount of memory between the index and the memory
 	 *                                   segment's end.
 	 */
+	@SuppressWarnings("restriction")
 	public final void put(int index, byte[] src, int offset, int length) {
-		// system arraycopy does the boundary checks anyways, no need to check extra
-		System.arraycopy(src, offset, this.memory, index, length);
+		if (this.memory != null) {
+			// system arraycopy does the boundary checks anyways, no need to check extra
+			System.arraycopy(src, offset, this.memory, index, length);
+		}
+		else if ((index | offset | length) >= 0 && index <= this.size - length && offset <= src.length - length) {
+			UNSAFE.copyMemory(src, BASE_OFFSET + offset, null, this.address + index, length);
+		}
+		else {
+			throw new IndexOutOfBoundsException();
+		}
 	}
 
 	/**
@@ -258,7 +347,7 @@ public class MemorySegment {
 	 *                                   size minus 1.
 	 */
 	public final boolean getBoolean(int index) {
-		return this.memory[index] != 0;
+		return get(index) != 0;
 	}
 
 	/**
@@ -272,7 +361,7 @@ public class MemorySegment {
 	 *                                   size minus 1.
 	 */
 	public final void putBoolean(int index, boolean value) {
-		this.memory[index] = (byte) (value ? 1 : 0);
+		put(index, (byte) (value ? 1 : 0));
 	}
 
 	/**
@@ -286,8 +375,8 @@ public class MemorySegment {
 	 *                                   size minus 2.
 	 */
 	public final char getChar(int index) {
-		return (char) ( ((this.memory[index    ] & 0xff) << 8) | 
-						(this.memory[index + 1] & 0xff) );
+		return (char) ( ((get(index    ) & 0xff) << 8) | 
+						(get(index + 1) & 0xff) );
 	}
 
 	/**
@@ -301,8 +390,8 @@ public class MemorySegment {
 	 *                                   size minus 2.
 	 */
 	public final void putChar(int index, char value) {
-		this.memory[index    ] = (byte) (value >> 8);
-		this.memory[index + 1] = (byte) value;
+		put(index    , (byte) (value >> 8));
+		put(index + 1, (byte) value);
 	}
 
 	/**
@@ -317,8 +406,8 @@ public class MemorySegment {
 	 */
 	public final short getShort(int index) {
 		return (short) (
-				((this.memory[index    ] & 0xff) << 8) |
-				((this.memory[index + 1] & 0xff)) );
+				((get(index    ) & 0xff) << 8) |
+				((get(index + 1) & 0xff)) );
 	}
 
 	/**
@@ -332,8 +421,8 @@ public class MemorySegment {
 	 *                                   size minus 2.
 	 */
 	public final void putShort(int index, short value) {
-		this.memory[index    ] = (byte) (value >> 8);
-		this.memory[index + 1] = (byte) value;
+		put(index    , (byte) (value >> 8));
+		put(index + 1, (byte) value);
 	}
 	
 	/**
@@ -353,13 +442,13 @@ public class MemorySegment {
 	@SuppressWarnings("restriction")
 	public final int getInt(int index) {
 		if (CHECKED) {
-			if (index >= 0 && index <= this.memory.length - 4) {
-				return UNSAFE.getInt(this.memory, BASE_OFFSET + index);
+			if (index >= 0 && index <= this.size - 4) {
+				return UNSAFE.getInt(this.memory, this.address + index);
 			} else {
 				throw new IndexOutOfBoundsException();
 			}
 		} else {
-			return UNSAFE.getInt(this.memory, BASE_OFFSET + index);
+			return UNSAFE.getInt(this.memory, this.address + index);
 		}
 	}
 	
@@ -424,13 +513,13 @@ public class MemorySegment {
 	@SuppressWarnings("restriction")
 	public final void putInt(int index, int value) {
 		if (CHECKED) {
-			if (index >= 0 && index <= this.memory.length - 4) {
-				UNSAFE.putInt(this.memory, BASE_OFFSET + index, value);
+			if (index >= 0 && index <= this.size - 4) {
+				UNSAFE.putInt(this.memory, this.address + index, value);
 			} else {
 				throw new IndexOutOfBoundsException();
 			}
 		} else {
-			UNSAFE.putInt(this.memory, BASE_OFFSET + index, value);
+			UNSAFE.putInt(this.memory, this.address + index, value);
 		}
 	}
 	
@@ -495,13 +584,13 @@ public class MemorySegment {
 	@SuppressWarnings("restriction")
 	public final long getLong(int index) {
 		if (CHECKED) {
-			if (index >= 0 && index <= this.memory.length - 8) {
-				return UNSAFE.getLong(this.memory, BASE_OFFSET + index);
+			if (index >= 0 && index <= this.size - 8) {
+				return UNSAFE.getLong(this.memory, this.address + index);
 			} else {
 				throw new IndexOutOfBoundsException();
 			}
 		} else {
-			return UNSAFE.getLong(this.memory, BASE_OFFSET + index);
+			return UNSAFE.getLong(this.memory, this.address + index);
 		}
 	}
 	
@@ -566,13 +655,13 @@ public class MemorySegment {
 	@SuppressWarnings("restriction")
 	public final void putLong(int index, long value) {
 		if (CHECKED) {
-			if (index >= 0 && index <= this.memory.length - 8) {
-				UNSAFE.putLong(this.memory, BASE_OFFSET + index, value);
+			if (index >= 0 && index <= this.size - 8) {
+				UNSAFE.putLong(this.memory, this.address + index, value);
 			} else {
 				throw new IndexOutOfBoundsException();
 			}
 		} else {
-			UNSAFE.putLong(this.memory, BASE_OFFSET + index, value);
+			UNSAFE.putLong(this.memory, this.address + index, value);
 		}
 	}
 	
@@ -851,7 +940,19 @@ public class MemorySegment {
 	 * @throws IOException Thrown, if the DataOutput encountered a problem upon writing.
 	 */
 	public final void get(DataOutput out, int offset, int length) throws IOException {
-		out.write(this.memory, offset, length);
+		if (this.memory != null) {
+			out.write(this.memory, offset, length);
+		} else {
+			// off-heap memory goes through a small transfer buffer
+			final byte[] transfer = new byte[Math.min(length, TRANSFER_BUFFER_SIZE)];
+			while (length > 0) {
+				final int chunk = Math.min(length, transfer.length);
+				get(offset, transfer, 0, chunk);
+				out.write(transfer, 0, chunk);
+				offset += chunk;
+				length -= chunk;
+			}
+		}
 	}
 
 	/**
@@ -866,7 +967,19 @@ public class MemorySegment {
 	 *                     such as an End-Of-File.
 	 */
 	public final void put(DataInput in, int offset, int length) throws IOException {
-		in.readFully(this.memory, offset, length);
+		if (this.memory != null) {
+			in.readFully(this.memory, offset, length);
+		} else {
+			// off-heap memory goes through a small transfer buffer
+			final byte[] transfer = new byte[Math.min(length, TRANSFER_BUFFER_SIZE)];
+			while (length > 0) {
+				final int chunk = Math.min(length, transfer.length);
+				in.readFully(transfer, 0, chunk);
+				put(offset, transfer, 0, chunk);
+				offset += chunk;
+				length -= chunk;
+			}
+		}
 	}
 	
 	/**
@@ -885,8 +998,18 @@ public class MemorySegment {
 	 *           not have enough space for the bytes.
 	 */
 	public final void get(int offset, ByteBuffer target, int numBytes) {
-		// ByteBuffer performs the boundy checks
-		target.put(this.memory, offset, numBytes);
+		if (this.memory != null) {
+			// ByteBuffer performs the boundy checks
+			target.put(this.memory, offset, numBytes);
+		} else {
+			if (offset < 0 || numBytes < 0 || offset > this.size - numBytes) {
+				throw new IndexOutOfBoundsException();
+			}
+			final ByteBuffer source = this.offHeapBuffer.duplicate();
+			source.limit(offset + numBytes);
+			source.position(offset);
+			target.put(source);
+		}
 	}
 	
 	/**
@@ -907,8 +1030,22 @@ public class MemorySegment {
 	 *           not have enough space for the bytes (counting from offset).
 	 */
 	public final void put(int offset, ByteBuffer source, int numBytes) {
-		// ByteBuffer performs the boundy checks
-		source.get(this.memory, offset, numBytes);
+		if (this.memory != null) {
+			// ByteBuffer performs the boundy checks
+			source.get(this.memory, offset, numBytes);
+		} else {
+			if (offset < 0 || numBytes < 0 || offset > this.size - numBytes) {
+				throw new IndexOutOfBoundsException();
+			}
+			final ByteBuffer target = this.offHeapBuffer.duplicate();
+			target.limit(offset + numBytes);
+			target.position(offset);
+			
+			final ByteBuffer part = source.duplicate();
+			part.limit(part.position() + numBytes);
+			target.put(part);
+			source.position(source.position() + numBytes);
+		}
 	}
 	
 	/**
@@ -925,9 +1062,20 @@ public class MemorySegment {
 	 *           contain the given number of bytes (starting from offset), or the target segment does
 	 *           not have enough space for the bytes (counting from targetOffset).
 	 */
+	@SuppressWarnings("restriction")
 	public final void copyTo(int offset, MemorySegment target, int targetOffset, int numBytes) {
-		// system arraycopy does the boundary checks anyways, no need to check extra
-		System.arraycopy(this.memory, offset, target.memory, targetOffset, numBytes);
+		if (this.memory != null && target.memory != null) {
+			// system arraycopy does the boundary checks anyways, no need to check extra
+			System.arraycopy(this.memory, offset, target.memory, targetOffset, numBytes);
+		}
+		else if ((offset | targetOffset | numBytes) >= 0 && offset <= this.size - numBytes &&
+				targetOffset <= target.size - numBytes)
+		{
+			UNSAFE.copyMemory(this.memory, this.address + offset, target.memory, target.address + targetOffset, numBytes);
+		}
+		else {
+			throw new IndexOutOfBoundsException();
+		}
 	}
 	
 	// -------------------------------------------------------------------------
@@ -939,15 +1087,25 @@ public class MemorySegment {
 		final byte[] b2 = seg2.memory;
 		
 		int val = 0;
-		for (int pos = 0; pos < len && (val = (b1[offset1 + pos] & 0xff) - (b2[offset2 + pos] & 0xff)) == 0; pos++);
+		if (b1 != null && b2 != null) {
+			for (int pos = 0; pos < len && (val = (b1[offset1 + pos] & 0xff) - (b2[offset2 + pos] & 0xff)) == 0; pos++);
+		} else {
+			for (int pos = 0; pos < len && (val = (seg1.get(offset1 + pos) & 0xff) - (seg2.get(offset2 + pos) & 0xff)) == 0; pos++);
+		}
 		return val;
 	}
 	
 	public static final void swapBytes(MemorySegment seg1, MemorySegment seg2, byte[] tempBuffer, int offset1, int offset2, int len) {
-		// system arraycopy does the boundary checks anyways, no need to check extra
-		System.arraycopy(seg1.memory, offset1, tempBuffer, 0, len);
-		System.arraycopy(seg2.memory, offset2, seg1.memory, offset1, len);
-		System.arraycopy(tempBuffer, 0, seg2.memory, offset2, len);
+		if (seg1.memory != null && seg2.memory != null) {
+			// system arraycopy does the boundary checks anyways, no need to check extra
+			System.arraycopy(seg1.memory, offset1, tempBuffer, 0, len);
+			System.arraycopy(seg2.memory, offset2, seg1.memory, offset1, len);
+			System.arraycopy(tempBuffer, 0, seg2.memory, offset2, len);
+		} else {
+			seg1.get(offset1, tempBuffer, 0, len);
+			seg2.copyTo(offset2, seg1, offset1, len);
+			seg2.put(offset2, tempBuffer, 0, len);
+		}
 	}
 	
 	// --------------------------------------------------------------------------------------------
@@ -961,4 +1119,9 @@ public class MemorySegment {
 	private static final long BASE_OFFSET = UNSAFE.arrayBaseOffset(byte[].class);
 	
 	private static final boolean LITTLE_ENDIAN = (MemoryUtils.NATIVE_BYTE_ORDER == ByteOrder.LITTLE_ENDIAN);
+	
+	/**
+	 * The maximal size of the temporary arrays through which off-heap memory is copied to and from streams.
+	 */
+	private static final int TRANSFER_BUFFER_SIZE = 4096;
 }
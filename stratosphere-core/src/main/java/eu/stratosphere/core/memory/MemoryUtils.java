@@ -13,6 +13,8 @@
 package eu.stratosphere.core.memory;
 
 import java.lang.reflect.Field;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 
 /**
@@ -31,6 +33,26 @@ public class MemoryUtils {
 	 */
 	public static final ByteOrder NATIVE_BYTE_ORDER = getByteOrder();
 	
+	/**
+	 * The offset of the field in {@link java.nio.Buffer} that holds the native address of a direct buffer.
+	 */
+	private static final long BUFFER_ADDRESS_FIELD_OFFSET = getBufferAddressFieldOffset();
+	
+	/**
+	 * Gets the native address of the memory behind the given direct byte buffer.
+	 * 
+	 * @param buffer The direct byte buffer.
+	 * @return The native address of the buffer's first byte.
+	 * @throws IllegalArgumentException Thrown, if the buffer is not a direct buffer.
+	 */
+	@SuppressWarnings("restriction")
+	public static long getAddress(ByteBuffer buffer) {
+		if (!buffer.isDirect()) {
+			throw new IllegalArgumentException("The buffer is not a direct buffer.");
+		}
+		return UNSAFE.getLong(buffer, BUFFER_ADDRESS_FIELD_OFFSET);
+	}
+	
 	
 	@SuppressWarnings("restriction")
 	private static sun.misc.Unsafe getUnsafe() {
@@ -49,6 +71,15 @@ public class MemoryUtils {
 		}
 	}
 	
+	@SuppressWarnings("restriction")
+	private static long getBufferAddressFieldOffset() {
+		try {
+			return UNSAFE.objectFieldOffset(Buffer.class.getDeclaredField("address"));
+		} catch (NoSuchFieldException e) {
+			throw new RuntimeException("The address field of direct buffers was not found.");
+		}
+	}
+	
 	@SuppressWarnings("restriction")
 	private static ByteOrder getByteOrder() {
 		final byte[] bytes = new byte[8];
@@ -0,0 +1,84 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2013 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.util;
+
+import java.nio.ByteOrder;
+
+import eu.stratosphere.core.memory.MemoryUtils;
+
+/**
+ * Utility class to search byte arrays for a byte value, such as a record or field delimiter. Instead of comparing
+ * one byte at a time, the search reads eight bytes at a time as a long and tests all of them at once with a
+ * few arithmetic operations ("SIMD within a register").
+ */
+public final class ByteScanner {
+	
+	@SuppressWarnings("restriction")
+	private static final sun.misc.Unsafe UNSAFE = MemoryUtils.UNSAFE;
+	
+	@SuppressWarnings("restriction")
+	private static final long BYTE_ARRAY_BASE_OFFSET = UNSAFE.arrayBaseOffset(byte[].class);
+	
+	private static final boolean LITTLE_ENDIAN = (MemoryUtils.NATIVE_BYTE_ORDER == ByteOrder.LITTLE_ENDIAN);
+	
+	private static final long ONES = 0x0101010101010101L;
+	
+	private static final long LOW_BITS = 0x7f7f7f7f7f7f7f7fL;
+	
+	// --------------------------------------------------------------------------------------------
+	
+	/**
+	 * Finds the first occurrence of the given value in the given range of the array.
+	 * 
+	 * @param bytes The array to search.
+	 * @param from The position to start the search at (inclusive).
+	 * @param limit The position to end the search at (exclusive).
+	 * @param value The value to search for.
+	 * @return The position of the first occurrence of the value, or <code>-1</code>, if the range does not
+	 *         contain the value.
+	 */
+	@SuppressWarnings("restriction")
+	public static int indexOf(byte[] bytes, int from, int limit, byte value) {
+		if (from < 0 || limit > bytes.length) {
+			throw new IndexOutOfBoundsException();
+		}
+		
+		final long pattern = (value & 0xffL) * ONES;
+		
+		int i = from;
+		for (; i <= limit - 8; i += 8) {
+			// bytes that equal the value become zero. The high bit of a byte in 'matches' is set exactly when the
+			// byte is zero, because adding 0x7f to the low seven bits never carries into the next byte.
+			final long word = UNSAFE.getLong(bytes, BYTE_ARRAY_BASE_OFFSET + i) ^ pattern;
+			final long matches = ~(((word & LOW_BITS) + LOW_BITS) | word | LOW_BITS);
+			
+			if (matches != 0) {
+				return i + ((LITTLE_ENDIAN ? Long.numberOfTrailingZeros(matches) : Long.numberOfLeadingZeros(matches)) >>> 3);
+			}
+		}
+		for (; i < limit; i++) {
+			if (bytes[i] == value) {
+				return i;
+			}
+		}
+		return -1;
+	}
+	
+	// --------------------------------------------------------------------------------------------
+	
+	/**
+	 * Private constructor to prevent instantiation.
+	 */
+	private ByteScanner() {}
+}
@@ -15,9 +15,11 @@ package eu.stratosphere.api.common.io;
 
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
@@ -27,6 +29,10 @@ import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.OutputStreamWriter;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
 
 import org.apache.log4j.Level;
 import org.junit.After;
@@ -179,6 +185,106 @@ public class DelimitedInputFormatTest {
 		assertTrue(format.reachedEnd());
 	}
 	
+	@Test
+	public void testReadBlockCompressedSplits() throws IOException {
+		final int numLines = 20000;
+		writeBlockCompressedFile(numLines);
+		
+		this.format.setFilePath(new Path(this.tempFile.toURI().toString()));
+		this.format.configure(this.config);
+		
+		final FileInputSplit[] splits = this.format.createInputSplits(7);
+		assertTrue(splits.length > 1);
+		
+		int expected = 0;
+		final Record reuse = new Record();
+		for (FileInputSplit split : splits) {
+			this.format.open(split);
+			Record theRecord;
+			while ((theRecord = this.format.nextRecord(reuse)) != null) {
+				assertEquals("key" + expected, theRecord.getField(0, StringValue.class).getValue());
+				assertEquals("value" + (expected * 31), theRecord.getField(1, StringValue.class).getValue());
+				expected++;
+			}
+			this.format.close();
+		}
+		assertEquals(numLines, expected);
+	}
+	
+	@Test
+	public void testBlockCompressedStreamSeek() throws IOException {
+		writeBlockCompressedFile(1000);
+		final Path path = new Path(this.tempFile.toURI().toString());
+		final long fileLength = this.tempFile.length();
+		final long splitStart = fileLength / 2;
+		
+		final BlockGzipInputStreamFSInputWrapper stream = new BlockGzipInputStreamFSInputWrapper(
+			path.getFileSystem().open(path), splitStart, fileLength - splitStart, fileLength);
+		try {
+			// seeking to the split start is accepted before the first read, any other position is not
+			stream.seek(splitStart);
+			try {
+				stream.seek(splitStart + 1);
+				fail("Seeking past the split start should fail.");
+			} catch (IOException ioex) {
+				// expected
+			}
+			
+			assertTrue(stream.read() >= 0);
+			assertFalse(stream.isPastSplitEnd());
+			try {
+				stream.seek(splitStart);
+				fail("Seeking after the first read should fail.");
+			} catch (IOException ioex) {
+				// expected
+			}
+		} finally {
+			stream.close();
+		}
+	}
+	
+	/**
+	 * Writes the given number of lines as block-compressed gzip members, whose boundaries fall in the middle of
+	 * records.
+	 */
+	private void writeBlockCompressedFile(int numLines) throws IOException {
+		this.tempFile = File.createTempFile("test_contents", ".bgz");
+		this.tempFile.deleteOnExit();
+		final StringBuilder bld = new StringBuilder();
+		for (int i = 0; i < numLines; i++) {
+			bld.append("key").append(i).append('|').append("value").append(i * 31).append('\n');
+		}
+		final byte[] data = bld.toString().getBytes();
+		
+		final FileOutputStream out = new FileOutputStream(this.tempFile);
+		for (int off = 0; off < data.length; off += 1000) {
+			out.write(createBlockGzipMember(data, off, Math.min(1000, data.length - off)));
+		}
+		out.write(createBlockGzipMember(data, 0, 0));
+		out.close();
+	}
+	
+	private static byte[] createBlockGzipMember(byte[] data, int off, int len) {
+		final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+		deflater.setInput(data, off, len);
+		deflater.finish();
+		final byte[] compressed = new byte[len + 64];
+		final int compressedLen = deflater.deflate(compressed);
+		deflater.end();
+		
+		final CRC32 crc = new CRC32();
+		crc.update(data, off, len);
+		
+		final int blockSize = 18 + compressedLen + 8;
+		final ByteBuffer member = ByteBuffer.allocate(blockSize).order(ByteOrder.LITTLE_ENDIAN);
+		member.put(new byte[] { 0x1f, (byte) 0x8b, 8, 4, 0, 0, 0, 0, 0, (byte) 0xff, 6, 0, 'B', 'C', 2, 0 });
+		member.putShort((short) (blockSize - 1));
+		member.put(compressed, 0, compressedLen);
+		member.putInt((int) crc.getValue());
+		member.putInt(len);
+		return member.array();
+	}
+	
 	private FileInputSplit createTempFile(String contents) throws IOException {
 		this.tempFile = File.createTempFile("test_contents", "tmp");
 		this.tempFile.deleteOnExit();
@@ -0,0 +1,147 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2013 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.core.fs.local;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import eu.stratosphere.core.testutils.CommonTestUtils;
+
+/**
+ * Tests for the {@link LocalMappedDataInputStream}, using regions that are much smaller than the file
+ * to check reads and seeks across region boundaries.
+ */
+public class LocalMappedDataInputStreamTest {
+
+	private static final int FILE_SIZE = 10000;
+
+	private static final int REGION_SIZE = 333;
+
+	private File file;
+
+	@Before
+	public void createFile() throws IOException {
+		this.file = new File(CommonTestUtils.getTempDir() + File.separator + CommonTestUtils.getRandomFilename());
+		final FileOutputStream out = new FileOutputStream(this.file);
+		try {
+			for (int i = 0; i < FILE_SIZE; i++) {
+				out.write(valueAt(i));
+			}
+		} finally {
+			out.close();
+		}
+	}
+
+	@After
+	public void deleteFile() {
+		if (this.file != null) {
+			this.file.delete();
+		}
+	}
+
+	@Test
+	public void testSequentialReads() {
+		try {
+			final LocalMappedDataInputStream in = new LocalMappedDataInputStream(this.file, REGION_SIZE);
+			try {
+				final byte[] buffer = new byte[97];
+				int pos = 0;
+				while (pos < FILE_SIZE) {
+					// alternate between single byte and bulk reads
+					if (pos % 2 == 0) {
+						assertEquals(valueAt(pos), in.read());
+						pos++;
+					} else {
+						final int read = in.read(buffer, 0, buffer.length);
+						for (int i = 0; i < read; i++) {
+							assertEquals((byte) valueAt(pos + i), buffer[i]);
+						}
+						pos += read;
+					}
+					assertEquals(FILE_SIZE - pos, in.available());
+				}
+				assertEquals(-1, in.read());
+				assertEquals(-1, in.read(buffer, 0, buffer.length));
+			} finally {
+				in.close();
+			}
+		} catch (Exception e) {
+			e.printStackTrace();
+			fail(e.getMessage());
+		}
+	}
+
+	@Test
+	public void testSeekAndSkip() {
+		try {
+			final LocalMappedDataInputStream in = new LocalMappedDataInputStream(this.file, REGION_SIZE);
+			try {
+				final long[] positions = { 9000, 12, 12 + REGION_SIZE, 5000, 5001, 0, FILE_SIZE - 1 };
+				for (long pos : positions) {
+					in.seek(pos);
+					assertEquals(pos, in.getPosition());
+					assertEquals(valueAt((int) pos), in.read());
+				}
+
+				in.seek(FILE_SIZE);
+				assertEquals(-1, in.read());
+
+				in.seek(100);
+				assertEquals(1000, in.skip(1000));
+				assertEquals(valueAt(1100), in.read());
+				assertEquals(FILE_SIZE - 1101, in.skip(FILE_SIZE));
+				assertEquals(-1, in.read());
+			} finally {
+				in.close();
+			}
+		} catch (Exception e) {
+			e.printStackTrace();
+			fail(e.getMessage());
+		}
+	}
+
+	@Test
+	public void testReadAfterClose() {
+		try {
+			final LocalMappedDataInputStream in = new LocalMappedDataInputStream(this.file, REGION_SIZE);
+			in.seek(REGION_SIZE + 7);
+			assertEquals(valueAt(REGION_SIZE + 7), in.read());
+
+			// closing unmaps the region, so that reads fail instead of touching the released mapping
+			in.close();
+			assertEquals(REGION_SIZE + 8, in.getPosition());
+			try {
+				in.read();
+				fail("Reading from a closed stream should fail.");
+			} catch (IOException ioex) {
+				// expected
+			}
+		} catch (Exception e) {
+			e.printStackTrace();
+			fail(e.getMessage());
+		}
+	}
+
+	private static int valueAt(int pos) {
+		return (pos * 31 + (pos >>> 8)) & 0xff;
+	}
+}
@@ -0,0 +1,72 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2013 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.util;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class ByteScannerTest {
+
+	@Test
+	public void testAgainstBytewiseSearch() {
+		final Random rnd = new Random(13);
+		final byte[] bytes = new byte[300];
+		
+		for (int round = 0; round < 200; round++) {
+			// few distinct values, so that matches are frequent, including the sign bit values
+			for (int i = 0; i < bytes.length; i++) {
+				bytes[i] = (byte) (rnd.nextInt(8) * 37);
+			}
+			final byte value = bytes[rnd.nextInt(bytes.length)];
+			final int from = rnd.nextInt(bytes.length);
+			final int limit = from + rnd.nextInt(bytes.length - from + 1);
+			
+			int expected = -1;
+			for (int i = from; i < limit; i++) {
+				if (bytes[i] == value) {
+					expected = i;
+					break;
+				}
+			}
+			assertEquals(expected, ByteScanner.indexOf(bytes, from, limit, value));
+		}
+	}
+	
+	@Test
+	public void testAllPositionsInWord() {
+		final byte[] bytes = new byte[24];
+		for (int pos = 0; pos < bytes.length; pos++) {
+			bytes[pos] = '\n';
+			for (int from = 0; from <= pos; from++) {
+				assertEquals(pos, ByteScanner.indexOf(bytes, from, bytes.length, (byte) '\n'));
+				assertEquals(-1, ByteScanner.indexOf(bytes, from, pos, (byte) '\n'));
+			}
+			// a match at a later position must not hide this one
+			bytes[bytes.length - 1] = '\n';
+			assertEquals(pos, ByteScanner.indexOf(bytes, 0, bytes.length, (byte) '\n'));
+			bytes[bytes.length - 1] = 0;
+			bytes[pos] = 0;
+		}
+		assertEquals(-1, ByteScanner.indexOf(bytes, 0, bytes.length, (byte) '\n'));
+		assertEquals(3, ByteScanner.indexOf(bytes, 3, bytes.length, (byte) 0));
+	}
+	
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void testLimitBeyondArray() {
+		ByteScanner.indexOf(new byte[10], 0, 11, (byte) 0);
+	}
+}
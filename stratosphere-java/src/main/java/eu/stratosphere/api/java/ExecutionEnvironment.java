@@ -91,6 +91,8 @@ public abstract class ExecutionEnvironment {
 
 	private int degreeOfParallelism = -1;
 	
+	private long bufferTimeout = Plan.BUFFER_TIMEOUT_DEFAULT;
+	
 	
 	// --------------------------------------------------------------------------------------------
 	//  Constructor and Properties
@@ -138,6 +140,35 @@ public abstract class ExecutionEnvironment {
 		this.degreeOfParallelism = degreeOfParallelism;
 	}
 	
+	/**
+	 * Gets the maximum time in milliseconds that the network channels of programs executed through this
+	 * environment hold a partially filled buffer before they ship it.
+	 * 
+	 * @return The buffer timeout, {@link Plan#BUFFER_TIMEOUT_FULL_BUFFERS}, if only full buffers are shipped, or
+	 *         {@link Plan#BUFFER_TIMEOUT_DEFAULT}, if the configured default of the setup is used.
+	 */
+	public long getBufferTimeout() {
+		return bufferTimeout;
+	}
+	
+	/**
+	 * Sets the maximum time in milliseconds that network channels hold a partially filled buffer before
+	 * they ship it. Unless configured otherwise, buffers are only shipped when they are full, which gives the best throughput.
+	 * Setting a timeout bounds the latency with which records reach the next operator, which matters for
+	 * programs that consume continuous inputs. A timeout of zero ships a buffer after every record.
+	 * 
+	 * @param bufferTimeout The buffer timeout, {@link Plan#BUFFER_TIMEOUT_FULL_BUFFERS} to ship only full buffers,
+	 *                      or {@link Plan#BUFFER_TIMEOUT_DEFAULT} to use the configured default of the setup.
+	 */
+	public void setBufferTimeout(long bufferTimeout) {
+		if (bufferTimeout < Plan.BUFFER_TIMEOUT_DEFAULT) {
+			throw new IllegalArgumentException("The buffer timeout must be at least zero, -1 for full buffers only, " +
+				"or -2 for the default.");
+		}
+		
+		this.bufferTimeout = bufferTimeout;
+	}
+	
 	/**
 	 * Gets the UUID by which this environment is identified. The UUID sets the execution context
 	 * in the cluster or local environment.
@@ -608,7 +639,9 @@ public abstract class ExecutionEnvironment {
 		}
 		
 		OperatorTranslation translator = new OperatorTranslation();
-		return translator.translateToPlan(this.sinks, jobName);
+		JavaPlan plan = translator.translateToPlan(this.sinks, jobName);
+		plan.setBufferTimeout(this.bufferTimeout);
+		return plan;
 	}
 	
 	/**
@@ -0,0 +1,543 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2013 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.api.java.io;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.Arrays;
+
+import eu.stratosphere.api.common.io.FileInputFormat;
+import eu.stratosphere.api.common.typeutils.TypeSerializer;
+import eu.stratosphere.api.java.tuple.Tuple;
+import eu.stratosphere.api.java.typeutils.ResultTypeQueryable;
+import eu.stratosphere.api.java.typeutils.TupleTypeInfo;
+import eu.stratosphere.core.fs.FileInputSplit;
+import eu.stratosphere.core.fs.Path;
+import eu.stratosphere.core.memory.DataInputView;
+import eu.stratosphere.types.StringValue;
+import eu.stratosphere.types.TypeInformation;
+
+/**
+ * Reads {@link Tuple}s from files written by the {@link ColumnarOutputFormat}. Only the selected fields are read:
+ * the column chunks of all other fields are skipped in the file without being read.
+ * <p>
+ * A projection that directly follows a data source with this format is evaluated by the format itself
+ * (see {@link #project(int...)}). An optional range filter on an integer, long or string field skips all blocks
+ * whose statistics show that they contain no value in the range, and drops the tuples outside the range.
+ * <p>
+ * Each file is read as a single split.
+ * 
+ * @param <OUT> The type of the produced tuples.
+ */
+public class ColumnarInputFormat<OUT extends Tuple> extends FileInputFormat<OUT> implements ResultTypeQueryable<OUT>, ProjectableInputFormat {
+	
+	private static final long serialVersionUID = 1L;
+	
+	private final TypeSerializer<Object>[] serializers;
+	
+	private final byte[] kinds;
+	
+	private final int[] fields;
+	
+	private transient TupleTypeInfo<?> fileType;
+	
+	private int filterField = -1;
+	
+	private long filterLongLow;
+	
+	private long filterLongHigh;
+	
+	private String filterStringLow;
+	
+	private String filterStringHigh;
+	
+	// --------------------------------------------------------------------------------------------
+	
+	private transient DataInputStream in;
+	
+	private transient ColumnDecoder[] decoders;
+	
+	private transient byte[][] chunkBuffers;
+	
+	private transient Object[] currentValues;
+	
+	private transient boolean[] columnNeeded;
+	
+	private transient int[] outputPositions;
+	
+	private transient long nextBlock;
+	
+	private transient int numRecords;
+	
+	private transient int row;
+	
+	private transient boolean end;
+	
+	// --------------------------------------------------------------------------------------------
+	
+	/**
+	 * Creates a format that reads all fields of the tuples in the given file or directory.
+	 * 
+	 * @param filePath The path of the file or directory.
+	 * @param fileType The type of the tuples in the files.
+	 */
+	public ColumnarInputFormat(Path filePath, TupleTypeInfo<?> fileType) {
+		this(filePath, fileType, null);
+	}
+	
+	/**
+	 * Creates a format that reads the given fields of the tuples in the given file or directory. The produced
+	 * tuples consist of these fields, in the given order.
+	 * 
+	 * @param filePath The path of the file or directory.
+	 * @param fileType The type of the tuples in the files.
+	 * @param fields The positions of the fields to read.
+	 */
+	public ColumnarInputFormat(Path filePath, TupleTypeInfo<?> fileType, int... fields) {
+		super(filePath);
+		if (fileType == null) {
+			throw new IllegalArgumentException("The file type must not be null.");
+		}
+		
+		this.fileType = fileType;
+		this.serializers = ColumnarOutputFormat.createSerializers(fileType);
+		this.kinds = ColumnarOutputFormat.getColumnKinds(fileType);
+		
+		if (fields == null) {
+			this.fields = new int[fileType.getArity()];
+			for (int i = 0; i < this.fields.length; i++) {
+				this.fields[i] = i;
+			}
+		} else {
+			if (fields.length == 0) {
+				throw new IllegalArgumentException("At least one field must be read.");
+			}
+			for (int field : fields) {
+				if (field < 0 || field >= fileType.getArity()) {
+					throw new IndexOutOfBoundsException("Field " + field + " is not a field of the file type.");
+				}
+			}
+			this.fields = fields;
+		}
+		
+		// the files are read as a whole, each block describes its own structure
+		this.unsplittable = true;
+	}
+	
+	/**
+	 * Creates a copy of this format that reads only the given fields of the tuples that this format produces.
+	 * 
+	 * @param projectedFields The positions of the fields in the tuples produced by this format.
+	 * @return The projecting format.
+	 */
+	@Override
+	public <X extends Tuple> ColumnarInputFormat<X> project(int... projectedFields) {
+		final int[] fileFields = new int[projectedFields.length];
+		for (int i = 0; i < projectedFields.length; i++) {
+			fileFields[i] = this.fields[projectedFields[i]];
+		}
+		
+		final ColumnarInputFormat<X> projected = new ColumnarInputFormat<X>(this.filePath, this.fileType, fileFields);
+		projected.filterField = this.filterField;
+		projected.filterLongLow = this.filterLongLow;
+		projected.filterLongHigh = this.filterLongHigh;
+		projected.filterStringLow = this.filterStringLow;
+		projected.filterStringHigh = this.filterStringHigh;
+		projected.openTimeout = this.openTimeout;
+		projected.setMinSplitSize(this.minSplitSize);
+		projected.numSplits = this.numSplits;
+		return projected;
+	}
+	
+	/**
+	 * Restricts the produced tuples to those whose value in the given integer or long field lies in the given
+	 * range. Blocks without values in the range are skipped entirely.
+	 * 
+	 * @param field The position of the field in the file type.
+	 * @param low The lower bound (inclusive).
+	 * @param high The upper bound (inclusive).
+	 */
+	public void setRangeFilter(int field, long low, long high) {
+		checkFilterField(field, ColumnarOutputFormat.KIND_INT, ColumnarOutputFormat.KIND_LONG);
+		this.filterField = field;
+		this.filterLongLow = low;
+		this.filterLongHigh = high;
+	}
+	
+	/**
+	 * Restricts the produced tuples to those whose value in the given string field lies in the given
+	 * range. Blocks without values in the range are skipped entirely.
+	 * 
+	 * @param field The position of the field in the file type.
+	 * @param low The lower bound (inclusive).
+	 * @param high The upper bound (inclusive).
+	 */
+	public void setRangeFilter(int field, String low, String high) {
+		if (low == null || high == null) {
+			throw new IllegalArgumentException("The bounds must not be null.");
+		}
+		checkFilterField(field, ColumnarOutputFormat.KIND_STRING, ColumnarOutputFormat.KIND_STRING);
+		this.filterField = field;
+		this.filterStringLow = low;
+		this.filterStringHigh = high;
+	}
+	
+	private void checkFilterField(int field, byte kind1, byte kind2) {
+		if (field < 0 || field >= this.kinds.length) {
+			throw new IndexOutOfBoundsException("Field " + field + " is not a field of the file type.");
+		}
+		if (this.kinds[field] != kind1 && this.kinds[field] != kind2) {
+			throw new IllegalArgumentException("The type of field " + field + " does not match the filter bounds.");
+		}
+	}
+	
+	public int[] getFields() {
+		return this.fields;
+	}
+	
+	@Override
+	public TypeInformation<OUT> getProducedType() {
+		if (this.fileType == null) {
+			throw new IllegalStateException("The produced type is only available before the format is shipped.");
+		}
+		final TypeInformation<?>[] types = new TypeInformation<?>[this.fields.length];
+		for (int i = 0; i < types.length; i++) {
+			types[i] = this.fileType.getTypeAt(this.fields[i]);
+		}
+		return new TupleTypeInfo<OUT>(types);
+	}
+	
+	// --------------------------------------------------------------------------------------------
+	
+	@Override
+	public void open(FileInputSplit split) throws IOException {
+		super.open(split);
+		
+		final int numColumns = this.kinds.length;
+		this.in = new DataInputStream(this.stream);
+		this.decoders = new ColumnDecoder[numColumns];
+		this.chunkBuffers = new byte[numColumns][];
+		this.currentValues = new Object[numColumns];
+		this.columnNeeded = new boolean[numColumns];
+		this.outputPositions = new int[numColumns];
+		Arrays.fill(this.outputPositions, -1);
+		for (int i = 0; i < this.fields.length; i++) {
+			this.columnNeeded[this.fields[i]] = true;
+			if (this.outputPositions[this.fields[i]] < 0) {
+				this.outputPositions[this.fields[i]] = i;
+			}
+		}
+		if (this.filterField >= 0) {
+			this.columnNeeded[this.filterField] = true;
+		}
+		
+		this.nextBlock = this.splitStart;
+		this.numRecords = 0;
+		this.row = 0;
+		this.end = false;
+	}
+	
+	@Override
+	public boolean reachedEnd() throws IOException {
+		return this.row >= this.numRecords && !readNextBlock();
+	}
+	
+	@Override
+	public OUT nextRecord(OUT reuse) throws IOException {
+		final int[] fields = this.fields;
+		final Object[] values = this.currentValues;
+		
+		while (this.row < this.numRecords || readNextBlock()) {
+			this.row++;
+			
+			// decode the row's values of all read columns, reusing the objects of the output tuple
+			for (int c = 0; c < values.length; c++) {
+				if (this.columnNeeded[c]) {
+					final int pos = this.outputPositions[c];
+					values[c] = this.decoders[c].next(pos >= 0 ? reuse.getField(pos) : null);
+				}
+			}
+			
+			if (this.filterField >= 0 && !accept(values[this.filterField])) {
+				continue;
+			}
+			for (int i = 0; i < fields.length; i++) {
+				reuse.setField(values[fields[i]], i);
+			}
+			return reuse;
+		}
+		return null;
+	}
+	
+	@Override
+	public void close() throws IOException {
+		this.in = null;
+		this.decoders = null;
+		this.chunkBuffers = null;
+		this.currentValues = null;
+		super.close();
+	}
+	
+	@Override
+	public String toString() {
+		return "Columnar Input (" + this.filePath + ", fields " + Arrays.toString(this.fields) + ")";
+	}
+	
+	// --------------------------------------------------------------------------------------------
+	
+	private boolean accept(Object value) {
+		if (this.kinds[this.filterField] == ColumnarOutputFormat.KIND_STRING) {
+			final String str = (String) value;
+			return str.compareTo(this.filterStringLow) >= 0 && str.compareTo(this.filterStringHigh) <= 0;
+		} else {
+			final long l = ((Number) value).longValue();
+			return l >= this.filterLongLow && l <= this.filterLongHigh;
+		}
+	}
+	
+	/**
+	 * Reads the header of the next block and the chunks of the needed columns, skipping blocks that the
+	 * filter excludes.
+	 * 
+	 * @return True, if a block was read, false if the end of the split is reached.
+	 */
+	private boolean readNextBlock() throws IOException {
+		if (this.end) {
+			return false;
+		}
+		
+		final long splitEnd = this.splitStart + this.splitLength;
+		final int numColumns = this.kinds.length;
+		final byte[] encodings = new byte[numColumns];
+		final int[] chunkLengths = new int[numColumns];
+		
+		while (this.nextBlock < splitEnd) {
+			this.stream.seek(this.nextBlock);
+			if (this.in.readInt() != ColumnarOutputFormat.BLOCK_MAGIC) {
+				throw new IOException("Corrupt columnar file: No block at position " + this.nextBlock);
+			}
+			final byte[] header = new byte[this.in.readInt()];
+			this.in.readFully(header);
+			final long dataStart = this.nextBlock + 8 + header.length;
+			
+			final DataInputStream headerIn = new DataInputStream(new ByteArrayInputStream(header));
+			final int num = headerIn.readInt();
+			if (headerIn.readInt() != numColumns) {
+				throw new IOException("The number of columns in the file does not match the type.");
+			}
+			
+			boolean skip = false;
+			long blockLength = 0;
+			for (int c = 0; c < numColumns; c++) {
+				encodings[c] = headerIn.readByte();
+				chunkLengths[c] = headerIn.readInt();
+				blockLength += chunkLengths[c];
+				
+				switch (this.kinds[c]) {
+				case ColumnarOutputFormat.KIND_INT:
+				case ColumnarOutputFormat.KIND_LONG: {
+					final long min = headerIn.readLong();
+					final long max = headerIn.readLong();
+					skip |= c == this.filterField && (max < this.filterLongLow || min > this.filterLongHigh);
+					break;
+				}
+				case ColumnarOutputFormat.KIND_STRING: {
+					final String min = StringValue.readString(headerIn);
+					final String max = StringValue.readString(headerIn);
+					skip |= c == this.filterField && 
+							(max.compareTo(this.filterStringLow) < 0 || min.compareTo(this.filterStringHigh) > 0);
+					break;
+				}
+				default:
+					break;
+				}
+			}
+			this.nextBlock = dataStart + blockLength;
+			
+			if (skip) {
+				continue;
+			}
+			
+			// read the chunks of the needed columns, seeking over the others
+			long chunkStart = dataStart;
+			for (int c = 0; c < numColumns; c++) {
+				if (this.columnNeeded[c]) {
+					byte[] buffer = this.chunkBuffers[c];
+					if (buffer == null || buffer.length < chunkLengths[c]) {
+						buffer = new byte[chunkLengths[c]];
+						this.chunkBuffers[c] = buffer;
+					}
+					this.stream.seek(chunkStart);
+					this.in.readFully(buffer, 0, chunkLengths[c]);
+					this.decoders[c] = createDecoder(c, encodings[c], buffer, chunkLengths[c]);
+				}
+				chunkStart += chunkLengths[c];
+			}
+			
+			this.numRecords = num;
+			this.row = 0;
+			return true;
+		}
+		
+		this.end = true;
+		return false;
+	}
+	
+	private ColumnDecoder createDecoder(int column, byte encoding, byte[] chunk, int length) throws IOException {
+		final ChunkInputView view = new ChunkInputView(chunk, length);
+		final boolean isInt = this.kinds[column] == ColumnarOutputFormat.KIND_INT;
+		
+		switch (encoding) {
+		case ColumnarOutputFormat.ENCODING_DELTA:
+			return new DeltaDecoder(view, isInt);
+		case ColumnarOutputFormat.ENCODING_RLE:
+			return new RunLengthDecoder(view, isInt);
+		case ColumnarOutputFormat.ENCODING_DICTIONARY:
+			return new DictionaryDecoder(view);
+		case ColumnarOutputFormat.ENCODING_PLAIN:
+			if (this.kinds[column] == ColumnarOutputFormat.KIND_STRING) {
+				return new PlainStringDecoder(view);
+			} else {
+				return new PlainDecoder(view, this.serializers[column]);
+			}
+		default:
+			throw new IOException("Corrupt columnar file: Unknown encoding " + encoding);
+		}
+	}
+	
+	// --------------------------------------------------------------------------------------------
+	//  Column decoders
+	// --------------------------------------------------------------------------------------------
+	
+	private abstract static class ColumnDecoder {
+		
+		protected final ChunkInputView view;
+		
+		protected ColumnDecoder(ChunkInputView view) {
+			this.view = view;
+		}
+		
+		abstract Object next(Object reuse) throws IOException;
+		
+		protected static Object box(long value, boolean isInt) {
+			return isInt ? Integer.valueOf((int) value) : (Object) Long.valueOf(value);
+		}
+	}
+	
+	private static final class DeltaDecoder extends ColumnDecoder {
+		
+		private final boolean isInt;
+		
+		private long previous;
+		
+		DeltaDecoder(ChunkInputView view, boolean isInt) {
+			super(view);
+			this.isInt = isInt;
+		}
+		
+		@Override
+		Object next(Object reuse) throws IOException {
+			this.previous += ColumnarOutputFormat.unZigZag(ColumnarOutputFormat.readVarLong(this.view));
+			return box(this.previous, this.isInt);
+		}
+	}
+	
+	private static final class RunLengthDecoder extends ColumnDecoder {
+		
+		private final boolean isInt;
+		
+		private Object value;
+		
+		private long remaining;
+		
+		RunLengthDecoder(ChunkInputView view, boolean isInt) {
+			super(view);
+			this.isInt = isInt;
+		}
+		
+		@Override
+		Object next(Object reuse) throws IOException {
+			if (this.remaining == 0) {
+				this.value = box(ColumnarOutputFormat.unZigZag(ColumnarOutputFormat.readVarLong(this.view)), this.isInt);
+				this.remaining = ColumnarOutputFormat.readVarLong(this.view);
+			}
+			this.remaining--;
+			return this.value;
+		}
+	}
+	
+	private static final class DictionaryDecoder extends ColumnDecoder {
+		
+		private final String[] dictionary;
+		
+		DictionaryDecoder(ChunkInputView view) throws IOException {
+			super(view);
+			this.dictionary = new String[(int) ColumnarOutputFormat.readVarLong(view)];
+			for (int i = 0; i < this.dictionary.length; i++) {
+				this.dictionary[i] = StringValue.readString(view);
+			}
+		}
+		
+		@Override
+		Object next(Object reuse) throws IOException {
+			return this.dictionary[(int) ColumnarOutputFormat.readVarLong(this.view)];
+		}
+	}
+	
+	private static final class PlainStringDecoder extends ColumnDecoder {
+		
+		PlainStringDecoder(ChunkInputView view) {
+			super(view);
+		}
+		
+		@Override
+		Object next(Object reuse) throws IOException {
+			return StringValue.readString(this.view);
+		}
+	}
+	
+	private static final class PlainDecoder extends ColumnDecoder {
+		
+		private final TypeSerializer<Object> serializer;
+		
+		PlainDecoder(ChunkInputView view, TypeSerializer<Object> serializer) {
+			super(view);
+			this.serializer = serializer;
+		}
+		
+		@Override
+		Object next(Object reuse) throws IOException {
+			return this.serializer.deserialize(reuse != null ? reuse : this.serializer.createInstance(), this.view);
+		}
+	}
+	
+	/**
+	 * A view over the bytes of a column chunk.
+	 */
+	private static final class ChunkInputView extends DataInputStream implements DataInputView {
+		
+		ChunkInputView(byte[] chunk, int length) {
+			super(new ByteArrayInputStream(chunk, 0, length));
+		}
+
+		@Override
+		public void skipBytesToRead(int numBytes) throws IOException {
+			if (skipBytes(numBytes) != numBytes) {
+				throw new EOFException();
+			}
+		}
+	}
+}
@@ -0,0 +1,460 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2013 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.api.java.io;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+import eu.stratosphere.api.common.InvalidProgramException;
+import eu.stratosphere.api.common.io.FileOutputFormat;
+import eu.stratosphere.api.common.typeutils.TypeSerializer;
+import eu.stratosphere.api.java.tuple.Tuple;
+import eu.stratosphere.api.java.typeutils.InputTypeConfigurable;
+import eu.stratosphere.api.java.typeutils.TupleTypeInfo;
+import eu.stratosphere.core.fs.Path;
+import eu.stratosphere.core.memory.DataInputView;
+import eu.stratosphere.core.memory.DataOutputView;
+import eu.stratosphere.types.StringValue;
+import eu.stratosphere.types.TypeInformation;
+
+/**
+ * An output format that stores {@link Tuple}s column by column, to be read with the {@link ColumnarInputFormat}.
+ * <p>
+ * The tuples are collected into blocks. Each block starts with a header that holds the number of tuples, and for
+ * every column the encoding and length of its chunk and, for integer, long and string columns, the minimum and
+ * maximum value in the block. The header is followed by the column chunks. A reader can therefore read only the
+ * columns it needs and skip all others, and it can skip blocks whose values fall outside a filter range.
+ * <p>
+ * Integer and long columns are delta encoded, or run-length encoded if they contain long runs of equal values.
+ * String columns with few distinct values are dictionary encoded. All other columns are written with the
+ * serializer of their type.
+ * 
+ * @param <T> The type of the tuples.
+ */
+public class ColumnarOutputFormat<T extends Tuple> extends FileOutputFormat<T> implements InputTypeConfigurable {
+	
+	private static final long serialVersionUID = 1L;
+	
+	/**
+	 * The default number of tuples per block.
+	 */
+	public static final int DEFAULT_RECORDS_PER_BLOCK = 16 * 1024;
+	
+	// ------------------------------------- File Format ------------------------------------------
+	
+	static final int BLOCK_MAGIC = 0x434f4c42;
+	
+	static final byte KIND_INT = 1;
+	static final byte KIND_LONG = 2;
+	static final byte KIND_STRING = 3;
+	static final byte KIND_OTHER = 4;
+	
+	static final byte ENCODING_PLAIN = 0;
+	static final byte ENCODING_DELTA = 1;
+	static final byte ENCODING_RLE = 2;
+	static final byte ENCODING_DICTIONARY = 3;
+	
+	// --------------------------------------------------------------------------------------------
+	
+	private TypeSerializer<Object>[] serializers;
+	
+	private byte[] kinds;
+	
+	private int recordsPerBlock = DEFAULT_RECORDS_PER_BLOCK;
+	
+	private transient long[][] longColumns;
+	
+	private transient String[][] stringColumns;
+	
+	private transient ChunkOutputView[] plainColumns;
+	
+	private transient ChunkOutputView header;
+	
+	private transient ChunkOutputView[] chunks;
+	
+	private transient DataOutputStream out;
+	
+	private transient int numRecords;
+	
+	// --------------------------------------------------------------------------------------------
+	
+	/**
+	 * Creates a new columnar output format that writes to the given path.
+	 * 
+	 * @param outputPath The path to write the files to.
+	 */
+	public ColumnarOutputFormat(Path outputPath) {
+		super(outputPath);
+	}
+	
+	/**
+	 * Sets the number of tuples that are collected into one block. Larger blocks encode better, but need more
+	 * memory while writing and reading, and make the block statistics less selective.
+	 * 
+	 * @param recordsPerBlock The number of tuples per block.
+	 */
+	public void setRecordsPerBlock(int recordsPerBlock) {
+		if (recordsPerBlock < 1) {
+			throw new IllegalArgumentException("The number of records per block must be at least 1.");
+		}
+		this.recordsPerBlock = recordsPerBlock;
+	}
+	
+	public int getRecordsPerBlock() {
+		return this.recordsPerBlock;
+	}
+	
+	@Override
+	public void setInputType(TypeInformation<?> type) {
+		if (!type.isTupleType()) {
+			throw new InvalidProgramException("The " + ColumnarOutputFormat.class.getSimpleName() + 
+				" can only be used to write tuple data sets.");
+		}
+		
+		final TupleTypeInfo<?> tupleType = (TupleTypeInfo<?>) type;
+		this.serializers = createSerializers(tupleType);
+		this.kinds = getColumnKinds(tupleType);
+	}
+	
+	// --------------------------------------------------------------------------------------------
+	
+	@Override
+	public void open(int taskNumber, int numTasks) throws IOException {
+		if (this.serializers == null) {
+			throw new IllegalStateException("The input type has not been set.");
+		}
+		super.open(taskNumber, numTasks);
+		
+		final int numColumns = this.kinds.length;
+		this.longColumns = new long[numColumns][];
+		this.stringColumns = new String[numColumns][];
+		this.plainColumns = new ChunkOutputView[numColumns];
+		this.chunks = new ChunkOutputView[numColumns];
+		
+		for (int i = 0; i < numColumns; i++) {
+			switch (this.kinds[i]) {
+			case KIND_INT:
+			case KIND_LONG:
+				this.longColumns[i] = new long[this.recordsPerBlock];
+				break;
+			case KIND_STRING:
+				this.stringColumns[i] = new String[this.recordsPerBlock];
+				break;
+			default:
+				this.plainColumns[i] = new ChunkOutputView();
+			}
+			this.chunks[i] = new ChunkOutputView();
+		}
+		
+		this.header = new ChunkOutputView();
+		this.out = new DataOutputStream(this.stream);
+		this.numRecords = 0;
+	}
+	
+	@Override
+	public void writeRecord(T record) throws IOException {
+		final int row = this.numRecords;
+		
+		for (int i = 0; i < this.kinds.length; i++) {
+			final Object value = record.getField(i);
+			
+			switch (this.kinds[i]) {
+			case KIND_INT:
+				this.longColumns[i][row] = ((Integer) value).intValue();
+				break;
+			case KIND_LONG:
+				this.longColumns[i][row] = ((Long) value).longValue();
+				break;
+			case KIND_STRING:
+				if (value == null) {
+					throw new NullPointerException("Cannot write tuple with <null> value at position: " + i);
+				}
+				this.stringColumns[i][row] = (String) value;
+				break;
+			default:
+				this.serializers[i].serialize(value, this.plainColumns[i]);
+			}
+		}
+		
+		if (++this.numRecords == this.recordsPerBlock) {
+			writeBlock();
+		}
+	}
+	
+	@Override
+	public void close() throws IOException {
+		try {
+			if (this.numRecords > 0) {
+				writeBlock();
+			}
+			if (this.out != null) {
+				this.out.flush();
+			}
+		} finally {
+			this.longColumns = null;
+			this.stringColumns = null;
+			this.plainColumns = null;
+			this.chunks = null;
+			this.out = null;
+			super.close();
+		}
+	}
+	
+	// --------------------------------------------------------------------------------------------
+	
+	private void writeBlock() throws IOException {
+		final int num = this.numRecords;
+		final ChunkOutputView header = this.header;
+		header.reset();
+		header.writeInt(num);
+		header.writeInt(this.kinds.length);
+		
+		for (int i = 0; i < this.kinds.length; i++) {
+			final ChunkOutputView chunk = this.chunks[i];
+			chunk.reset();
+			
+			final byte encoding;
+			switch (this.kinds[i]) {
+			case KIND_INT:
+			case KIND_LONG:
+				encoding = encodeLongs(this.longColumns[i], num, chunk);
+				break;
+			case KIND_STRING:
+				encoding = encodeStrings(this.stringColumns[i], num, chunk);
+				break;
+			default:
+				encoding = ENCODING_PLAIN;
+				this.plainColumns[i].writeTo(chunk);
+				this.plainColumns[i].reset();
+			}
+			
+			header.writeByte(encoding);
+			header.writeInt(chunk.size());
+			
+			// the block statistics
+			switch (this.kinds[i]) {
+			case KIND_INT:
+			case KIND_LONG: {
+				final long[] values = this.longColumns[i];
+				long min = values[0];
+				long max = values[0];
+				for (int k = 1; k < num; k++) {
+					min = Math.min(min, values[k]);
+					max = Math.max(max, values[k]);
+				}
+				header.writeLong(min);
+				header.writeLong(max);
+				break;
+			}
+			case KIND_STRING: {
+				final String[] values = this.stringColumns[i];
+				String min = values[0];
+				String max = values[0];
+				for (int k = 1; k < num; k++) {
+					if (values[k].compareTo(min) < 0) {
+						min = values[k];
+					} else if (values[k].compareTo(max) > 0) {
+						max = values[k];
+					}
+				}
+				StringValue.writeString(min, header);
+				StringValue.writeString(max, header);
+				// release the references for the garbage collector
+				for (int k = 0; k < num; k++) {
+					values[k] = null;
+				}
+				break;
+			}
+			default:
+				break;
+			}
+		}
+		
+		this.out.writeInt(BLOCK_MAGIC);
+		this.out.writeInt(header.size());
+		header.writeTo(this.out);
+		for (int i = 0; i < this.chunks.length; i++) {
+			this.chunks[i].writeTo(this.out);
+		}
+		this.numRecords = 0;
+	}
+	
+	/**
+	 * Writes the values either delta encoded or, if they form few runs, run-length encoded.
+	 */
+	private static byte encodeLongs(long[] values, int num, DataOutput target) throws IOException {
+		int numRuns = 1;
+		for (int i = 1; i < num; i++) {
+			if (values[i] != values[i - 1]) {
+				numRuns++;
+			}
+		}
+		
+		if (numRuns * 2 <= num) {
+			long current = values[0];
+			int runLength = 1;
+			for (int i = 1; i < num; i++) {
+				if (values[i] == current) {
+					runLength++;
+				} else {
+					writeVarLong(target, zigZag(current));
+					writeVarLong(target, runLength);
+					current = values[i];
+					runLength = 1;
+				}
+			}
+			writeVarLong(target, zigZag(current));
+			writeVarLong(target, runLength);
+			return ENCODING_RLE;
+		} else {
+			long previous = 0;
+			for (int i = 0; i < num; i++) {
+				writeVarLong(target, zigZag(values[i] - previous));
+				previous = values[i];
+			}
+			return ENCODING_DELTA;
+		}
+	}
+	
+	/**
+	 * Writes the strings with a dictionary, if there are few distinct strings, and as they are otherwise.
+	 */
+	private static byte encodeStrings(String[] values, int num, DataOutputView target) throws IOException {
+		final int maxDictionarySize = num / 4;
+		final Map<String, Integer> dictionary = new HashMap<String, Integer>();
+		for (int i = 0; i < num && dictionary.size() <= maxDictionarySize; i++) {
+			if (!dictionary.containsKey(values[i])) {
+				dictionary.put(values[i], dictionary.size());
+			}
+		}
+		
+		if (dictionary.size() <= maxDictionarySize) {
+			final String[] entries = new String[dictionary.size()];
+			for (Map.Entry<String, Integer> entry : dictionary.entrySet()) {
+				entries[entry.getValue()] = entry.getKey();
+			}
+			writeVarLong(target, entries.length);
+			for (String entry : entries) {
+				StringValue.writeString(entry, target);
+			}
+			for (int i = 0; i < num; i++) {
+				writeVarLong(target, dictionary.get(values[i]));
+			}
+			return ENCODING_DICTIONARY;
+		} else {
+			for (int i = 0; i < num; i++) {
+				StringValue.writeString(values[i], target);
+			}
+			return ENCODING_PLAIN;
+		}
+	}
+	
+	// --------------------------------------------------------------------------------------------
+	//  Utilities shared with the input format
+	// --------------------------------------------------------------------------------------------
+	
+	static TypeSerializer<Object>[] createSerializers(TupleTypeInfo<?> type) {
+		@SuppressWarnings("unchecked")
+		final TypeSerializer<Object>[] serializers = new TypeSerializer[type.getArity()];
+		for (int i = 0; i < serializers.length; i++) {
+			final TypeInformation<Object> fieldType = type.getTypeAt(i);
+			serializers[i] = fieldType.createSerializer();
+		}
+		return serializers;
+	}
+	
+	static byte[] getColumnKinds(TupleTypeInfo<?> type) {
+		final byte[] kinds = new byte[type.getArity()];
+		for (int i = 0; i < kinds.length; i++) {
+			final Class<?> clazz = type.getTypeAt(i).getTypeClass();
+			if (clazz == Integer.class) {
+				kinds[i] = KIND_INT;
+			} else if (clazz == Long.class) {
+				kinds[i] = KIND_LONG;
+			} else if (clazz == String.class) {
+				kinds[i] = KIND_STRING;
+			} else {
+				kinds[i] = KIND_OTHER;
+			}
+		}
+		return kinds;
+	}
+	
+	static long zigZag(long value) {
+		return (value << 1) ^ (value >> 63);
+	}
+	
+	static long unZigZag(long value) {
+		return (value >>> 1) ^ -(value & 1);
+	}
+	
+	static void writeVarLong(DataOutput out, long value) throws IOException {
+		while ((value & ~0x7fL) != 0) {
+			out.write((int) ((value & 0x7f) | 0x80));
+			value >>>= 7;
+		}
+		out.write((int) value);
+	}
+	
+	static long readVarLong(DataInput in) throws IOException {
+		long value = 0;
+		int shift = 0;
+		byte b;
+		do {
+			b = in.readByte();
+			value |= ((long) (b & 0x7f)) << shift;
+			shift += 7;
+		} while (b < 0);
+		return value;
+	}
+	
+	/**
+	 * A growing byte buffer that serializers can write to.
+	 */
+	private static final class ChunkOutputView extends DataOutputStream implements DataOutputView {
+		
+		private ChunkOutputView() {
+			super(new ByteArrayOutputStream());
+		}
+		
+		void reset() {
+			((ByteArrayOutputStream) this.out).reset();
+			this.written = 0;
+		}
+		
+		void writeTo(OutputStream target) throws IOException {
+			((ByteArrayOutputStream) this.out).writeTo(target);
+		}
+
+		@Override
+		public void skipBytesToWrite(int numBytes) throws IOException {
+			for (int i = 0; i < numBytes; i++) {
+				write(0);
+			}
+		}
+
+		@Override
+		public void write(DataInputView source, int numBytes) throws IOException {
+			for (int i = 0; i < numBytes; i++) {
+				write(source.readByte());
+			}
+		}
+	}
+}
@@ -0,0 +1,35 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2013 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.api.java.io;
+
+import eu.stratosphere.api.common.io.InputFormat;
+import eu.stratosphere.api.java.tuple.Tuple;
+
+/**
+ * This interface can be implemented by input formats that produce {@link Tuple}s and can read only some of
+ * their fields. A projection that directly follows a data source with such a format is pushed into the source:
+ * the source reads the tuples with the projected format, instead of reading all fields and projecting them
+ * afterwards.
+ */
+public interface ProjectableInputFormat {
+
+	/**
+	 * Creates a copy of this format that produces only the given fields of the tuples that this format produces,
+	 * in the given order. This format must not be changed by the call.
+	 * 
+	 * @param projectedFields The positions of the fields in the tuples produced by this format.
+	 * @return The projecting format.
+	 */
+	<X extends Tuple> InputFormat<X, ?> project(int... projectedFields);
+}
@@ -14,32 +14,138 @@
  **********************************************************************************************************************/
 package eu.stratosphere.api.java.operators;
 
+import eu.stratosphere.api.common.functions.GenericMap;
+import eu.stratosphere.api.common.functions.GenericReduce;
 import eu.stratosphere.api.common.operators.Operator;
+import eu.stratosphere.api.common.operators.UnaryOperatorInformation;
+import eu.stratosphere.api.common.operators.base.MapOperatorBase;
+import eu.stratosphere.api.common.operators.base.ReduceOperatorBase;
+import eu.stratosphere.api.common.operators.base.ReduceOperatorBase.CombineHint;
 import eu.stratosphere.api.java.DataSet;
+import eu.stratosphere.api.java.functions.ReduceFunction;
+import eu.stratosphere.api.java.operators.translation.KeyExtractingMapper;
+import eu.stratosphere.api.java.operators.translation.KeyRemovingMapper;
+import eu.stratosphere.api.java.operators.translation.PlanUnwrappingReduceOperator;
+import eu.stratosphere.api.java.tuple.Tuple2;
+import eu.stratosphere.api.java.typeutils.TupleTypeInfo;
+import eu.stratosphere.types.TypeInformation;
 
 /**
  * This operator represents the application of a "distinct" function on a data set, and the
  * result data set produced by the function.
- * 
+ * <p>
+ * The distinct operation is executed as a reduce that retains one arbitrary element per key. By default,
+ * the operator hints the optimizer to pre-aggregate with a hash-based combiner, which removes duplicates
+ * before the data is shipped and is much cheaper than sorting when the data contains many duplicates.
+ *
  * @param <T> The type of the data set made distinct by the operator.
  */
 public class DistinctOperator<T> extends SingleInputOperator<T, T, DistinctOperator<T>> {
-	
-	@SuppressWarnings("unused")
+
 	private final Keys<T> keys;
-	
+
+	private CombineHint combineHint = CombineHint.HASH;
+
 	public DistinctOperator(DataSet<T> input, Keys<T> keys) {
 		super(input, input.getType());
-		
+
 		if (keys == null) {
 			throw new NullPointerException();
 		}
-		
+
 		this.keys = keys;
 	}
 
+	/**
+	 * Sets the strategy to use for the combiner that removes duplicates before the data is shipped.
+	 * The default is {@link CombineHint#HASH}.
+	 *
+	 * @param combineHint The hint for the combine strategy.
+	 * @return This operator, to allow for function chaining.
+	 */
+	public DistinctOperator<T> setCombineHint(CombineHint combineHint) {
+		if (combineHint == null) {
+			throw new NullPointerException("The combine hint must not be null.");
+		}
+		this.combineHint = combineHint;
+		return this;
+	}
+
 	@Override
-	protected eu.stratosphere.api.common.operators.SingleInputOperator<T, T, ?> translateToDataFlow(Operator<T> input) {
-		throw new UnsupportedOperationException("NOT IMPLEMENTED");
+	protected eu.stratosphere.api.common.operators.SingleInputOperator<?, T, ?> translateToDataFlow(Operator<T> input) {
+
+		final DistinctFunction<T> function = new DistinctFunction<T>();
+		String name = getName() != null ? getName() : "Distinct";
+
+		if (this.keys instanceof Keys.FieldPositionKeys) {
+
+			int[] logicalKeyPositions = this.keys.computeLogicalKeyPositions();
+			UnaryOperatorInformation<T, T> operatorInfo = new UnaryOperatorInformation<T, T>(getInputType(), getInputType());
+			ReduceOperatorBase<T, GenericReduce<T>> po =
+					new ReduceOperatorBase<T, GenericReduce<T>>(function, operatorInfo, logicalKeyPositions, name);
+			po.setCombineHint(this.combineHint);
+
+			// set input
+			po.setInput(input);
+			// set dop
+			po.setDegreeOfParallelism(this.getParallelism());
+
+			return po;
+		}
+		else if (this.keys instanceof Keys.SelectorFunctionKeys) {
+
+			@SuppressWarnings("unchecked")
+			Keys.SelectorFunctionKeys<T, ?> selectorKeys = (Keys.SelectorFunctionKeys<T, ?>) this.keys;
+
+			return translateSelectorFunctionDistinct(selectorKeys, function, getInputType(), name, input,
+				this.getParallelism(), this.combineHint);
+		}
+		else {
+			throw new UnsupportedOperationException("Unrecognized key type.");
+		}
+	}
+
+	// --------------------------------------------------------------------------------------------
+
+	private static <T, K> MapOperatorBase<Tuple2<K, T>, T, ?> translateSelectorFunctionDistinct(Keys.SelectorFunctionKeys<T, ?> rawKeys,
+			ReduceFunction<T> function, TypeInformation<T> inputType, String name, Operator<T> input, int dop, CombineHint combineHint)
+	{
+		@SuppressWarnings("unchecked")
+		final Keys.SelectorFunctionKeys<T, K> keys = (Keys.SelectorFunctionKeys<T, K>) rawKeys;
+
+		TypeInformation<Tuple2<K, T>> typeInfoWithKey = new TupleTypeInfo<Tuple2<K, T>>(keys.getKeyType(), inputType);
+
+		KeyExtractingMapper<T, K> extractor = new KeyExtractingMapper<T, K>(keys.getKeyExtractor());
+
+		PlanUnwrappingReduceOperator<T, K> reducer = new PlanUnwrappingReduceOperator<T, K>(function, keys, name, inputType, typeInfoWithKey);
+		reducer.setCombineHint(combineHint);
+
+		MapOperatorBase<T, Tuple2<K, T>, GenericMap<T, Tuple2<K, T>>> keyExtractingMap = new MapOperatorBase<T, Tuple2<K, T>, GenericMap<T, Tuple2<K, T>>>(extractor, new UnaryOperatorInformation<T, Tuple2<K, T>>(inputType, typeInfoWithKey), "Key Extractor");
+		MapOperatorBase<Tuple2<K, T>, T, GenericMap<Tuple2<K, T>, T>> keyRemovingMap = new MapOperatorBase<Tuple2<K, T>, T, GenericMap<Tuple2<K, T>, T>>(new KeyRemovingMapper<T, K>(), new UnaryOperatorInformation<Tuple2<K, T>, T>(typeInfoWithKey, inputType), "Key Remover");
+
+		keyExtractingMap.setInput(input);
+		reducer.setInput(keyExtractingMap);
+		keyRemovingMap.setInput(reducer);
+
+		// set dop
+		keyExtractingMap.setDegreeOfParallelism(input.getDegreeOfParallelism());
+		reducer.setDegreeOfParallelism(dop);
+		keyRemovingMap.setDegreeOfParallelism(dop);
+
+		return keyRemovingMap;
+	}
+
+	/**
+	 * The reduce function that implements the distinct operation by retaining the first of two
+	 * elements with equal keys.
+	 */
+	public static final class DistinctFunction<T> extends ReduceFunction<T> {
+
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		public T reduce(T value1, T value2) {
+			return value1;
+		}
 	}
 }
@@ -79,6 +79,12 @@ public class OperatorTranslation {
 		if (dataSet instanceof DataSource) {
 			dataFlowOp = ((DataSource<T>) dataSet).translateToDataFlow();
 		}
+		else if (dataSet instanceof ProjectOperator && ((ProjectOperator<?, ?>) dataSet).isPushedIntoSource()) {
+			// the source reads only the projected fields, the projection needs no operator of its own
+			@SuppressWarnings("unchecked")
+			Operator<T> projectedSource = (Operator<T>) ((ProjectOperator<?, ?>) dataSet).translateToProjectedSource();
+			dataFlowOp = projectedSource;
+		}
 		else if (dataSet instanceof SingleInputOperator) {
 			dataFlowOp = translateSingleInputOperator((SingleInputOperator<?, ?, ?>) dataSet);
 		}
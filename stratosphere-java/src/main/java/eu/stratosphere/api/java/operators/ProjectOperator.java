@@ -17,8 +17,12 @@ package eu.stratosphere.api.java.operators;
 import java.util.Arrays;
 
 import eu.stratosphere.api.common.functions.GenericMap;
+import eu.stratosphere.api.common.io.InputFormat;
 import eu.stratosphere.api.common.operators.Operator;
+import eu.stratosphere.api.common.operators.OperatorInformation;
+import eu.stratosphere.api.common.operators.base.GenericDataSourceBase;
 import eu.stratosphere.api.java.DataSet;
+import eu.stratosphere.api.java.io.ProjectableInputFormat;
 import eu.stratosphere.api.java.operators.translation.PlanProjectOperator;
 //CHECKSTYLE.OFF: AvoidStarImport - Needed for TupleGenerator
 import eu.stratosphere.api.java.tuple.*;
@@ -57,6 +61,39 @@ public class ProjectOperator<IN, OUT extends Tuple>
 		
 		return ppo;
 	}
+	
+	/**
+	 * Checks whether the projection can be evaluated by the input format of the data source it is applied to,
+	 * which is the case for formats that can read only the projected fields (see {@link ProjectableInputFormat}).
+	 * 
+	 * @return True, if the projection is pushed into the data source, false otherwise.
+	 */
+	public boolean isPushedIntoSource() {
+		return getInput() instanceof DataSource && 
+				((DataSource<?>) getInput()).getInputFormat() instanceof ProjectableInputFormat;
+	}
+	
+	/**
+	 * Translates the projection and its input data source into a single data source that reads only the
+	 * projected fields. The original data source is left untouched, in case other operations consume it.
+	 * 
+	 * @return The data source that produces the projected tuples.
+	 */
+	protected GenericDataSourceBase<OUT, ?> translateToProjectedSource() {
+		final DataSource<?> source = (DataSource<?>) getInput();
+		final InputFormat<OUT, ?> format = ((ProjectableInputFormat) source.getInputFormat()).<OUT>project(this.fields);
+		
+		String name = getName() != null ? getName() : format.toString();
+		if (name.length() > 100) {
+			name = name.substring(0, 100);
+		}
+		
+		GenericDataSourceBase<OUT, InputFormat<OUT, ?>> projectedSource = 
+				new GenericDataSourceBase<OUT, InputFormat<OUT, ?>>(format, new OperatorInformation<OUT>(getResultType()), name);
+		projectedSource.setDegreeOfParallelism(source.getParallelism());
+		
+		return projectedSource;
+	}
 
 	
 	public static class Projection<T> {
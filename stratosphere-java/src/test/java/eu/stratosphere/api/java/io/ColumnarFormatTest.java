@@ -0,0 +1,177 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2013 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.api.java.io;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import eu.stratosphere.api.common.Plan;
+import eu.stratosphere.api.common.operators.base.GenericDataSinkBase;
+import eu.stratosphere.api.common.operators.base.GenericDataSourceBase;
+import eu.stratosphere.api.java.DataSet;
+import eu.stratosphere.api.java.ExecutionEnvironment;
+import eu.stratosphere.api.java.tuple.Tuple;
+import eu.stratosphere.api.java.tuple.Tuple2;
+import eu.stratosphere.api.java.tuple.Tuple4;
+import eu.stratosphere.api.java.typeutils.BasicTypeInfo;
+import eu.stratosphere.api.java.typeutils.TupleTypeInfo;
+import eu.stratosphere.configuration.Configuration;
+import eu.stratosphere.core.fs.FileInputSplit;
+import eu.stratosphere.core.fs.Path;
+
+public class ColumnarFormatTest {
+	
+	private static final int NUM_RECORDS = 1000;
+	
+	private static final TupleTypeInfo<Tuple4<Integer, Long, String, Double>> TYPE = 
+			new TupleTypeInfo<Tuple4<Integer, Long, String, Double>>(BasicTypeInfo.INT_TYPE_INFO, 
+				BasicTypeInfo.LONG_TYPE_INFO, BasicTypeInfo.STRING_TYPE_INFO, BasicTypeInfo.DOUBLE_TYPE_INFO);
+	
+	private File tempFile;
+	
+	@Before
+	public void writeFile() throws IOException {
+		this.tempFile = File.createTempFile("columnar", ".bin");
+		this.tempFile.delete();
+		
+		final ColumnarOutputFormat<Tuple4<Integer, Long, String, Double>> format = 
+				new ColumnarOutputFormat<Tuple4<Integer, Long, String, Double>>(new Path(this.tempFile.toURI().toString()));
+		format.setInputType(TYPE);
+		format.setRecordsPerBlock(100);
+		format.configure(new Configuration());
+		format.open(0, 1);
+		
+		final Tuple4<Integer, Long, String, Double> tuple = new Tuple4<Integer, Long, String, Double>();
+		for (int i = 0; i < NUM_RECORDS; i++) {
+			format.writeRecord(createTuple(i, tuple));
+		}
+		format.close();
+	}
+	
+	@After
+	public void deleteFile() {
+		if (this.tempFile != null) {
+			this.tempFile.delete();
+		}
+	}
+	
+	@Test
+	public void testReadAllFields() throws IOException {
+		final ColumnarInputFormat<Tuple4<Integer, Long, String, Double>> format = 
+				new ColumnarInputFormat<Tuple4<Integer, Long, String, Double>>(new Path(this.tempFile.toURI().toString()), TYPE);
+		
+		final List<Tuple4<Integer, Long, String, Double>> result = readAll(format);
+		assertEquals(NUM_RECORDS, result.size());
+		for (int i = 0; i < NUM_RECORDS; i++) {
+			final Tuple4<Integer, Long, String, Double> expected = createTuple(i, new Tuple4<Integer, Long, String, Double>());
+			assertEquals(expected.toString(), result.get(i).toString());
+		}
+	}
+	
+	@Test
+	public void testReadProjectedFields() throws IOException {
+		final ColumnarInputFormat<Tuple4<Integer, Long, String, Double>> full = 
+				new ColumnarInputFormat<Tuple4<Integer, Long, String, Double>>(new Path(this.tempFile.toURI().toString()), TYPE);
+		final ColumnarInputFormat<Tuple2<String, Integer>> format = full.project(2, 0);
+		assertArrayEquals(new int[] {2, 0}, format.getFields());
+		assertEquals(new TupleTypeInfo<Tuple2<String, Integer>>(BasicTypeInfo.STRING_TYPE_INFO, 
+				BasicTypeInfo.INT_TYPE_INFO).toString(), format.getProducedType().toString());
+		
+		final List<Tuple2<String, Integer>> result = readAll(format);
+		assertEquals(NUM_RECORDS, result.size());
+		for (int i = 0; i < NUM_RECORDS; i++) {
+			final Tuple4<Integer, Long, String, Double> expected = createTuple(i, new Tuple4<Integer, Long, String, Double>());
+			assertEquals(expected.f2, result.get(i).f0);
+			assertEquals(expected.f0, result.get(i).f1);
+		}
+	}
+	
+	@Test
+	public void testRangeFilter() throws IOException {
+		final ColumnarInputFormat<Tuple2<Long, Double>> format = 
+				new ColumnarInputFormat<Tuple2<Long, Double>>(new Path(this.tempFile.toURI().toString()), TYPE, 1, 3);
+		format.setRangeFilter(0, 250, 349);
+		
+		final List<Tuple2<Long, Double>> result = readAll(format);
+		assertEquals(100, result.size());
+		for (int i = 0; i < result.size(); i++) {
+			final Tuple4<Integer, Long, String, Double> expected = createTuple(250 + i, new Tuple4<Integer, Long, String, Double>());
+			assertEquals(expected.f1, result.get(i).f0);
+			assertEquals(expected.f3, result.get(i).f1);
+		}
+		
+		final ColumnarInputFormat<Tuple2<Long, Double>> stringFiltered = 
+				new ColumnarInputFormat<Tuple2<Long, Double>>(new Path(this.tempFile.toURI().toString()), TYPE, 1, 3);
+		stringFiltered.setRangeFilter(2, "value-3", "value-3");
+		assertEquals(NUM_RECORDS / 7 + 1, readAll(stringFiltered).size());
+	}
+	
+	@Test
+	public void testProjectionIsPushedIntoSource() {
+		final ExecutionEnvironment env = ExecutionEnvironment.createLocalEnvironment(4);
+		final ColumnarInputFormat<Tuple4<Integer, Long, String, Double>> format = 
+				new ColumnarInputFormat<Tuple4<Integer, Long, String, Double>>(new Path(this.tempFile.toURI().toString()), TYPE);
+		
+		final DataSet<Tuple4<Integer, Long, String, Double>> source = env.createInput(format);
+		source.project(3, 1).types(Double.class, Long.class).print();
+		
+		final Plan p = env.createProgramPlan();
+		final GenericDataSinkBase<?> sink = p.getDataSinks().iterator().next();
+		
+		assertTrue(sink.getInput() instanceof GenericDataSourceBase<?, ?>);
+		final Object sourceFormat = ((GenericDataSourceBase<?, ?>) sink.getInput()).getFormatWrapper().getUserCodeObject();
+		assertArrayEquals(new int[] {3, 1}, ((ColumnarInputFormat<?>) sourceFormat).getFields());
+		
+		// the original format is left as it is
+		assertArrayEquals(new int[] {0, 1, 2, 3}, format.getFields());
+	}
+	
+	// --------------------------------------------------------------------------------------------
+	
+	private static Tuple4<Integer, Long, String, Double> createTuple(int i, Tuple4<Integer, Long, String, Double> reuse) {
+		reuse.f0 = i;								// delta encoded
+		reuse.f1 = (long) (i / 10);					// run-length encoded
+		reuse.f2 = "value-" + (i % 7);				// dictionary encoded
+		reuse.f3 = i * 0.5;							// serialized
+		return reuse;
+	}
+	
+	private static <T extends Tuple> List<T> readAll(ColumnarInputFormat<T> format) throws IOException {
+		format.configure(new Configuration());
+		final FileInputSplit[] splits = format.createInputSplits(4);
+		assertEquals(1, splits.length);
+		
+		final List<T> result = new ArrayList<T>();
+		format.open(splits[0]);
+		while (!format.reachedEnd()) {
+			// read into a fresh tuple each time, since the format reuses the given object
+			final T next = format.nextRecord(format.getProducedType().createSerializer().createInstance());
+			if (next != null) {
+				result.add(next);
+			}
+		}
+		format.close();
+		return result;
+	}
+}
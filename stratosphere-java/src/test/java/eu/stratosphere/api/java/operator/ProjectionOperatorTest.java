@@ -15,14 +15,22 @@
 package eu.stratosphere.api.java.operator;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import junit.framework.Assert;
 
 import org.junit.Test;
 
+import eu.stratosphere.api.common.Plan;
+import eu.stratosphere.api.common.io.GenericInputFormat;
+import eu.stratosphere.api.common.io.InputFormat;
+import eu.stratosphere.api.common.operators.base.GenericDataSinkBase;
+import eu.stratosphere.api.common.operators.base.GenericDataSourceBase;
 import eu.stratosphere.api.java.DataSet;
 import eu.stratosphere.api.java.ExecutionEnvironment;
+import eu.stratosphere.api.java.io.ProjectableInputFormat;
+import eu.stratosphere.api.java.tuple.Tuple;
 import eu.stratosphere.api.java.tuple.Tuple5;
 import eu.stratosphere.api.java.typeutils.BasicTypeInfo;
 import eu.stratosphere.api.java.typeutils.TupleTypeInfo;
@@ -128,4 +136,54 @@ public class ProjectionOperatorTest {
 		
 	}
 	
+	@Test
+	public void testProjectionPushedIntoProjectableFormat() {
+		
+		final ExecutionEnvironment env = ExecutionEnvironment.getExecutionEnvironment();
+		final ProjectableFormat format = new ProjectableFormat(null);
+		DataSet<Tuple5<Integer, Long, String, Long, Integer>> tupleDs = env.createInput(format, tupleTypeInfo);
+		
+		tupleDs.project(4, 2).types(Integer.class, String.class).print();
+		
+		final Plan plan = env.createProgramPlan();
+		final GenericDataSinkBase<?> sink = plan.getDataSinks().iterator().next();
+		
+		// the projection is replaced by a source that reads with the projected format
+		Assert.assertTrue(sink.getInput() instanceof GenericDataSourceBase<?, ?>);
+		final Object sourceFormat = ((GenericDataSourceBase<?, ?>) sink.getInput()).getFormatWrapper().getUserCodeObject();
+		Assert.assertTrue(sourceFormat instanceof ProjectableFormat);
+		Assert.assertTrue(Arrays.equals(new int[] {4, 2}, ((ProjectableFormat) sourceFormat).fields));
+		Assert.assertNull(format.fields);
+	}
+	
+	/**
+	 * A format that produces no tuples, but records the fields it is projected on.
+	 */
+	private static final class ProjectableFormat extends GenericInputFormat<Tuple5<Integer, Long, String, Long, Integer>>
+		implements ProjectableInputFormat
+	{
+		private static final long serialVersionUID = 1L;
+		
+		private final int[] fields;
+		
+		private ProjectableFormat(int[] fields) {
+			this.fields = fields;
+		}
+		
+		@Override
+		public boolean reachedEnd() {
+			return true;
+		}
+
+		@Override
+		public Tuple5<Integer, Long, String, Long, Integer> nextRecord(Tuple5<Integer, Long, String, Long, Integer> reuse) {
+			return null;
+		}
+		
+		@Override
+		@SuppressWarnings("unchecked")
+		public <X extends Tuple> InputFormat<X, ?> project(int... projectedFields) {
+			return (InputFormat<X, ?>) (InputFormat<?, ?>) new ProjectableFormat(projectedFields);
+		}
+	}
 }
@@ -23,6 +23,7 @@ import java.util.List;
 import eu.stratosphere.core.io.IOReadableWritable;
 import eu.stratosphere.nephele.io.GateID;
 import eu.stratosphere.nephele.io.channels.ChannelType;
+import eu.stratosphere.nephele.io.compression.CompressionCodec;
 import eu.stratosphere.nephele.util.EnumUtils;
 
 /**
@@ -44,6 +45,22 @@ public final class GateDeploymentDescriptor implements IOReadableWritable {
 	 */
 	private ChannelType channelType;
 
+	/**
+	 * The codec the network channels of the gate compress their buffers with.
+	 */
+	private CompressionCodec compressionCodec;
+
+	/**
+	 * The maximum time in milliseconds the output channels of the gate hold a partially filled buffer, or
+	 * <code>-1</code> if timed flushing is disabled.
+	 */
+	private long bufferTimeout;
+
+	/**
+	 * Stores whether the channels of the gate are connected to the output channels of a broadcast gate.
+	 */
+	private boolean broadcast;
+
 	/**
 	 * The list of channel deployment descriptors attached to this gate.
 	 */
@@ -56,13 +73,72 @@ public final class GateDeploymentDescriptor implements IOReadableWritable {
 	 *        the ID of the gate
 	 * @param channelType
 	 *        the channel type of the gate
-	 * @param compressionLevel
-	 *        the compression level of the gate
 	 * @param channels
 	 *        the list of channel deployment descriptors attached to this gate
 	 */
 	public GateDeploymentDescriptor(final GateID gateID, final ChannelType channelType,
 			List<ChannelDeploymentDescriptor> channels) {
+		this(gateID, channelType, CompressionCodec.NONE, channels);
+	}
+
+	/**
+	 * Constructs a new gate deployment descriptor
+	 * 
+	 * @param gateID
+	 *        the ID of the gate
+	 * @param channelType
+	 *        the channel type of the gate
+	 * @param compressionCodec
+	 *        the codec the network channels of the gate compress their buffers with
+	 * @param channels
+	 *        the list of channel deployment descriptors attached to this gate
+	 */
+	public GateDeploymentDescriptor(final GateID gateID, final ChannelType channelType,
+			final CompressionCodec compressionCodec, List<ChannelDeploymentDescriptor> channels) {
+		this(gateID, channelType, compressionCodec, -1, channels);
+	}
+
+	/**
+	 * Constructs a new gate deployment descriptor
+	 * 
+	 * @param gateID
+	 *        the ID of the gate
+	 * @param channelType
+	 *        the channel type of the gate
+	 * @param compressionCodec
+	 *        the codec the network channels of the gate compress their buffers with
+	 * @param bufferTimeout
+	 *        the maximum time in milliseconds the output channels of the gate hold a partially filled buffer, or
+	 *        <code>-1</code> if timed flushing is disabled
+	 * @param channels
+	 *        the list of channel deployment descriptors attached to this gate
+	 */
+	public GateDeploymentDescriptor(final GateID gateID, final ChannelType channelType,
+			final CompressionCodec compressionCodec, final long bufferTimeout,
+			List<ChannelDeploymentDescriptor> channels) {
+		this(gateID, channelType, compressionCodec, bufferTimeout, false, channels);
+	}
+
+	/**
+	 * Constructs a new gate deployment descriptor
+	 * 
+	 * @param gateID
+	 *        the ID of the gate
+	 * @param channelType
+	 *        the channel type of the gate
+	 * @param compressionCodec
+	 *        the codec the network channels of the gate compress their buffers with
+	 * @param bufferTimeout
+	 *        the maximum time in milliseconds the output channels of the gate hold a partially filled buffer, or
+	 *        <code>-1</code> if timed flushing is disabled
+	 * @param broadcast
+	 *        <code>true</code> if the channels of the gate are connected to the output channels of a broadcast gate
+	 * @param channels
+	 *        the list of channel deployment descriptors attached to this gate
+	 */
+	public GateDeploymentDescriptor(final GateID gateID, final ChannelType channelType,
+			final CompressionCodec compressionCodec, final long bufferTimeout, final boolean broadcast,
+			List<ChannelDeploymentDescriptor> channels) {
 
 		if (gateID == null) {
 			throw new IllegalArgumentException("Argument gateID must no be null");
@@ -72,12 +148,19 @@ public final class GateDeploymentDescriptor implements IOReadableWritable {
 			throw new IllegalArgumentException("Argument channelType must no be null");
 		}
 
+		if (compressionCodec == null) {
+			throw new IllegalArgumentException("Argument compressionCodec must no be null");
+		}
+
 		if (channels == null) {
 			throw new IllegalArgumentException("Argument channels must no be null");
 		}
 
 		this.gateID = gateID;
 		this.channelType = channelType;
+		this.compressionCodec = compressionCodec;
+		this.bufferTimeout = bufferTimeout;
+		this.broadcast = broadcast;
 		this.channels = channels;
 	}
 
@@ -88,6 +171,9 @@ public final class GateDeploymentDescriptor implements IOReadableWritable {
 
 		this.gateID = new GateID();
 		this.channelType = null;
+		this.compressionCodec = null;
+		this.bufferTimeout = -1;
+		this.broadcast = false;
 		this.channels = new ArrayList<ChannelDeploymentDescriptor>();
 	}
 
@@ -97,6 +183,9 @@ public final class GateDeploymentDescriptor implements IOReadableWritable {
 
 		this.gateID.write(out);
 		EnumUtils.writeEnum(out, channelType);
+		EnumUtils.writeEnum(out, compressionCodec);
+		out.writeLong(this.bufferTimeout);
+		out.writeBoolean(this.broadcast);
 		out.writeInt(this.channels.size());
 		final Iterator<ChannelDeploymentDescriptor> it = this.channels.iterator();
 		while (it.hasNext()) {
@@ -110,6 +199,9 @@ public final class GateDeploymentDescriptor implements IOReadableWritable {
 
 		this.gateID.read(in);
 		this.channelType = EnumUtils.readEnum(in, ChannelType.class);
+		this.compressionCodec = EnumUtils.readEnum(in, CompressionCodec.class);
+		this.bufferTimeout = in.readLong();
+		this.broadcast = in.readBoolean();
 		final int nocdd = in.readInt();
 		for (int i = 0; i < nocdd; ++i) {
 			final ChannelDeploymentDescriptor cdd = new ChannelDeploymentDescriptor();
@@ -138,6 +230,37 @@ public final class GateDeploymentDescriptor implements IOReadableWritable {
 		return this.channelType;
 	}
 
+	/**
+	 * Returns the codec the network channels of the gate compress their buffers with.
+	 * 
+	 * @return the compression codec of the gate
+	 */
+	public CompressionCodec getCompressionCodec() {
+
+		return this.compressionCodec;
+	}
+
+	/**
+	 * Returns the maximum time the output channels of the gate hold a partially filled buffer.
+	 * 
+	 * @return the buffer timeout in milliseconds, or <code>-1</code> if timed flushing is disabled
+	 */
+	public long getBufferTimeout() {
+
+		return this.bufferTimeout;
+	}
+
+	/**
+	 * Checks whether the channels of the gate are connected to the output channels of a broadcast gate.
+	 * 
+	 * @return <code>true</code> if the channels of the gate are connected to a broadcast gate, <code>false</code>
+	 *         otherwise
+	 */
+	public boolean isBroadcast() {
+
+		return this.broadcast;
+	}
+
 	/**
 	 * Returns the number of channel deployment descriptors attached to this gate descriptor.
 	 * 
@@ -45,6 +45,7 @@ import eu.stratosphere.nephele.io.RuntimeInputGate;
 import eu.stratosphere.nephele.io.RuntimeOutputGate;
 import eu.stratosphere.nephele.io.channels.ChannelID;
 import eu.stratosphere.nephele.io.channels.ChannelType;
+import eu.stratosphere.nephele.io.channels.bytebuffered.AbstractByteBufferedOutputChannel;
 import eu.stratosphere.nephele.jobgraph.JobID;
 import eu.stratosphere.nephele.protocols.AccumulatorProtocol;
 import eu.stratosphere.nephele.services.iomanager.IOManager;
@@ -259,16 +260,19 @@ public class RuntimeEnvironment implements Environment, Runnable {
 			for (int j = 0; j < nocdd; ++j) {
 
 				final ChannelDeploymentDescriptor cdd = gdd.getChannelDescriptor(j);
+				final AbstractByteBufferedOutputChannel<?> outputChannel;
 				switch (channelType) {
 				case NETWORK:
-					og.createNetworkOutputChannel(og, cdd.getOutputChannelID(), cdd.getInputChannelID());
+					outputChannel = og.createNetworkOutputChannel(og, cdd.getOutputChannelID(), cdd.getInputChannelID(),
+						gdd.getCompressionCodec());
 					break;
 				case INMEMORY:
-					og.createInMemoryOutputChannel(og, cdd.getOutputChannelID(), cdd.getInputChannelID());
+					outputChannel = og.createInMemoryOutputChannel(og, cdd.getOutputChannelID(), cdd.getInputChannelID());
 					break;
 				default:
 					throw new IllegalStateException("Unknown channel type");
 				}
+				outputChannel.setBufferTimeout(gdd.getBufferTimeout());
 			}
 		}
 
@@ -285,7 +289,8 @@ public class RuntimeEnvironment implements Environment, Runnable {
 				final ChannelDeploymentDescriptor cdd = gdd.getChannelDescriptor(j);
 				switch (channelType) {
 				case NETWORK:
-					ig.createNetworkInputChannel(ig, cdd.getInputChannelID(), cdd.getOutputChannelID());
+					ig.createNetworkInputChannel(ig, cdd.getInputChannelID(), cdd.getOutputChannelID(),
+						gdd.getCompressionCodec()).setConnectedToBroadcastGate(gdd.isBroadcast());
 					break;
 				case INMEMORY:
 					ig.createInMemoryInputChannel(ig, cdd.getInputChannelID(), cdd.getOutputChannelID());
@@ -18,6 +18,7 @@ import java.util.concurrent.CopyOnWriteArrayList;
 
 import eu.stratosphere.nephele.io.GateID;
 import eu.stratosphere.nephele.io.channels.ChannelType;
+import eu.stratosphere.nephele.io.compression.CompressionCodec;
 
 /**
  * Objects of this class represent either an {@link InputGate} or {@link OutputGate} within an {@link ExecutionGraph},
@@ -83,6 +84,21 @@ public final class ExecutionGate {
 		return this.groupEdge.getChannelType();
 	}
 
+	public CompressionCodec getCompressionCodec() {
+
+		return this.groupEdge.getCompressionCodec();
+	}
+
+	public long getBufferTimeout() {
+
+		return this.groupEdge.getBufferTimeout();
+	}
+
+	public boolean isBroadcast() {
+
+		return this.groupEdge.isBroadcast();
+	}
+
 	ExecutionGroupEdge getGroupEdge() {
 
 		return this.groupEdge;
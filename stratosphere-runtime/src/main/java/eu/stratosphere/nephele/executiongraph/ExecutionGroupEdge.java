@@ -15,6 +15,7 @@ package eu.stratosphere.nephele.executiongraph;
 
 import eu.stratosphere.nephele.io.DistributionPattern;
 import eu.stratosphere.nephele.io.channels.ChannelType;
+import eu.stratosphere.nephele.io.compression.CompressionCodec;
 
 /**
  * An execution group edge represents an edge between two execution group vertices.
@@ -34,6 +35,17 @@ public class ExecutionGroupEdge {
 	 */
 	private volatile ChannelType channelType;
 
+	/**
+	 * The codec the network channels of this edge compress their buffers with.
+	 */
+	private final CompressionCodec compressionCodec;
+
+	/**
+	 * The maximum time in milliseconds the output channels of this edge hold a partially filled buffer, or
+	 * <code>-1</code> if timed flushing is disabled.
+	 */
+	private final long bufferTimeout;
+
 	/**
 	 * The edge's connection ID. The connection ID determines to which physical TCP connection channels represented by
 	 * this edge will be mapped in case the edge's channel type is NETWORK.
@@ -85,10 +97,11 @@ public class ExecutionGroupEdge {
 	 *        the channel type for the edge
 	 * @param userDefinedChannelType
 	 *        <code>true</code> if the channel type has been specified by the user, <code>false</code> otherwise
-	 * @param compressionLevel
-	 *        the compression level for the edge
-	 * @param userDefinedCompressionLevel
-	 *        <code>true</code> if the compression level has been specified by the user, <code>false</code> otherwise
+	 * @param compressionCodec
+	 *        the codec the network channels of the edge compress their buffers with
+	 * @param bufferTimeout
+	 *        the maximum time in milliseconds the output channels of the edge hold a partially filled buffer, or
+	 *        <code>-1</code> if timed flushing is disabled
 	 * @param distributionPattern
 	 *        the distribution pattern to create the wiring
 	 * @param isBroadcast
@@ -96,13 +109,15 @@ public class ExecutionGroupEdge {
 	 */
 	public ExecutionGroupEdge(final ExecutionGroupVertex sourceVertex, final int indexOfOutputGate,
 			final ExecutionGroupVertex targetVertex, final int indexOfInputGate, final ChannelType channelType,
-			final boolean userDefinedChannelType, final DistributionPattern distributionPattern,
-			final boolean isBroadcast) {
+			final boolean userDefinedChannelType, final CompressionCodec compressionCodec, final long bufferTimeout,
+			final DistributionPattern distributionPattern, final boolean isBroadcast) {
 		this.sourceVertex = sourceVertex;
 		this.indexOfOutputGate = indexOfOutputGate;
 		this.channelType = channelType;
 		this.indexOfInputGate = indexOfInputGate;
 		this.userDefinedChannelType = userDefinedChannelType;
+		this.compressionCodec = compressionCodec;
+		this.bufferTimeout = bufferTimeout;
 		this.targetVertex = targetVertex;
 		this.distributionPattern = distributionPattern;
 		this.isBroadcast = isBroadcast;
@@ -117,6 +132,24 @@ public class ExecutionGroupEdge {
 		return this.channelType;
 	}
 
+	/**
+	 * Returns the codec the network channels of this edge compress their buffers with.
+	 * 
+	 * @return the compression codec of this edge
+	 */
+	public CompressionCodec getCompressionCodec() {
+		return this.compressionCodec;
+	}
+
+	/**
+	 * Returns the maximum time the output channels of this edge hold a partially filled buffer.
+	 * 
+	 * @return the buffer timeout in milliseconds, or <code>-1</code> if timed flushing is disabled
+	 */
+	public long getBufferTimeout() {
+		return this.bufferTimeout;
+	}
+
 	/**
 	 * Changes the channel type for this edge.
 	 * 
@@ -968,7 +968,8 @@ public final class ExecutionVertex {
 				cdd.add(new ChannelDeploymentDescriptor(ee.getOutputChannelID(), ee.getInputChannelID()));
 			}
 
-			ogd.add(new GateDeploymentDescriptor(eg.getGateID(), eg.getChannelType(), cdd));
+			ogd.add(new GateDeploymentDescriptor(eg.getGateID(), eg.getChannelType(), eg.getCompressionCodec(),
+				eg.getBufferTimeout(), eg.isBroadcast(), cdd));
 		}
 
 		final SerializableArrayList<GateDeploymentDescriptor> igd = new SerializableArrayList<GateDeploymentDescriptor>(
@@ -985,7 +986,8 @@ public final class ExecutionVertex {
 				cdd.add(new ChannelDeploymentDescriptor(ee.getOutputChannelID(), ee.getInputChannelID()));
 			}
 
-			igd.add(new GateDeploymentDescriptor(eg.getGateID(), eg.getChannelType(), cdd));
+			igd.add(new GateDeploymentDescriptor(eg.getGateID(), eg.getChannelType(), eg.getCompressionCodec(), -1,
+				eg.isBroadcast(), cdd));
 		}
 
 		final TaskDeploymentDescriptor tdd = new TaskDeploymentDescriptor(this.executionGraph.getJobID(),
@@ -21,6 +21,7 @@ import eu.stratosphere.nephele.io.channels.AbstractInputChannel;
 import eu.stratosphere.nephele.io.channels.ChannelID;
 import eu.stratosphere.nephele.io.channels.bytebuffered.InMemoryInputChannel;
 import eu.stratosphere.nephele.io.channels.bytebuffered.NetworkInputChannel;
+import eu.stratosphere.nephele.io.compression.CompressionCodec;
 
 /**
  * @param <T> The type of record that can be transported through this gate.
@@ -99,12 +100,12 @@ public interface InputGate<T extends IOReadableWritable> extends Gate<T> {
 	 *        the ID of the channel
 	 * @param connectedChannelID
 	 *        the ID of the channel this channel is connected to
-	 * @param compressionLevel
-	 *        the level of compression to be used for this channel
+	 * @param compressionCodec
+	 *        the codec the connected output channel compresses its buffers with
 	 * @return the new network input channel
 	 */
 	NetworkInputChannel<T> createNetworkInputChannel(InputGate<T> inputGate, ChannelID channelID,
-			ChannelID connectedChannelID);
+			ChannelID connectedChannelID, CompressionCodec compressionCodec);
 
 
 	/**
@@ -21,6 +21,7 @@ import eu.stratosphere.nephele.io.channels.AbstractOutputChannel;
 import eu.stratosphere.nephele.io.channels.ChannelID;
 import eu.stratosphere.nephele.io.channels.bytebuffered.InMemoryOutputChannel;
 import eu.stratosphere.nephele.io.channels.bytebuffered.NetworkOutputChannel;
+import eu.stratosphere.nephele.io.compression.CompressionCodec;
 
 /**
  * In Nephele output gates are a specialization of general gates and connect
@@ -124,12 +125,12 @@ public interface OutputGate<T extends IOReadableWritable> extends Gate<T> {
 	 *        the ID of the channel
 	 * @param connectedChannelID
 	 *        the ID of the channel this channel is connected to
-	 * @param compressionLevel
-	 *        the level of compression to be used for this channel
+	 * @param compressionCodec
+	 *        the codec to compress the channel's buffers with
 	 * @return the new network output channel
 	 */
 	NetworkOutputChannel<T> createNetworkOutputChannel(OutputGate<T> outputGate, ChannelID channelID,
-			ChannelID connectedChannelID);
+			ChannelID connectedChannelID, CompressionCodec compressionCodec);
 
 	/**
 	 * Creates a new in-memory output channel and assigns it to the given output gate.
@@ -30,6 +30,7 @@ import eu.stratosphere.nephele.io.channels.AbstractInputChannel;
 import eu.stratosphere.nephele.io.channels.ChannelID;
 import eu.stratosphere.nephele.io.channels.bytebuffered.InMemoryInputChannel;
 import eu.stratosphere.nephele.io.channels.bytebuffered.NetworkInputChannel;
+import eu.stratosphere.nephele.io.compression.CompressionCodec;
 import eu.stratosphere.nephele.jobgraph.JobID;
 
 /**
@@ -152,10 +153,10 @@ public class RuntimeInputGate<T extends IOReadableWritable> extends AbstractGate
 
 	@Override
 	public NetworkInputChannel<T> createNetworkInputChannel(final InputGate<T> inputGate, final ChannelID channelID,
-			final ChannelID connectedChannelID) {
+			final ChannelID connectedChannelID, final CompressionCodec compressionCodec) {
 
 		final NetworkInputChannel<T> enic = new NetworkInputChannel<T>(inputGate, this.inputChannels.size(),
-			this.deserializerFactory.createDeserializer(), channelID, connectedChannelID);
+			this.deserializerFactory.createDeserializer(), channelID, connectedChannelID, compressionCodec);
 		addInputChannel(enic);
 
 		return enic;
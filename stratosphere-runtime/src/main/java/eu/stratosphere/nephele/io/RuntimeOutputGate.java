@@ -28,6 +28,7 @@ import eu.stratosphere.nephele.io.channels.ChannelID;
 import eu.stratosphere.nephele.io.channels.ChannelType;
 import eu.stratosphere.nephele.io.channels.bytebuffered.InMemoryOutputChannel;
 import eu.stratosphere.nephele.io.channels.bytebuffered.NetworkOutputChannel;
+import eu.stratosphere.nephele.io.compression.CompressionCodec;
 import eu.stratosphere.nephele.jobgraph.JobID;
 
 /**
@@ -186,10 +187,10 @@ public class RuntimeOutputGate<T extends IOReadableWritable> extends AbstractGat
 
 	@Override
 	public NetworkOutputChannel<T> createNetworkOutputChannel(final OutputGate<T> outputGate,
-			final ChannelID channelID, final ChannelID connectedChannelID) {
+			final ChannelID channelID, final ChannelID connectedChannelID, final CompressionCodec compressionCodec) {
 
 		final NetworkOutputChannel<T> enoc = new NetworkOutputChannel<T>(outputGate, this.outputChannels.size(),
-			channelID, connectedChannelID);
+			channelID, connectedChannelID, compressionCodec);
 		addOutputChannel(enoc);
 
 		return enoc;
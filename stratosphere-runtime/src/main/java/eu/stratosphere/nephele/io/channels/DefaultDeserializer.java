@@ -23,7 +23,9 @@ import java.nio.channels.ReadableByteChannel;
 
 import eu.stratosphere.core.io.IOReadableWritable;
 import eu.stratosphere.core.memory.DataInputView;
+import eu.stratosphere.core.memory.MemorySegment;
 import eu.stratosphere.nephele.io.RecordDeserializer;
+import eu.stratosphere.nephele.services.memorymanager.AbstractPagedInputView;
 
 /**
  * A class for deserializing a portion of binary data into records of type <code>T</code>. The internal
@@ -45,6 +47,11 @@ public class DefaultDeserializer<T extends IOReadableWritable> implements Record
 	 */
 	private final DataInputWrapper deserializationWrapper;
 
+	/**
+	 * The view used to deserialize records directly from the memory segment of a buffer.
+	 */
+	private final SegmentInputView segmentView;
+
 	/**
 	 * Buffer to reconstruct the length field.
 	 */
@@ -103,6 +110,8 @@ public class DefaultDeserializer<T extends IOReadableWritable> implements Record
 
 		this.deserializationWrapper = new DataInputWrapper();
 		this.deserializationWrapper.setArray(this.tempBuffer.array());
+
+		this.segmentView = new SegmentInputView();
 	}
 
 	// --------------------------------------------------------------------------------------------
@@ -114,6 +123,30 @@ public class DefaultDeserializer<T extends IOReadableWritable> implements Record
 	 */
 	@Override
 	public T readData(T target, final ReadableByteChannel readableByteChannel) throws IOException {
+		// records that are contained completely in a memory buffer are read in place
+		if (this.recordLength < 0 && this.lengthBuf.position() == 0 && readableByteChannel instanceof MemoryBuffer) {
+			final MemoryBuffer buffer = (MemoryBuffer) readableByteChannel;
+			final int position = buffer.position();
+			final int remaining = buffer.remaining();
+
+			if (remaining >= SIZEOFINT) {
+				final MemorySegment segment = buffer.getMemorySegment();
+				final int len = segment.getIntBigEndian(position);
+
+				if (len <= remaining - SIZEOFINT) {
+					final int start = position + SIZEOFINT;
+					this.segmentView.set(segment, start, start + len);
+
+					if (target == null) {
+						target = instantiateTarget();
+					}
+					target.read(this.segmentView);
+					buffer.position(start + len);
+					return target;
+				}
+			}
+		}
+
 		// check whether the length has already been de-serialized
 		final int len;
 		if (this.recordLength < 0) {
@@ -463,6 +496,30 @@ public class DefaultDeserializer<T extends IOReadableWritable> implements Record
 	// }
 	// }
 
+	/**
+	 * A view on a region of a single memory segment.
+	 */
+	private static final class SegmentInputView extends AbstractPagedInputView {
+
+		SegmentInputView() {
+			super(0);
+		}
+
+		void set(MemorySegment segment, int position, int limit) {
+			seekInput(segment, position, limit);
+		}
+
+		@Override
+		protected MemorySegment nextSegment(MemorySegment current) throws EOFException {
+			throw new EOFException();
+		}
+
+		@Override
+		protected int getLimitForSegment(MemorySegment segment) {
+			return 0;
+		}
+	}
+
 	private static final class DataInputWrapper implements DataInputView {
 		private byte[] source;
 
@@ -0,0 +1,382 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2013 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.nephele.io.channels;
+
+import java.io.IOException;
+import java.io.UTFDataFormatException;
+import java.nio.ByteBuffer;
+
+import eu.stratosphere.core.io.IOReadableWritable;
+import eu.stratosphere.core.memory.DataInputView;
+import eu.stratosphere.core.memory.DataOutputView;
+import eu.stratosphere.core.memory.MemorySegment;
+
+/**
+ * A serializer that writes records directly into the memory segment of a {@link MemoryBuffer}, without staging
+ * them in an intermediate buffer first. The binary format is the same as the one produced by the
+ * {@link SerializationBuffer}: each record is prefixed with its length as a four byte big endian integer.
+ * <p>
+ * A record that does not fit into the remaining space of the buffer spills over into an internal overflow
+ * array. The overflow is transferred into the next buffer via {@link #read(Buffer)}. Only the bytes of the
+ * records that span buffer boundaries are copied once more; all other bytes are written exactly once.
+ * 
+ * @param <T>
+ *        the type of the record this serializer can be used for
+ */
+public class SpanningRecordSerializer<T extends IOReadableWritable> {
+
+	private static final int SIZEOFINT = 4;
+
+	private static final int INITIAL_OVERFLOW_SIZE = 1024;
+
+	/**
+	 * The view that writes the bytes into the buffer and the overflow.
+	 */
+	private final SpanningOutputView view = new SpanningOutputView();
+
+	/**
+	 * The overflow array for the bytes of a record that did not fit into the buffer.
+	 */
+	private byte[] overflow = new byte[INITIAL_OVERFLOW_SIZE];
+
+	/**
+	 * The number of bytes in the overflow array.
+	 */
+	private int overflowLength;
+
+	/**
+	 * The number of bytes that have already been transferred from the overflow array to a buffer.
+	 */
+	private int overflowRead;
+
+	/**
+	 * Return <code>true</code> if the overflow array still contains data from the last record. In this case
+	 * the method serialize must not be called.
+	 * 
+	 * @return <code>true</code> if the overflow still contains data, <code>false</code> if it is empty
+	 */
+	public boolean dataLeftFromPreviousSerialization() {
+		return this.overflowRead < this.overflowLength;
+	}
+
+	/**
+	 * Serializes the given record into the given buffer, starting at the buffer's current position. The
+	 * bytes that do not fit into the buffer are kept in the overflow, to be transferred with {@link #read(Buffer)}.
+	 * 
+	 * @param record
+	 *        the record to serialize
+	 * @param buffer
+	 *        the buffer to serialize the record to, which must be backed by memory
+	 * @throws IOException
+	 *         thrown if data from a previous record is still in the overflow, or if the record could not be
+	 *         serialized
+	 */
+	public void serialize(final T record, final Buffer buffer) throws IOException {
+		if (dataLeftFromPreviousSerialization()) {
+			throw new IOException("Cannot write new data, " + (this.overflowLength - this.overflowRead)
+				+ " bytes still left from previous call");
+		}
+
+		final MemoryBuffer target = (MemoryBuffer) buffer;
+		final MemorySegment segment = target.getMemorySegment();
+		final int start = target.position();
+		final int limit = target.limit();
+
+		this.overflowLength = 0;
+		this.overflowRead = 0;
+		this.view.set(segment, start, limit);
+
+		// reserve the space for the length, which is patched in once the record is written
+		this.view.skipBytesToWrite(SIZEOFINT);
+		record.write(this.view);
+
+		final int inBuffer;
+		if (this.view.inOverflow) {
+			inBuffer = limit - start;
+			this.overflowLength = this.view.position;
+			target.position(limit);
+		} else {
+			inBuffer = this.view.position - start;
+			target.position(this.view.position);
+		}
+
+		final int length = inBuffer + this.overflowLength - SIZEOFINT;
+		for (int i = 0; i < SIZEOFINT; i++) {
+			final byte b = (byte) (length >>> ((SIZEOFINT - 1 - i) << 3));
+			if (i < inBuffer) {
+				segment.put(start + i, b);
+			} else {
+				this.overflow[i - inBuffer] = b;
+			}
+		}
+
+		this.view.clear();
+	}
+
+	/**
+	 * Transfers as much of the data in the overflow to the given buffer as fits.
+	 * 
+	 * @param buffer
+	 *        the buffer to write the data to
+	 * @return the number of bytes written to the buffer
+	 * @throws IOException
+	 *         thrown if an error occurs while writing to the buffer
+	 */
+	public int read(final Buffer buffer) throws IOException {
+		final int written = buffer.write(ByteBuffer.wrap(this.overflow, this.overflowRead,
+			this.overflowLength - this.overflowRead));
+		this.overflowRead += written;
+		return written;
+	}
+
+	public void clear() {
+		this.overflowLength = 0;
+		this.overflowRead = 0;
+		this.view.clear();
+	}
+
+	// --------------------------------------------------------------------------------------------
+
+	/**
+	 * The output view that writes into the segment of the buffer up to its limit, and into the overflow array
+	 * from there on. The overflow array is grown as needed.
+	 */
+	private final class SpanningOutputView implements DataOutputView {
+
+		private MemorySegment segment;
+
+		private int position;
+
+		private int limit;
+
+		private boolean inOverflow;
+
+		private byte[] utfBuffer;
+
+		void set(MemorySegment segment, int position, int limit) {
+			this.segment = segment;
+			this.position = position;
+			this.limit = limit;
+			this.inOverflow = false;
+		}
+
+		void clear() {
+			this.segment = null;
+			this.position = 0;
+			this.limit = 0;
+			this.inOverflow = false;
+		}
+
+		/**
+		 * Makes room for at least the given number of bytes, by switching from the buffer to the overflow or by
+		 * growing the overflow. Afterwards, at least one byte can be written.
+		 */
+		private void advance(int required) {
+			if (!this.inOverflow) {
+				this.inOverflow = true;
+				this.position = 0;
+				if (SpanningRecordSerializer.this.overflow.length >= required) {
+					this.segment = new MemorySegment(SpanningRecordSerializer.this.overflow);
+					this.limit = SpanningRecordSerializer.this.overflow.length;
+					return;
+				}
+			}
+
+			final byte[] current = SpanningRecordSerializer.this.overflow;
+			final byte[] grown = new byte[Math.max(current.length * 2, this.position + required)];
+			System.arraycopy(current, 0, grown, 0, this.position);
+			SpanningRecordSerializer.this.overflow = grown;
+			this.segment = new MemorySegment(grown);
+			this.limit = grown.length;
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			writeByte(b);
+		}
+
+		@Override
+		public void write(byte[] b) throws IOException {
+			write(b, 0, b.length);
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			while (len > 0) {
+				if (this.position == this.limit) {
+					advance(len);
+				}
+				final int toPut = Math.min(this.limit - this.position, len);
+				this.segment.put(this.position, b, off, toPut);
+				this.position += toPut;
+				off += toPut;
+				len -= toPut;
+			}
+		}
+
+		@Override
+		public void writeBoolean(boolean v) throws IOException {
+			writeByte(v ? 1 : 0);
+		}
+
+		@Override
+		public void writeByte(int v) throws IOException {
+			if (this.position == this.limit) {
+				advance(1);
+			}
+			this.segment.put(this.position++, (byte) v);
+		}
+
+		@Override
+		public void writeShort(int v) throws IOException {
+			if (this.position < this.limit - 1) {
+				this.segment.putShort(this.position, (short) v);
+				this.position += 2;
+			} else {
+				writeByte(v >> 8);
+				writeByte(v);
+			}
+		}
+
+		@Override
+		public void writeChar(int v) throws IOException {
+			if (this.position < this.limit - 1) {
+				this.segment.putChar(this.position, (char) v);
+				this.position += 2;
+			} else {
+				writeByte(v >> 8);
+				writeByte(v);
+			}
+		}
+
+		@Override
+		public void writeInt(int v) throws IOException {
+			if (this.position < this.limit - 3) {
+				this.segment.putIntBigEndian(this.position, v);
+				this.position += 4;
+			} else {
+				writeByte(v >> 24);
+				writeByte(v >> 16);
+				writeByte(v >> 8);
+				writeByte(v);
+			}
+		}
+
+		@Override
+		public void writeLong(long v) throws IOException {
+			if (this.position < this.limit - 7) {
+				this.segment.putLongBigEndian(this.position, v);
+				this.position += 8;
+			} else {
+				writeInt((int) (v >> 32));
+				writeInt((int) v);
+			}
+		}
+
+		@Override
+		public void writeFloat(float v) throws IOException {
+			writeInt(Float.floatToRawIntBits(v));
+		}
+
+		@Override
+		public void writeDouble(double v) throws IOException {
+			writeLong(Double.doubleToRawLongBits(v));
+		}
+
+		@Override
+		public void writeBytes(String s) throws IOException {
+			for (int i = 0; i < s.length(); i++) {
+				writeByte(s.charAt(i));
+			}
+		}
+
+		@Override
+		public void writeChars(String s) throws IOException {
+			for (int i = 0; i < s.length(); i++) {
+				writeChar(s.charAt(i));
+			}
+		}
+
+		@Override
+		public void writeUTF(String str) throws IOException {
+			final int strlen = str.length();
+			int utflen = 0;
+			int c, count = 0;
+
+			for (int i = 0; i < strlen; i++) {
+				c = str.charAt(i);
+				if ((c >= 0x0001) && (c <= 0x007F)) {
+					utflen++;
+				} else if (c > 0x07FF) {
+					utflen += 3;
+				} else {
+					utflen += 2;
+				}
+			}
+
+			if (utflen > 65535) {
+				throw new UTFDataFormatException("encoded string too long: " + utflen + " memory");
+			}
+
+			if (this.utfBuffer == null || this.utfBuffer.length < utflen + 2) {
+				this.utfBuffer = new byte[utflen + 2];
+			}
+			final byte[] bytearr = this.utfBuffer;
+
+			bytearr[count++] = (byte) ((utflen >>> 8) & 0xFF);
+			bytearr[count++] = (byte) (utflen & 0xFF);
+
+			for (int i = 0; i < strlen; i++) {
+				c = str.charAt(i);
+				if ((c >= 0x0001) && (c <= 0x007F)) {
+					bytearr[count++] = (byte) c;
+				} else if (c > 0x07FF) {
+					bytearr[count++] = (byte) (0xE0 | ((c >> 12) & 0x0F));
+					bytearr[count++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+					bytearr[count++] = (byte) (0x80 | (c & 0x3F));
+				} else {
+					bytearr[count++] = (byte) (0xC0 | ((c >> 6) & 0x1F));
+					bytearr[count++] = (byte) (0x80 | (c & 0x3F));
+				}
+			}
+
+			write(bytearr, 0, utflen + 2);
+		}
+
+		@Override
+		public void skipBytesToWrite(int numBytes) throws IOException {
+			while (numBytes > 0) {
+				if (this.position == this.limit) {
+					advance(numBytes);
+				}
+				final int toSkip = Math.min(this.limit - this.position, numBytes);
+				this.position += toSkip;
+				numBytes -= toSkip;
+			}
+		}
+
+		@Override
+		public void write(DataInputView source, int numBytes) throws IOException {
+			while (numBytes > 0) {
+				if (this.position == this.limit) {
+					advance(numBytes);
+				}
+				final int toPut = Math.min(this.limit - this.position, numBytes);
+				this.segment.put(source, this.position, toPut);
+				this.position += toPut;
+				numBytes -= toPut;
+			}
+		}
+	}
+}
@@ -27,6 +27,9 @@ import eu.stratosphere.nephele.io.RecordDeserializer;
 import eu.stratosphere.nephele.io.channels.AbstractInputChannel;
 import eu.stratosphere.nephele.io.channels.Buffer;
 import eu.stratosphere.nephele.io.channels.ChannelID;
+import eu.stratosphere.nephele.io.compression.BlockDecompressor;
+import eu.stratosphere.nephele.io.compression.BufferDecompressor;
+import eu.stratosphere.nephele.io.compression.CompressionCodec;
 
 /**
  * @param <T> The type of record that can be transported through this channel.
@@ -48,6 +51,11 @@ public abstract class AbstractByteBufferedInputChannel<T extends IOReadableWrita
 	 */
 	private Buffer dataBuffer;
 
+	/**
+	 * The decompressor for the received buffers, or <code>null</code> if the buffers are not compressed.
+	 */
+	private final BufferDecompressor decompressor;
+
 	private ByteBufferedInputChannelBroker inputChannelBroker;
 	
 	private AbstractTaskEvent currentEvent;
@@ -66,6 +74,11 @@ public abstract class AbstractByteBufferedInputChannel<T extends IOReadableWrita
 
 	private volatile boolean brokerAggreedToCloseChannel;
 
+	/**
+	 * Stores whether the connected output channel belongs to a broadcast gate.
+	 */
+	private boolean connectedToBroadcastGate = false;
+
 	/**
 	 * Creates a new input channel.
 	 * 
@@ -82,12 +95,41 @@ public abstract class AbstractByteBufferedInputChannel<T extends IOReadableWrita
 	 */
 	public AbstractByteBufferedInputChannel(final InputGate<T> inputGate, final int channelIndex,
 			final RecordDeserializer<T> deserializer, final ChannelID channelID, final ChannelID connectedChannelID) {
+		this(inputGate, channelIndex, deserializer, channelID, connectedChannelID, CompressionCodec.NONE);
+	}
+
+	/**
+	 * Creates a new input channel that receives compressed buffers.
+	 * 
+	 * @param inputGate
+	 *        the input gate this channel is wired to
+	 * @param channelIndex
+	 *        the channel's index at the associated input gate
+	 * @param type
+	 *        the type of record transported through this channel
+	 * @param channelID
+	 *        the ID of the channel
+	 * @param connectedChannelID
+	 *        the ID of the channel this channel is connected to
+	 * @param compressionCodec
+	 *        the codec the connected output channel compresses its buffers with
+	 */
+	public AbstractByteBufferedInputChannel(final InputGate<T> inputGate, final int channelIndex,
+			final RecordDeserializer<T> deserializer, final ChannelID channelID, final ChannelID connectedChannelID,
+			final CompressionCodec compressionCodec) {
 		super(inputGate, channelIndex, channelID, connectedChannelID);
 		this.deserializer = deserializer;
+
+		final BlockDecompressor blockDecompressor = compressionCodec.createDecompressor();
+		this.decompressor = blockDecompressor == null ? null : new BufferDecompressor(blockDecompressor);
 	}
 
 	@Override
 	public InputChannelResult readRecord(T target) throws IOException {
+		if (this.decompressor != null) {
+			return readRecordFromDecompressor(target);
+		}
+
 		if (this.dataBuffer == null) {
 			if (isClosed()) {
 				return InputChannelResult.END_OF_STREAM;
@@ -101,29 +143,8 @@ public abstract class AbstractByteBufferedInputChannel<T extends IOReadableWrita
 			}
 			
 			// handle events
-			if (boe.isEvent())
-			{
-				// sanity check: an event may only come after a complete record.
-				if (this.deserializer.hasUnfinishedData()) {
-					throw new IOException("Channel received an event before completing the current partial record.");
-				}
-				
-				AbstractEvent evt = boe.getEvent();
-				if (evt.getClass() == ByteBufferedChannelCloseEvent.class) {
-					this.brokerAggreedToCloseChannel = true;
-					return InputChannelResult.END_OF_STREAM;
-				}
-				else if (evt.getClass() == EndOfSuperstepEvent.class) {
-					return InputChannelResult.END_OF_SUPERSTEP;
-				}
-				else if (evt instanceof AbstractTaskEvent) {
-					this.currentEvent = (AbstractTaskEvent) evt;
-					return InputChannelResult.TASK_EVENT;
-				}
-				else {
-					LOG.error("Received unknown event: " + evt);
-					return InputChannelResult.NONE;
-				}
+			if (boe.isEvent()) {
+				return handleEvent(boe.getEvent());
 			} else {
 				// buffer case
 				this.dataBuffer = boe.getBuffer();
@@ -143,6 +164,65 @@ public abstract class AbstractByteBufferedInputChannel<T extends IOReadableWrita
 		}
 	}
 
+	/**
+	 * Reads the next record from the data of compressed buffers. A received buffer is decompressed at once and
+	 * released right away, so it does not stay occupied while its records are consumed.
+	 */
+	private InputChannelResult readRecordFromDecompressor(T target) throws IOException {
+		if (this.decompressor.remaining() == 0) {
+			if (isClosed()) {
+				return InputChannelResult.END_OF_STREAM;
+			}
+
+			BufferOrEvent boe = this.inputChannelBroker.getNextBufferOrEvent();
+			if (boe == null) {
+				throw new IllegalStateException("Input channel was queries for data even though none was announced available.");
+			}
+
+			if (boe.isEvent()) {
+				return handleEvent(boe.getEvent());
+			}
+
+			final Buffer buffer = boe.getBuffer();
+			try {
+				this.decompressor.decompress(buffer);
+			} finally {
+				releasedConsumedReadBuffer(buffer);
+			}
+		}
+
+		T nextRecord = this.deserializer.readData(target, this.decompressor);
+
+		if (this.decompressor.remaining() == 0) {
+			return nextRecord == null ? InputChannelResult.NONE : InputChannelResult.LAST_RECORD_FROM_BUFFER;
+		} else {
+			return nextRecord == null ? InputChannelResult.NONE : InputChannelResult.INTERMEDIATE_RECORD_FROM_BUFFER;
+		}
+	}
+
+	private InputChannelResult handleEvent(AbstractEvent evt) throws IOException {
+		// sanity check: an event may only come after a complete record.
+		if (this.deserializer.hasUnfinishedData()) {
+			throw new IOException("Channel received an event before completing the current partial record.");
+		}
+
+		if (evt.getClass() == ByteBufferedChannelCloseEvent.class) {
+			this.brokerAggreedToCloseChannel = true;
+			return InputChannelResult.END_OF_STREAM;
+		}
+		else if (evt.getClass() == EndOfSuperstepEvent.class) {
+			return InputChannelResult.END_OF_SUPERSTEP;
+		}
+		else if (evt instanceof AbstractTaskEvent) {
+			this.currentEvent = (AbstractTaskEvent) evt;
+			return InputChannelResult.TASK_EVENT;
+		}
+		else {
+			LOG.error("Received unknown event: " + evt);
+			return InputChannelResult.NONE;
+		}
+	}
+
 	@Override
 	public boolean isClosed() throws IOException{
 		if (this.ioException != null) {
@@ -157,6 +237,9 @@ public abstract class AbstractByteBufferedInputChannel<T extends IOReadableWrita
 	public void close() throws IOException, InterruptedException {
 
 		this.deserializer.clear();
+		if (this.decompressor != null) {
+			this.decompressor.clear();
+		}
 		if (this.dataBuffer != null) {
 			releasedConsumedReadBuffer(this.dataBuffer);
 			this.dataBuffer = null;
@@ -195,6 +278,28 @@ public abstract class AbstractByteBufferedInputChannel<T extends IOReadableWrita
 		this.inputChannelBroker = inputChannelBroker;
 	}
 
+	/**
+	 * Sets whether the connected output channel belongs to a broadcast gate. The output channels of broadcast gates
+	 * are not flow controlled, so their receivers must not grant credit. The flag must be set before the channel is
+	 * registered with its broker.
+	 * 
+	 * @param connectedToBroadcastGate
+	 *        <code>true</code> if the connected output channel belongs to a broadcast gate
+	 */
+	public void setConnectedToBroadcastGate(final boolean connectedToBroadcastGate) {
+		this.connectedToBroadcastGate = connectedToBroadcastGate;
+	}
+
+	/**
+	 * Checks whether the connected output channel belongs to a broadcast gate.
+	 * 
+	 * @return <code>true</code> if the connected output channel belongs to a broadcast gate, <code>false</code>
+	 *         otherwise
+	 */
+	public boolean isConnectedToBroadcastGate() {
+		return this.connectedToBroadcastGate;
+	}
+
 
 	public void notifyGateThatInputIsAvailable() {
 		this.getInputGate().notifyRecordIsAvailable(getChannelIndex());
@@ -216,6 +321,9 @@ public abstract class AbstractByteBufferedInputChannel<T extends IOReadableWrita
 	public void releaseAllResources() {
 		this.brokerAggreedToCloseChannel = true;
 		this.deserializer.clear();
+		if (this.decompressor != null) {
+			this.decompressor.clear();
+		}
 
 		// The buffers are recycled by the input channel wrapper
 	}
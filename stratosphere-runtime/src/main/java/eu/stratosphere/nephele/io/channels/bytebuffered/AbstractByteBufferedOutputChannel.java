@@ -14,6 +14,8 @@
 package eu.stratosphere.nephele.io.channels.bytebuffered;
 
 import java.io.IOException;
+import java.util.TimerTask;
+import java.util.concurrent.locks.ReentrantLock;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -26,14 +28,17 @@ import eu.stratosphere.nephele.io.channels.AbstractOutputChannel;
 import eu.stratosphere.nephele.io.channels.Buffer;
 import eu.stratosphere.nephele.io.channels.ChannelID;
 import eu.stratosphere.nephele.io.channels.ChannelType;
-import eu.stratosphere.nephele.io.channels.SerializationBuffer;
+import eu.stratosphere.nephele.io.channels.SpanningRecordSerializer;
+import eu.stratosphere.nephele.io.compression.BlockCompressor;
+import eu.stratosphere.nephele.io.compression.BufferCompressor;
+import eu.stratosphere.nephele.io.compression.CompressionCodec;
 
 public abstract class AbstractByteBufferedOutputChannel<T extends IOReadableWritable> extends AbstractOutputChannel<T> {
 
 	/**
-	 * The serialization buffer used to serialize records.
+	 * The serializer that writes the records directly into the write buffers.
 	 */
-	private final SerializationBuffer<T> serializationBuffer = new SerializationBuffer<T>();
+	private final SpanningRecordSerializer<T> serializer = new SpanningRecordSerializer<T>();
 
 	/**
 	 * Buffer for the serialized output data.
@@ -50,12 +55,38 @@ public abstract class AbstractByteBufferedOutputChannel<T extends IOReadableWrit
 	 */
 	private ByteBufferedOutputChannelBroker outputChannelBroker = null;
 
+	/**
+	 * The compressor for the write buffers, or <code>null</code> if the buffers are transferred uncompressed.
+	 */
+	private final BufferCompressor compressor;
 
 	/**
 	 * Stores the number of bytes transmitted through this output channel since its instantiation.
 	 */
 	private long amountOfDataTransmitted = 0L;
 
+	/**
+	 * The maximum time in milliseconds a partially filled write buffer is held before it is shipped, or
+	 * <code>-1</code> if buffers are only shipped when they are full.
+	 */
+	private long bufferTimeout = -1;
+
+	/**
+	 * The lock that guards the write buffer against concurrent flushes by the {@link OutputFlusher}, or
+	 * <code>null</code> if the buffers of this channel are not flushed on a timeout.
+	 */
+	private ReentrantLock flushLock;
+
+	/**
+	 * The task that periodically flushes this channel, or <code>null</code> if it is not registered.
+	 */
+	private TimerTask flushTask;
+
+	/**
+	 * The exception that occurred while the {@link OutputFlusher} flushed this channel, if any.
+	 */
+	private Exception flushException;
+
 	private static final Log LOG = LogFactory.getLog(AbstractByteBufferedOutputChannel.class);
 
 	/**
@@ -72,7 +103,29 @@ public abstract class AbstractByteBufferedOutputChannel<T extends IOReadableWrit
 	 */
 	protected AbstractByteBufferedOutputChannel(final OutputGate<T> outputGate, final int channelIndex,
 			final ChannelID channelID, final ChannelID connectedChannelID) {
+		this(outputGate, channelIndex, channelID, connectedChannelID, CompressionCodec.NONE);
+	}
+
+	/**
+	 * Creates a new byte buffered output channel that compresses its buffers.
+	 * 
+	 * @param outputGate
+	 *        the output gate this channel is wired to
+	 * @param channelIndex
+	 *        the channel's index at the associated output gate
+	 * @param channelID
+	 *        the ID of the channel
+	 * @param connectedChannelID
+	 *        the ID of the channel this channel is connected to
+	 * @param compressionCodec
+	 *        the codec to compress the write buffers with
+	 */
+	protected AbstractByteBufferedOutputChannel(final OutputGate<T> outputGate, final int channelIndex,
+			final ChannelID channelID, final ChannelID connectedChannelID, final CompressionCodec compressionCodec) {
 		super(outputGate, channelIndex, channelID, connectedChannelID);
+
+		final BlockCompressor blockCompressor = compressionCodec.createCompressor();
+		this.compressor = blockCompressor == null ? null : new BufferCompressor(blockCompressor);
 	}
 
 
@@ -80,7 +133,7 @@ public abstract class AbstractByteBufferedOutputChannel<T extends IOReadableWrit
 	public boolean isClosed() throws IOException, InterruptedException {
 
 		if (this.closeRequested && this.dataBuffer == null
-			&& !this.serializationBuffer.dataLeftFromPreviousSerialization()) {
+			&& !this.serializer.dataLeftFromPreviousSerialization()) {
 
 			if (!this.outputChannelBroker.hasDataLeftToTransmit()) {
 				return true;
@@ -94,17 +147,98 @@ public abstract class AbstractByteBufferedOutputChannel<T extends IOReadableWrit
 	@Override
 	public void requestClose() throws IOException, InterruptedException {
 
-		if (!this.closeRequested) {
-			this.closeRequested = true;
-			if (this.serializationBuffer.dataLeftFromPreviousSerialization()) {
-				// make sure we serialized all data before we send the close event
-				flush();
+		lock();
+		try {
+			if (!this.closeRequested) {
+				this.closeRequested = true;
+				cancelFlushTask();
+				if (this.serializer.dataLeftFromPreviousSerialization()) {
+					// make sure we serialized all data before we send the close event
+					flush();
+				}
+
+				if (getType() == ChannelType.INMEMORY || !isBroadcastChannel() || getChannelIndex() == 0) {
+					transferEvent(new ByteBufferedChannelCloseEvent());
+					flush();
+				}
 			}
+		} finally {
+			unlock();
+		}
+	}
 
-			if (getType() == ChannelType.INMEMORY || !isBroadcastChannel() || getChannelIndex() == 0) {
-				transferEvent(new ByteBufferedChannelCloseEvent());
-				flush();
+	/**
+	 * Sets the maximum time that the channel holds a partially filled write buffer before it ships it. With a
+	 * timeout of <code>0</code>, the buffer is shipped after every record. With a positive timeout, the channel
+	 * is flushed periodically by the {@link OutputFlusher}. The timeout must be set before the channel is
+	 * registered with its broker.
+	 * 
+	 * @param bufferTimeout
+	 *        the buffer timeout in milliseconds, or <code>-1</code> to ship buffers only when they are full
+	 */
+	public void setBufferTimeout(final long bufferTimeout) {
+		if (bufferTimeout < -1) {
+			throw new IllegalArgumentException("The buffer timeout must be at least zero, or -1 to disable it.");
+		}
+		this.bufferTimeout = bufferTimeout;
+		this.flushLock = bufferTimeout > 0 ? new ReentrantLock() : null;
+	}
+
+	/**
+	 * Returns the maximum time that the channel holds a partially filled write buffer.
+	 * 
+	 * @return the buffer timeout in milliseconds, or <code>-1</code> if timed flushing is disabled
+	 */
+	public long getBufferTimeout() {
+		return this.bufferTimeout;
+	}
+
+	/**
+	 * Ships the current write buffer if it holds any data. This method is called by the {@link OutputFlusher}
+	 * once the buffer timeout has passed. It does not wait if the task is currently writing to the channel,
+	 * because the task then either ships the buffer itself or waits for an empty buffer, and it does not flush
+	 * if the receiver cannot accept the buffer yet.
+	 */
+	void flushOnTimeout() {
+		if (!this.flushLock.tryLock()) {
+			return;
+		}
+		try {
+			if (!this.closeRequested && this.dataBuffer != null && this.dataBuffer.position() > 0
+				&& this.flushException == null && this.outputChannelBroker.canReleaseWriteBufferWithoutBlocking()) {
+				releaseWriteBuffer();
 			}
+		} catch (Exception e) {
+			// report the error to the task with its next call
+			this.flushException = e;
+		} finally {
+			this.flushLock.unlock();
+		}
+	}
+
+	private void lock() {
+		if (this.flushLock != null) {
+			this.flushLock.lock();
+		}
+	}
+
+	private void unlock() {
+		if (this.flushLock != null) {
+			this.flushLock.unlock();
+		}
+	}
+
+	private void cancelFlushTask() {
+		if (this.flushTask != null) {
+			this.flushTask.cancel();
+			this.flushTask = null;
+		}
+	}
+
+	private void checkFlushException() throws IOException {
+		if (this.flushException != null) {
+			throw new IOException("Flushing the channel after its buffer timeout failed: "
+				+ this.flushException.getMessage(), this.flushException);
 		}
 	}
 
@@ -121,6 +255,9 @@ public abstract class AbstractByteBufferedOutputChannel<T extends IOReadableWrit
 			throw new InterruptedException();
 		}
 		this.dataBuffer = this.outputChannelBroker.requestEmptyWriteBuffer();
+		if (this.compressor != null) {
+			this.compressor.reserveTrailer(this.dataBuffer);
+		}
 	}
 
 	/**
@@ -132,6 +269,10 @@ public abstract class AbstractByteBufferedOutputChannel<T extends IOReadableWrit
 	 *         thrown if the thread is interrupted while releasing the buffers
 	 */
 	private void releaseWriteBuffer() throws IOException, InterruptedException {
+		if (this.compressor != null) {
+			this.compressor.compress(this.dataBuffer);
+		}
+
 		// Keep track of number of bytes transmitted through this channel
 		this.amountOfDataTransmitted += this.dataBuffer.size();
 
@@ -143,35 +284,55 @@ public abstract class AbstractByteBufferedOutputChannel<T extends IOReadableWrit
 	@Override
 	public void writeRecord(T record) throws IOException, InterruptedException {
 
-		// Get a write buffer from the broker
-		if (this.dataBuffer == null) {
-			requestWriteBufferFromBroker();
-		}
+		lock();
+		try {
+			checkFlushException();
 
-		if (this.closeRequested) {
-			throw new IOException("Channel is aready requested to be closed");
-		}
+			// Get a write buffer from the broker
+			if (this.dataBuffer == null) {
+				requestWriteBufferFromBroker();
+			}
 
-		// Check if we can accept new records or if there are still old
-		// records to be transmitted
-		while (this.serializationBuffer.dataLeftFromPreviousSerialization()) {
+			if (this.closeRequested) {
+				throw new IOException("Channel is aready requested to be closed");
+			}
 
-			this.serializationBuffer.read(this.dataBuffer);
-			if (this.dataBuffer.remaining() == 0) {
-				releaseWriteBuffer();
-				requestWriteBufferFromBroker();
+			// Check if we can accept new records or if there are still old
+			// records to be transmitted
+			while (this.serializer.dataLeftFromPreviousSerialization()) {
+
+				this.serializer.read(this.dataBuffer);
+				if (this.dataBuffer.remaining() == 0) {
+					releaseWriteBuffer();
+					requestWriteBufferFromBroker();
+				}
 			}
-		}
 
-		if (this.serializationBuffer.dataLeftFromPreviousSerialization()) {
-			throw new IOException("Serialization buffer is expected to be empty!");
-		}
+			if (this.serializer.dataLeftFromPreviousSerialization()) {
+				throw new IOException("Serializer is expected to have no data left!");
+			}
 
-		this.serializationBuffer.serialize(record);
+			this.serializer.serialize(record, this.dataBuffer);
+			if (this.dataBuffer.remaining() == 0) {
+				releaseWriteBuffer();
+			}
 
-		this.serializationBuffer.read(this.dataBuffer);
-		if (this.dataBuffer.remaining() == 0) {
-			releaseWriteBuffer();
+			if (this.bufferTimeout == 0) {
+				flush();
+			} else if (this.bufferTimeout > 0) {
+				// move the rest of a spanning record into a buffer right away, where the flusher can see it
+				while (this.serializer.dataLeftFromPreviousSerialization()) {
+					if (this.dataBuffer == null) {
+						requestWriteBufferFromBroker();
+					}
+					this.serializer.read(this.dataBuffer);
+					if (this.dataBuffer.remaining() == 0) {
+						releaseWriteBuffer();
+					}
+				}
+			}
+		} finally {
+			unlock();
 		}
 	}
 
@@ -184,6 +345,10 @@ public abstract class AbstractByteBufferedOutputChannel<T extends IOReadableWrit
 	public void setByteBufferedOutputChannelBroker(ByteBufferedOutputChannelBroker byteBufferedOutputChannelBroker) {
 
 		this.outputChannelBroker = byteBufferedOutputChannelBroker;
+
+		if (this.bufferTimeout > 0 && this.flushTask == null) {
+			this.flushTask = OutputFlusher.getInstance().register(this, this.bufferTimeout);
+		}
 	}
 
 
@@ -200,34 +365,46 @@ public abstract class AbstractByteBufferedOutputChannel<T extends IOReadableWrit
 	@Override
 	public void transferEvent(AbstractEvent event) throws IOException, InterruptedException {
 
-		flush();
-		this.outputChannelBroker.transferEventToInputChannel(event);
+		lock();
+		try {
+			flush();
+			this.outputChannelBroker.transferEventToInputChannel(event);
+		} finally {
+			unlock();
+		}
 	}
 
 
 	@Override
 	public void flush() throws IOException, InterruptedException {
 
-		// Get rid of remaining data in the serialization buffer
-		while (this.serializationBuffer.dataLeftFromPreviousSerialization()) {
+		lock();
+		try {
+			checkFlushException();
 
-			if (this.dataBuffer == null) {
+			// Get rid of remaining data in the serialization buffer
+			while (this.serializer.dataLeftFromPreviousSerialization()) {
 
-				try {
-					requestWriteBufferFromBroker();
-				} catch (InterruptedException e) {
-					LOG.error(e);
+				if (this.dataBuffer == null) {
+
+					try {
+						requestWriteBufferFromBroker();
+					} catch (InterruptedException e) {
+						LOG.error(e);
+					}
+				}
+				this.serializer.read(this.dataBuffer);
+				if (this.dataBuffer.remaining() == 0) {
+					releaseWriteBuffer();
 				}
 			}
-			this.serializationBuffer.read(this.dataBuffer);
-			if (this.dataBuffer.remaining() == 0) {
+
+			// Get rid of the leased write buffer
+			if (this.dataBuffer != null) {
 				releaseWriteBuffer();
 			}
-		}
-
-		// Get rid of the leased write buffer
-		if (this.dataBuffer != null) {
-			releaseWriteBuffer();
+		} finally {
+			unlock();
 		}
 	}
 
@@ -235,14 +412,20 @@ public abstract class AbstractByteBufferedOutputChannel<T extends IOReadableWrit
 	@Override
 	public void releaseAllResources() {
 
-		// TODO: Reconsider release of broker's resources here
-		this.closeRequested = true;
+		lock();
+		try {
+			// TODO: Reconsider release of broker's resources here
+			this.closeRequested = true;
+			cancelFlushTask();
 
-		this.serializationBuffer.clear();
+			this.serializer.clear();
 
-		if (this.dataBuffer != null) {
-			this.dataBuffer.recycleBuffer();
-			this.dataBuffer = null;
+			if (this.dataBuffer != null) {
+				this.dataBuffer.recycleBuffer();
+				this.dataBuffer = null;
+			}
+		} finally {
+			unlock();
 		}
 	}
 
@@ -45,6 +45,14 @@ public interface ByteBufferedOutputChannelBroker {
 	 */
 	void releaseWriteBuffer(Buffer buffer) throws IOException, InterruptedException;
 
+	/**
+	 * Checks if a write buffer returned to the broker now is passed on without waiting. This is not the case if the
+	 * receiver has not yet announced that it is able to accept another buffer.
+	 * 
+	 * @return <code>true</code> if a returned write buffer is passed on without waiting, <code>false</code> otherwise
+	 */
+	boolean canReleaseWriteBufferWithoutBlocking();
+
 	/**
 	 * Checks if there is still data created by this output channel that must be transfered to the corresponding input
 	 * channel.
@@ -18,12 +18,13 @@ import eu.stratosphere.nephele.io.InputGate;
 import eu.stratosphere.nephele.io.RecordDeserializer;
 import eu.stratosphere.nephele.io.channels.ChannelID;
 import eu.stratosphere.nephele.io.channels.ChannelType;
+import eu.stratosphere.nephele.io.compression.CompressionCodec;
 
 public final class NetworkInputChannel<T extends IOReadableWritable> extends AbstractByteBufferedInputChannel<T> {
 
 	public NetworkInputChannel(InputGate<T> inputGate, int channelIndex, RecordDeserializer<T> deserializer,
-			ChannelID channelID, ChannelID connectedChannelID) {
-		super(inputGate, channelIndex, deserializer, channelID, connectedChannelID);
+			ChannelID channelID, ChannelID connectedChannelID, CompressionCodec compressionCodec) {
+		super(inputGate, channelIndex, deserializer, channelID, connectedChannelID, compressionCodec);
 	}
 
 	@Override
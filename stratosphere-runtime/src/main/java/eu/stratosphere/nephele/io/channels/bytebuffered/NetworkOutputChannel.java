@@ -17,12 +17,13 @@ import eu.stratosphere.core.io.IOReadableWritable;
 import eu.stratosphere.nephele.io.OutputGate;
 import eu.stratosphere.nephele.io.channels.ChannelID;
 import eu.stratosphere.nephele.io.channels.ChannelType;
+import eu.stratosphere.nephele.io.compression.CompressionCodec;
 
 public final class NetworkOutputChannel<T extends IOReadableWritable> extends AbstractByteBufferedOutputChannel<T> {
 
 	public NetworkOutputChannel(OutputGate<T> outputGate, int channelIndex, ChannelID channelID,
-			ChannelID connectedChannelID) {
-		super(outputGate, channelIndex, channelID, connectedChannelID);
+			ChannelID connectedChannelID, CompressionCodec compressionCodec) {
+		super(outputGate, channelIndex, channelID, connectedChannelID, compressionCodec);
 	}
 
 	@Override
@@ -0,0 +1,77 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2013 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+package eu.stratosphere.nephele.io.channels.bytebuffered;
+
+import java.util.Timer;
+import java.util.TimerTask;
+
+/**
+ * The output flusher periodically ships the partially filled write buffers of output channels that have a buffer
+ * timeout. There is one flusher per task manager, which runs a single daemon thread for all registered channels,
+ * so that the number of threads does not grow with the number of channels.
+ */
+public final class OutputFlusher {
+
+	/**
+	 * The singleton instance of the output flusher.
+	 */
+	private static OutputFlusher instance = null;
+
+	/**
+	 * The timer that runs the flush tasks of all registered channels.
+	 */
+	private final Timer timer = new Timer("Output Flusher", true);
+
+	/**
+	 * Returns the singleton instance of the output flusher.
+	 * 
+	 * @return the singleton instance of the output flusher
+	 */
+	public static synchronized OutputFlusher getInstance() {
+
+		if (instance == null) {
+			instance = new OutputFlusher();
+		}
+
+		return instance;
+	}
+
+	private OutputFlusher() {}
+
+	/**
+	 * Registers the given channel to be flushed every <code>timeout</code> milliseconds.
+	 * 
+	 * @param channel
+	 *        the channel to flush
+	 * @param timeout
+	 *        the buffer timeout of the channel in milliseconds, must be positive
+	 * @return the flush task, which must be cancelled when the channel is closed
+	 */
+	TimerTask register(final AbstractByteBufferedOutputChannel<?> channel, final long timeout) {
+
+		if (timeout <= 0) {
+			throw new IllegalArgumentException("The buffer timeout must be positive.");
+		}
+
+		final TimerTask task = new TimerTask() {
+
+			@Override
+			public void run() {
+				channel.flushOnTimeout();
+			}
+		};
+		this.timer.schedule(task, timeout, timeout);
+
+		return task;
+	}
+}
@@ -0,0 +1,48 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2013 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+
+package eu.stratosphere.nephele.io.compression;
+
+/**
+ * A compressor compresses a block of bytes at once. Implementations are not thread-safe.
+ */
+public interface BlockCompressor {
+
+	/**
+	 * Returns the maximum number of bytes that compressing a block of the given length can produce.
+	 * 
+	 * @param uncompressedLength
+	 *        the length of the uncompressed block
+	 * @return the maximum length of the compressed block
+	 */
+	int getMaxCompressedLength(int uncompressedLength);
+
+	/**
+	 * Compresses a block of bytes.
+	 * 
+	 * @param src
+	 *        the array holding the uncompressed block
+	 * @param srcOff
+	 *        the offset of the block in the source array
+	 * @param srcLen
+	 *        the length of the uncompressed block
+	 * @param dst
+	 *        the array to write the compressed block to, with at least {@link #getMaxCompressedLength(int)} bytes
+	 *        after the offset
+	 * @param dstOff
+	 *        the offset in the destination array
+	 * @return the length of the compressed block
+	 */
+	int compress(byte[] src, int srcOff, int srcLen, byte[] dst, int dstOff);
+}
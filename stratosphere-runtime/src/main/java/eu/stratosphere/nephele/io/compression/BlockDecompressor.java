@@ -0,0 +1,45 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2013 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+
+package eu.stratosphere.nephele.io.compression;
+
+import java.io.IOException;
+
+/**
+ * A decompressor restores a block of bytes that was compressed by the corresponding {@link BlockCompressor}.
+ * Implementations are not thread-safe.
+ */
+public interface BlockDecompressor {
+
+	/**
+	 * Decompresses a block of bytes.
+	 * 
+	 * @param src
+	 *        the array holding the compressed block
+	 * @param srcOff
+	 *        the offset of the block in the source array
+	 * @param srcLen
+	 *        the length of the compressed block
+	 * @param dst
+	 *        the array to write the uncompressed block to
+	 * @param dstOff
+	 *        the offset in the destination array
+	 * @param dstCapacity
+	 *        the number of bytes that may be written to the destination array
+	 * @return the length of the uncompressed block
+	 * @throws IOException
+	 *         thrown if the compressed block is corrupt or does not fit into the destination
+	 */
+	int decompress(byte[] src, int srcOff, int srcLen, byte[] dst, int dstOff, int dstCapacity) throws IOException;
+}
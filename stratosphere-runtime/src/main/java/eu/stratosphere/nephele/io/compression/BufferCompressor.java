@@ -0,0 +1,109 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2013 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+
+package eu.stratosphere.nephele.io.compression;
+
+import eu.stratosphere.core.memory.MemorySegment;
+import eu.stratosphere.nephele.io.channels.Buffer;
+import eu.stratosphere.nephele.io.channels.MemoryBuffer;
+
+/**
+ * Compresses the contents of write buffers in place, before they are handed to the network.
+ * <p>
+ * Every compressed buffer ends with a four byte trailer. A non-negative trailer holds the uncompressed length of
+ * the preceding compressed data. If compressing does not shrink the data, it is kept as it is and the trailer is
+ * {@link #STORED_UNCOMPRESSED}. To leave room for the trailer, the writer must {@link #reserveTrailer(Buffer)}
+ * before it fills a buffer.
+ */
+public final class BufferCompressor {
+
+	/**
+	 * The length of the trailer at the end of each compressed buffer.
+	 */
+	public static final int TRAILER_LENGTH = 4;
+
+	/**
+	 * The trailer value that marks buffers whose data is not compressed.
+	 */
+	public static final int STORED_UNCOMPRESSED = -1;
+
+	private final BlockCompressor compressor;
+
+	private byte[] uncompressed = new byte[0];
+
+	private byte[] compressed = new byte[0];
+
+	/**
+	 * Creates a new buffer compressor.
+	 * 
+	 * @param compressor
+	 *        the compressor for the buffer contents
+	 */
+	public BufferCompressor(final BlockCompressor compressor) {
+		if (compressor == null) {
+			throw new NullPointerException();
+		}
+		this.compressor = compressor;
+	}
+
+	/**
+	 * Shrinks the writable region of an empty write buffer, such that the trailer fits behind the data.
+	 * 
+	 * @param buffer
+	 *        the empty write buffer
+	 */
+	public void reserveTrailer(final Buffer buffer) {
+		final MemoryBuffer memBuffer = (MemoryBuffer) buffer;
+		if (memBuffer.limit() <= TRAILER_LENGTH) {
+			throw new IllegalArgumentException("The buffer is too small to hold the compression trailer.");
+		}
+		memBuffer.limit(memBuffer.limit() - TRAILER_LENGTH);
+	}
+
+	/**
+	 * Compresses the data written to the given buffer, i.e. the bytes up to its position, and appends the
+	 * trailer. The buffer is left in write mode, with its position behind the trailer.
+	 * 
+	 * @param buffer
+	 *        the filled write buffer, whose trailer has been reserved
+	 */
+	public void compress(final Buffer buffer) {
+		final MemoryBuffer memBuffer = (MemoryBuffer) buffer;
+		final MemorySegment segment = memBuffer.getMemorySegment();
+		final int length = memBuffer.position();
+
+		final int maxCompressedLength = this.compressor.getMaxCompressedLength(length);
+		if (this.uncompressed.length < length) {
+			this.uncompressed = new byte[length];
+		}
+		if (this.compressed.length < maxCompressedLength) {
+			this.compressed = new byte[maxCompressedLength];
+		}
+
+		segment.get(0, this.uncompressed, 0, length);
+		final int compressedLength = this.compressor.compress(this.uncompressed, 0, length, this.compressed, 0);
+
+		// give back the reserved space for the trailer
+		memBuffer.limit(length + TRAILER_LENGTH);
+
+		if (compressedLength < length) {
+			segment.put(0, this.compressed, 0, compressedLength);
+			segment.putIntBigEndian(compressedLength, length);
+			memBuffer.position(compressedLength + TRAILER_LENGTH);
+		} else {
+			segment.putIntBigEndian(length, STORED_UNCOMPRESSED);
+			memBuffer.position(length + TRAILER_LENGTH);
+		}
+	}
+}
@@ -0,0 +1,146 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2013 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+
+package eu.stratosphere.nephele.io.compression;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+
+import eu.stratosphere.core.memory.MemorySegment;
+import eu.stratosphere.nephele.io.channels.Buffer;
+import eu.stratosphere.nephele.io.channels.MemoryBuffer;
+
+/**
+ * Restores the data of buffers that were compressed by a {@link BufferCompressor}. The data is decompressed
+ * into memory owned by the decompressor, and not in place, because received buffers may be shared among
+ * several local receivers. The decompressed data is then read through the {@link ReadableByteChannel}
+ * interface, like the data of an uncompressed buffer.
+ */
+public final class BufferDecompressor implements ReadableByteChannel {
+
+	private final BlockDecompressor decompressor;
+
+	private byte[] compressed = new byte[0];
+
+	private byte[] data = new byte[0];
+
+	private int position;
+
+	private int limit;
+
+	/**
+	 * Creates a new buffer decompressor.
+	 * 
+	 * @param decompressor
+	 *        the decompressor for the buffer contents
+	 */
+	public BufferDecompressor(final BlockDecompressor decompressor) {
+		if (decompressor == null) {
+			throw new NullPointerException();
+		}
+		this.decompressor = decompressor;
+	}
+
+	/**
+	 * Decompresses the remaining data of the given buffer, which replaces the data that is left to be read from
+	 * this decompressor. The buffer itself is not modified.
+	 * 
+	 * @param buffer
+	 *        the buffer in read mode, holding compressed data and the trailer
+	 * @throws IOException
+	 *         thrown if the buffer's data is corrupt
+	 */
+	public void decompress(final Buffer buffer) throws IOException {
+		final MemoryBuffer memBuffer = (MemoryBuffer) buffer;
+		final MemorySegment segment = memBuffer.getMemorySegment();
+		final int start = memBuffer.position();
+		final int length = memBuffer.remaining() - BufferCompressor.TRAILER_LENGTH;
+		if (length < 0) {
+			throw new IOException("Received buffer is too small to hold a compression trailer.");
+		}
+
+		final int uncompressedLength = segment.getIntBigEndian(start + length);
+		if (uncompressedLength == BufferCompressor.STORED_UNCOMPRESSED) {
+			ensureDataCapacity(length);
+			segment.get(start, this.data, 0, length);
+			this.limit = length;
+		} else if (uncompressedLength >= 0) {
+			ensureDataCapacity(uncompressedLength);
+			if (this.compressed.length < length) {
+				this.compressed = new byte[length];
+			}
+			segment.get(start, this.compressed, 0, length);
+
+			final int actualLength = this.decompressor.decompress(this.compressed, 0, length, this.data, 0,
+				uncompressedLength);
+			if (actualLength != uncompressedLength) {
+				throw new IOException("Decompressed " + actualLength + " bytes, but expected " + uncompressedLength
+					+ " bytes.");
+			}
+			this.limit = uncompressedLength;
+		} else {
+			throw new IOException("Received buffer has an invalid compression trailer: " + uncompressedLength);
+		}
+		this.position = 0;
+	}
+
+	/**
+	 * Returns the number of decompressed bytes that are left to be read.
+	 * 
+	 * @return the number of decompressed bytes left to be read
+	 */
+	public int remaining() {
+		return this.limit - this.position;
+	}
+
+	/**
+	 * Discards the decompressed data that is left to be read.
+	 */
+	public void clear() {
+		this.position = 0;
+		this.limit = 0;
+	}
+
+
+	@Override
+	public int read(final ByteBuffer dst) throws IOException {
+		final int remaining = remaining();
+		if (remaining == 0) {
+			return -1;
+		}
+
+		final int numBytes = Math.min(remaining, dst.remaining());
+		dst.put(this.data, this.position, numBytes);
+		this.position += numBytes;
+		return numBytes;
+	}
+
+
+	@Override
+	public boolean isOpen() {
+		return true;
+	}
+
+
+	@Override
+	public void close() {}
+
+
+	private void ensureDataCapacity(final int capacity) {
+		if (this.data.length < capacity) {
+			this.data = new byte[capacity];
+		}
+	}
+}
@@ -0,0 +1,67 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2013 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+
+package eu.stratosphere.nephele.io.compression;
+
+/**
+ * An enumeration of the codecs that network channels can use to compress their buffers. A codec is plugged in
+ * by implementing a {@link BlockCompressor} and a {@link BlockDecompressor} and adding a constant here that
+ * creates them.
+ */
+public enum CompressionCodec {
+
+	/**
+	 * Buffers are transferred uncompressed.
+	 */
+	NONE {
+		@Override
+		public BlockCompressor createCompressor() {
+			return null;
+		}
+
+		@Override
+		public BlockDecompressor createDecompressor() {
+			return null;
+		}
+	},
+
+	/**
+	 * Buffers are compressed in the LZ4 block format, which trades compression ratio for very high speed.
+	 */
+	LZ4 {
+		@Override
+		public BlockCompressor createCompressor() {
+			return new Lz4BlockCompressor();
+		}
+
+		@Override
+		public BlockDecompressor createDecompressor() {
+			return new Lz4BlockDecompressor();
+		}
+	};
+
+	/**
+	 * Creates a new compressor for this codec.
+	 * 
+	 * @return a new compressor, or <code>null</code> if the codec does not compress
+	 */
+	public abstract BlockCompressor createCompressor();
+
+	/**
+	 * Creates a new decompressor for this codec.
+	 * 
+	 * @return a new decompressor, or <code>null</code> if the codec does not compress
+	 */
+	public abstract BlockDecompressor createDecompressor();
+}
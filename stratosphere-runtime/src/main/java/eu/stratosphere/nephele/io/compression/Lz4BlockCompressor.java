@@ -0,0 +1,158 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2013 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+
+package eu.stratosphere.nephele.io.compression;
+
+import java.util.Arrays;
+
+/**
+ * A pure Java compressor for the LZ4 block format. A compressed block is a sequence of tokens, each consisting
+ * of a run of literals followed by a back-reference of at least four bytes into the last 64 KiB. Matches are
+ * found through a single hash table lookup per position, which makes the compressor fast rather than thorough.
+ */
+public final class Lz4BlockCompressor implements BlockCompressor {
+
+	static final int MIN_MATCH = 4;
+
+	static final int MAX_DISTANCE = 65535;
+
+	/**
+	 * The last five bytes of a block are always literals.
+	 */
+	private static final int LAST_LITERALS = 5;
+
+	/**
+	 * A match must start at least twelve bytes before the end of the block.
+	 */
+	private static final int MATCH_FIND_LIMIT = 12;
+
+	private static final int HASH_LOG = 12;
+
+	/**
+	 * After this many positions without a match, the compressor starts to skip ahead on incompressible data.
+	 */
+	private static final int SKIP_TRIGGER = 6;
+
+	static final int RUN_MASK = 0xf;
+
+	private final int[] hashTable = new int[1 << HASH_LOG];
+
+
+	@Override
+	public int getMaxCompressedLength(final int uncompressedLength) {
+		return uncompressedLength + uncompressedLength / 255 + 16;
+	}
+
+
+	@Override
+	public int compress(final byte[] src, final int srcOff, final int srcLen, final byte[] dst, final int dstOff) {
+
+		final int srcEnd = srcOff + srcLen;
+		final int matchFindLimit = srcEnd - MATCH_FIND_LIMIT;
+		final int matchLimit = srcEnd - LAST_LITERALS;
+		final int[] table = this.hashTable;
+
+		int sp = srcOff;
+		int dp = dstOff;
+		int anchor = srcOff;
+
+		if (srcLen > MATCH_FIND_LIMIT) {
+			Arrays.fill(table, -1);
+
+			int searchCount = 1 << SKIP_TRIGGER;
+			while (sp < matchFindLimit) {
+				final int sequence = readInt(src, sp);
+				final int h = hash(sequence);
+				int ref = table[h];
+				table[h] = sp;
+
+				if (ref < 0 || sp - ref > MAX_DISTANCE || readInt(src, ref) != sequence) {
+					sp += searchCount++ >>> SKIP_TRIGGER;
+					continue;
+				}
+				searchCount = 1 << SKIP_TRIGGER;
+
+				// extend the match backwards over the pending literals
+				while (sp > anchor && ref > srcOff && src[sp - 1] == src[ref - 1]) {
+					sp--;
+					ref--;
+				}
+
+				final int tokenPos = dp++;
+				dst[tokenPos] = 0;
+				final int literalLength = sp - anchor;
+				dp = writeLength(dst, dp, tokenPos, literalLength, 4);
+				System.arraycopy(src, anchor, dst, dp, literalLength);
+				dp += literalLength;
+
+				// write the offset and extend the match forwards
+				final int distance = sp - ref;
+				dst[dp++] = (byte) distance;
+				dst[dp++] = (byte) (distance >>> 8);
+
+				sp += MIN_MATCH;
+				ref += MIN_MATCH;
+				final int matchStart = sp;
+				while (sp < matchLimit && src[sp] == src[ref]) {
+					sp++;
+					ref++;
+				}
+				dp = writeLength(dst, dp, tokenPos, sp - matchStart, 0);
+				anchor = sp;
+
+				// make the position just before the end of the match findable
+				if (sp - 2 < matchFindLimit) {
+					table[hash(readInt(src, sp - 2))] = sp - 2;
+				}
+			}
+		}
+
+		// the last literals
+		final int tokenPos = dp++;
+		dst[tokenPos] = 0;
+		final int literalLength = srcEnd - anchor;
+		dp = writeLength(dst, dp, tokenPos, literalLength, 4);
+		System.arraycopy(src, anchor, dst, dp, literalLength);
+		dp += literalLength;
+
+		return dp - dstOff;
+	}
+
+	/**
+	 * Writes a length into the given half of the token, and the bytes following the token for lengths that exceed
+	 * fifteen.
+	 */
+	private static int writeLength(final byte[] dst, int dp, final int tokenPos, int length, final int shift) {
+		if (length >= RUN_MASK) {
+			dst[tokenPos] |= (byte) (RUN_MASK << shift);
+			length -= RUN_MASK;
+			while (length >= 255) {
+				dst[dp++] = (byte) 255;
+				length -= 255;
+			}
+			dst[dp++] = (byte) length;
+		} else {
+			dst[tokenPos] |= (byte) (length << shift);
+		}
+		return dp;
+	}
+
+	private static int readInt(final byte[] b, final int pos) {
+		return (b[pos] & 0xff) | (b[pos + 1] & 0xff) << 8 | (b[pos + 2] & 0xff) << 16 | (b[pos + 3] & 0xff) << 24;
+	}
+
+	private static int hash(final int sequence) {
+		return (sequence * -1640531535) >>> (32 - HASH_LOG);
+	}
+}
@@ -0,0 +1,103 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2013 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+
+package eu.stratosphere.nephele.io.compression;
+
+import java.io.IOException;
+
+/**
+ * A pure Java decompressor for the LZ4 block format, as produced by the {@link Lz4BlockCompressor}. All reads
+ * and writes are bounds-checked, such that corrupt input results in an exception rather than in garbage.
+ */
+public final class Lz4BlockDecompressor implements BlockDecompressor {
+
+	@Override
+	public int decompress(final byte[] src, final int srcOff, final int srcLen, final byte[] dst, final int dstOff,
+			final int dstCapacity) throws IOException {
+
+		final int srcEnd = srcOff + srcLen;
+		final int dstEnd = dstOff + dstCapacity;
+
+		int sp = srcOff;
+		int dp = dstOff;
+
+		while (sp < srcEnd) {
+			final int token = src[sp++] & 0xff;
+
+			// copy the literals
+			int literalLength = token >>> 4;
+			if (literalLength == Lz4BlockCompressor.RUN_MASK) {
+				int b;
+				do {
+					if (sp >= srcEnd) {
+						throw new IOException("Corrupt LZ4 block: Truncated literal length.");
+					}
+					b = src[sp++] & 0xff;
+					literalLength += b;
+				} while (b == 255);
+			}
+			if (literalLength > srcEnd - sp || literalLength > dstEnd - dp) {
+				throw new IOException("Corrupt LZ4 block: Literals exceed the block bounds.");
+			}
+			System.arraycopy(src, sp, dst, dp, literalLength);
+			sp += literalLength;
+			dp += literalLength;
+
+			// the last sequence consists of literals only
+			if (sp == srcEnd) {
+				break;
+			}
+
+			// copy the match
+			if (srcEnd - sp < 2) {
+				throw new IOException("Corrupt LZ4 block: Truncated match offset.");
+			}
+			final int distance = (src[sp] & 0xff) | (src[sp + 1] & 0xff) << 8;
+			sp += 2;
+			if (distance == 0 || distance > dp - dstOff) {
+				throw new IOException("Corrupt LZ4 block: Invalid match offset " + distance + '.');
+			}
+
+			int matchLength = token & Lz4BlockCompressor.RUN_MASK;
+			if (matchLength == Lz4BlockCompressor.RUN_MASK) {
+				int b;
+				do {
+					if (sp >= srcEnd) {
+						throw new IOException("Corrupt LZ4 block: Truncated match length.");
+					}
+					b = src[sp++] & 0xff;
+					matchLength += b;
+				} while (b == 255);
+			}
+			matchLength += Lz4BlockCompressor.MIN_MATCH;
+			if (matchLength > dstEnd - dp) {
+				throw new IOException("Corrupt LZ4 block: Match exceeds the destination bounds.");
+			}
+
+			int ref = dp - distance;
+			if (distance >= matchLength) {
+				System.arraycopy(dst, ref, dst, dp, matchLength);
+				dp += matchLength;
+			} else {
+				// overlapping match, which repeats the last bytes
+				final int matchEnd = dp + matchLength;
+				while (dp < matchEnd) {
+					dst[dp++] = dst[ref++];
+				}
+			}
+		}
+
+		return dp - dstOff;
+	}
+}
@@ -15,10 +15,11 @@ package eu.stratosphere.nephele.jobgraph;
 
 import eu.stratosphere.nephele.io.DistributionPattern;
 import eu.stratosphere.nephele.io.channels.ChannelType;
+import eu.stratosphere.nephele.io.compression.CompressionCodec;
 
 /**
  * Objects of this class represent edges in the user's job graph.
- * The edges can be annotated by a specific channel and compression level.
+ * The edges can be annotated by a specific channel type, compression codec and buffer timeout.
  * 
  */
 public class JobEdge {
@@ -28,6 +29,11 @@ public class JobEdge {
 	 */
 	private final ChannelType channelType;
 
+	/**
+	 * The codec the resulting network channels compress their buffers with, or <code>null</code> if not defined.
+	 */
+	private final CompressionCodec compressionCodec;
+
 	/**
 	 * The vertex connected to this edge.
 	 */
@@ -43,6 +49,12 @@ public class JobEdge {
 	 */
 	private final DistributionPattern distributionPattern;
 
+	/**
+	 * The maximum time in milliseconds that the resulting channels hold a partially filled buffer, or
+	 * <code>-1</code> if the buffers are only shipped when they are full.
+	 */
+	private long bufferTimeout = -1;
+
 	/**
 	 * Constructs a new job edge.
 	 * 
@@ -50,15 +62,32 @@ public class JobEdge {
 	 *        the vertex this edge should connect to
 	 * @param channelType
 	 *        the channel type this edge should be translated to at runtime
-	 * @param compressionLevel
-	 *        the compression level the corresponding channel should have at runtime
 	 * @param indexOfInputGate
 	 *        index of the consuming task's input gate that this edge connects to
 	 */
 	public JobEdge(final AbstractJobVertex connectedVertex, final ChannelType channelType,
 			final int indexOfInputGate, final DistributionPattern distributionPattern) {
+		this(connectedVertex, channelType, null, indexOfInputGate, distributionPattern);
+	}
+
+	/**
+	 * Constructs a new job edge.
+	 * 
+	 * @param connectedVertex
+	 *        the vertex this edge should connect to
+	 * @param channelType
+	 *        the channel type this edge should be translated to at runtime
+	 * @param compressionCodec
+	 *        the codec the corresponding network channels should compress their buffers with at runtime
+	 * @param indexOfInputGate
+	 *        index of the consuming task's input gate that this edge connects to
+	 */
+	public JobEdge(final AbstractJobVertex connectedVertex, final ChannelType channelType,
+			final CompressionCodec compressionCodec, final int indexOfInputGate,
+			final DistributionPattern distributionPattern) {
 		this.connectedVertex = connectedVertex;
 		this.channelType = channelType;
+		this.compressionCodec = compressionCodec;
 		this.indexOfInputGate = indexOfInputGate;
 		this.distributionPattern = distributionPattern;
 	}
@@ -72,6 +101,39 @@ public class JobEdge {
 		return this.channelType;
 	}
 
+	/**
+	 * Returns the codec the network channels of this edge compress their buffers with.
+	 * 
+	 * @return the compression codec assigned to this edge, or <code>null</code> if none has been defined
+	 */
+	public CompressionCodec getCompressionCodec() {
+		return this.compressionCodec;
+	}
+
+	/**
+	 * Sets the maximum time that the output channels of this edge hold a partially filled buffer before they
+	 * ship it. A timeout of <code>0</code> ships the buffer after every record, a timeout of <code>-1</code>
+	 * ships buffers only when they are full.
+	 * 
+	 * @param bufferTimeout
+	 *        the buffer timeout in milliseconds, or <code>-1</code> to disable timed flushing
+	 */
+	public void setBufferTimeout(final long bufferTimeout) {
+		if (bufferTimeout < -1) {
+			throw new IllegalArgumentException("The buffer timeout must be at least zero, or -1 to disable it.");
+		}
+		this.bufferTimeout = bufferTimeout;
+	}
+
+	/**
+	 * Returns the maximum time that the output channels of this edge hold a partially filled buffer.
+	 * 
+	 * @return the buffer timeout in milliseconds, or <code>-1</code> if timed flushing is disabled
+	 */
+	public long getBufferTimeout() {
+		return this.bufferTimeout;
+	}
+
 	/**
 	 * Returns the vertex this edge is connected to.
 	 * 
@@ -232,6 +232,59 @@ final class SegmentReadRequest implements ReadRequest
 
 //--------------------------------------------------------------------------------------------
 
+/**
+ * Read request that reads several consecutive blocks into entire memory segments with one scattering read.
+ */
+final class MultiSegmentReadRequest implements ReadRequest
+{
+	private final BlockChannelAccess<ReadRequest, ?> channel;
+	
+	private final MemorySegment[] segments;
+	
+	protected MultiSegmentReadRequest(BlockChannelAccess<ReadRequest, ?> targetChannel, MemorySegment[] segments)
+	{
+		this.channel = targetChannel;
+		this.segments = segments;
+	}
+
+
+	@Override
+	public void read() throws IOException
+	{
+		final FileChannel c = this.channel.fileChannel;
+		if (c.size() - c.position() > 0) {
+			try {
+				final ByteBuffer[] wrappers = new ByteBuffer[this.segments.length];
+				for (int i = 0; i < wrappers.length; i++) {
+					wrappers[i] = this.segments[i].wrap(0, this.segments[i].size());
+				}
+				
+				// a scattering read may return early, so read until all buffers are full or the file ends
+				final ByteBuffer last = wrappers[wrappers.length - 1];
+				while (last.hasRemaining() && c.read(wrappers) > 0) {
+					if (c.position() >= c.size()) {
+						break;
+					}
+				}
+			} catch (NullPointerException npex) {
+				// the memory has been cleared asynchronouosly through task failing or canceling
+				// ignore the request, since the result cannot be read
+			}
+		}
+	}
+
+
+	@Override
+	public void requestDone(IOException ioex)
+	{
+		for (int i = 0; i < this.segments.length; i++) {
+			this.channel.handleProcessedBuffer(this.segments[i], ioex);
+		}
+	}
+}
+
+//--------------------------------------------------------------------------------------------
+
 /**
  * Special write request that writes an entire memory segment to the block writer.
  */
@@ -266,3 +319,51 @@ final class SegmentWriteRequest implements WriteRequest
 		this.channel.handleProcessedBuffer(this.segment, ioex);
 	}
 }
+
+//--------------------------------------------------------------------------------------------
+
+/**
+ * Write request that writes several memory segments as consecutive blocks with one gathering write.
+ */
+final class MultiSegmentWriteRequest implements WriteRequest
+{
+	private final BlockChannelAccess<WriteRequest, ?> channel;
+	
+	private final MemorySegment[] segments;
+	
+	protected MultiSegmentWriteRequest(BlockChannelAccess<WriteRequest, ?> targetChannel, MemorySegment[] segments)
+	{
+		this.channel = targetChannel;
+		this.segments = segments;
+	}
+
+
+	@Override
+	public void write() throws IOException
+	{
+		try {
+			final ByteBuffer[] wrappers = new ByteBuffer[this.segments.length];
+			for (int i = 0; i < wrappers.length; i++) {
+				wrappers[i] = this.segments[i].wrap(0, this.segments[i].size());
+			}
+			
+			// a gathering write may write only a part of the buffers, so write until all buffers are drained
+			final ByteBuffer last = wrappers[wrappers.length - 1];
+			while (last.hasRemaining()) {
+				this.channel.fileChannel.write(wrappers);
+			}
+		} catch (NullPointerException npex) {
+			// the memory has been cleared asynchronouosly through task failing or canceling
+			// ignore the request, since there is nothing to write.
+		}
+	}
+
+
+	@Override
+	public void requestDone(IOException ioex)
+	{
+		for (int i = 0; i < this.segments.length; i++) {
+			this.channel.handleProcessedBuffer(this.segments[i], ioex);
+		}
+	}
+}
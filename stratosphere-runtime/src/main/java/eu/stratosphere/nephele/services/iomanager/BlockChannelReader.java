@@ -14,6 +14,7 @@
 package eu.stratosphere.nephele.services.iomanager;
 
 import java.io.IOException;
+import java.util.List;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
 
@@ -35,9 +36,22 @@ import eu.stratosphere.core.memory.MemorySegment;
  * The reader has no notion whether the size of the memory segments is actually the size of the blocks on disk,
  * or even whether the file was written in blocks of the same size, or in blocks at all. Ensuring that the
  * writing and reading is consistent with each other (same blocks sizes) is up to the programmer.  
+ * <p>
+ * If the reader is created to bundle several requests, it collects that many segments and reads them with
+ * a single scattering read.
  */
 public class BlockChannelReader extends BlockChannelAccess<ReadRequest, LinkedBlockingQueue<MemorySegment>>
 {
+	/**
+	 * The segments collected for the next bundled read, or null, if requests are not bundled.
+	 */
+	private final MemorySegment[] bundle;
+	
+	/**
+	 * The number of segments currently in the bundle.
+	 */
+	private int bundleSize;
+	
 	/**
 	 * Creates a new block channel reader for the given channel.
 	 *  
@@ -45,6 +59,7 @@ public class BlockChannelReader extends BlockChannelAccess<ReadRequest, LinkedBl
 	 * @param requestQueue The request queue of the asynchronous reader thread, to which the I/O requests
 	 *                     are added.
 	 * @param returnSegments The return queue, to which the full Memory Segments are added.
+	 * @param numRequestsToBundle The number of read requests to combine into one scattering read.
 	 * @throws IOException Thrown, if the underlying file channel could not be opened.
 	 */
 	protected BlockChannelReader(Channel.ID channelID, RequestQueue<ReadRequest> requestQueue,
@@ -52,6 +67,8 @@ public class BlockChannelReader extends BlockChannelAccess<ReadRequest, LinkedBl
 	throws IOException
 	{
 		super(channelID, requestQueue, returnSegments, false);
+		
+		this.bundle = numRequestsToBundle > 1 ? new MemorySegment[numRequestsToBundle] : null;
 	}	
 
 	/**
@@ -65,6 +82,20 @@ public class BlockChannelReader extends BlockChannelAccess<ReadRequest, LinkedBl
 	 */
 	public void readBlock(MemorySegment segment) throws IOException
 	{
+		if (this.bundle != null) {
+			synchronized (this.bundle) {
+				checkErroneous();
+				if (this.closed) {
+					throw new IOException("The reader has been closed.");
+				}
+				this.bundle[this.bundleSize++] = segment;
+				if (this.bundleSize == this.bundle.length) {
+					flushBundle();
+				}
+			}
+			return;
+		}
+		
 		// check the error state of this channel
 		checkErroneous();
 		
@@ -81,6 +112,79 @@ public class BlockChannelReader extends BlockChannelAccess<ReadRequest, LinkedBl
 		this.requestQueue.add(new SegmentReadRequest(this, segment));
 	}
 	
+	/**
+	 * Issues a single read request for the next consecutive blocks in the underlying file channel, which are read
+	 * into the given segments with one scattering read. Once the request is fulfilled, the segments are added to
+	 * this reader's return queue in the given order.
+	 * 
+	 * @param segments The segments to read the blocks into.
+	 * @throws IOException Thrown, when the reader encounters an I/O error. Due to the asynchronous nature of the
+	 *                     reader, the exception thrown here may have been caused by an earlier read request. 
+	 */
+	public void readBlocks(List<MemorySegment> segments) throws IOException
+	{
+		if (segments.isEmpty()) {
+			return;
+		}
+		
+		if (this.bundle != null) {
+			// keep the order with respect to the segments that are already collected
+			synchronized (this.bundle) {
+				flushBundle();
+				issueRead(segments.toArray(new MemorySegment[segments.size()]));
+			}
+		} else {
+			issueRead(segments.toArray(new MemorySegment[segments.size()]));
+		}
+	}
+	
+	/**
+	 * Closes the reader after issuing the read for the segments that were collected for a bundled read.
+	 * 
+	 * @see BlockChannelAccess#close()
+	 */
+	@Override
+	public void close() throws IOException
+	{
+		if (this.bundle != null) {
+			synchronized (this.bundle) {
+				if (!this.closed) {
+					flushBundle();
+				}
+			}
+		}
+		super.close();
+	}
+	
+	private void flushBundle() throws IOException
+	{
+		if (this.bundleSize > 0) {
+			final MemorySegment[] segments = new MemorySegment[this.bundleSize];
+			System.arraycopy(this.bundle, 0, segments, 0, this.bundleSize);
+			for (int i = 0; i < this.bundleSize; i++) {
+				this.bundle[i] = null;
+			}
+			this.bundleSize = 0;
+			issueRead(segments);
+		}
+	}
+	
+	private void issueRead(MemorySegment[] segments) throws IOException
+	{
+		// check the error state of this channel
+		checkErroneous();
+		
+		this.requestsNotReturned.addAndGet(segments.length);
+		if (this.closed || this.requestQueue.isClosed()) {
+			// if we found ourselves closed after the counter increment,
+			// decrement the counter again and do not forward the request
+			this.requestsNotReturned.addAndGet(-segments.length);
+			throw new IOException("The reader has been closed.");
+		}
+		this.requestQueue.add(segments.length == 1 ? new SegmentReadRequest(this, segments[0]) :
+			new MultiSegmentReadRequest(this, segments));
+	}
+	
 	/**
 	 * Gets the next memory segment that has been filled with data by the reader. This method blocks until
 	 * such a segment is available, or until an error occurs in the reader, or the reader is closed.
@@ -94,6 +198,13 @@ public class BlockChannelReader extends BlockChannelAccess<ReadRequest, LinkedBl
 	 */
 	public MemorySegment getNextReturnedSegment() throws IOException
 	{
+		// a partially collected bundle must be read, otherwise its segments might never come back
+		if (this.bundle != null && this.returnBuffers.isEmpty()) {
+			synchronized (this.bundle) {
+				flushBundle();
+			}
+		}
+		
 		try {
 			while (true) {
 				final MemorySegment next = this.returnBuffers.poll(2000, TimeUnit.MILLISECONDS);
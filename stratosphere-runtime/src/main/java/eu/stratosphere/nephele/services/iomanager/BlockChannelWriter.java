@@ -15,6 +15,7 @@ package eu.stratosphere.nephele.services.iomanager;
 
 
 import java.io.IOException;
+import java.util.List;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
 
@@ -35,9 +36,22 @@ import eu.stratosphere.core.memory.MemorySegment;
  * memory segment must be written, the request is issued to the writer and a new segment is immediately popped from
  * the return queue. Once too many requests have been issued and the I/O thread cannot keep up, the working thread
  * naturally blocks until another segment is available again.
+ * <p>
+ * If the writer is created to bundle several requests, it collects that many segments and writes them with
+ * a single gathering write.
  */
 public class BlockChannelWriter extends BlockChannelAccess<WriteRequest, LinkedBlockingQueue<MemorySegment>>
 {
+	/**
+	 * The segments collected for the next bundled write, or null, if requests are not bundled.
+	 */
+	private final MemorySegment[] bundle;
+	
+	/**
+	 * The number of segments currently in the bundle.
+	 */
+	private int bundleSize;
+	
 	/**
 	 * Creates a new block channel writer for the given channel.
 	 *  
@@ -45,6 +59,7 @@ public class BlockChannelWriter extends BlockChannelAccess<WriteRequest, LinkedB
 	 * @param requestQueue The request queue of the asynchronous writer thread, to which the I/O requests
 	 *                     are added.
 	 * @param returnSegments The return queue, to which the processed Memory Segments are added.
+	 * @param numRequestsToBundle The number of write requests to combine into one gathering write.
 	 * @throws IOException Thrown, if the underlying file channel could not be opened exclusively.
 	 */
 	protected BlockChannelWriter(Channel.ID channelID, RequestQueue<WriteRequest> requestQueue,
@@ -52,6 +67,8 @@ public class BlockChannelWriter extends BlockChannelAccess<WriteRequest, LinkedB
 	throws IOException
 	{
 		super(channelID, requestQueue, returnSegments, true);
+		
+		this.bundle = numRequestsToBundle > 1 ? new MemorySegment[numRequestsToBundle] : null;
 	}
 
 	/**
@@ -63,6 +80,20 @@ public class BlockChannelWriter extends BlockChannelAccess<WriteRequest, LinkedB
 	 */
 	public void writeBlock(MemorySegment segment) throws IOException
 	{
+		if (this.bundle != null) {
+			synchronized (this.bundle) {
+				checkErroneous();
+				if (this.closed) {
+					throw new IOException("The writer has been closed.");
+				}
+				this.bundle[this.bundleSize++] = segment;
+				if (this.bundleSize == this.bundle.length) {
+					flushBundle();
+				}
+			}
+			return;
+		}
+		
 		// check the error state of this channel
 		checkErroneous();
 		
@@ -77,6 +108,79 @@ public class BlockChannelWriter extends BlockChannelAccess<WriteRequest, LinkedB
 		this.requestQueue.add(new SegmentWriteRequest(this, segment));
 	}
 	
+	/**
+	 * Issues a single write request for the given segments, which are written as consecutive blocks with one
+	 * gathering write. Once the request is fulfilled, the segments are added to this writer's return queue
+	 * in the given order.
+	 * 
+	 * @param segments The segments to be written.
+	 * @throws IOException Thrown, when the writer encounters an I/O error. Due to the asynchronous nature of the
+	 *                     writer, the exception thrown here may have been caused by an earlier write request. 
+	 */
+	public void writeBlocks(List<MemorySegment> segments) throws IOException
+	{
+		if (segments.isEmpty()) {
+			return;
+		}
+		
+		if (this.bundle != null) {
+			// keep the order with respect to the segments that are already collected
+			synchronized (this.bundle) {
+				flushBundle();
+				issueWrite(segments.toArray(new MemorySegment[segments.size()]));
+			}
+		} else {
+			issueWrite(segments.toArray(new MemorySegment[segments.size()]));
+		}
+	}
+	
+	/**
+	 * Closes the writer after writing the segments that were collected for a bundled write.
+	 * 
+	 * @see BlockChannelAccess#close()
+	 */
+	@Override
+	public void close() throws IOException
+	{
+		if (this.bundle != null) {
+			synchronized (this.bundle) {
+				if (!this.closed) {
+					flushBundle();
+				}
+			}
+		}
+		super.close();
+	}
+	
+	private void flushBundle() throws IOException
+	{
+		if (this.bundleSize > 0) {
+			final MemorySegment[] segments = new MemorySegment[this.bundleSize];
+			System.arraycopy(this.bundle, 0, segments, 0, this.bundleSize);
+			for (int i = 0; i < this.bundleSize; i++) {
+				this.bundle[i] = null;
+			}
+			this.bundleSize = 0;
+			issueWrite(segments);
+		}
+	}
+	
+	private void issueWrite(MemorySegment[] segments) throws IOException
+	{
+		// check the error state of this channel
+		checkErroneous();
+		
+		this.requestsNotReturned.addAndGet(segments.length);
+		if (this.closed || this.requestQueue.isClosed()) {
+			// if we found ourselves closed after the counter increment,
+			// decrement the counter again and do not forward the request
+			this.requestsNotReturned.addAndGet(-segments.length);
+			throw new IOException("The writer has been closed.");
+		}
+		this.requestQueue.add(segments.length == 1 ? new SegmentWriteRequest(this, segments[0]) :
+			new MultiSegmentWriteRequest(this, segments));
+	}
+	
 	/**
 	 * Gets the next memory segment that has been written and is available again.
 	 * This method blocks until such a segment is available, or until an error occurs in the writer, or the
@@ -91,6 +195,13 @@ public class BlockChannelWriter extends BlockChannelAccess<WriteRequest, LinkedB
 	 */
 	public MemorySegment getNextReturnedSegment() throws IOException
 	{
+		// a partially collected bundle must be written, otherwise its segments might never come back
+		if (this.bundle != null && this.returnBuffers.isEmpty()) {
+			synchronized (this.bundle) {
+				flushBundle();
+			}
+		}
+		
 		try {
 			while (true) {
 				final MemorySegment next = this.returnBuffers.poll(2000, TimeUnit.MILLISECONDS);
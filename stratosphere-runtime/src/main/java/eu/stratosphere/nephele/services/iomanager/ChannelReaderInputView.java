@@ -20,6 +20,8 @@ import java.util.List;
 import java.util.concurrent.LinkedBlockingQueue;
 
 import eu.stratosphere.core.memory.MemorySegment;
+import eu.stratosphere.nephele.io.compression.BlockDecompressor;
+import eu.stratosphere.nephele.io.compression.CompressionCodec;
 import eu.stratosphere.nephele.services.memorymanager.AbstractPagedInputView;
 
 
@@ -27,6 +29,9 @@ import eu.stratosphere.nephele.services.memorymanager.AbstractPagedInputView;
  * A {@link DataInputView} that is backed by a {@link BlockChannelReader}, making it effectively a data input
  * stream. The view reads it data in blocks from the underlying channel. The view can only read data that
  * has been written by a {@link ChannelWriterOutputView}, due to block formatting.
+ * <p>
+ * If the blocks have been written compressed, the view decompresses them into a page on the heap, which it
+ * allocates when it encounters the first compressed block.
  */
 public class ChannelReaderInputView extends AbstractPagedInputView {
 	
@@ -34,7 +39,7 @@ public class ChannelReaderInputView extends AbstractPagedInputView {
 	
 	protected int numRequestsRemaining;				// the number of block requests remaining
 	
-	private final int numSegments;					// the number of memory segment the view works with
+	protected int numSegments;						// the number of memory segment the view works with
 	
 	private final ArrayList<MemorySegment> freeMem;	// memory gathered once the work is done
 	
@@ -42,6 +47,24 @@ public class ChannelReaderInputView extends AbstractPagedInputView {
 	
 	private boolean closed;							// flag indicating whether the reader is closed
 	
+	private BlockDecompressor decompressor;			// the decompressor for compressed blocks, null, if uncompressed
+	
+	private MemorySegment block;					// the current compressed block
+	
+	private int blockPosition;						// the read position in the current compressed block
+	
+	private int blockLimit;							// the limit of the current compressed block
+	
+	private MemorySegment page;						// the page on the heap that holds decompressed data
+	
+	private byte[] pageArray;						// the array behind the page
+	
+	private int pageLimit;							// the limit of the decompressed data in the page
+	
+	private byte[] compressed;						// the buffer for a compressed chunk
+	
+	private byte[] chunkHeader;						// the buffer for the header of a compressed chunk
+	
 	// --------------------------------------------------------------------------------------------
 
 	/**
@@ -166,9 +189,9 @@ public class ChannelReaderInputView extends AbstractPagedInputView {
 		}
 		this.closed = true;
 		
-		// re-collect all memory segments
+		// re-collect all memory segments. when decompressing, the current segment is the page on the heap
 		ArrayList<MemorySegment> list = this.freeMem;
-		final MemorySegment current = getCurrentSegment();
+		final MemorySegment current = this.decompressor == null ? getCurrentSegment() : this.block;
 		if (current != null) {
 			list.add(current);
 		}
@@ -210,6 +233,10 @@ public class ChannelReaderInputView extends AbstractPagedInputView {
 	@Override
 	protected MemorySegment nextSegment(MemorySegment current) throws IOException
 	{
+		if (this.decompressor != null) {
+			return nextDecompressedPage();
+		}
+		
 		// check if we are at our end
 		if (this.inLastBlock) {
 			throw new EOFException();
@@ -222,6 +249,41 @@ public class ChannelReaderInputView extends AbstractPagedInputView {
 		}
 		
 		// get the next segment
+		final MemorySegment seg = nextBlock();
+		
+		final short flags = seg.getShort(ChannelWriterOutputView.HEADER_FLAGS_OFFSET);
+		if ((flags & ChannelWriterOutputView.FLAG_COMPRESSED) != 0) {
+			if (current != null) {
+				throw new IOException("Found a compressed block in an uncompressed channel.");
+			}
+			initDecompression(seg, flags);
+			if (!hasMoreChunkData()) {
+				// empty channel
+				this.pageLimit = this.headerLength;
+				return this.page;
+			}
+			return nextDecompressedPage();
+		}
+		
+		return seg;
+	}
+	
+
+	@Override
+	protected int getLimitForSegment(MemorySegment segment)
+	{
+		return this.decompressor == null ? segment.getInt(ChannelWriterOutputView.HEAD_BLOCK_LENGTH_OFFSET) :
+			this.pageLimit;
+	}
+	
+	/**
+	 * Gets the next block from the reader and checks its header.
+	 * 
+	 * @return The next block.
+	 * @throws IOException Thrown, if the block is not valid or the reader is in error.
+	 */
+	private MemorySegment nextBlock() throws IOException
+	{
 		final MemorySegment seg = this.reader.getNextReturnedSegment();
 		
 		// check the header
@@ -238,11 +300,107 @@ public class ChannelReaderInputView extends AbstractPagedInputView {
 		return seg;
 	}
 	
-
-	@Override
-	protected int getLimitForSegment(MemorySegment segment)
+	// --------------------------------------------------------------------------------------------
+	//                                     Decompression
+	// --------------------------------------------------------------------------------------------
+	
+	private void initDecompression(MemorySegment firstBlock, short flags) throws IOException
+	{
+		final int codecIndex = (flags >>> 8) & 0xff;
+		final CompressionCodec[] codecs = CompressionCodec.values();
+		if (codecIndex >= codecs.length || codecs[codecIndex].createDecompressor() == null) {
+			throw new IOException("The block has been compressed with an unknown codec: " + codecIndex);
+		}
+		
+		this.decompressor = codecs[codecIndex].createDecompressor();
+		this.block = firstBlock;
+		this.blockPosition = ChannelWriterOutputView.HEADER_LENGTH;
+		this.blockLimit = firstBlock.getInt(ChannelWriterOutputView.HEAD_BLOCK_LENGTH_OFFSET);
+		this.pageArray = new byte[firstBlock.size()];
+		this.page = new MemorySegment(this.pageArray);
+		this.compressed = new byte[firstBlock.size()];
+		this.chunkHeader = new byte[ChannelWriterOutputView.CHUNK_HEADER_LENGTH];
+	}
+	
+	/**
+	 * Reads the next compressed chunk from the blocks and decompresses it into the page on the heap.
+	 * 
+	 * @return The page holding the decompressed data.
+	 * @throws EOFException Thrown, if no further chunks are available.
+	 * @throws IOException Thrown, if the chunk is corrupt or an I/O error occurred.
+	 */
+	private MemorySegment nextDecompressedPage() throws IOException
+	{
+		if (!hasMoreChunkData()) {
+			throw new EOFException();
+		}
+		
+		final byte[] header = this.chunkHeader;
+		readFromBlocks(header, 0, ChannelWriterOutputView.CHUNK_HEADER_LENGTH);
+		final int storedLength = getInt(header, 0);
+		final int length = getInt(header, 4);
+		
+		final byte[] pageArray = this.pageArray;
+		if (length <= 0 || length > pageArray.length - this.headerLength || storedLength <= 0 || storedLength > length) {
+			throw new IOException("Corrupt compressed chunk: stored length " + storedLength + ", length " + length + ".");
+		}
+		
+		if (storedLength == length) {
+			// the chunk has been stored uncompressed
+			readFromBlocks(pageArray, this.headerLength, length);
+		} else {
+			readFromBlocks(this.compressed, 0, storedLength);
+			final int decompressedLength = this.decompressor.decompress(this.compressed, 0, storedLength,
+				pageArray, this.headerLength, length);
+			if (decompressedLength != length) {
+				throw new IOException("Decompressed " + decompressedLength + " bytes, but expected " + length + " bytes.");
+			}
+		}
+		
+		this.pageLimit = this.headerLength + length;
+		return this.page;
+	}
+	
+	/**
+	 * Checks whether more compressed data is available, moving on to the next block if the current one is consumed.
+	 */
+	private boolean hasMoreChunkData() throws IOException
+	{
+		while (this.blockPosition >= this.blockLimit) {
+			if (this.inLastBlock) {
+				return false;
+			}
+			
+			sendReadRequest(this.block);
+			this.block = nextBlock();
+			if ((this.block.getShort(ChannelWriterOutputView.HEADER_FLAGS_OFFSET) & ChannelWriterOutputView.FLAG_COMPRESSED) == 0) {
+				throw new IOException("Found an uncompressed block in a compressed channel.");
+			}
+			this.blockPosition = ChannelWriterOutputView.HEADER_LENGTH;
+			this.blockLimit = this.block.getInt(ChannelWriterOutputView.HEAD_BLOCK_LENGTH_OFFSET);
+		}
+		return true;
+	}
+	
+	private void readFromBlocks(byte[] target, int offset, int length) throws IOException
+	{
+		while (length > 0) {
+			if (!hasMoreChunkData()) {
+				throw new IOException("Compressed chunk is truncated.");
+			}
+			
+			final int toCopy = Math.min(length, this.blockLimit - this.blockPosition);
+			this.block.get(this.blockPosition, target, offset, toCopy);
+			this.blockPosition += toCopy;
+			offset += toCopy;
+			length -= toCopy;
+		}
+	}
+	
+	private static int getInt(byte[] source, int offset)
 	{
-		return segment.getInt(ChannelWriterOutputView.HEAD_BLOCK_LENGTH_OFFSET);
+		return ((source[offset] & 0xff) << 24) | ((source[offset + 1] & 0xff) << 16) |
+			((source[offset + 2] & 0xff) << 8) | (source[offset + 3] & 0xff);
 	}
 	
 	/**
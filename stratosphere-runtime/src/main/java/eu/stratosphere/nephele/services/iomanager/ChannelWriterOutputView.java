@@ -19,6 +19,8 @@ import java.util.List;
 import java.util.concurrent.LinkedBlockingQueue;
 
 import eu.stratosphere.core.memory.MemorySegment;
+import eu.stratosphere.nephele.io.compression.BlockCompressor;
+import eu.stratosphere.nephele.io.compression.CompressionCodec;
 import eu.stratosphere.nephele.services.memorymanager.AbstractPagedOutputView;
 
 
@@ -26,7 +28,11 @@ import eu.stratosphere.nephele.services.memorymanager.AbstractPagedOutputView;
  * A {@link DataOutputView} that is backed by a {@link BlockChannelWriter}, making it effectively a data output
  * stream. The view writes it data in blocks to the underlying channel, adding a minimal header to each block.
  * The data can be re-read by a {@link ChannelReaderInputView}, if it uses the same block size.
- *
+ * <p>
+ * If the view is created with a compression codec, the data is written into a page on the heap first. Each full
+ * page is compressed into a chunk, and the chunks are packed densely into the blocks that go to the channel, so that
+ * fewer blocks are written. The blocks still have the regular header and size, and they carry a flag that tells the
+ * {@link ChannelReaderInputView} to decompress them.
  */
 public final class ChannelWriterOutputView extends AbstractPagedOutputView
 {
@@ -55,6 +61,17 @@ public final class ChannelWriterOutputView extends AbstractPagedOutputView
 	 */
 	protected static final short FLAG_LAST_BLOCK = (short) 0x1;
 	
+	/**
+	 * The flag marking a block as holding compressed chunks. The ordinal of the codec is stored in the
+	 * upper byte of the flags.
+	 */
+	protected static final short FLAG_COMPRESSED = (short) 0x2;
+	
+	/**
+	 * The length of the header of each compressed chunk, holding the stored and the original length.
+	 */
+	protected static final int CHUNK_HEADER_LENGTH = 8;
+	
 	// --------------------------------------------------------------------------------------------
 	
 	private final BlockChannelWriter writer;		// the writer to the channel
@@ -65,6 +82,20 @@ public final class ChannelWriterOutputView extends AbstractPagedOutputView
 	
 	private final int numSegments;					// the number of memory segments used by this view
 	
+	private final BlockCompressor compressor;		// the compressor for the pages, null, if not compressing
+	
+	private final short compressionFlags;			// the header flags of compressed blocks
+	
+	private MemorySegment block;					// the block that the compressed chunks are written to
+	
+	private int blockPosition;						// the write position in the current compressed block
+	
+	private byte[] pageArray;						// the array behind the page written to when compressing
+	
+	private byte[] compressed;						// the buffer for a compressed page
+	
+	private byte[] chunkHeader;						// the buffer for the header of a compressed chunk
+	
 	// --------------------------------------------------------------------------------------------
 	
 	/**
@@ -78,14 +109,41 @@ public final class ChannelWriterOutputView extends AbstractPagedOutputView
 	 * @param segmentSize The size of the memory segments.
 	 */
 	public ChannelWriterOutputView(BlockChannelWriter writer, List<MemorySegment> memory, int segmentSize)
+	{
+		this(writer, memory, segmentSize, CompressionCodec.NONE);
+	}
+	
+	/**
+	 * Creates an new ChannelWriterOutputView that writes to the given channel and buffers data
+	 * in the given memory segments, compressing the data with the given codec. If the given memory segments
+	 * are null, the writer takes its buffers directly from the return queue of the writer. Note that this
+	 * variant locks if no buffers are contained in the return queue.
+	 * <p>
+	 * When compressing, the view uses an additional page and the buffers for compression from the heap.
+	 * 
+	 * @param writer The writer to write to.
+	 * @param memory The memory used to buffer data, or null, to utilize solely the return queue.
+	 * @param segmentSize The size of the memory segments.
+	 * @param codec The codec to compress the data with.
+	 */
+	public ChannelWriterOutputView(BlockChannelWriter writer, List<MemorySegment> memory, int segmentSize,
+			CompressionCodec codec)
 	{
 		super(segmentSize, HEADER_LENGTH);
 		
-		if (writer == null) {
+		if (writer == null || codec == null) {
 			throw new NullPointerException();
 		}
 		
 		this.writer = writer;
+		this.compressor = codec.createCompressor();
+		this.compressionFlags = (short) (FLAG_COMPRESSED | (codec.ordinal() << 8));
+		
+		if (this.compressor != null) {
+			this.pageArray = new byte[segmentSize];
+			this.compressed = new byte[this.compressor.getMaxCompressedLength(segmentSize)];
+			this.chunkHeader = new byte[CHUNK_HEADER_LENGTH];
+		}
 		
 		if (memory == null) {
 			this.numSegments = 0;
@@ -125,6 +183,20 @@ public final class ChannelWriterOutputView extends AbstractPagedOutputView
 		this(writer, null, segmentSize);
 	}
 	
+	/**
+	 * Creates an new ChannelWriterOutputView that writes to the given channel, compressing the data with
+	 * the given codec. It uses only a single memory segment for the buffering, which it takes from the writers
+	 * return queue. Note that this variant locks if no buffers are contained in the return queue.
+	 * 
+	 * @param writer The writer to write to.
+	 * @param segmentSize The size of the memory segments.
+	 * @param codec The codec to compress the data with.
+	 */
+	public ChannelWriterOutputView(BlockChannelWriter writer, int segmentSize, CompressionCodec codec)
+	{
+		this(writer, null, segmentSize, codec);
+	}
+	
 	// --------------------------------------------------------------------------------------------
 	
 	/**
@@ -136,7 +208,13 @@ public final class ChannelWriterOutputView extends AbstractPagedOutputView
 	public List<MemorySegment> close() throws IOException
 	{
 		// send off set last segment
-		writeSegment(getCurrentSegment(), getCurrentPositionInSegment(), true);
+		if (this.compressor == null) {
+			writeSegment(getCurrentSegment(), getCurrentPositionInSegment(), true);
+			this.bytesBeforeSegment += getCurrentPositionInSegment() - HEADER_LENGTH;
+		} else {
+			compressPage(getCurrentPositionInSegment());
+			writeSegment(this.block, this.blockPosition, true);
+		}
 		clear();
 		
 		// close the writer and gather all segments
@@ -160,7 +238,8 @@ public final class ChannelWriterOutputView extends AbstractPagedOutputView
 	// --------------------------------------------------------------------------------------------
 	
 	/**
-	 * Gets the number of blocks used by this view.
+	 * Gets the number of blocks used by this view. When compressing, this is the number of compressed
+	 * blocks written to the channel.
 	 * 
 	 * @return The number of blocks used.
 	 */
@@ -187,7 +266,8 @@ public final class ChannelWriterOutputView extends AbstractPagedOutputView
 	 */
 	public long getBytesMemoryUsed()
 	{
-		return (this.blockCount - 1) * getSegmentSize() + getCurrentPositionInSegment();
+		return (this.blockCount - 1) * getSegmentSize() +
+			(this.compressor == null ? getCurrentPositionInSegment() : this.blockPosition);
 	}
 
 	// --------------------------------------------------------------------------------------------
@@ -196,8 +276,22 @@ public final class ChannelWriterOutputView extends AbstractPagedOutputView
 	
 	protected final MemorySegment nextSegment(MemorySegment current, int posInSegment) throws IOException
 	{
+		if (this.compressor != null) {
+			// the same page on the heap is reused, its contents go compressed into the current block
+			if (current == null) {
+				this.block = this.writer.getNextReturnedSegment();
+				this.blockPosition = HEADER_LENGTH;
+				this.blockCount++;
+				return new MemorySegment(this.pageArray);
+			} else {
+				compressPage(posInSegment);
+				return current;
+			}
+		}
+		
 		if (current != null) {
 			writeSegment(current, posInSegment, false);
+			this.bytesBeforeSegment += posInSegment - HEADER_LENGTH;
 		}
 		
 		final MemorySegment next = this.writer.getNextReturnedSegment();
@@ -207,11 +301,70 @@ public final class ChannelWriterOutputView extends AbstractPagedOutputView
 	
 	private final void writeSegment(MemorySegment segment, int writePosition, boolean lastSegment) throws IOException
 	{
+		short flags = lastSegment ? FLAG_LAST_BLOCK : 0;
+		if (this.compressor != null) {
+			flags |= this.compressionFlags;
+		}
+		
 		segment.putShort(0, HEADER_MAGIC_NUMBER);
-		segment.putShort(HEADER_FLAGS_OFFSET, lastSegment ? FLAG_LAST_BLOCK : 0);
+		segment.putShort(HEADER_FLAGS_OFFSET, flags);
 		segment.putInt(HEAD_BLOCK_LENGTH_OFFSET, writePosition);
 		
 		this.writer.writeBlock(segment);
-		this.bytesBeforeSegment += writePosition - HEADER_LENGTH;
+	}
+	
+	/**
+	 * Compresses the data in the heap page into a chunk and appends it to the compressed blocks. Data that
+	 * does not become smaller is stored as it is, which is marked by equal stored and original lengths.
+	 */
+	private final void compressPage(int posInSegment) throws IOException
+	{
+		final int length = posInSegment - HEADER_LENGTH;
+		if (length <= 0) {
+			return;
+		}
+		
+		final int compressedLength = this.compressor.compress(this.pageArray, HEADER_LENGTH, length, this.compressed, 0);
+		final boolean stored = compressedLength >= length;
+		final int chunkLength = stored ? length : compressedLength;
+		
+		final byte[] header = this.chunkHeader;
+		putInt(header, 0, chunkLength);
+		putInt(header, 4, length);
+		
+		writeToBlocks(header, 0, CHUNK_HEADER_LENGTH);
+		if (stored) {
+			writeToBlocks(this.pageArray, HEADER_LENGTH, length);
+		} else {
+			writeToBlocks(this.compressed, 0, compressedLength);
+		}
+		this.bytesBeforeSegment += length;
+	}
+	
+	private final void writeToBlocks(byte[] data, int offset, int length) throws IOException
+	{
+		final int blockSize = getSegmentSize();
+		while (length > 0) {
+			if (this.blockPosition == blockSize) {
+				writeSegment(this.block, blockSize, false);
+				this.block = this.writer.getNextReturnedSegment();
+				this.blockPosition = HEADER_LENGTH;
+				this.blockCount++;
+			}
+			
+			final int toCopy = Math.min(length, blockSize - this.blockPosition);
+			this.block.put(this.blockPosition, data, offset, toCopy);
+			this.blockPosition += toCopy;
+			offset += toCopy;
+			length -= toCopy;
+		}
+	}
+	
+	private static final void putInt(byte[] target, int offset, int value)
+	{
+		target[offset] = (byte) (value >>> 24);
+		target[offset + 1] = (byte) (value >>> 16);
+		target[offset + 2] = (byte) (value >>> 8);
+		target[offset + 3] = (byte) value;
 	}
 }
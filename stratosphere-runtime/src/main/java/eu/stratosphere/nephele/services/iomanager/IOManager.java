@@ -18,11 +18,13 @@ import java.lang.Thread.UncaughtExceptionHandler;
 import java.util.List;
 import java.util.Random;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
 import eu.stratosphere.core.memory.MemorySegment;
+import eu.stratosphere.nephele.io.compression.CompressionCodec;
 
 /**
  * The facade for the provided I/O manager services.
@@ -46,19 +48,35 @@ public final class IOManager implements UncaughtExceptionHandler
 	private final Random random;
 
 	/**
-	 * The writer thread used for asynchronous block oriented channel writing.
+	 * The writer threads used for asynchronous block oriented channel writing. The threads that serve
+	 * path <i>p</i> are at the positions <i>p * numThreadsPerPath</i> to <i>(p + 1) * numThreadsPerPath - 1</i>.
 	 */
 	private final WriterThread[] writers;
 
 	/**
-	 * The reader threads used for asynchronous block oriented channel reading.
+	 * The reader threads used for asynchronous block oriented channel reading, arranged like the writer threads.
 	 */
 	private final ReaderThread[] readers;
 	
+	/**
+	 * The number of reader threads and writer threads that serve each path.
+	 */
+	private final int numThreadsPerPath;
+	
 	/**
 	 * The number of the next path to use.
 	 */
 	private volatile int nextPath;
+	
+	/**
+	 * A counter that spreads the channels across the threads of their path.
+	 */
+	private final AtomicInteger nextThread = new AtomicInteger(0);
+	
+	/**
+	 * The codec that spilling operators use to compress the data they write to disk.
+	 */
+	private final CompressionCodec spillCompressionCodec;
 
 	/**
 	 * A boolean flag indicating whether the close() has already been invoked.
@@ -95,12 +113,55 @@ public final class IOManager implements UncaughtExceptionHandler
 	 */
 	public IOManager(String[] paths)
 	{
+		this(paths, CompressionCodec.NONE);
+	}
+	
+	/**
+	 * Constructs a new IOManager.
+	 * 
+	 * @param paths
+	 *        the basic directory path for files underlying anonymous
+	 *        channels.
+	 * @param spillCompressionCodec
+	 *        the codec that spilling operators use to compress the data they write.
+	 */
+	public IOManager(String[] paths, CompressionCodec spillCompressionCodec)
+	{
+		this(paths, spillCompressionCodec, 1);
+	}
+	
+	/**
+	 * Constructs a new IOManager.
+	 * <p>
+	 * Each path is served by the given number of reader threads and writer threads, which allows to keep several
+	 * requests outstanding on devices that serve parallel requests well, such as SSDs. All requests of a single
+	 * channel are served by the same thread, so they are carried out in the order in which they were issued.
+	 * 
+	 * @param paths
+	 *        the basic directory path for files underlying anonymous
+	 *        channels.
+	 * @param spillCompressionCodec
+	 *        the codec that spilling operators use to compress the data they write.
+	 * @param numThreadsPerPath
+	 *        the number of reader threads and writer threads for each path.
+	 */
+	public IOManager(String[] paths, CompressionCodec spillCompressionCodec, int numThreadsPerPath)
+	{
+		if (spillCompressionCodec == null) {
+			throw new NullPointerException();
+		}
+		if (numThreadsPerPath < 1) {
+			throw new IllegalArgumentException("The number of I/O threads per path must be at least one.");
+		}
+		
 		this.paths = paths;
+		this.spillCompressionCodec = spillCompressionCodec;
+		this.numThreadsPerPath = numThreadsPerPath;
 		this.random = new Random();
 		this.nextPath = 0;
 		
-		// start a write worker thread for each directory
-		this.writers = new WriterThread[paths.length];
+		// start the write worker threads for each directory
+		this.writers = new WriterThread[paths.length * numThreadsPerPath];
 		for (int i = 0; i < this.writers.length; i++) {
 			final WriterThread t = new WriterThread();
 			this.writers[i] = t;
@@ -110,8 +171,8 @@ public final class IOManager implements UncaughtExceptionHandler
 			t.start();
 		}
 
-		// start a reader worker thread for each directory
-		this.readers = new ReaderThread[paths.length];
+		// start the reader worker threads for each directory
+		this.readers = new ReaderThread[paths.length * numThreadsPerPath];
 		for (int i = 0; i < this.readers.length; i++) {
 			final ReaderThread t = new ReaderThread();
 			this.readers[i] = t;
@@ -135,7 +196,7 @@ public final class IOManager implements UncaughtExceptionHandler
 			// close writing and reading threads with best effort and log problems
 			
 			// --------------------------------- writer shutdown ----------------------------------			
-			for (int i = 0; i < this.readers.length; i++) {
+			for (int i = 0; i < this.writers.length; i++) {
 				try {
 					this.writers[i].shutdown();
 				}
@@ -156,7 +217,7 @@ public final class IOManager implements UncaughtExceptionHandler
 			
 			// ------------------------ wait until shutdown is complete ---------------------------
 			try {
-				for (int i = 0; i < this.readers.length; i++) {
+				for (int i = 0; i < this.writers.length; i++) {
 					this.writers[i].join();
 				}
 				for (int i = 0; i < this.readers.length; i++) {
@@ -182,7 +243,7 @@ public final class IOManager implements UncaughtExceptionHandler
 		
 		boolean writersShutDown = true;
 		for (int i = 0; i < this.writers.length; i++) {
-			readersShutDown &= this.writers[i].getState() == Thread.State.TERMINATED;
+			writersShutDown &= this.writers[i].getState() == Thread.State.TERMINATED;
 		}
 		
 		return this.isClosed && writersShutDown && readersShutDown;
@@ -198,6 +259,27 @@ public final class IOManager implements UncaughtExceptionHandler
 		shutdown();	
 	}
 
+	/**
+	 * Gets the codec that spilling operators use to compress the data they write through a
+	 * {@link ChannelWriterOutputView}.
+	 * 
+	 * @return The codec for spilled data.
+	 */
+	public CompressionCodec getSpillCompressionCodec()
+	{
+		return this.spillCompressionCodec;
+	}
+	
+	/**
+	 * Gets the number of reader threads and writer threads that serve each temp directory.
+	 * 
+	 * @return The number of I/O threads per path.
+	 */
+	public int getNumThreadsPerPath()
+	{
+		return this.numThreadsPerPath;
+	}
+
 	// ------------------------------------------------------------------------
 	//                          Channel Instantiations
 	// ------------------------------------------------------------------------
@@ -248,7 +330,7 @@ public final class IOManager implements UncaughtExceptionHandler
 			throw new IllegalStateException("I/O-Manger is closed.");
 		}
 		
-		return new BlockChannelWriter(channelID, this.writers[channelID.getThreadNum()].requestQueue, returnQueue, 1);
+		return new BlockChannelWriter(channelID, getWriterQueue(channelID), returnQueue, 1);
 	}
 	
 	/**
@@ -257,12 +339,13 @@ public final class IOManager implements UncaughtExceptionHandler
 	 * afterwards.
 	 * <p>
 	 * The writer will collect a specified number of write requests and carry them out
-	 * in one, effectively writing one block in the size of multiple memory pages.
+	 * in one gathering write, effectively writing one block in the size of multiple memory pages.
 	 * Note that this means that no memory segment will reach the return queue before
 	 * the given number of requests are collected, so the number of buffers used with
 	 * the writer should be greater than the number of requests to combine. Ideally,
 	 * the number of memory segments used is a multiple of the number of requests to
-	 * combine.
+	 * combine. An incomplete batch is written when the writer waits for a returned
+	 * segment through {@link BlockChannelWriter#getNextReturnedSegment()}, or when it is closed.
 	 * 
 	 * @param channelID The descriptor for the channel to write to.
 	 * @param returnQueue The queue to put the written buffers into.
@@ -278,7 +361,7 @@ public final class IOManager implements UncaughtExceptionHandler
 			throw new IllegalStateException("I/O-Manger is closed.");
 		}
 		
-		return new BlockChannelWriter(channelID, this.writers[channelID.getThreadNum()].requestQueue, returnQueue, numRequestsToCombine);
+		return new BlockChannelWriter(channelID, getWriterQueue(channelID), returnQueue, numRequestsToCombine);
 	}
 	
 	/**
@@ -296,7 +379,7 @@ public final class IOManager implements UncaughtExceptionHandler
 			throw new IllegalStateException("I/O-Manger is closed.");
 		}
 		
-		return new BlockChannelWriter(channelID, this.writers[channelID.getThreadNum()].requestQueue, new LinkedBlockingQueue<MemorySegment>(), 1);
+		return new BlockChannelWriter(channelID, getWriterQueue(channelID), new LinkedBlockingQueue<MemorySegment>(), 1);
 	}
 	
 	/**
@@ -304,12 +387,13 @@ public final class IOManager implements UncaughtExceptionHandler
 	 * accepting write request, carrying them out at some time and returning the written segment its return queue afterwards.
 	 * <p>
 	 * The writer will collect a specified number of write requests and carry them out
-	 * in one, effectively writing one block in the size of multiple memory pages.
+	 * in one gathering write, effectively writing one block in the size of multiple memory pages.
 	 * Note that this means that no memory segment will reach the return queue before
 	 * the given number of requests are collected, so the number of buffers used with
 	 * the writer should be greater than the number of requests to combine. Ideally,
 	 * the number of memory segments used is a multiple of the number of requests to
-	 * combine.
+	 * combine. An incomplete batch is written when the writer waits for a returned
+	 * segment through {@link BlockChannelWriter#getNextReturnedSegment()}, or when it is closed.
 	 * 
 	 * @param channelID The descriptor for the channel to write to.
 	 * @param numRequestsToCombine The number of write requests to combine to one I/O request.
@@ -323,7 +407,7 @@ public final class IOManager implements UncaughtExceptionHandler
 			throw new IllegalStateException("I/O-Manger is closed.");
 		}
 		
-		return new BlockChannelWriter(channelID, this.writers[channelID.getThreadNum()].requestQueue, new LinkedBlockingQueue<MemorySegment>(), numRequestsToCombine);
+		return new BlockChannelWriter(channelID, getWriterQueue(channelID), new LinkedBlockingQueue<MemorySegment>(), numRequestsToCombine);
 	}
 	
 	/**
@@ -344,7 +428,7 @@ public final class IOManager implements UncaughtExceptionHandler
 			throw new IllegalStateException("I/O-Manger is closed.");
 		}
 		
-		return new BlockChannelReader(channelID, this.readers[channelID.getThreadNum()].requestQueue, returnQueue, 1);
+		return new BlockChannelReader(channelID, getReaderQueue(channelID), returnQueue, 1);
 	}
 	
 	/**
@@ -353,12 +437,13 @@ public final class IOManager implements UncaughtExceptionHandler
 	 * is pushed to the given queue.
 	 * <p>
 	 * The reader will collect a specified number of read requests and carry them out
-	 * in one, effectively reading one block in the size of multiple memory pages.
+	 * in one scattering read, effectively reading one block in the size of multiple memory pages.
 	 * Note that this means that no memory segment will reach the return queue before
 	 * the given number of requests are collected, so the number of buffers used with
 	 * the reader should be greater than the number of requests to combine. Ideally,
 	 * the number of memory segments used is a multiple of the number of requests to
-	 * combine.
+	 * combine. An incomplete batch is read when the reader waits for a returned
+	 * segment through {@link BlockChannelReader#getNextReturnedSegment()}, or when it is closed.
 	 * 
 	 * @param channelID The descriptor for the channel to write to.
 	 * @param returnQueue The queue to put the full buffers into.
@@ -374,7 +459,7 @@ public final class IOManager implements UncaughtExceptionHandler
 			throw new IllegalStateException("I/O-Manger is closed.");
 		}
 		
-		return new BlockChannelReader(channelID, this.readers[channelID.getThreadNum()].requestQueue, returnQueue, numRequestsToCombine);
+		return new BlockChannelReader(channelID, getReaderQueue(channelID), returnQueue, numRequestsToCombine);
 	}
 	
 	/**
@@ -393,7 +478,7 @@ public final class IOManager implements UncaughtExceptionHandler
 			throw new IllegalStateException("I/O-Manger is closed.");
 		}
 		
-		return new BlockChannelReader(channelID, this.readers[channelID.getThreadNum()].requestQueue, new LinkedBlockingQueue<MemorySegment>(), 1);
+		return new BlockChannelReader(channelID, getReaderQueue(channelID), new LinkedBlockingQueue<MemorySegment>(), 1);
 	}
 	
 	/**
@@ -402,12 +487,13 @@ public final class IOManager implements UncaughtExceptionHandler
 	 * is pushed to the reader's return queue.
 	 * <p>
 	 * The reader will collect a specified number of read requests and carry them out
-	 * in one, effectively reading one block in the size of multiple memory pages.
+	 * in one scattering read, effectively reading one block in the size of multiple memory pages.
 	 * Note that this means that no memory segment will reach the return queue before
 	 * the given number of requests are collected, so the number of buffers used with
 	 * the reader should be greater than the number of requests to combine. Ideally,
 	 * the number of memory segments used is a multiple of the number of requests to
-	 * combine.
+	 * combine. An incomplete batch is read when the reader waits for a returned
+	 * segment through {@link BlockChannelReader#getNextReturnedSegment()}, or when it is closed.
 	 * 
 	 * @param channelID The descriptor for the channel to write to.
 	 * @param numRequestsToCombine The number of write requests to combine to one I/O request.
@@ -421,7 +507,7 @@ public final class IOManager implements UncaughtExceptionHandler
 			throw new IllegalStateException("I/O-Manger is closed.");
 		}
 		
-		return new BlockChannelReader(channelID, this.readers[channelID.getThreadNum()].requestQueue, 
+		return new BlockChannelReader(channelID, getReaderQueue(channelID), 
 			new LinkedBlockingQueue<MemorySegment>(), numRequestsToCombine);
 	}
 	
@@ -448,7 +534,7 @@ public final class IOManager implements UncaughtExceptionHandler
 			throw new IllegalStateException("I/O-Manger is closed.");
 		}
 		
-		return new BulkBlockChannelReader(channelID, this.readers[channelID.getThreadNum()].requestQueue, targetSegments, numBlocks);
+		return new BulkBlockChannelReader(channelID, getReaderQueue(channelID), targetSegments, numBlocks);
 	}
 	
 	// ========================================================================
@@ -463,6 +549,29 @@ public final class IOManager implements UncaughtExceptionHandler
 		return next;
 	}
 	
+	/**
+	 * Picks the thread of the channel's path that serves a new reader or writer. The reader or writer
+	 * keeps the request queue of that thread for its lifetime, which preserves the order of its requests.
+	 */
+	private final int getThreadIndex(Channel.ID channelID)
+	{
+		if (this.numThreadsPerPath == 1) {
+			return channelID.getThreadNum();
+		}
+		final int offset = (this.nextThread.getAndIncrement() & Integer.MAX_VALUE) % this.numThreadsPerPath;
+		return channelID.getThreadNum() * this.numThreadsPerPath + offset;
+	}
+	
+	private final RequestQueue<WriteRequest> getWriterQueue(Channel.ID channelID)
+	{
+		return this.writers[getThreadIndex(channelID)].requestQueue;
+	}
+	
+	private final RequestQueue<ReadRequest> getReaderQueue(Channel.ID channelID)
+	{
+		return this.readers[getThreadIndex(channelID)].requestQueue;
+	}
+	
 	
 	// ========================================================================
 	//                          I/O Worker Threads
@@ -14,6 +14,7 @@
 package eu.stratosphere.nephele.services.memorymanager.spi;
 
 
+import java.nio.ByteBuffer;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -44,6 +45,11 @@ public class DefaultMemoryManager implements MemoryManager {
 	 */
 	public static final int MIN_PAGE_SIZE = 4 * 1024;
 	
+	/**
+	 * The maximal size of the direct buffers from which off-heap pages are cut. Currently set to 1 GiByte.
+	 */
+	private static final int MAX_OFF_HEAP_CHUNK_SIZE = 1024 * 1024 * 1024;
+	
 	/**
 	 * The Log.
 	 */
@@ -53,7 +59,7 @@ public class DefaultMemoryManager implements MemoryManager {
 	
 	private final Object lock = new Object();	 	// The lock used on the shared structures.
 	
-	private final ArrayDeque<byte[]> freeSegments;	// the free memory segments
+	private final ArrayDeque<ByteBuffer> freeSegments;	// the free memory segments, heap or direct buffers
 	
 	private final HashMap<AbstractInvokable, Set<DefaultMemorySegment>> allocatedSegments;
 	
@@ -65,6 +71,8 @@ public class DefaultMemoryManager implements MemoryManager {
 	
 	private final int totalNumPages;		// The initial total size, for verification.
 	
+	private final boolean offHeap;			// flag whether the memory is allocated outside the heap
+	
 	private boolean isShutDown;				// flag whether the close() has already been invoked.
 
 	// ------------------------------------------------------------------------
@@ -87,6 +95,20 @@ public class DefaultMemoryManager implements MemoryManager {
 	 * @param pageSize The size of the pages handed out by the memory manager.
 	 */
 	public DefaultMemoryManager(long memorySize, int pageSize) {
+		this(memorySize, pageSize, false);
+	}
+	
+	/**
+	 * Creates a memory manager with the given capacity and given page size. The memory is either allocated
+	 * as byte arrays on the heap, or as direct memory outside the heap, where it is not subject to garbage
+	 * collection. Off-heap memory is given back to the operating system only once the memory manager
+	 * is shut down and its buffers are garbage collected.
+	 * 
+	 * @param memorySize The total size of the memory to be managed by this memory manager.
+	 * @param pageSize The size of the pages handed out by the memory manager.
+	 * @param offHeap True, if the memory is to be allocated outside the heap, false otherwise.
+	 */
+	public DefaultMemoryManager(long memorySize, int pageSize, boolean offHeap) {
 		// sanity checks
 		if (memorySize <= 0) {
 			throw new IllegalArgumentException("Size of total memory must be positive.");
@@ -114,14 +136,29 @@ public class DefaultMemoryManager implements MemoryManager {
 		}
 		
 		// initialize the free segments and allocated segments tracking structures
-		this.freeSegments = new ArrayDeque<byte[]>(this.totalNumPages);
+		this.offHeap = offHeap;
+		this.freeSegments = new ArrayDeque<ByteBuffer>(this.totalNumPages);
 		this.allocatedSegments = new HashMap<AbstractInvokable, Set<DefaultMemorySegment>>();
 
-		
-		// add the full chunks
-		for (int i = 0; i < this.totalNumPages; i++) {
-			// allocate memory of the specified size
-			this.freeSegments.add(new byte[this.pageSize]);
+		if (offHeap) {
+			// cut the pages from few large direct buffers, because every direct buffer has some overhead
+			final int pagesPerChunk = MAX_OFF_HEAP_CHUNK_SIZE / this.pageSize;
+			for (int remaining = this.totalNumPages; remaining > 0; remaining -= pagesPerChunk) {
+				final int numPages = Math.min(remaining, pagesPerChunk);
+				final ByteBuffer chunk = ByteBuffer.allocateDirect(numPages * this.pageSize);
+				
+				for (int i = 0; i < numPages; i++) {
+					chunk.limit((i + 1) * this.pageSize);
+					chunk.position(i * this.pageSize);
+					this.freeSegments.add(chunk.slice());
+				}
+			}
+		} else {
+			// add the full chunks
+			for (int i = 0; i < this.totalNumPages; i++) {
+				// allocate memory of the specified size
+				this.freeSegments.add(ByteBuffer.wrap(new byte[this.pageSize]));
+			}
 		}
 	}
 
@@ -152,6 +189,15 @@ public class DefaultMemoryManager implements MemoryManager {
 	}
 	
 
+	/**
+	 * Checks whether this memory manager allocates its memory outside the heap.
+	 * 
+	 * @return True, if the pages are off-heap memory, false if they are byte arrays on the heap.
+	 */
+	public boolean isOffHeap() {
+		return this.offHeap;
+	}
+
 	public boolean verifyEmpty() {
 		synchronized (this.lock) {
 			return this.freeSegments.size() == this.totalNumPages;
@@ -202,7 +248,7 @@ public class DefaultMemoryManager implements MemoryManager {
 			}
 			
 			for (int i = numPages; i > 0; i--) {
-				byte[] buffer = this.freeSegments.poll();
+				final ByteBuffer buffer = this.freeSegments.poll();
 				final DefaultMemorySegment segment = new DefaultMemorySegment(owner, buffer);
 				target.add(segment);
 				segmentsForOwner.add(segment);
@@ -247,7 +293,7 @@ public class DefaultMemoryManager implements MemoryManager {
 			}
 			finally {
 				// release the memory in any case
-				byte[] buffer = defSeg.destroy();
+				final ByteBuffer buffer = defSeg.destroy();
 				this.freeSegments.add(buffer);
 			}
 		}
@@ -307,7 +353,7 @@ public class DefaultMemoryManager implements MemoryManager {
 				}
 				finally {
 					// release the memory in any case
-					byte[] buffer = defSeg.destroy();
+					final ByteBuffer buffer = defSeg.destroy();
 					this.freeSegments.add(buffer);
 				}
 			}
@@ -337,7 +383,7 @@ public class DefaultMemoryManager implements MemoryManager {
 			
 			// free each segment
 			for (DefaultMemorySegment seg : segments) {
-				final byte[] buffer = seg.destroy();
+				final ByteBuffer buffer = seg.destroy();
 				this.freeSegments.add(buffer);
 			}
 			
@@ -385,15 +431,21 @@ public class DefaultMemoryManager implements MemoryManager {
 		
 		private AbstractInvokable owner;
 		
-		DefaultMemorySegment(AbstractInvokable owner, byte[] memory) {
-			super(memory);
+		private ByteBuffer page;
+		
+		DefaultMemorySegment(AbstractInvokable owner, ByteBuffer page) {
+			super(page);
 			this.owner = owner;
+			this.page = page;
 		}
 		
-		byte[] destroy() {
-			final byte[] buffer = this.memory;
+		ByteBuffer destroy() {
+			final ByteBuffer buffer = this.page;
+			this.page = null;
 			this.memory = null;
+			this.offHeapBuffer = null;
 			this.wrapper = null;
+			this.size = 0;
 			return buffer;
 		}
 	}
@@ -66,6 +66,7 @@ import eu.stratosphere.nephele.instance.HardwareDescription;
 import eu.stratosphere.nephele.instance.HardwareDescriptionFactory;
 import eu.stratosphere.nephele.instance.InstanceConnectionInfo;
 import eu.stratosphere.nephele.io.channels.ChannelID;
+import eu.stratosphere.nephele.io.compression.CompressionCodec;
 import eu.stratosphere.nephele.ipc.RPC;
 import eu.stratosphere.nephele.ipc.Server;
 import eu.stratosphere.nephele.jobgraph.JobID;
@@ -311,7 +312,10 @@ public class TaskManager implements TaskOperationProtocol {
 				final boolean lazyAllocation = GlobalConfiguration.getBoolean(ConfigConstants.TASK_MANAGER_MEMORY_LAZY_ALLOCATION_KEY,
 					ConfigConstants.DEFAULT_TASK_MANAGER_MEMORY_LAZY_ALLOCATION);
 				
-				this.memoryManager = new DefaultMemoryManager(resources.getSizeOfFreeMemory(), pageSize);
+				final boolean offHeap = GlobalConfiguration.getBoolean(ConfigConstants.TASK_MANAGER_MEMORY_OFF_HEAP_KEY,
+					ConfigConstants.DEFAULT_TASK_MANAGER_MEMORY_OFF_HEAP);
+				
+				this.memoryManager = new DefaultMemoryManager(resources.getSizeOfFreeMemory(), pageSize, offHeap);
 			} catch (Throwable t) {
 				LOG.fatal("Unable to initialize memory manager with " + (resources.getSizeOfFreeMemory() >>> 20)
 					+ " megabytes of memory.", t);
@@ -319,7 +323,22 @@ public class TaskManager implements TaskOperationProtocol {
 			}
 		}
 
-		this.ioManager = new IOManager(tmpDirPaths);
+		final String spillCodec = GlobalConfiguration.getString(ConfigConstants.SPILL_COMPRESSION_CODEC_KEY,
+			ConfigConstants.DEFAULT_SPILL_COMPRESSION_CODEC);
+		CompressionCodec spillCompressionCodec;
+		try {
+			spillCompressionCodec = CompressionCodec.valueOf(spillCodec.toUpperCase());
+		} catch (IllegalArgumentException iaex) {
+			LOG.error("Invalid spill compression codec: " + spillCodec + ". Ignoring parameter.");
+			spillCompressionCodec = CompressionCodec.valueOf(ConfigConstants.DEFAULT_SPILL_COMPRESSION_CODEC);
+		}
+		int ioThreadsPerPath = GlobalConfiguration.getInteger(ConfigConstants.IO_THREADS_PER_PATH_KEY,
+			ConfigConstants.DEFAULT_IO_THREADS_PER_PATH);
+		if (ioThreadsPerPath < 1) {
+			LOG.error("Invalid number of I/O threads per path: " + ioThreadsPerPath + ". Ignoring parameter.");
+			ioThreadsPerPath = ConfigConstants.DEFAULT_IO_THREADS_PER_PATH;
+		}
+		this.ioManager = new IOManager(tmpDirPaths, spillCompressionCodec, ioThreadsPerPath);
 		
 		this.heartbeatThread = new Thread() {
 			@Override
@@ -0,0 +1,27 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2013 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.nephele.taskmanager.bufferprovider;
+
+/**
+ * This interface must be implemented to receive a notification from a {@link LocalBufferPool} when a particular
+ * {@link Buffer} requested from it has been returned to the pool.
+ * 
+ */
+public interface BufferRecycleListener {
+
+	/**
+	 * Indicates that the {@link Buffer} has been returned to its local buffer pool.
+	 */
+	void bufferRecycled();
+}
@@ -13,6 +13,7 @@
 
 package eu.stratosphere.nephele.taskmanager.bufferprovider;
 
+import java.nio.ByteBuffer;
 import java.util.Queue;
 import java.util.concurrent.ArrayBlockingQueue;
 
@@ -44,6 +45,11 @@ public final class GlobalBufferPool {
 
 	private final Queue<MemorySegment> buffers;
 
+	/**
+	 * The number of buffers reserved by the local buffer pools, which never exceeds the number of buffers.
+	 */
+	private int reservedNumberOfBuffers = 0;
+
 	/**
 	 * Returns the singleton instance of the global buffer pool. If the instance does not already exist, it is also
 	 * created by calling this method.
@@ -69,18 +75,25 @@ public final class GlobalBufferPool {
 		this.bufferSizeInBytes = GlobalConfiguration.getInteger(ConfigConstants.TASK_MANAGER_NETWORK_BUFFER_SIZE_KEY,
 			ConfigConstants.DEFAULT_TASK_MANAGER_NETWORK_BUFFER_SIZE);
 
+		final boolean offHeap = GlobalConfiguration.getBoolean(ConfigConstants.TASK_MANAGER_NETWORK_OFF_HEAP_KEY,
+			ConfigConstants.DEFAULT_TASK_MANAGER_NETWORK_OFF_HEAP);
+
 		this.buffers = new ArrayBlockingQueue<MemorySegment>(this.numberOfBuffers);
 
 		// Initialize buffers
 		for (int i = 0; i < this.numberOfBuffers; i++) {
 			// allocate byteBuffer
-			final byte[] segMemory = new byte[this.bufferSizeInBytes];
-			final MemorySegment readBuffer = new MemorySegment(segMemory);
+			final MemorySegment readBuffer;
+			if (offHeap) {
+				readBuffer = new MemorySegment(ByteBuffer.allocateDirect(this.bufferSizeInBytes));
+			} else {
+				readBuffer = new MemorySegment(new byte[this.bufferSizeInBytes]);
+			}
 			this.buffers.add(readBuffer);
 		}
 
-		LOG.info("Initialized global buffer pool with " + this.numberOfBuffers + " buffers with a size "
-			+ this.bufferSizeInBytes + " bytes each");
+		LOG.info("Initialized global buffer pool with " + this.numberOfBuffers + (offHeap ? " off-heap" : "")
+			+ " buffers with a size " + this.bufferSizeInBytes + " bytes each");
 	}
 
 	/**
@@ -113,6 +126,43 @@ public final class GlobalBufferPool {
 		this.buffers.add(releasedBuffer);
 	}
 
+	/**
+	 * Reserves up to the requested number of buffers for a local buffer pool. The total number of reserved buffers
+	 * never exceeds the number of buffers of this pool, so that every reservation can be backed by a buffer.
+	 * 
+	 * @param requestedNumberOfBuffers
+	 *        the number of buffers to reserve
+	 * @return the number of buffers which could be reserved, possibly <code>0</code>
+	 */
+	public synchronized int reserveBuffers(final int requestedNumberOfBuffers) {
+
+		final int reserved = Math.max(0,
+			Math.min(requestedNumberOfBuffers, this.numberOfBuffers - this.reservedNumberOfBuffers));
+		this.reservedNumberOfBuffers += reserved;
+		return reserved;
+	}
+
+	/**
+	 * Releases buffers which have previously been reserved by a local buffer pool.
+	 * 
+	 * @param releasedNumberOfBuffers
+	 *        the number of reserved buffers to release
+	 */
+	public synchronized void releaseReservedBuffers(final int releasedNumberOfBuffers) {
+
+		this.reservedNumberOfBuffers -= releasedNumberOfBuffers;
+	}
+
+	/**
+	 * Returns the number of buffers which are currently reserved by local buffer pools.
+	 * 
+	 * @return the number of reserved buffers
+	 */
+	public synchronized int getReservedNumberOfBuffers() {
+
+		return this.reservedNumberOfBuffers;
+	}
+
 	/**
 	 * Returns the total number of buffers managed by this pool.
 	 * 
@@ -31,8 +31,12 @@ public final class LocalBufferPool implements BufferProvider {
 
 		private final LocalBufferPool localBufferPool;
 
-		private LocalBufferPoolConnector(final LocalBufferPool localBufferPool) {
+		private final BufferRecycleListener recycleListener;
+
+		private LocalBufferPoolConnector(final LocalBufferPool localBufferPool,
+				final BufferRecycleListener recycleListener) {
 			this.localBufferPool = localBufferPool;
+			this.recycleListener = recycleListener;
 		}
 
 		/**
@@ -42,6 +46,10 @@ public final class LocalBufferPool implements BufferProvider {
 		public void recycle(final MemorySegment byteBuffer) {
 
 			this.localBufferPool.recycleBuffer(byteBuffer);
+
+			if (this.recycleListener != null) {
+				this.recycleListener.bufferRecycled();
+			}
 		}
 
 	}
@@ -56,6 +64,12 @@ public final class LocalBufferPool implements BufferProvider {
 
 	private int requestedNumberOfBuffers = 0;
 
+	/**
+	 * The number of buffers reserved by the users of this pool, below which the designated number of buffers never
+	 * falls.
+	 */
+	private int reservedNumberOfBuffers = 0;
+
 	private final boolean isShared;
 
 	private boolean asynchronousEventOccurred = false;
@@ -68,21 +82,73 @@ public final class LocalBufferPool implements BufferProvider {
 
 	private final Queue<BufferAvailabilityListener> bufferAvailabilityListenerQueue = new ArrayDeque<BufferAvailabilityListener>();
 
+	/**
+	 * The number of blocking requests which currently wait for a buffer to become available.
+	 */
+	private int numberOfWaitingRequests = 0;
+
+	/**
+	 * The number of blocking and non-blocking requests which found no buffer available since the pool was created.
+	 */
+	private long numberOfBlockedRequests = 0L;
+
+	/**
+	 * The point in time at which the pool ran out of buffers for a pending request, or <code>-1</code> if no request
+	 * is currently waiting for a buffer. The time up to this point has already been added to the wait times.
+	 */
+	private long waitingSince = -1L;
+
+	/**
+	 * The total time in milliseconds requests have waited for a buffer since the pool was created.
+	 */
+	private long totalWaitTime = 0L;
+
+	/**
+	 * The time in milliseconds requests have waited for a buffer since the last call to
+	 * {@link #resetRecentWaitTime()}.
+	 */
+	private long recentWaitTime = 0L;
+
 	public LocalBufferPool(final int designatedNumberOfBuffers, final boolean isShared) {
 
 		this.globalBufferPool = GlobalBufferPool.getInstance();
 		this.maximumBufferSize = this.globalBufferPool.getMaximumBufferSize();
 		this.designatedNumberOfBuffers = designatedNumberOfBuffers;
 		this.isShared = isShared;
-		this.bufferPoolConnector = new LocalBufferPoolConnector(this);
+		this.bufferPoolConnector = new LocalBufferPoolConnector(this, null);
 	}
 
 
 	@Override
 	public Buffer requestEmptyBuffer(final int minimumSizeOfBuffer) throws IOException {
 
+		return requestEmptyBuffer(minimumSizeOfBuffer, null);
+	}
+
+
+	@Override
+	public Buffer requestEmptyBufferBlocking(final int minimumSizeOfBuffer) throws IOException, InterruptedException {
+
+		return requestBufferInternal(minimumSizeOfBuffer, true, null);
+	}
+
+	/**
+	 * Requests an empty buffer without blocking and notifies the given listener once the buffer has been returned to
+	 * this pool.
+	 * 
+	 * @param minimumSizeOfBuffer
+	 *        the minimum size of the requested buffer in bytes
+	 * @param recycleListener
+	 *        the listener to notify once the buffer has been recycled, possibly <code>null</code>
+	 * @return the buffer or <code>null</code> if no buffer is currently available
+	 * @throws IOException
+	 *         thrown if an I/O error occurs while requesting the buffer
+	 */
+	public Buffer requestEmptyBuffer(final int minimumSizeOfBuffer, final BufferRecycleListener recycleListener)
+			throws IOException {
+
 		try {
-			return requestBufferInternal(minimumSizeOfBuffer, false);
+			return requestBufferInternal(minimumSizeOfBuffer, false, recycleListener);
 		} catch (InterruptedException e) {
 			LOG.error("Caught unexpected InterruptedException");
 		}
@@ -90,21 +156,36 @@ public final class LocalBufferPool implements BufferProvider {
 		return null;
 	}
 
+	/**
+	 * Requests an empty buffer, waits until one is available and notifies the given listener once the buffer has
+	 * been returned to this pool.
+	 * 
+	 * @param minimumSizeOfBuffer
+	 *        the minimum size of the requested buffer in bytes
+	 * @param recycleListener
+	 *        the listener to notify once the buffer has been recycled, possibly <code>null</code>
+	 * @return the buffer
+	 * @throws IOException
+	 *         thrown if an I/O error occurs while requesting the buffer
+	 * @throws InterruptedException
+	 *         thrown if the calling thread is interrupted while waiting for the buffer
+	 */
+	public Buffer requestEmptyBufferBlocking(final int minimumSizeOfBuffer,
+			final BufferRecycleListener recycleListener) throws IOException, InterruptedException {
 
-	@Override
-	public Buffer requestEmptyBufferBlocking(final int minimumSizeOfBuffer) throws IOException, InterruptedException {
-
-		return requestBufferInternal(minimumSizeOfBuffer, true);
+		return requestBufferInternal(minimumSizeOfBuffer, true, recycleListener);
 	}
 
-	private Buffer requestBufferInternal(final int minimumSizeOfBuffer, final boolean block) throws IOException,
-			InterruptedException {
+	private Buffer requestBufferInternal(final int minimumSizeOfBuffer, final boolean block,
+			final BufferRecycleListener recycleListener) throws IOException, InterruptedException {
 
 		if (minimumSizeOfBuffer > this.maximumBufferSize) {
 			throw new IllegalArgumentException("Buffer of " + minimumSizeOfBuffer
 				+ " bytes is requested, but maximum buffer size is " + this.maximumBufferSize);
 		}
 
+		boolean blocked = false;
+
 		while (true) {
 
 			boolean async = false;
@@ -142,22 +223,75 @@ public final class LocalBufferPool implements BufferProvider {
 						break;
 					}
 
+					if (!blocked) {
+						blocked = true;
+						++this.numberOfBlockedRequests;
+					}
+					startWaiting();
+
 					if (block) {
-						this.buffers.wait(100);
+						++this.numberOfWaitingRequests;
+						try {
+							this.buffers.wait(100);
+						} finally {
+							--this.numberOfWaitingRequests;
+						}
 					} else {
+						// The caller is expected to register a buffer availability listener, the wait ends with the
+						// next recycled buffer
 						return null;
 					}
 				}
 
 				if (!async) {
+					stopWaiting();
 					final MemorySegment memSeg = this.buffers.poll();
-					return BufferFactory.createFromMemory(minimumSizeOfBuffer, memSeg, this.bufferPoolConnector);
+					return BufferFactory.createFromMemory(minimumSizeOfBuffer, memSeg, recycleListener == null ?
+						this.bufferPoolConnector : new LocalBufferPoolConnector(this, recycleListener));
 				}
 			}
 		}
 	}
 
 
+	/**
+	 * Marks the pool as being out of buffers for a pending request, unless it is already marked. The caller must hold
+	 * the monitor of the buffer queue.
+	 */
+	private void startWaiting() {
+
+		if (this.waitingSince < 0L) {
+			this.waitingSince = System.currentTimeMillis();
+		}
+	}
+
+	/**
+	 * Records the time since the pool ran out of buffers as wait time and clears the mark set by
+	 * {@link #startWaiting()}. The caller must hold the monitor of the buffer queue.
+	 */
+	private void stopWaiting() {
+
+		if (this.waitingSince >= 0L) {
+			accountWaitTime();
+			this.waitingSince = -1L;
+		}
+	}
+
+	/**
+	 * Adds the time the pending requests have waited so far to the wait times, so that a request which is still
+	 * waiting is counted exactly once. The caller must hold the monitor of the buffer queue.
+	 */
+	private void accountWaitTime() {
+
+		if (this.waitingSince >= 0L) {
+			final long now = System.currentTimeMillis();
+			final long waited = now - this.waitingSince;
+			this.totalWaitTime += waited;
+			this.recentWaitTime += waited;
+			this.waitingSince = now;
+		}
+	}
+
 	@Override
 	public int getMaximumBufferSize() {
 
@@ -165,7 +299,8 @@ public final class LocalBufferPool implements BufferProvider {
 	}
 
 	/**
-	 * Sets the designated number of buffers for this local buffer cache.
+	 * Sets the designated number of buffers for this local buffer cache. The designated number of buffers never falls
+	 * below the number of reserved buffers.
 	 * 
 	 * @param designatedNumberOfBuffers
 	 *        the designated number of buffers for this local buffer cache
@@ -174,7 +309,7 @@ public final class LocalBufferPool implements BufferProvider {
 
 		synchronized (this.buffers) {
 
-			this.designatedNumberOfBuffers = designatedNumberOfBuffers;
+			this.designatedNumberOfBuffers = Math.max(designatedNumberOfBuffers, this.reservedNumberOfBuffers);
 
 			// Make sure we return excess buffers immediately
 			while (this.requestedNumberOfBuffers > this.designatedNumberOfBuffers) {
@@ -201,6 +336,10 @@ public final class LocalBufferPool implements BufferProvider {
 			}
 
 			this.isDestroyed = true;
+			stopWaiting();
+
+			this.globalBufferPool.releaseReservedBuffers(this.reservedNumberOfBuffers);
+			this.reservedNumberOfBuffers = 0;
 
 			while (!this.buffers.isEmpty()) {
 				this.globalBufferPool.releaseGlobalBuffer(this.buffers.poll());
@@ -238,6 +377,117 @@ public final class LocalBufferPool implements BufferProvider {
 		}
 	}
 
+	/**
+	 * Reserves a share of the designated buffers of this pool for a user which must be able to rely on them, e.g. an
+	 * input channel which grants the reserved buffers to its sender as credit. The share is the designated number of
+	 * buffers divided by the given number of users, but at least one buffer and at most the given maximum. The
+	 * reservation is also taken from the global buffer pool, so that the buffers reserved by all local buffer pools
+	 * never exceed the global buffers. If the global buffer pool has no unreserved buffers left, fewer buffers or none
+	 * are reserved. From then on, the designated number of buffers never falls below the total number of reserved
+	 * buffers. The reservations are released when this pool is destroyed.
+	 * 
+	 * @param numberOfUsers
+	 *        the number of users among which the designated buffers are shared
+	 * @param maximumNumberOfBuffers
+	 *        the maximum number of buffers to reserve
+	 * @return the number of reserved buffers
+	 */
+	public int reserveBuffers(final int numberOfUsers, final int maximumNumberOfBuffers) {
+
+		synchronized (this.buffers) {
+			final int share = this.designatedNumberOfBuffers / Math.max(1, numberOfUsers);
+			if (this.isDestroyed) {
+				return 0;
+			}
+			final int reserved = this.globalBufferPool.reserveBuffers(Math.min(maximumNumberOfBuffers, Math.max(1, share)));
+			this.reservedNumberOfBuffers += reserved;
+			this.designatedNumberOfBuffers = Math.max(this.designatedNumberOfBuffers, this.reservedNumberOfBuffers);
+			return reserved;
+		}
+	}
+
+	/**
+	 * Returns the number of buffers reserved by the users of this pool.
+	 * 
+	 * @return the number of reserved buffers
+	 */
+	public int getReservedNumberOfBuffers() {
+
+		synchronized (this.buffers) {
+			return this.reservedNumberOfBuffers;
+		}
+	}
+
+	/**
+	 * Returns the number of blocking requests which currently wait for a buffer of this pool.
+	 * 
+	 * @return the number of blocking requests which currently wait for a buffer
+	 */
+	public int getNumberOfWaitingRequests() {
+
+		synchronized (this.buffers) {
+			return this.numberOfWaitingRequests;
+		}
+	}
+
+	/**
+	 * Returns the backlog of this pool, i.e. the number of blocking requests which currently wait for a buffer plus
+	 * the number of buffer availability listeners which non-blocking requesters registered after they found no
+	 * buffer available.
+	 * 
+	 * @return the number of requests which currently wait for a buffer
+	 */
+	public int getBacklog() {
+
+		synchronized (this.buffers) {
+			return this.numberOfWaitingRequests + this.bufferAvailabilityListenerQueue.size();
+		}
+	}
+
+	/**
+	 * Returns how often a blocking or non-blocking request found no buffer of this pool available. A blocking request
+	 * is counted once, no matter how long it waits.
+	 * 
+	 * @return how often a request found no buffer available
+	 */
+	public long getNumberOfBlockedRequests() {
+
+		synchronized (this.buffers) {
+			return this.numberOfBlockedRequests;
+		}
+	}
+
+	/**
+	 * Returns the total time in milliseconds this pool has been out of buffers while requests were waiting for one.
+	 * For a non-blocking request, the wait lasts from its failed request until the next buffer is recycled.
+	 * 
+	 * @return the total time in milliseconds requests have waited for a buffer
+	 */
+	public long getTotalWaitTime() {
+
+		synchronized (this.buffers) {
+			accountWaitTime();
+			return this.totalWaitTime;
+		}
+	}
+
+	/**
+	 * Returns the time in milliseconds this pool has been out of buffers while requests were waiting for one since the
+	 * last call to this method and starts a new measurement period. The time of requests which are still waiting is
+	 * included up to the time of the call and is not reported again by the next call.
+	 * 
+	 * @return the time in milliseconds requests have waited for a buffer since the last call to this method
+	 */
+	public long resetRecentWaitTime() {
+
+		synchronized (this.buffers) {
+			accountWaitTime();
+			final long waitTime = this.recentWaitTime;
+			this.recentWaitTime = 0L;
+			return waitTime;
+		}
+	}
+
 	private void recycleBuffer(final MemorySegment memSeg) {
 
 		synchronized (this.buffers) {
@@ -248,6 +498,7 @@ public final class LocalBufferPool implements BufferProvider {
 			} else {
 				this.buffers.add(memSeg);
 				this.buffers.notify();
+				stopWaiting();
 			}
 
 			while (!this.bufferAvailabilityListenerQueue.isEmpty()) {
@@ -36,6 +36,13 @@ public interface LocalBufferPoolOwner {
 	 */
 	void setDesignatedNumberOfBuffers(int numberOfBuffers);
 
+	/**
+	 * Returns the local buffer pool managed by this owner.
+	 * 
+	 * @return the local buffer pool managed by this owner
+	 */
+	LocalBufferPool getLocalBufferPool();
+
 	/**
 	 * Clears the local buffer pool and returns all buffers to the global buffer pool.
 	 */
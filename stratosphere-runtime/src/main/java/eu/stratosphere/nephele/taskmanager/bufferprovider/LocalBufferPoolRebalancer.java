@@ -0,0 +1,123 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2013 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.nephele.taskmanager.bufferprovider;
+
+import java.util.Collection;
+import java.util.Iterator;
+
+/**
+ * The local buffer pool rebalancer moves designated buffers from local buffer pools which hold unused buffers to local
+ * buffer pools whose requests had to wait for a buffer. It is meant to be invoked periodically, so that under skew the
+ * buffers follow the channels which actually transport data instead of being split evenly among all channels.
+ * <p>
+ * The demand of a local buffer pool is the time it has been out of buffers for waiting requests since the last
+ * invocation, weighted by its current backlog, so that a pool which many channels wait on gets a larger share than a
+ * pool which a single request waits on. Both blocking requests and non-blocking requests, which wait through a buffer
+ * availability listener, are taken into account. Pools without demand give away half of their unused buffers per
+ * invocation, but never go below one buffer per channel or below their reserved buffers. The released buffers are
+ * split among the pools with demand proportionally to their demand.
+ * <p>
+ * This class is not thread-safe. Concurrent invocations must be synchronized with every other modification of the
+ * designated number of buffers.
+ * 
+ */
+public final class LocalBufferPoolRebalancer {
+
+	/**
+	 * Private constructor to prevent instantiation.
+	 */
+	private LocalBufferPoolRebalancer() {
+	}
+
+	/**
+	 * Moves designated buffers among the local buffer pools of the given owners according to their recent demand.
+	 * 
+	 * @param owners
+	 *        the local buffer pool owners whose pools shall be rebalanced
+	 * @return the number of designated buffers which have been moved
+	 */
+	public static int rebalance(final Collection<LocalBufferPoolOwner> owners) {
+
+		final int numberOfOwners = owners.size();
+		final LocalBufferPool[] pools = new LocalBufferPool[numberOfOwners];
+		final long[] demand = new long[numberOfOwners];
+		final int[] spare = new int[numberOfOwners];
+
+		long totalDemand = 0L;
+		int totalSpare = 0;
+		int count = 0;
+
+		final Iterator<LocalBufferPoolOwner> it = owners.iterator();
+		while (it.hasNext() && count < numberOfOwners) {
+
+			final LocalBufferPoolOwner owner = it.next();
+			final LocalBufferPool pool = owner.getLocalBufferPool();
+			pools[count] = pool;
+
+			demand[count] = pool.resetRecentWaitTime() * (1 + pool.getBacklog());
+			if (demand[count] > 0L) {
+				totalDemand += demand[count];
+			} else {
+				final int floor = Math.max(Math.max(1, owner.getNumberOfChannels()), pool.getReservedNumberOfBuffers());
+				final int unused = Math.min(pool.getNumberOfAvailableBuffers(), pool.getDesignatedNumberOfBuffers()
+					- floor);
+				if (unused > 0) {
+					// Only give away half of the unused buffers to dampen oscillations
+					spare[count] = (unused + 1) / 2;
+					totalSpare += spare[count];
+				}
+			}
+
+			++count;
+		}
+
+		if (totalDemand == 0L || totalSpare == 0) {
+			return 0;
+		}
+
+		// Shrink the idle pools first, so their buffers are returned to the global buffer pool
+		for (int i = 0; i < count; ++i) {
+			if (spare[i] > 0) {
+				pools[i].setDesignatedNumberOfBuffers(pools[i].getDesignatedNumberOfBuffers() - spare[i]);
+			}
+		}
+
+		int distributed = 0;
+		int mostDemanding = -1;
+		for (int i = 0; i < count; ++i) {
+
+			if (demand[i] == 0L) {
+				continue;
+			}
+
+			if (mostDemanding < 0 || demand[i] > demand[mostDemanding]) {
+				mostDemanding = i;
+			}
+
+			final int share = (int) ((totalSpare * demand[i]) / totalDemand);
+			if (share > 0) {
+				pools[i].setDesignatedNumberOfBuffers(pools[i].getDesignatedNumberOfBuffers() + share);
+				distributed += share;
+			}
+		}
+
+		// Hand the remainder of the integer division to the pool with the highest demand
+		if (distributed < totalSpare) {
+			pools[mostDemanding].setDesignatedNumberOfBuffers(pools[mostDemanding].getDesignatedNumberOfBuffers()
+				+ totalSpare - distributed);
+		}
+
+		return totalSpare;
+	}
+}
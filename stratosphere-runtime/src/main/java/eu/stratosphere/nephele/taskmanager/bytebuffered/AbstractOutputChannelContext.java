@@ -45,6 +45,9 @@ public abstract class AbstractOutputChannelContext implements OutputChannelConte
 			final AbstractEvent event = it.next();
 			if (event instanceof AbstractTaskEvent) {
 				processEventAsynchronously(event);
+			} else if (event instanceof ChannelCreditEvent) {
+				// the task thread may be waiting for the credit, so it cannot be queued for the task thread
+				this.forwardingChain.processEvent(event);
 			} else {
 				processEventSynchronously(event);
 			}
@@ -19,6 +19,8 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.Timer;
+import java.util.TimerTask;
 import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.commons.logging.Log;
@@ -41,6 +43,7 @@ import eu.stratosphere.nephele.taskmanager.bufferprovider.BufferProviderBroker;
 import eu.stratosphere.nephele.taskmanager.bufferprovider.GlobalBufferPool;
 import eu.stratosphere.nephele.taskmanager.bufferprovider.LocalBufferPool;
 import eu.stratosphere.nephele.taskmanager.bufferprovider.LocalBufferPoolOwner;
+import eu.stratosphere.nephele.taskmanager.bufferprovider.LocalBufferPoolRebalancer;
 import eu.stratosphere.nephele.taskmanager.transferenvelope.TransferEnvelope;
 import eu.stratosphere.nephele.taskmanager.transferenvelope.TransferEnvelopeDispatcher;
 import eu.stratosphere.nephele.taskmanager.transferenvelope.TransferEnvelopeReceiverList;
@@ -56,6 +59,10 @@ public final class ByteBufferedChannelManager implements TransferEnvelopeDispatc
 
 	private static final boolean DEFAULT_MERGE_SPILLED_BUFFERS = true;
 
+	private static final int DEFAULT_MAXIMUM_CREDIT = 8;
+
+	private static final long DEFAULT_BUFFER_REBALANCING_INTERVAL = 1000L;
+
 	// TODO: Make this configurable
 	private static final int NUMBER_OF_CHANNELS_FOR_MULTICAST = 10;
 
@@ -75,6 +82,24 @@ public final class ByteBufferedChannelManager implements TransferEnvelopeDispatc
 
 	private final boolean mergeSpilledBuffers;
 
+	/**
+	 * The maximum number of buffers the receiver of a network channel reserves for the channel and grants to the
+	 * sender as credit, or <code>0</code> if credit-based flow control is disabled.
+	 */
+	private final int maximumCredit;
+
+	/**
+	 * The interval in milliseconds in which designated buffers are moved among the local buffer pools according to
+	 * their recent demand, or <code>0</code> if the buffers are only redistributed when tasks are registered or
+	 * unregistered.
+	 */
+	private final long bufferRebalancingInterval;
+
+	/**
+	 * The timer which periodically rebalances the local buffer pools, or <code>null</code> if rebalancing is disabled.
+	 */
+	private final Timer bufferRebalancingTimer;
+
 	private final boolean multicastEnabled = true;
 
 	/**
@@ -104,9 +129,44 @@ public final class ByteBufferedChannelManager implements TransferEnvelopeDispatc
 		this.mergeSpilledBuffers = GlobalConfiguration.getBoolean("channel.network.mergeSpilledBuffers",
 			DEFAULT_MERGE_SPILLED_BUFFERS);
 
+		final int maximumCredit = GlobalConfiguration.getInteger("channel.network.maximumCredit",
+			DEFAULT_MAXIMUM_CREDIT);
+		if (maximumCredit < 0) {
+			LOG.error("Invalid maximum credit for network channels: " + maximumCredit + ". Ignoring parameter.");
+			this.maximumCredit = DEFAULT_MAXIMUM_CREDIT;
+		} else {
+			this.maximumCredit = maximumCredit;
+		}
+
+		final long bufferRebalancingInterval = GlobalConfiguration.getLong(
+			"channel.network.bufferRebalancingInterval", DEFAULT_BUFFER_REBALANCING_INTERVAL);
+		if (bufferRebalancingInterval < 0L) {
+			LOG.error("Invalid buffer rebalancing interval: " + bufferRebalancingInterval + ". Ignoring parameter.");
+			this.bufferRebalancingInterval = DEFAULT_BUFFER_REBALANCING_INTERVAL;
+		} else {
+			this.bufferRebalancingInterval = bufferRebalancingInterval;
+		}
+
+		if (this.bufferRebalancingInterval > 0L) {
+			this.bufferRebalancingTimer = new Timer("Buffer Rebalancer", true);
+			this.bufferRebalancingTimer.schedule(new TimerTask() {
+
+				@Override
+				public void run() {
+					rebalanceGlobalBuffers();
+				}
+			}, this.bufferRebalancingInterval, this.bufferRebalancingInterval);
+		} else {
+			this.bufferRebalancingTimer = null;
+		}
+
 		LOG.info("Initialized byte buffered channel manager with sender-side spilling "
 			+ (this.allowSenderSideSpilling ? "enabled" : "disabled")
-			+ (this.mergeSpilledBuffers ? " and spilled buffer merging enabled" : ""));
+			+ (this.mergeSpilledBuffers ? " and spilled buffer merging enabled" : "")
+			+ (this.maximumCredit > 0 ? ", maximum credit " + this.maximumCredit
+				: ", credit-based flow control disabled")
+			+ (this.bufferRebalancingInterval > 0L ? ", buffer rebalancing every " + this.bufferRebalancingInterval
+				+ " ms" : ", buffer rebalancing disabled"));
 	}
 
 	/**
@@ -145,7 +205,7 @@ public final class ByteBufferedChannelManager implements TransferEnvelopeDispatc
 				final boolean isActive = true;/* activeOutputChannels.contains(channelID); */
 
 				final OutputChannelContext outputChannelContext = outputGateContext.createOutputChannelContext(
-					channelID, previousContext, isActive, this.mergeSpilledBuffers);
+					channelID, previousContext, isActive, this.mergeSpilledBuffers, this.maximumCredit);
 
 				// Add routing entry to receiver cache to reduce latency
 				if (outputChannelContext.getType() == ChannelType.INMEMORY) {
@@ -181,7 +241,7 @@ public final class ByteBufferedChannelManager implements TransferEnvelopeDispatc
 					.get(channelID);
 
 				final InputChannelContext inputChannelContext = inputGateContext.createInputChannelContext(
-					channelID, previousContext);
+					channelID, previousContext, this.maximumCredit);
 
 				// Add routing entry to receiver cache to reduce latency
 				if (inputChannelContext.getType() == ChannelType.INMEMORY) {
@@ -265,6 +325,10 @@ public final class ByteBufferedChannelManager implements TransferEnvelopeDispatc
 	 */
 	public void shutdown() {
 
+		if (this.bufferRebalancingTimer != null) {
+			this.bufferRebalancingTimer.cancel();
+		}
+
 		this.networkConnectionManager.shutDown();
 	}
 
@@ -776,10 +840,13 @@ public final class ByteBufferedChannelManager implements TransferEnvelopeDispatc
 			return;
 		}
 
-		final Iterator<LocalBufferPoolOwner> it = this.localBufferPoolOwner.values().iterator();
-		while (it.hasNext()) {
-			final LocalBufferPoolOwner lbpo = it.next();
-			lbpo.setDesignatedNumberOfBuffers((int) Math.ceil(buffersPerChannel * lbpo.getNumberOfChannels()));
+		synchronized (this.localBufferPoolOwner) {
+
+			final Iterator<LocalBufferPoolOwner> it = this.localBufferPoolOwner.values().iterator();
+			while (it.hasNext()) {
+				final LocalBufferPoolOwner lbpo = it.next();
+				lbpo.setDesignatedNumberOfBuffers((int) Math.ceil(buffersPerChannel * lbpo.getNumberOfChannels()));
+			}
 		}
 
 		if (this.multicastEnabled) {
@@ -788,6 +855,22 @@ public final class ByteBufferedChannelManager implements TransferEnvelopeDispatc
 		}
 	}
 
+	/**
+	 * Moves designated buffers from local buffer pools which hold unused buffers to local buffer pools whose requests
+	 * had to wait for buffers since the last invocation of this method.
+	 */
+	private void rebalanceGlobalBuffers() {
+
+		synchronized (this.localBufferPoolOwner) {
+
+			final int movedBuffers = LocalBufferPoolRebalancer.rebalance(this.localBufferPoolOwner.values());
+
+			if (movedBuffers > 0 && LOG.isDebugEnabled()) {
+				LOG.debug("Moved " + movedBuffers + " designated buffers to local buffer pools with waiting requests");
+			}
+		}
+	}
+
 	/**
 	 * Invalidates the entries identified by the given channel IDs from the receiver lookup cache.
 	 * 
@@ -0,0 +1,81 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2013 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.nephele.taskmanager.bytebuffered;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+import eu.stratosphere.nephele.event.task.AbstractEvent;
+
+/**
+ * This event is sent by an {@link InputChannelContext} of a network channel to its output channel. It announces that
+ * the receiver has consumed buffers and is able to accept the given number of further buffers. Output channels with
+ * credit-based flow control only forward a buffer if they hold credit for it, so that a slow receiver does not block
+ * the network connection which it shares with other channels.
+ * 
+ */
+public final class ChannelCreditEvent extends AbstractEvent {
+
+	/**
+	 * The number of buffers the receiver is able to accept in addition.
+	 */
+	private int credit;
+
+	/**
+	 * Constructs a new channel credit event.
+	 * 
+	 * @param credit
+	 *        the number of buffers the receiver is able to accept in addition
+	 */
+	public ChannelCreditEvent(final int credit) {
+
+		if (credit <= 0) {
+			throw new IllegalArgumentException("Argument credit must be positive.");
+		}
+
+		this.credit = credit;
+	}
+
+	/**
+	 * Default constructor for serialization/deserialization.
+	 */
+	public ChannelCreditEvent() {
+	}
+
+	/**
+	 * Returns the number of buffers the receiver is able to accept in addition.
+	 * 
+	 * @return the number of buffers the receiver is able to accept in addition
+	 */
+	public int getCredit() {
+
+		return this.credit;
+	}
+
+
+	@Override
+	public void write(final DataOutput out) throws IOException {
+
+		out.writeInt(this.credit);
+	}
+
+
+	@Override
+	public void read(final DataInput in) throws IOException {
+
+		this.credit = in.readInt();
+	}
+
+}
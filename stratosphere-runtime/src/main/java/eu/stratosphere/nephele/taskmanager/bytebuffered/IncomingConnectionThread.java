@@ -23,7 +23,9 @@ import java.nio.channels.ServerSocketChannel;
 import java.nio.channels.SocketChannel;
 import java.util.ArrayDeque;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Queue;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -32,6 +34,12 @@ import eu.stratosphere.nephele.taskmanager.bufferprovider.BufferAvailabilityList
 import eu.stratosphere.nephele.taskmanager.transferenvelope.NoBufferAvailableException;
 import eu.stratosphere.util.StringUtils;
 
+/**
+ * An incoming connection thread is an event loop which reads the data of incoming connections. Several incoming
+ * connection threads may be active, each of them serves a distinct set of incoming connections with its own
+ * {@link Selector}. Only the listening thread accepts new connections, which it hands to the reader threads in turn.
+ * 
+ */
 public class IncomingConnectionThread extends Thread {
 
 	private static final Log LOG = LogFactory.getLog(IncomingConnectionThread.class);
@@ -44,6 +52,22 @@ public class IncomingConnectionThread extends Thread {
 
 	private final ServerSocketChannel listeningSocket;
 
+	/**
+	 * Accepted connections which have been handed to this thread and still have to be registered with its selector.
+	 */
+	private final Queue<SocketChannel> pendingIncomingConnections = new ArrayDeque<SocketChannel>();
+
+	/**
+	 * The threads which read the data of the connections accepted by this listening thread. If no reader threads are
+	 * set, the listening thread reads the data itself.
+	 */
+	private final List<IncomingConnectionThread> readerThreads = new CopyOnWriteArrayList<IncomingConnectionThread>();
+
+	/**
+	 * The index of the reader thread the next accepted connection is handed to.
+	 */
+	private int nextReaderThread = 0;
+
 	private static final class IncomingConnectionBufferAvailListener implements BufferAvailabilityListener {
 
 		private final Queue<SelectionKey> pendingReadEventSubscribeRequests;
@@ -66,6 +90,8 @@ public class IncomingConnectionThread extends Thread {
 			synchronized (this.pendingReadEventSubscribeRequests) {
 				this.pendingReadEventSubscribeRequests.add(this.key);
 			}
+
+			this.key.selector().wakeup();
 		}
 	}
 
@@ -87,11 +113,48 @@ public class IncomingConnectionThread extends Thread {
 		}
 	}
 
+	/**
+	 * Adds a thread which reads the data of the connections accepted by this listening thread. The accepted connections
+	 * are distributed among the reader threads in a round-robin fashion.
+	 * 
+	 * @param readerThread
+	 *        the reader thread to add, possibly this thread itself
+	 */
+	public void addReaderThread(final IncomingConnectionThread readerThread) {
+
+		if (this.listeningSocket == null) {
+			throw new IllegalStateException("Only the listening thread can distribute incoming connections");
+		}
+
+		this.readerThreads.add(readerThread);
+	}
+
+	/**
+	 * Hands an accepted connection to this thread, which reads its data from now on.
+	 * 
+	 * @param clientSocket
+	 *        the socket of the accepted connection
+	 */
+	private void addIncomingConnection(final SocketChannel clientSocket) {
+
+		synchronized (this.pendingIncomingConnections) {
+			this.pendingIncomingConnections.add(clientSocket);
+		}
+
+		this.selector.wakeup();
+	}
+
 	@Override
 	public void run() {
 
 		while (!this.isInterrupted()) {
 
+			synchronized (this.pendingIncomingConnections) {
+				while (!this.pendingIncomingConnections.isEmpty()) {
+					registerIncomingConnection(this.pendingIncomingConnections.poll());
+				}
+			}
+
 			synchronized (this.pendingReadEventSubscribeRequests) {
 				while (!this.pendingReadEventSubscribeRequests.isEmpty()) {
 					final SelectionKey key = this.pendingReadEventSubscribeRequests.poll();
@@ -166,6 +229,23 @@ public class IncomingConnectionThread extends Thread {
 			return;
 		}
 
+		if (this.readerThreads.isEmpty()) {
+			registerIncomingConnection(clientSocket);
+			return;
+		}
+
+		final IncomingConnectionThread readerThread = this.readerThreads.get(this.nextReaderThread);
+		this.nextReaderThread = (this.nextReaderThread + 1) % this.readerThreads.size();
+
+		if (readerThread == this) {
+			registerIncomingConnection(clientSocket);
+		} else {
+			readerThread.addIncomingConnection(clientSocket);
+		}
+	}
+
+	private void registerIncomingConnection(final SocketChannel clientSocket) {
+
 		final IncomingConnection incomingConnection = new IncomingConnection(this.byteBufferedChannelManager,
 			clientSocket);
 		SelectionKey clientKey = null;
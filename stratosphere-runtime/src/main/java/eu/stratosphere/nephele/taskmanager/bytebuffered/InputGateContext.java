@@ -18,7 +18,8 @@ import eu.stratosphere.nephele.taskmanager.bufferprovider.LocalBufferPoolOwner;
 
 public interface InputGateContext extends GateContext {
 
-	InputChannelContext createInputChannelContext(ChannelID channelID, InputChannelContext previousContext);
+	InputChannelContext createInputChannelContext(ChannelID channelID, InputChannelContext previousContext,
+			int maximumCredit);
 	
 	LocalBufferPoolOwner getLocalBufferPoolOwner();
 }
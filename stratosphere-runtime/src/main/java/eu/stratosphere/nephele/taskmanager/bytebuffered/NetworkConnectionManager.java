@@ -22,6 +22,7 @@ import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import eu.stratosphere.configuration.Configuration;
 import eu.stratosphere.configuration.GlobalConfiguration;
@@ -30,6 +31,12 @@ import eu.stratosphere.nephele.taskmanager.transferenvelope.TransferEnvelope;
 /**
  * The network connection manager manages incoming and outgoing network connection from and to other hosts.
  * <p>
+ * The connections are served by two pools of event loop threads, one for incoming and one for outgoing connections.
+ * The size of the pools is configured with <code>channel.network.numberOfIncomingConnectionThreads</code> and
+ * <code>channel.network.numberOfOutgoingConnectionThreads</code>. The connections are spread across the threads of
+ * each pool in a round-robin fashion, so that a single selector thread does not limit the network throughput of the
+ * task manager.
+ * <p>
  * This class is thread-safe.
  * 
  */
@@ -40,6 +47,11 @@ public final class NetworkConnectionManager {
 	 */
 	private static final int DEFAULT_NUMBER_OF_OUTGOING_CONNECTION_THREADS = 1;
 
+	/**
+	 * The default number of threads dealing with incoming connections.
+	 */
+	private static final int DEFAULT_NUMBER_OF_INCOMING_CONNECTION_THREADS = 1;
+
 	/**
 	 * The default number of connection retries before giving up.
 	 */
@@ -51,9 +63,14 @@ public final class NetworkConnectionManager {
 	private final List<OutgoingConnectionThread> outgoingConnectionThreads = new CopyOnWriteArrayList<OutgoingConnectionThread>();
 
 	/**
-	 * Thread dealing with incoming connections.
+	 * The index of the thread the next outgoing connection is assigned to.
+	 */
+	private final AtomicInteger nextOutgoingConnectionThread = new AtomicInteger(0);
+
+	/**
+	 * List of active threads dealing with incoming connections. The first thread also accepts the connections.
 	 */
-	private final IncomingConnectionThread incomingConnectionThread;
+	private final List<IncomingConnectionThread> incomingConnectionThreads = new CopyOnWriteArrayList<IncomingConnectionThread>();
 
 	/**
 	 * Map containing currently active outgoing connections.
@@ -87,22 +104,42 @@ public final class NetworkConnectionManager {
 			this.outgoingConnectionThreads.add(outgoingConnectionThread);
 		}
 
-		this.incomingConnectionThread = new IncomingConnectionThread(
+		final int numberOfIncomingConnectionThreads = configuration.getInteger(
+			"channel.network.numberOfIncomingConnectionThreads", DEFAULT_NUMBER_OF_INCOMING_CONNECTION_THREADS);
+
+		final IncomingConnectionThread listeningThread = new IncomingConnectionThread(
 			this.byteBufferedChannelManager, true, new InetSocketAddress(bindAddress, dataPort));
-		this.incomingConnectionThread.start();
+		this.incomingConnectionThreads.add(listeningThread);
+
+		for (int i = 1; i < numberOfIncomingConnectionThreads; i++) {
+			final IncomingConnectionThread readerThread = new IncomingConnectionThread(
+				this.byteBufferedChannelManager, false, null);
+			listeningThread.addReaderThread(readerThread);
+			readerThread.start();
+			this.incomingConnectionThreads.add(readerThread);
+		}
+
+		if (numberOfIncomingConnectionThreads > 1) {
+			// The listening thread reads its share of the connections as well
+			listeningThread.addReaderThread(listeningThread);
+		}
+
+		listeningThread.start();
 
 		this.numberOfConnectionRetries = configuration.getInteger("channel.network.numberOfConnectionRetries",
 			DEFAULT_NUMBER_OF_CONNECTION_RETRIES);
 	}
 
 	/**
-	 * Randomly selects one of the active threads dealing with outgoing connections.
+	 * Selects the next of the active threads dealing with outgoing connections in a round-robin fashion.
 	 * 
 	 * @return one of the active threads dealing with outgoing connections
 	 */
 	private OutgoingConnectionThread getOutgoingConnectionThread() {
 
-		return this.outgoingConnectionThreads.get((int) (this.outgoingConnectionThreads.size() * Math.random()));
+		final int index = this.nextOutgoingConnectionThread.getAndIncrement() & Integer.MAX_VALUE;
+
+		return this.outgoingConnectionThreads.get(index % this.outgoingConnectionThreads.size());
 	}
 
 	/**
@@ -149,7 +186,10 @@ public final class NetworkConnectionManager {
 	public void shutDown() {
 
 		// Interrupt the threads we started
-		this.incomingConnectionThread.interrupt();
+		final Iterator<IncomingConnectionThread> incomingIt = this.incomingConnectionThreads.iterator();
+		while (incomingIt.hasNext()) {
+			incomingIt.next().interrupt();
+		}
 
 		final Iterator<OutgoingConnectionThread> it = this.outgoingConnectionThreads.iterator();
 		while (it.hasNext()) {
@@ -15,6 +15,7 @@ package eu.stratosphere.nephele.taskmanager.bytebuffered;
 
 import java.io.IOException;
 import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.SocketChannel;
 import java.nio.channels.WritableByteChannel;
@@ -25,7 +26,9 @@ import java.util.Queue;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
+import eu.stratosphere.nephele.io.channels.Buffer;
 import eu.stratosphere.nephele.io.channels.ChannelID;
+import eu.stratosphere.nephele.io.channels.MemoryBuffer;
 import eu.stratosphere.nephele.taskmanager.transferenvelope.DefaultSerializer;
 import eu.stratosphere.nephele.taskmanager.transferenvelope.TransferEnvelope;
 
@@ -34,6 +37,10 @@ import eu.stratosphere.nephele.taskmanager.transferenvelope.TransferEnvelope;
  * {@link TransferEnvelope} objects are received from the {@link ByteBufferedChannelManager} and added to a queue. An
  * additional network thread then takes the envelopes from the queue and transmits them to the respective destination
  * host.
+ * <p>
+ * To save system calls, the network thread transmits up to {@link #MAX_ENVELOPES_PER_WRITE} queued envelopes with a
+ * single gathering write. The headers of these envelopes are serialized into a direct byte buffer, the data of their
+ * buffers is written in place.
  * 
  */
 public class OutgoingConnection {
@@ -43,6 +50,21 @@ public class OutgoingConnection {
 	 */
 	private static final Log LOG = LogFactory.getLog(OutgoingConnection.class);
 
+	/**
+	 * The maximum number of envelopes which are transmitted with a single gathering write.
+	 */
+	private static final int MAX_ENVELOPES_PER_WRITE = 32;
+
+	/**
+	 * The size of the direct byte buffer the envelope headers of a gathering write are serialized to in bytes.
+	 */
+	private static final int HEADER_BUFFER_SIZE = 8192;
+
+	/**
+	 * An empty byte buffer which stands in for the data of envelopes without a buffer.
+	 */
+	private static final ByteBuffer EMPTY_BUFFER = ByteBuffer.allocateDirect(0);
+
 	/**
 	 * The address this outgoing connection is connected to.
 	 */
@@ -64,10 +86,42 @@ public class OutgoingConnection {
 	private final DefaultSerializer serializer = new DefaultSerializer();
 
 	/**
-	 * The {@link TransferEnvelope} that is currently processed.
+	 * The {@link TransferEnvelope} that is currently processed if its header is too large to be transmitted with a
+	 * gathering write.
 	 */
 	private TransferEnvelope currentEnvelope = null;
 
+	/**
+	 * The direct byte buffer the headers of the envelopes of the current gathering write are serialized to.
+	 */
+	private final ByteBuffer headerBuffer = ByteBuffer.allocateDirect(HEADER_BUFFER_SIZE);
+
+	/**
+	 * The channel view on the header buffer which is handed to the serializer.
+	 */
+	private final WritableByteChannel headerChannel = new ByteBufferChannel(this.headerBuffer);
+
+	/**
+	 * The envelopes of the current gathering write. They remain at the head of the queue until they are fully
+	 * transmitted.
+	 */
+	private final TransferEnvelope[] batchEnvelopes = new TransferEnvelope[MAX_ENVELOPES_PER_WRITE];
+
+	/**
+	 * The byte buffers of the current gathering write, the header and the data of each envelope in turn.
+	 */
+	private final ByteBuffer[] batchBuffers = new ByteBuffer[2 * MAX_ENVELOPES_PER_WRITE];
+
+	/**
+	 * The number of envelopes of the current gathering write, <code>0</code> if no gathering write is in progress.
+	 */
+	private int batchSize = 0;
+
+	/**
+	 * The index of the first byte buffer of the current gathering write which still has data to be written.
+	 */
+	private int batchOffset = 0;
+
 	/**
 	 * Stores whether the underlying TCP connection is established. As this variable is accessed by the byte buffered
 	 * channel manager and the outgoing connection thread, it must be protected by a monitor.
@@ -226,6 +280,9 @@ public class OutgoingConnection {
 			// Error is fatal
 			LOG.error(ioe);
 
+			// The envelopes of the current gathering write are still queued and released below
+			clearBatch();
+
 			// Notify source of current envelope and release buffer
 			if (this.currentEnvelope != null) {
 				if (this.currentEnvelope.getBuffer() != null) {
@@ -289,6 +346,9 @@ public class OutgoingConnection {
 			// Error is fatal
 			LOG.error(ioe);
 
+			// The envelope of the current gathering write which has been partially transmitted is corrupted
+			dropPartiallyWrittenBatchEnvelope();
+
 			// Trigger new connection if there are more envelopes to be transmitted
 			if (this.queuedEnvelopes.isEmpty()) {
 				this.isConnected = false;
@@ -340,20 +400,24 @@ public class OutgoingConnection {
 	 */
 	public boolean write() throws IOException {
 
-		final WritableByteChannel writableByteChannel = (WritableByteChannel) this.selectionKey.channel();
+		final SocketChannel socketChannel = (SocketChannel) this.selectionKey.channel();
 
-		if (this.currentEnvelope == null) {
+		if (this.currentEnvelope == null && this.batchSize == 0) {
 			synchronized (this.queuedEnvelopes) {
 				if (this.queuedEnvelopes.isEmpty()) {
 					return false;
-				} else {
-					this.currentEnvelope = this.queuedEnvelopes.peek();
-					this.serializer.setTransferEnvelope(this.currentEnvelope);
 				}
+
+				prepareBatch();
 			}
 		}
 
-		if (!this.serializer.write(writableByteChannel)) {
+		if (this.batchSize > 0) {
+			writeBatch(socketChannel);
+			return true;
+		}
+
+		if (!this.serializer.write(socketChannel)) {
 
 			// Make sure we recycle the attached memory or file buffers correctly
 			if (this.currentEnvelope.getBuffer() != null) {
@@ -369,6 +433,158 @@ public class OutgoingConnection {
 		return true;
 	}
 
+	/**
+	 * Serializes the headers of the envelopes at the head of the queue into the header buffer and prepares the byte
+	 * buffers for the next gathering write. If the header of the first envelope does not fit into the header buffer,
+	 * the envelope becomes the current envelope and is transmitted on its own. The caller must hold the monitor of the
+	 * queue.
+	 * 
+	 * @throws IOException
+	 *         thrown if an error occurs while serializing the envelope headers
+	 */
+	private void prepareBatch() throws IOException {
+
+		this.headerBuffer.clear();
+
+		final Iterator<TransferEnvelope> it = this.queuedEnvelopes.iterator();
+		while (it.hasNext() && this.batchSize < MAX_ENVELOPES_PER_WRITE) {
+
+			final TransferEnvelope envelope = it.next();
+			final int headerStart = this.headerBuffer.position();
+
+			this.serializer.setTransferEnvelope(envelope);
+			if (this.serializer.writeHeader(this.headerChannel)) {
+
+				if (this.batchSize == 0) {
+					// The header alone exceeds the header buffer, fall back to the serializer
+					this.currentEnvelope = envelope;
+					this.serializer.setTransferEnvelope(envelope);
+					return;
+				}
+
+				// Leave the envelope for the next gathering write
+				this.headerBuffer.position(headerStart);
+				break;
+			}
+
+			final ByteBuffer header = this.headerBuffer.duplicate();
+			header.position(headerStart);
+			header.limit(this.headerBuffer.position());
+
+			this.batchEnvelopes[this.batchSize] = envelope;
+			this.batchBuffers[2 * this.batchSize] = header.slice();
+			this.batchBuffers[2 * this.batchSize + 1] = wrapBufferData(envelope.getBuffer());
+			++this.batchSize;
+		}
+
+		this.batchOffset = 0;
+	}
+
+	/**
+	 * Returns a byte buffer with the remaining data of the given buffer. The byte buffer is independent of the buffer's
+	 * position, so that it can be kept until a gathering write has transmitted it.
+	 * 
+	 * @param buffer
+	 *        the buffer whose data shall be wrapped, possibly <code>null</code>
+	 * @return a byte buffer with the remaining data of the given buffer
+	 */
+	private static ByteBuffer wrapBufferData(final Buffer buffer) {
+
+		if (buffer == null) {
+			return EMPTY_BUFFER;
+		}
+
+		final MemoryBuffer memoryBuffer = (MemoryBuffer) buffer;
+		return memoryBuffer.getMemorySegment().wrap(memoryBuffer.position(), memoryBuffer.remaining()).slice();
+	}
+
+	/**
+	 * Writes as much of the current gathering write to the given channel as the channel accepts. Envelopes which have
+	 * been transmitted completely are removed from the queue and their buffers are recycled.
+	 * 
+	 * @param socketChannel
+	 *        the channel to write to
+	 * @throws IOException
+	 *         thrown if an error occurs while writing to the channel
+	 */
+	private void writeBatch(final SocketChannel socketChannel) throws IOException {
+
+		socketChannel.write(this.batchBuffers, this.batchOffset, 2 * this.batchSize - this.batchOffset);
+
+		while (this.batchOffset < 2 * this.batchSize && !this.batchBuffers[this.batchOffset].hasRemaining()) {
+
+			if ((this.batchOffset & 1) == 1) {
+
+				// The data of the envelope has been transmitted, so the envelope is complete
+				final int index = this.batchOffset >>> 1;
+				final TransferEnvelope envelope = this.batchEnvelopes[index];
+				if (envelope.getBuffer() != null) {
+					envelope.getBuffer().recycleBuffer();
+				}
+
+				synchronized (this.queuedEnvelopes) {
+					this.queuedEnvelopes.poll();
+				}
+
+				this.batchEnvelopes[index] = null;
+				this.batchBuffers[this.batchOffset - 1] = null;
+				this.batchBuffers[this.batchOffset] = null;
+			}
+
+			++this.batchOffset;
+		}
+
+		if (this.batchOffset == 2 * this.batchSize) {
+			this.batchSize = 0;
+			this.batchOffset = 0;
+		}
+	}
+
+	/**
+	 * Drops the envelope of the current gathering write which has been transmitted partially and resets the gathering
+	 * write. The envelopes which have not been transmitted at all remain queued. The caller must hold the monitor of
+	 * the queue.
+	 */
+	private void dropPartiallyWrittenBatchEnvelope() {
+
+		if (this.batchSize == 0) {
+			return;
+		}
+
+		final int index = this.batchOffset >>> 1;
+		if ((this.batchOffset & 1) == 1 || this.batchBuffers[this.batchOffset].position() > 0) {
+
+			// The completely transmitted envelopes have already been removed, so the envelope is at the head
+			final TransferEnvelope envelope = this.queuedEnvelopes.poll();
+			if (envelope != this.batchEnvelopes[index]) {
+				LOG.error("Queue of outgoing connection to " + this.remoteReceiver + " is out of order");
+			}
+
+			if (envelope != null && envelope.getBuffer() != null) {
+				envelope.getBuffer().recycleBuffer();
+			}
+		}
+
+		clearBatch();
+	}
+
+	/**
+	 * Resets the current gathering write without touching the queued envelopes.
+	 */
+	private void clearBatch() {
+
+		for (int i = 0; i < this.batchEnvelopes.length; ++i) {
+			this.batchEnvelopes[i] = null;
+		}
+
+		for (int i = 0; i < this.batchBuffers.length; ++i) {
+			this.batchBuffers[i] = null;
+		}
+
+		this.batchSize = 0;
+		this.batchOffset = 0;
+	}
+
 	/**
 	 * Requests to close the underlying TCP connection. The request is ignored if at least one {@link TransferEnvelope}
 	 * is queued.
@@ -487,7 +703,7 @@ public class OutgoingConnection {
 				return false;
 			}
 
-			if (this.currentEnvelope != null) {
+			if (this.currentEnvelope != null || this.batchSize > 0) {
 				return false;
 			}
 
@@ -528,4 +744,41 @@ public class OutgoingConnection {
 
 		return retVal;
 	}
+
+	/**
+	 * A writable byte channel which writes to a byte buffer as long as the buffer has space left.
+	 */
+	private static final class ByteBufferChannel implements WritableByteChannel {
+
+		private final ByteBuffer target;
+
+		private ByteBufferChannel(final ByteBuffer target) {
+			this.target = target;
+		}
+
+		@Override
+		public int write(final ByteBuffer src) {
+
+			final int numberOfBytes = Math.min(src.remaining(), this.target.remaining());
+			if (numberOfBytes == src.remaining()) {
+				this.target.put(src);
+			} else {
+				final int limit = src.limit();
+				src.limit(src.position() + numberOfBytes);
+				this.target.put(src);
+				src.limit(limit);
+			}
+
+			return numberOfBytes;
+		}
+
+		@Override
+		public boolean isOpen() {
+			return true;
+		}
+
+		@Override
+		public void close() {
+		}
+	}
 }
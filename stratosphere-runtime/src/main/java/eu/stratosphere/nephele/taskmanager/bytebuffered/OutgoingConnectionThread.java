@@ -29,6 +29,12 @@ import org.apache.commons.logging.LogFactory;
 
 import eu.stratosphere.util.StringUtils;
 
+/**
+ * An outgoing connection thread is an event loop which establishes outgoing connections and transmits the envelopes
+ * queued at them. Several outgoing connection threads may be active, each of them serves a distinct set of outgoing
+ * connections with its own {@link Selector}.
+ * 
+ */
 public class OutgoingConnectionThread extends Thread {
 
 	/**
@@ -60,7 +66,7 @@ public class OutgoingConnectionThread extends Thread {
 
 			synchronized (this.pendingConnectionRequests) {
 
-				if (!this.pendingConnectionRequests.isEmpty()) {
+				while (!this.pendingConnectionRequests.isEmpty()) {
 
 					final OutgoingConnection outgoingConnection = this.pendingConnectionRequests.poll();
 					try {
@@ -85,7 +91,7 @@ public class OutgoingConnectionThread extends Thread {
 
 			synchronized (this.pendingWriteEventSubscribeRequests) {
 
-				if (!this.pendingWriteEventSubscribeRequests.isEmpty()) {
+				while (!this.pendingWriteEventSubscribeRequests.isEmpty()) {
 					final SelectionKey oldSelectionKey = this.pendingWriteEventSubscribeRequests.poll();
 					final OutgoingConnection outgoingConnection = (OutgoingConnection) oldSelectionKey.attachment();
 					final SocketChannel socketChannel = (SocketChannel) oldSelectionKey.channel();
@@ -140,7 +146,7 @@ public class OutgoingConnectionThread extends Thread {
 			}
 
 			try {
-				this.selector.select(10);
+				this.selector.select(500);
 			} catch (IOException e) {
 				LOG.error(e);
 			}
@@ -241,6 +247,8 @@ public class OutgoingConnectionThread extends Thread {
 		synchronized (this.pendingConnectionRequests) {
 			this.pendingConnectionRequests.add(outgoingConnection);
 		}
+
+		this.selector.wakeup();
 	}
 
 	public void unsubscribeFromWriteEvent(SelectionKey selectionKey) throws IOException {
@@ -266,5 +274,7 @@ public class OutgoingConnectionThread extends Thread {
 			this.connectionsToClose.remove((OutgoingConnection) selectionKey.attachment());
 		}
 
+		this.selector.wakeup();
+
 	}
 }
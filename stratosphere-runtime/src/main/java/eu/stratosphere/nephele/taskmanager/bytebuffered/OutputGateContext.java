@@ -18,5 +18,5 @@ import eu.stratosphere.nephele.io.channels.ChannelID;
 public interface OutputGateContext extends GateContext {
 
 	OutputChannelContext createOutputChannelContext(ChannelID channelID, OutputChannelContext previousContext,
-			boolean isReceiverRunning, boolean mergeSpillBuffers);
+			boolean isReceiverRunning, boolean mergeSpillBuffers, int maximumCredit);
 }
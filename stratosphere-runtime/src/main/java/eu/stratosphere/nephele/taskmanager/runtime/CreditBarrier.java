@@ -0,0 +1,132 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2013 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.nephele.taskmanager.runtime;
+
+import java.io.IOException;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import eu.stratosphere.nephele.event.task.AbstractEvent;
+import eu.stratosphere.nephele.io.channels.ChannelID;
+import eu.stratosphere.nephele.taskmanager.bytebuffered.AbstractOutputChannelForwarder;
+import eu.stratosphere.nephele.taskmanager.bytebuffered.ChannelCreditEvent;
+import eu.stratosphere.nephele.taskmanager.transferenvelope.TransferEnvelope;
+
+/**
+ * The credit barrier implements credit-based flow control for a network output channel. The channel starts with an
+ * initial credit, and the receiver grants further credit with {@link ChannelCreditEvent}s as buffers it has reserved
+ * for the channel become free again.
+ * Envelopes which carry a buffer are only forwarded if credit is left, otherwise the task thread waits until the
+ * receiver grants more. Envelopes which only carry events are always forwarded.
+ * <p>
+ * The credit events are delivered by the thread which receives them from the network, so this class is thread-safe.
+ * 
+ */
+public final class CreditBarrier extends AbstractOutputChannelForwarder {
+
+	private static final Log LOG = LogFactory.getLog(CreditBarrier.class);
+
+	private final ChannelID outputChannelID;
+
+	private int credit;
+
+	private boolean destroyed = false;
+
+	public CreditBarrier(final ChannelID outputChannelID, final int initialCredit,
+			final AbstractOutputChannelForwarder next) {
+		super(next);
+
+		if (next == null) {
+			throw new IllegalArgumentException("Argument next must not be null");
+		}
+
+		if (initialCredit <= 0) {
+			throw new IllegalArgumentException("Argument initialCredit must be positive");
+		}
+
+		this.outputChannelID = outputChannelID;
+		this.credit = initialCredit;
+	}
+
+
+	@Override
+	public void push(final TransferEnvelope transferEnvelope) throws IOException, InterruptedException {
+
+		if (transferEnvelope.getBuffer() != null) {
+
+			synchronized (this) {
+
+				if (this.credit == 0 && LOG.isDebugEnabled()) {
+					LOG.debug("Output channel " + this.outputChannelID + " waits for credit");
+				}
+
+				while (this.credit == 0 && !this.destroyed) {
+					try {
+						wait();
+					} catch (InterruptedException e) {
+						recycleTransferEnvelope(transferEnvelope);
+						throw e;
+					}
+				}
+
+				if (this.destroyed) {
+					recycleTransferEnvelope(transferEnvelope);
+					return;
+				}
+
+				--this.credit;
+			}
+		}
+
+		getNext().push(transferEnvelope);
+	}
+
+
+	@Override
+	public void processEvent(final AbstractEvent event) {
+
+		if (event instanceof ChannelCreditEvent) {
+
+			synchronized (this) {
+				this.credit += ((ChannelCreditEvent) event).getCredit();
+				notifyAll();
+			}
+		}
+
+		getNext().processEvent(event);
+	}
+
+
+	@Override
+	public void destroy() {
+
+		synchronized (this) {
+			this.destroyed = true;
+			notifyAll();
+		}
+
+		getNext().destroy();
+	}
+
+	/**
+	 * Checks whether the channel holds credit, i.e. whether an envelope with a buffer is forwarded without waiting.
+	 * 
+	 * @return <code>true</code> if the channel holds credit, <code>false</code> otherwise
+	 */
+	public synchronized boolean hasCredit() {
+
+		return this.credit > 0;
+	}
+}
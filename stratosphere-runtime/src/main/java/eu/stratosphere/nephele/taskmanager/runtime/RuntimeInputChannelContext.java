@@ -27,9 +27,12 @@ import eu.stratosphere.nephele.io.channels.ChannelID;
 import eu.stratosphere.nephele.io.channels.ChannelType;
 import eu.stratosphere.nephele.io.channels.bytebuffered.AbstractByteBufferedInputChannel;
 import eu.stratosphere.nephele.io.channels.bytebuffered.BufferOrEvent;
+import eu.stratosphere.nephele.io.channels.bytebuffered.ByteBufferedChannelCloseEvent;
 import eu.stratosphere.nephele.io.channels.bytebuffered.ByteBufferedInputChannelBroker;
 import eu.stratosphere.nephele.jobgraph.JobID;
 import eu.stratosphere.nephele.taskmanager.bufferprovider.BufferAvailabilityListener;
+import eu.stratosphere.nephele.taskmanager.bufferprovider.BufferRecycleListener;
+import eu.stratosphere.nephele.taskmanager.bytebuffered.ChannelCreditEvent;
 import eu.stratosphere.nephele.taskmanager.bytebuffered.InputChannelContext;
 import eu.stratosphere.nephele.taskmanager.bytebuffered.ReceiverNotFoundEvent;
 import eu.stratosphere.nephele.taskmanager.transferenvelope.TransferEnvelope;
@@ -54,14 +57,80 @@ final class RuntimeInputChannelContext implements InputChannelContext, ByteBuffe
 
 	private boolean destroyCalled = false;
 
+	/**
+	 * The maximum number of buffers which are reserved for this channel and granted to the sender as credit, or
+	 * <code>0</code> if the sender is not flow controlled.
+	 */
+	private final int maximumCredit;
+
+	/**
+	 * The listener which grants credit for a buffer of the gate's local buffer pool once the buffer has been
+	 * recycled, or <code>null</code> if the sender is not flow controlled.
+	 */
+	private final BufferRecycleListener creditGrantingListener;
+
+	/**
+	 * The number of buffers reserved for this channel in the local buffer pool of the gate, or <code>-1</code> if no
+	 * buffer has been received yet. This field is only accessed by the task thread.
+	 */
+	private int reservedCredit = -1;
+
+	/**
+	 * Stores whether the received buffers are taken from the local buffer pool of the gate. In this case, credit is
+	 * granted once a buffer has been recycled, otherwise once the buffer has been handed to the task.
+	 */
+	private volatile boolean receivesIntoGateBuffers = false;
+
+	/**
+	 * The lock which guards the credit which has not been granted to the sender yet.
+	 */
+	private final Object creditLock = new Object();
+
+	/**
+	 * The number of freed buffers after which they are granted to the sender as new credit.
+	 */
+	private int creditBatchSize = Integer.MAX_VALUE;
+
+	/**
+	 * The number of buffers freed since credit was last granted to the sender.
+	 */
+	private int ungrantedCredit = 0;
+
+	/**
+	 * Stores whether the sender has closed the channel or the channel has been destroyed, after which the sender does
+	 * not need further credit.
+	 */
+	private boolean creditGrantingStopped = false;
+
 	RuntimeInputChannelContext(final RuntimeInputGateContext inputGateContext,
 			final TransferEnvelopeDispatcher transferEnvelopeDispatcher,
-			final AbstractByteBufferedInputChannel<?> byteBufferedInputChannel) {
+			final AbstractByteBufferedInputChannel<?> byteBufferedInputChannel, final int maximumCredit) {
 
 		this.inputGateContext = inputGateContext;
 		this.transferEnvelopeDispatcher = transferEnvelopeDispatcher;
 		this.byteBufferedInputChannel = byteBufferedInputChannel;
 		this.byteBufferedInputChannel.setInputChannelBroker(this);
+
+		// the output channels of broadcast gates are not flow controlled
+		if (maximumCredit > 0 && byteBufferedInputChannel.getType() == ChannelType.NETWORK
+			&& !byteBufferedInputChannel.isConnectedToBroadcastGate()) {
+
+			this.maximumCredit = maximumCredit;
+			this.creditGrantingListener = new BufferRecycleListener() {
+
+				@Override
+				public void bufferRecycled() {
+					try {
+						grantCredit(1);
+					} catch (IOException e) {
+						LOG.error("Cannot grant credit to the sender of input channel " + getChannelName(), e);
+					}
+				}
+			};
+		} else {
+			this.maximumCredit = 0;
+			this.creditGrantingListener = null;
+		}
 	}
 
 
@@ -92,11 +161,32 @@ final class RuntimeInputChannelContext implements InputChannelContext, ByteBuffe
 			if (events.hasNext()) {
 				this.pendingEvents = events;
 			}
+			if (this.maximumCredit > 0) {
+				for (final AbstractEvent event : nextEnvelope.getEventList()) {
+					if (event instanceof ByteBufferedChannelCloseEvent) {
+						stopGrantingCredit();
+					}
+				}
+			}
 		}
 		
 		// get the buffer, if there is one
-		if (nextEnvelope.getBuffer() != null) {
-			return new BufferOrEvent(nextEnvelope.getBuffer());
+		final Buffer buffer = nextEnvelope.getBuffer();
+		if (buffer != null) {
+			if (this.maximumCredit > 0) {
+				try {
+					if (this.reservedCredit < 0) {
+						reserveCredit();
+					}
+					if (!this.receivesIntoGateBuffers) {
+						grantCredit(1);
+					}
+				} catch (IOException e) {
+					buffer.recycleBuffer();
+					throw e;
+				}
+			}
+			return new BufferOrEvent(buffer);
 		}
 		else if (this.pendingEvents != null) {
 			// if the field is not null, it must always have a next value!
@@ -113,6 +203,73 @@ final class RuntimeInputChannelContext implements InputChannelContext, ByteBuffe
 		}
 	}
 
+	/**
+	 * Reserves buffers for this channel in the local buffer pool of the gate once the first buffer has been received.
+	 * The sender sends its first buffer without credit, so all reserved buffers but the received one are granted to
+	 * the sender right away. From then on, the credit of the sender and the buffers the receiver holds for this channel
+	 * never exceed the reserved buffers. If no buffer could be reserved, because the reservations of all channels
+	 * already take up the global buffers, the sender only gets credit for the buffer it holds once that is freed, so
+	 * that a single buffer is in flight, like the first one.
+	 * 
+	 * @throws IOException
+	 *         thrown if the credit cannot be sent to the sender
+	 */
+	private void reserveCredit() throws IOException {
+
+		this.reservedCredit = this.inputGateContext.reserveCredit(this.maximumCredit);
+
+		synchronized (this.creditLock) {
+			// grant credit in batches of half the reserved buffers, so that the sender never runs dry while the
+			// receiver still holds back credit for freed buffers
+			this.creditBatchSize = Math.max(1, this.reservedCredit / 2);
+		}
+
+		grantCredit(Math.max(0, this.reservedCredit - 1));
+	}
+
+	/**
+	 * Adds the given number of freed buffers to the credit of the sender and grants it, once a batch of them is
+	 * complete. This method is called by the task thread and by the threads which recycle buffers.
+	 * 
+	 * @param credit
+	 *        the number of freed buffers
+	 * @throws IOException
+	 *         thrown if the credit cannot be sent to the sender
+	 */
+	private void grantCredit(final int credit) throws IOException {
+
+		final int grant;
+		synchronized (this.creditLock) {
+			this.ungrantedCredit += credit;
+			if (this.ungrantedCredit < this.creditBatchSize || this.creditGrantingStopped) {
+				return;
+			}
+
+			grant = this.ungrantedCredit;
+			this.ungrantedCredit = 0;
+		}
+
+		try {
+			transferEventToOutputChannel(new ChannelCreditEvent(grant));
+		} catch (InterruptedException e) {
+			// keep the credit to grant it with the next freed buffer
+			synchronized (this.creditLock) {
+				this.ungrantedCredit += grant;
+			}
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Stops granting credit to the sender, because it has closed the channel or the channel has been destroyed.
+	 */
+	private void stopGrantingCredit() {
+
+		synchronized (this.creditLock) {
+			this.creditGrantingStopped = true;
+		}
+	}
+
 	@Override
 	public void transferEventToOutputChannel(AbstractEvent event) throws IOException, InterruptedException {
 		TransferEnvelope ephemeralTransferEnvelope = new TransferEnvelope(0, getJobID(), getChannelID());
@@ -200,6 +357,8 @@ final class RuntimeInputChannelContext implements InputChannelContext, ByteBuffe
 
 	@Override
 	public void destroy() {
+		stopGrantingCredit();
+
 		final Queue<Buffer> buffersToRecycle = new ArrayDeque<Buffer>();
 
 		synchronized (this.queuedEnvelopes) {
@@ -251,12 +410,22 @@ final class RuntimeInputChannelContext implements InputChannelContext, ByteBuffe
 
 	@Override
 	public Buffer requestEmptyBuffer(int minimumSizeOfBuffer) throws IOException {
-		return this.inputGateContext.requestEmptyBuffer(minimumSizeOfBuffer);
+		if (this.creditGrantingListener == null) {
+			return this.inputGateContext.requestEmptyBuffer(minimumSizeOfBuffer);
+		}
+
+		this.receivesIntoGateBuffers = true;
+		return this.inputGateContext.requestEmptyBuffer(minimumSizeOfBuffer, this.creditGrantingListener);
 	}
 
 	@Override
 	public Buffer requestEmptyBufferBlocking(int minimumSizeOfBuffer) throws IOException, InterruptedException {
-		return this.inputGateContext.requestEmptyBufferBlocking(minimumSizeOfBuffer);
+		if (this.creditGrantingListener == null) {
+			return this.inputGateContext.requestEmptyBufferBlocking(minimumSizeOfBuffer);
+		}
+
+		this.receivesIntoGateBuffers = true;
+		return this.inputGateContext.requestEmptyBufferBlocking(minimumSizeOfBuffer, this.creditGrantingListener);
 	}
 
 	@Override
@@ -24,6 +24,7 @@ import eu.stratosphere.nephele.io.channels.ChannelID;
 import eu.stratosphere.nephele.io.channels.bytebuffered.AbstractByteBufferedInputChannel;
 import eu.stratosphere.nephele.taskmanager.bufferprovider.BufferAvailabilityListener;
 import eu.stratosphere.nephele.taskmanager.bufferprovider.BufferProvider;
+import eu.stratosphere.nephele.taskmanager.bufferprovider.BufferRecycleListener;
 import eu.stratosphere.nephele.taskmanager.bufferprovider.LocalBufferPool;
 import eu.stratosphere.nephele.taskmanager.bufferprovider.LocalBufferPoolOwner;
 import eu.stratosphere.nephele.taskmanager.bytebuffered.InputChannelContext;
@@ -69,6 +70,63 @@ final class RuntimeInputGateContext implements BufferProvider, InputGateContext,
 	}
 
 
+	/**
+	 * Requests an empty buffer without blocking and notifies the given listener once the buffer has been returned to
+	 * the local buffer pool of this gate.
+	 * 
+	 * @param minimumSizeOfBuffer
+	 *        the minimum size of the requested buffer in bytes
+	 * @param recycleListener
+	 *        the listener to notify once the buffer has been recycled
+	 * @return the buffer or <code>null</code> if no buffer is currently available
+	 * @throws IOException
+	 *         thrown if an I/O error occurs while requesting the buffer
+	 */
+	Buffer requestEmptyBuffer(final int minimumSizeOfBuffer, final BufferRecycleListener recycleListener)
+			throws IOException {
+
+		return this.localBufferPool.requestEmptyBuffer(minimumSizeOfBuffer, recycleListener);
+	}
+
+	/**
+	 * Requests an empty buffer, waits until one is available and notifies the given listener once the buffer has been
+	 * returned to the local buffer pool of this gate.
+	 * 
+	 * @param minimumSizeOfBuffer
+	 *        the minimum size of the requested buffer in bytes
+	 * @param recycleListener
+	 *        the listener to notify once the buffer has been recycled
+	 * @return the buffer
+	 * @throws IOException
+	 *         thrown if an I/O error occurs while requesting the buffer
+	 * @throws InterruptedException
+	 *         thrown if the calling thread is interrupted while waiting for the buffer
+	 */
+	Buffer requestEmptyBufferBlocking(final int minimumSizeOfBuffer, final BufferRecycleListener recycleListener)
+			throws IOException, InterruptedException {
+
+		final Buffer buffer = this.localBufferPool.requestEmptyBuffer(minimumSizeOfBuffer, recycleListener);
+		if (buffer != null) {
+			return buffer;
+		}
+
+		return this.localBufferPool.requestEmptyBufferBlocking(minimumSizeOfBuffer, recycleListener);
+	}
+
+	/**
+	 * Reserves the buffers of the local buffer pool which an input channel of this gate grants to its sender as
+	 * credit. Each channel gets its share of the designated buffers, but at most the given maximum credit.
+	 * 
+	 * @param maximumCredit
+	 *        the maximum credit of a channel
+	 * @return the number of buffers reserved for the channel
+	 */
+	int reserveCredit(final int maximumCredit) {
+
+		return this.localBufferPool.reserveBuffers(getNumberOfChannels(), maximumCredit);
+	}
+
+
 	@Override
 	public int getMaximumBufferSize() {
 
@@ -103,6 +161,13 @@ final class RuntimeInputGateContext implements BufferProvider, InputGateContext,
 	}
 
 
+	@Override
+	public LocalBufferPool getLocalBufferPool() {
+
+		return this.localBufferPool;
+	}
+
+
 	@Override
 	public void clearLocalBufferPool() {
 
@@ -116,10 +181,13 @@ final class RuntimeInputGateContext implements BufferProvider, InputGateContext,
 		final int ava = this.localBufferPool.getNumberOfAvailableBuffers();
 		final int req = this.localBufferPool.getRequestedNumberOfBuffers();
 		final int des = this.localBufferPool.getDesignatedNumberOfBuffers();
+		final int wai = this.localBufferPool.getBacklog();
+		final long wti = this.localBufferPool.getTotalWaitTime();
 
 		System.out
 			.println("\t\tInput gate " + this.inputGate.getIndex() + " of " + this.taskName + ": " + ava
-				+ " available, " + req + " requested, " + des + " designated");
+				+ " available, " + req + " requested, " + des + " designated, " + wai + " waiting, " + wti
+				+ " ms waited");
 	}
 
 
@@ -132,7 +200,7 @@ final class RuntimeInputGateContext implements BufferProvider, InputGateContext,
 
 	@Override
 	public InputChannelContext createInputChannelContext(final ChannelID channelID,
-			final InputChannelContext previousContext) {
+			final InputChannelContext previousContext, final int maximumCredit) {
 
 		AbstractInputChannel<? extends IOReadableWritable> channel = null;
 		for (int i = 0; i < this.inputGate.getNumberOfInputChannels(); ++i) {
@@ -153,7 +221,7 @@ final class RuntimeInputGateContext implements BufferProvider, InputGateContext,
 		}
 
 		return new RuntimeInputChannelContext(this, this.transferEnvelopeDispatcher,
-			(AbstractByteBufferedInputChannel<? extends IOReadableWritable>) channel);
+			(AbstractByteBufferedInputChannel<? extends IOReadableWritable>) channel, maximumCredit);
 	}
 
 
@@ -65,9 +65,14 @@ final class RuntimeOutputChannelBroker extends AbstractOutputChannelForwarder im
 	 */
 	private int sequenceNumber = 0;
 
+	/**
+	 * The credit barrier of the forwarding chain, or <code>null</code> if the channel is not flow controlled.
+	 */
+	private final CreditBarrier creditBarrier;
+
 	RuntimeOutputChannelBroker(final RuntimeOutputGateContext outputGateContext,
 			final AbstractByteBufferedOutputChannel<?> byteBufferedOutputChannel,
-			final AbstractOutputChannelForwarder next) {
+			final AbstractOutputChannelForwarder next, final CreditBarrier creditBarrier) {
 
 		super(next);
 
@@ -76,6 +81,7 @@ final class RuntimeOutputChannelBroker extends AbstractOutputChannelForwarder im
 		}
 
 		this.outputGateContext = outputGateContext;
+		this.creditBarrier = creditBarrier;
 		this.byteBufferedOutputChannel = byteBufferedOutputChannel;
 		this.byteBufferedOutputChannel.setByteBufferedOutputChannelBroker(this);
 	}
@@ -180,6 +186,13 @@ final class RuntimeOutputChannelBroker extends AbstractOutputChannelForwarder im
 	}
 
 
+	@Override
+	public boolean canReleaseWriteBufferWithoutBlocking() {
+
+		return this.creditBarrier == null || this.creditBarrier.hasCredit();
+	}
+
+
 	@Override
 	public boolean hasDataLeftToTransmit() throws IOException, InterruptedException {
 
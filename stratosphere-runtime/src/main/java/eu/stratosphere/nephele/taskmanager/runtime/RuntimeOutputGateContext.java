@@ -22,6 +22,7 @@ import eu.stratosphere.nephele.io.OutputGate;
 import eu.stratosphere.nephele.io.channels.AbstractOutputChannel;
 import eu.stratosphere.nephele.io.channels.Buffer;
 import eu.stratosphere.nephele.io.channels.ChannelID;
+import eu.stratosphere.nephele.io.channels.ChannelType;
 import eu.stratosphere.nephele.io.channels.bytebuffered.AbstractByteBufferedOutputChannel;
 import eu.stratosphere.nephele.taskmanager.bufferprovider.BufferAvailabilityListener;
 import eu.stratosphere.nephele.taskmanager.bufferprovider.BufferProvider;
@@ -100,7 +101,7 @@ final class RuntimeOutputGateContext implements BufferProvider, OutputGateContex
 
 	@Override
 	public OutputChannelContext createOutputChannelContext(ChannelID channelID, OutputChannelContext previousContext,
-			boolean isReceiverRunning, boolean mergeSpillBuffers) {
+			boolean isReceiverRunning, boolean mergeSpillBuffers, int maximumCredit) {
 
 		if (previousContext != null) {
 			throw new IllegalStateException("Found previous output context for channel " + channelID);
@@ -138,8 +139,15 @@ final class RuntimeOutputGateContext implements BufferProvider, OutputGateContex
 		 * runtimeDispatcher);
 		 * final ForwardingBarrier forwardingBarrier = new ForwardingBarrier(channelID, spillingBarrier);
 		 */
-		final ForwardingBarrier forwardingBarrier = new ForwardingBarrier(channelID, runtimeDispatcher);
-		outputChannelBroker = new RuntimeOutputChannelBroker(this, outputChannel, forwardingBarrier);
+		// Unicast network channels only forward buffers for which the receiver has granted credit. The first buffer
+		// is sent without credit, the receiver then grants as much credit as it has reserved buffers for the channel.
+		CreditBarrier creditBarrier = null;
+		if (maximumCredit > 0 && outputChannel.getType() == ChannelType.NETWORK && !this.outputGate.isBroadcast()) {
+			creditBarrier = new CreditBarrier(channelID, 1, runtimeDispatcher);
+		}
+		final ForwardingBarrier forwardingBarrier = new ForwardingBarrier(channelID,
+			creditBarrier == null ? runtimeDispatcher : creditBarrier);
+		outputChannelBroker = new RuntimeOutputChannelBroker(this, outputChannel, forwardingBarrier, creditBarrier);
 		last = runtimeDispatcher;
 
 		final OutputChannelForwardingChain forwardingChain = new OutputChannelForwardingChain(outputChannelBroker, last);
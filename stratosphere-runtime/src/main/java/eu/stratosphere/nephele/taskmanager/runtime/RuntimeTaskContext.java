@@ -113,11 +113,13 @@ public final class RuntimeTaskContext implements BufferProvider, TaskContext {
 		final int ava = this.localBufferPool.getNumberOfAvailableBuffers();
 		final int req = this.localBufferPool.getRequestedNumberOfBuffers();
 		final int des = this.localBufferPool.getDesignatedNumberOfBuffers();
+		final int wai = this.localBufferPool.getBacklog();
+		final long wti = this.localBufferPool.getTotalWaitTime();
 
 		final RuntimeEnvironment environment = this.task.getRuntimeEnvironment();
 
 		System.out.println("\t\t" + environment.getTaskNameWithIndex() + ": " + ava + " available, " + req
-			+ " requested, " + des + " designated");
+			+ " requested, " + des + " designated, " + wai + " waiting, " + wti + " ms waited");
 	}
 
 
@@ -197,6 +199,7 @@ public final class RuntimeTaskContext implements BufferProvider, TaskContext {
 		return new RuntimeInputGateContext(re.getTaskNameWithIndex(), this.transferEnvelopeDispatcher, inputGate);
 	}
 
+	@Override
 	public LocalBufferPool getLocalBufferPool() {
 
 		return this.localBufferPool;
@@ -50,6 +50,8 @@ public abstract class AbstractSerializer {
 
 	private boolean eventListExistanceSerialized = false;
 
+	private boolean stopBeforeBufferData = false;
+
 	public final void setTransferEnvelope(TransferEnvelope transferEnvelope) {
 
 		this.transferEnvelope = transferEnvelope;
@@ -99,6 +101,30 @@ public abstract class AbstractSerializer {
 		}
 	}
 
+	/**
+	 * Writes the envelope up to, but excluding, the data of its buffer. This allows the caller to transmit the buffer's
+	 * data directly, for example as part of a gathering write.
+	 * 
+	 * @param writableByteChannel
+	 *        the channel to write the envelope's header to
+	 * @return <code>true</code> if more header data must be written, <code>false</code> if the header has been written
+	 *         completely
+	 * @throws IOException
+	 *         thrown if an I/O error occurs while writing the header
+	 */
+	public final boolean writeHeader(final WritableByteChannel writableByteChannel) throws IOException {
+
+		this.stopBeforeBufferData = true;
+		try {
+			write(writableByteChannel);
+		} finally {
+			this.stopBeforeBufferData = false;
+		}
+
+		return !(this.serializationState == SerializationState.FULLYSERIALIZED
+			|| (this.serializationState == SerializationState.NOTIFICATIONSSERIALIZED && this.bufferExistanceSerialized));
+	}
+
 	private boolean writeSequenceNumber(WritableByteChannel writableByteChannel, int sequenceNumber) throws IOException {
 
 		if (sequenceNumber < 0) {
@@ -233,6 +259,10 @@ public abstract class AbstractSerializer {
 
 			} else {
 
+				if (this.stopBeforeBufferData) {
+					return true;
+				}
+
 				if (!writeBufferData(writableByteChannel, buffer)) {
 					this.serializationState = SerializationState.FULLYSERIALIZED;
 					return false;
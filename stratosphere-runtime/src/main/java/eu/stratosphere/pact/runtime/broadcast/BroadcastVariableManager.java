@@ -0,0 +1,107 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2013 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+
+package eu.stratosphere.pact.runtime.broadcast;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import eu.stratosphere.nephele.jobgraph.JobID;
+
+/**
+ * A task manager wide registry of materialized broadcast variables. The parallel tasks of an operator that run
+ * on the same task manager acquire the variable under the same key. The first task materializes the variable,
+ * all other tasks use its materialization, rather than each holding its own copy on the heap.
+ * <p>
+ * The materializations are reference counted: every task releases the variables it acquired when it is done
+ * with them, and a variable is dropped from the registry when the last task released it.
+ */
+public class BroadcastVariableManager {
+
+	private static final BroadcastVariableManager INSTANCE = new BroadcastVariableManager();
+
+	/** retrieve the singleton instance */
+	public static BroadcastVariableManager instance() {
+		return INSTANCE;
+	}
+
+	// --------------------------------------------------------------------------------------------
+
+	private final Map<String, BroadcastVariableMaterialization<?>> variables =
+			new HashMap<String, BroadcastVariableMaterialization<?>>();
+
+	/**
+	 * Acquires a reference to the materialization of the broadcast variable with the given key. If the variable
+	 * is not registered, a new materialization is created, which the caller must then materialize.
+	 *
+	 * @param key The key of the broadcast variable, as created by {@link #createKey(JobID, String, int)}.
+	 * @return The materialization of the broadcast variable.
+	 */
+	public <T> BroadcastVariableMaterialization<T> acquire(String key) {
+		if (key == null) {
+			throw new NullPointerException();
+		}
+
+		synchronized (this.variables) {
+			@SuppressWarnings("unchecked")
+			BroadcastVariableMaterialization<T> materialization = (BroadcastVariableMaterialization<T>) this.variables.get(key);
+			if (materialization == null) {
+				materialization = new BroadcastVariableMaterialization<T>(key);
+				this.variables.put(key, materialization);
+			}
+			materialization.incrementReferences();
+			return materialization;
+		}
+	}
+
+	/**
+	 * Releases a reference to the given materialization. When no more references exist, the materialization is
+	 * dropped, such that a later acquisition of the same key materializes the variable anew.
+	 *
+	 * @param materialization The materialization to release.
+	 */
+	public void release(BroadcastVariableMaterialization<?> materialization) {
+		synchronized (this.variables) {
+			if (materialization.decrementReferences() == 0) {
+				// only drop the entry if it has not been replaced in the meantime
+				if (this.variables.get(materialization.getKey()) == materialization) {
+					this.variables.remove(materialization.getKey());
+				}
+			}
+		}
+	}
+
+	/**
+	 * Gets the number of broadcast variables that are currently held by the registry.
+	 *
+	 * @return The number of registered broadcast variables.
+	 */
+	public int getNumberOfVariables() {
+		synchronized (this.variables) {
+			return this.variables.size();
+		}
+	}
+
+	/**
+	 * Creates the key of a broadcast variable.
+	 *
+	 * @param jobId The ID of the job.
+	 * @param sharingId The identifier of the variable within the job, typically the consuming vertex and the variable's name.
+	 * @param superstep The superstep in which the variable is read, or <code>0</code>, outside of iterations.
+	 * @return The key of the broadcast variable.
+	 */
+	public static String createKey(JobID jobId, String sharingId, int superstep) {
+		return jobId + "#" + sharingId + "#" + superstep;
+	}
+}
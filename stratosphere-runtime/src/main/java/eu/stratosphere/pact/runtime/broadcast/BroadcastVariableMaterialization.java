@@ -0,0 +1,129 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2013 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+
+package eu.stratosphere.pact.runtime.broadcast;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The materialization of a broadcast variable that is shared by several tasks. Exactly one of the tasks claims the
+ * materialization and publishes the variable's elements, or a failure. The other tasks wait until either one is
+ * available.
+ * <p>
+ * The published list is unmodifiable, and because the elements are shared among tasks, they must be treated as
+ * read-only.
+ *
+ * @param <T> The type of the broadcast variable's elements.
+ */
+public class BroadcastVariableMaterialization<T> {
+
+	private final String key;
+
+	private int references;			// guarded by the manager
+
+	private boolean claimed;
+
+	private List<T> data;
+
+	private Throwable failure;
+
+	BroadcastVariableMaterialization(String key) {
+		this.key = key;
+	}
+
+	// --------------------------------------------------------------------------------------------
+
+	public String getKey() {
+		return this.key;
+	}
+
+	/**
+	 * Claims the materialization for the calling task. Only the first call succeeds, and the task that
+	 * succeeded must then either publish the data or a failure.
+	 *
+	 * @return True, if the caller must materialize the variable, false if another task does so.
+	 */
+	public synchronized boolean claim() {
+		if (this.claimed) {
+			return false;
+		} else {
+			this.claimed = true;
+			return true;
+		}
+	}
+
+	/**
+	 * Publishes the elements of the broadcast variable and wakes up all waiting tasks.
+	 *
+	 * @param data The elements of the broadcast variable.
+	 */
+	public synchronized void publish(List<T> data) {
+		if (data == null) {
+			throw new NullPointerException();
+		}
+		this.data = Collections.unmodifiableList(data);
+		notifyAll();
+	}
+
+	/**
+	 * Publishes a failure that occurred while materializing the variable and wakes up all waiting tasks.
+	 *
+	 * @param cause The cause of the failure.
+	 */
+	public synchronized void fail(Throwable cause) {
+		this.failure = cause;
+		notifyAll();
+	}
+
+	/**
+	 * Gets the elements of the broadcast variable, waiting for the materializing task to publish them if necessary.
+	 *
+	 * @return The elements of the broadcast variable.
+	 * @throws IOException Thrown, if the materializing task failed, or if the caller was interrupted while waiting.
+	 */
+	public synchronized List<T> getData() throws IOException {
+		while (this.data == null && this.failure == null) {
+			try {
+				wait();
+			} catch (InterruptedException iex) {
+				throw new IOException("Interrupted while waiting for the broadcast variable to be materialized.");
+			}
+		}
+
+		if (this.failure != null) {
+			throw new IOException("Materializing the broadcast variable failed in another task: " +
+				this.failure.getMessage(), this.failure);
+		}
+		return this.data;
+	}
+
+	// --------------------------------------------------------------------------------------------
+
+	void incrementReferences() {
+		this.references++;
+	}
+
+	int decrementReferences() {
+		if (this.references <= 0) {
+			throw new IllegalStateException("The broadcast variable has been released more often than it was acquired.");
+		}
+		return --this.references;
+	}
+
+	int getNumberOfReferences() {
+		return this.references;
+	}
+}
@@ -52,6 +52,8 @@ public class BuildFirstHashMatchIterator<V1, V2, O> implements JoinTaskIterator<
 	
 	private final MutableObjectIterator<V2> secondInput;
 	
+	private final boolean useBloomFilters;
+	
 	private volatile boolean running = true;
 	
 	// --------------------------------------------------------------------------------------------
@@ -62,7 +64,20 @@ public class BuildFirstHashMatchIterator<V1, V2, O> implements JoinTaskIterator<
 			TypePairComparator<V2, V1> pairComparator,
 			MemoryManager memManager, IOManager ioManager, AbstractInvokable ownerTask, long totalMemory)
 	throws MemoryAllocationException
+	{
+		this(firstInput, secondInput, serializer1, comparator1, serializer2, comparator2, pairComparator,
+			memManager, ioManager, ownerTask, totalMemory, false);
+	}
+	
+	public BuildFirstHashMatchIterator(MutableObjectIterator<V1> firstInput, MutableObjectIterator<V2> secondInput,
+			TypeSerializer<V1> serializer1, TypeComparator<V1> comparator1,
+			TypeSerializer<V2> serializer2, TypeComparator<V2> comparator2,
+			TypePairComparator<V2, V1> pairComparator,
+			MemoryManager memManager, IOManager ioManager, AbstractInvokable ownerTask, long totalMemory,
+			boolean useBloomFilters)
+	throws MemoryAllocationException
 	{		
+		this.useBloomFilters = useBloomFilters;
 		this.memManager = memManager;
 		this.firstInput = firstInput;
 		this.secondInput = secondInput;
@@ -157,6 +172,6 @@ public class BuildFirstHashMatchIterator<V1, V2, O> implements JoinTaskIterator<
 	{
 		final int numPages = memManager.computeNumberOfPages(totalMemory);
 		final List<MemorySegment> memorySegments = memManager.allocatePages(ownerTask, numPages);
-		return new MutableHashTable<BT, PT>(buildSideSerializer, probeSideSerializer, buildSideComparator, probeSideComparator, pairComparator, memorySegments, ioManager);
+		return new MutableHashTable<BT, PT>(buildSideSerializer, probeSideSerializer, buildSideComparator, probeSideComparator, pairComparator, memorySegments, ioManager, this.useBloomFilters);
 	}
 }
@@ -52,6 +52,8 @@ public final class BuildSecondHashMatchIterator<V1, V2, O> implements JoinTaskIt
 	
 	private final MutableObjectIterator<V2> secondInput;
 	
+	private final boolean useBloomFilters;
+	
 	private volatile boolean running = true;
 	
 	// --------------------------------------------------------------------------------------------
@@ -62,7 +64,20 @@ public final class BuildSecondHashMatchIterator<V1, V2, O> implements JoinTaskIt
 			TypePairComparator<V1, V2> pairComparator,
 			MemoryManager memManager, IOManager ioManager, AbstractInvokable ownerTask, long totalMemory)
 	throws MemoryAllocationException
+	{
+		this(firstInput, secondInput, serializer1, comparator1, serializer2, comparator2, pairComparator,
+			memManager, ioManager, ownerTask, totalMemory, false);
+	}
+	
+	public BuildSecondHashMatchIterator(MutableObjectIterator<V1> firstInput, MutableObjectIterator<V2> secondInput,
+			TypeSerializer<V1> serializer1, TypeComparator<V1> comparator1,
+			TypeSerializer<V2> serializer2, TypeComparator<V2> comparator2,
+			TypePairComparator<V1, V2> pairComparator,
+			MemoryManager memManager, IOManager ioManager, AbstractInvokable ownerTask, long totalMemory,
+			boolean useBloomFilters)
+	throws MemoryAllocationException
 	{		
+		this.useBloomFilters = useBloomFilters;
 		this.memManager = memManager;
 		this.firstInput = firstInput;
 		this.secondInput = secondInput;
@@ -154,7 +169,7 @@ public final class BuildSecondHashMatchIterator<V1, V2, O> implements JoinTaskIt
 	{
 		final int numPages = memManager.computeNumberOfPages(totalMemory);
 		final List<MemorySegment> memorySegments = memManager.allocatePages(ownerTask, numPages);
-		return new MutableHashTable<BT, PT>(buildSideSerializer, probeSideSerializer, buildSideComparator, probeSideComparator, pairComparator, memorySegments, ioManager);
+		return new MutableHashTable<BT, PT>(buildSideSerializer, probeSideSerializer, buildSideComparator, probeSideComparator, pairComparator, memorySegments, ioManager, this.useBloomFilters);
 	}
 	
 }
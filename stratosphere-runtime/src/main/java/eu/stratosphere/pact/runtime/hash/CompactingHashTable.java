@@ -27,6 +27,12 @@ import eu.stratosphere.api.common.typeutils.TypeComparator;
 import eu.stratosphere.api.common.typeutils.TypePairComparator;
 import eu.stratosphere.api.common.typeutils.TypeSerializer;
 import eu.stratosphere.core.memory.MemorySegment;
+import eu.stratosphere.nephele.services.iomanager.BlockChannelReader;
+import eu.stratosphere.nephele.services.iomanager.BlockChannelWriter;
+import eu.stratosphere.nephele.services.iomanager.Channel;
+import eu.stratosphere.nephele.services.iomanager.ChannelReaderInputView;
+import eu.stratosphere.nephele.services.iomanager.ChannelWriterOutputView;
+import eu.stratosphere.nephele.services.iomanager.IOManager;
 import eu.stratosphere.nephele.services.memorymanager.ListMemorySegmentSource;
 import eu.stratosphere.pact.runtime.util.MathUtils;
 import eu.stratosphere.util.MutableObjectIterator;
@@ -38,7 +44,12 @@ import eu.stratosphere.util.MutableObjectIterator;
  * The design of this class follows on many parts the design presented in
  * "Hash joins and hash teams in Microsoft SQL Server", by Goetz Graefe et al..
  *<p>
- *
+ * If the table is created with an {@link IOManager}, it spills partitions to disk when it runs out of memory,
+ * rather than failing. The partition that was accessed least recently is written to a block channel and its
+ * memory is released. When a record of a spilled partition is accessed again (inserted, replaced or probed),
+ * the partition is read back into memory, spilling other partitions if necessary. Since partitions are swapped
+ * as a whole, this is meant to let workloads that slightly exceed the memory degrade gracefully, not to make
+ * them efficient.
  *
  * <hr>
  * 
@@ -88,6 +99,11 @@ public class CompactingHashTable<T> extends AbstractMutableHashTable<T>{
 	 */
 	private static final int MAX_NUM_PARTITIONS = 32;
 	
+	/**
+	 * The number of buffers reserved for writing spilled partitions, and the number reserved for reading them back.
+	 */
+	private static final int NUM_SPILL_IO_BUFFERS = 2;
+	
 	/**
 	 * The default record width that is used when no width is given. The record width is
 	 * used to determine the ratio of the number of memory segments intended for partition
@@ -214,6 +230,53 @@ public class CompactingHashTable<T> extends AbstractMutableHashTable<T>{
 	private boolean running = true;
 		
 	private int pageSizeInBits;
+	
+	// ------------------------------------------------------------------------
+	
+	/**
+	 * The I/O manager used to spill partitions, or null, if the table keeps all partitions in memory.
+	 */
+	private final IOManager ioManager;
+	
+	/**
+	 * The buffers reserved for writing partitions to disk.
+	 */
+	private final ArrayList<MemorySegment> spillWriteBuffers;
+	
+	/**
+	 * The buffers reserved for reading spilled partitions back.
+	 */
+	private final ArrayList<MemorySegment> spillReadBuffers;
+	
+	/**
+	 * The view through which an entry iterator currently reads a spilled partition on the spill read buffers,
+	 * or null, if no such view is open.
+	 */
+	private ChannelReaderInputView openIteratorView;
+	
+	/**
+	 * The channel enumerator that is used while spilling partitions.
+	 */
+	private Channel.Enumerator currentEnumerator;
+	
+	/**
+	 * The spilled partitions, indexed by partition number. The entries of resident partitions are null.
+	 * The array itself is null, if the table does not spill.
+	 */
+	private SpilledPartition[] spilledPartitions;
+	
+	/**
+	 * The logical time of the last access to each partition, used to pick the partition to spill.
+	 */
+	private long[] partitionAccessTimes;
+	
+	private long accessCounter;
+	
+	/**
+	 * The number of times a partition was spilled. Probers use it to detect that the bucket entry
+	 * of their last match may have been invalidated.
+	 */
+	private int numSpills;
 
 	// ------------------------------------------------------------------------
 	//                         Construction and Teardown
@@ -225,6 +288,24 @@ public class CompactingHashTable<T> extends AbstractMutableHashTable<T>{
 	}
 	
 	public CompactingHashTable(TypeSerializer<T> buildSideSerializer, TypeComparator<T> buildSideComparator, List<MemorySegment> memorySegments, int avgRecordLen)
+	{
+		this(buildSideSerializer, buildSideComparator, memorySegments, avgRecordLen, null);
+	}
+	
+	/**
+	 * Creates a hash table that spills partitions through the given I/O manager, when it runs out of memory.
+	 * 
+	 * @param buildSideSerializer The serializer for the records in the table.
+	 * @param buildSideComparator The comparator for the records in the table.
+	 * @param memorySegments The memory for the table.
+	 * @param ioManager The I/O manager used to spill partitions, or null, to fail when the memory runs out.
+	 */
+	public CompactingHashTable(TypeSerializer<T> buildSideSerializer, TypeComparator<T> buildSideComparator, List<MemorySegment> memorySegments, IOManager ioManager)
+	{
+		this(buildSideSerializer, buildSideComparator, memorySegments, DEFAULT_RECORD_LEN, ioManager);
+	}
+	
+	public CompactingHashTable(TypeSerializer<T> buildSideSerializer, TypeComparator<T> buildSideComparator, List<MemorySegment> memorySegments, int avgRecordLen, IOManager ioManager)
 	{
 		super(buildSideSerializer, buildSideComparator);
 		// some sanity checks first
@@ -258,6 +339,10 @@ public class CompactingHashTable<T> extends AbstractMutableHashTable<T>{
 		
 		this.partitions = new ArrayList<InMemoryPartition<T>>();
 		
+		this.ioManager = ioManager;
+		this.spillWriteBuffers = new ArrayList<MemorySegment>(NUM_SPILL_IO_BUFFERS);
+		this.spillReadBuffers = new ArrayList<MemorySegment>(NUM_SPILL_IO_BUFFERS);
+		
 		// because we allow to open and close multiple times, the state is initially closed
 		this.closed.set(true);
 		// so far no partition has any MemorySegments
@@ -279,6 +364,15 @@ public class CompactingHashTable<T> extends AbstractMutableHashTable<T>{
 			throw new IllegalStateException("Hash Table cannot be opened, because it is currently not closed.");
 		}
 		
+		// reserve the buffers for spilling
+		if (this.ioManager != null) {
+			for (int i = 0; i < NUM_SPILL_IO_BUFFERS; i++) {
+				this.spillWriteBuffers.add(this.availableMemory.remove(this.availableMemory.size() - 1));
+				this.spillReadBuffers.add(this.availableMemory.remove(this.availableMemory.size() - 1));
+			}
+			this.currentEnumerator = this.ioManager.createChannelEnumerator();
+		}
+		
 		// create the partitions
 		final int partitionFanOut = getPartitioningFanOutNoEstimates(this.availableMemory.size()); 
 		createPartitions(partitionFanOut);
@@ -288,6 +382,12 @@ public class CompactingHashTable<T> extends AbstractMutableHashTable<T>{
 			partitionFanOut, this.avgRecordLen);
 		
 		initTable(numBuckets, (byte) partitionFanOut);
+		
+		if (this.ioManager != null) {
+			this.spilledPartitions = new SpilledPartition[partitionFanOut];
+			this.partitionAccessTimes = new long[partitionFanOut];
+			this.accessCounter = 0;
+		}
 	}
 
 	
@@ -310,6 +410,9 @@ public class CompactingHashTable<T> extends AbstractMutableHashTable<T>{
 		
 		// clear the memory in the partitions
 		clearPartitions();
+		
+		// remove the spilled partitions and return the spilling buffers
+		releaseSpilledPartitions();
 	}
 	
 	public void abort() {
@@ -347,53 +450,11 @@ public class CompactingHashTable<T> extends AbstractMutableHashTable<T>{
 		
 		// get the basic characteristics of the bucket
 		final int partitionNumber = bucket.get(bucketInSegmentPos + HEADER_PARTITION_OFFSET);
-		final InMemoryPartition<T> p = this.partitions.get(partitionNumber);
+		ensurePartitionInMemory(partitionNumber);
 		
-		
-		long pointer;
-		try {
-			pointer = p.appendRecord(record);
-			if((pointer >> this.pageSizeInBits) > this.compactionMemory.getBlockCount()) {
-				this.compactionMemory.allocateSegments((int)(pointer >> this.pageSizeInBits));
-			}
-		} catch (EOFException e) {
-			try {
-				compactPartition(partitionNumber);
-				// retry append
-				pointer = this.partitions.get(partitionNumber).appendRecord(record);
-			} catch (EOFException ex) {
-				throw new RuntimeException("Memory ran out. Compaction failed. numPartitions: " + this.partitions.size() + 
-						" minPartition: " + getMinPartition() +
-						" maxPartition: " + getMaxPartition() +
-						" bucketSize: " + this.buckets.length +
-						" Message: " + ex.getMessage());
-			} catch (IndexOutOfBoundsException ex) {
-				throw new RuntimeException("Memory ran out. Compaction failed. numPartitions: " + this.partitions.size() + 
-						" minPartition: " + getMinPartition() +
-						" maxPartition: " + getMaxPartition() +
-						" bucketSize: " + this.buckets.length +
-						" Message: " + ex.getMessage());
-			}
-		} catch (IndexOutOfBoundsException e1) {
-			try {
-				compactPartition(partitionNumber);
-				// retry append
-				pointer = this.partitions.get(partitionNumber).appendRecord(record);
-			} catch (EOFException ex) {
-				throw new RuntimeException("Memory ran out. Compaction failed. numPartitions: " + this.partitions.size() + 
-						" minPartition: " + getMinPartition() +
-						" maxPartition: " + getMaxPartition() +
-						" bucketSize: " + this.buckets.length +
-						" Message: " + ex.getMessage());
-			} catch (IndexOutOfBoundsException ex) {
-				throw new RuntimeException("Memory ran out. Compaction failed. numPartitions: " + this.partitions.size() + 
-						" minPartition: " + getMinPartition() +
-						" maxPartition: " + getMaxPartition() +
-						" bucketSize: " + this.buckets.length +
-						" Message: " + ex.getMessage());
-			}
-		}
-		insertBucketEntryFromStart(p, bucket, bucketInSegmentPos, hashCode, pointer);
+		final long pointer = appendRecordToPartition(partitionNumber, record);
+		// the append may have compacted the partition, which replaces the partition object
+		insertBucketEntryFromStart(this.partitions.get(partitionNumber), bucket, bucketInSegmentPos, hashCode, pointer);
 	}
 	
 	
@@ -431,6 +492,7 @@ public class CompactingHashTable<T> extends AbstractMutableHashTable<T>{
 		
 		// get the basic characteristics of the bucket
 		final int partitionNumber = bucket.get(bucketInSegmentOffset + HEADER_PARTITION_OFFSET);
+		ensurePartitionInMemory(partitionNumber);
 		final InMemoryPartition<T> partition = this.partitions.get(partitionNumber);
 		final MemorySegment[] overflowSegments = partition.overflowSegments;
 		
@@ -440,8 +502,6 @@ public class CompactingHashTable<T> extends AbstractMutableHashTable<T>{
 		int numInSegment = 0;
 		int posInSegment = bucketInSegmentOffset + BUCKET_HEADER_LENGTH;
 		
-		long currentForwardPointer = BUCKET_FORWARD_POINTER_NOT_SET;
-
 		// loop over all segments that are involved in the bucket (original bucket plus overflow buckets)
 		while (true) {
 			
@@ -460,62 +520,16 @@ public class CompactingHashTable<T> extends AbstractMutableHashTable<T>{
 					// deserialize the key to check whether it is really equal, or whether we had only a hash collision
 					try {
 						partition.readRecordAt(pointer, tempHolder);
-						if (this.buildSideComparator.equalToReference(tempHolder)) {
-							long newPointer = partition.appendRecord(record);
-							bucket.putLong(pointerOffset, newPointer);
-							partition.setCompaction(false);
-							if((newPointer >> this.pageSizeInBits) > this.compactionMemory.getBlockCount()) {
-								this.compactionMemory.allocateSegments((int)(newPointer >> this.pageSizeInBits));
-							}
-							return;
-						}
-					} catch (EOFException e) {
-						// system is out of memory so we attempt to reclaim memory with a copy compact run
-						long newPointer;
-						try {
-							compactPartition(partition.getPartitionNumber());
-							// retry append
-							newPointer = this.partitions.get(partitionNumber).appendRecord(record);
-						} catch (EOFException ex) {
-							throw new RuntimeException("Memory ran out. Compaction failed. numPartitions: " + this.partitions.size() + 
-									" minPartition: " + getMinPartition() +
-									" maxPartition: " + getMaxPartition() +
-									" bucketSize: " + this.buckets.length +
-									" Message: " + ex.getMessage());
-						} catch (IndexOutOfBoundsException ex) {
-							throw new RuntimeException("Memory ran out. Compaction failed. numPartitions: " + this.partitions.size() + 
-									" minPartition: " + getMinPartition() +
-									" maxPartition: " + getMaxPartition() +
-									" bucketSize: " + this.buckets.length +
-									" Message: " + ex.getMessage());
-						}
-						bucket.putLong(pointerOffset, newPointer);
-						return;
-					} catch (IndexOutOfBoundsException e) {
-						// system is out of memory so we attempt to reclaim memory with a copy compact run
-						long newPointer;
-						try {
-							compactPartition(partition.getPartitionNumber());
-							// retry append
-							newPointer = this.partitions.get(partitionNumber).appendRecord(record);
-						} catch (EOFException ex) {
-							throw new RuntimeException("Memory ran out. Compaction failed. numPartitions: " + this.partitions.size() + 
-									" minPartition: " + getMinPartition() +
-									" maxPartition: " + getMaxPartition() +
-									" bucketSize: " + this.buckets.length +
-									" Message: " + ex.getMessage());
-						} catch (IndexOutOfBoundsException ex) {
-							throw new RuntimeException("Memory ran out. Compaction failed. numPartitions: " + this.partitions.size() + 
-									" minPartition: " + getMinPartition() +
-									" maxPartition: " + getMaxPartition() +
-									" bucketSize: " + this.buckets.length +
-									" Message: " + ex.getMessage());
-						}
-						bucket.putLong(pointerOffset, newPointer);
-						return;
 					} catch (IOException e) {
 						throw new RuntimeException("Error deserializing record from the hashtable: " + e.getMessage(), e);
-					} 
+					}
+					if (this.buildSideComparator.equalToReference(tempHolder)) {
+						// the append may compact the partition. that rewrites the pointers, but leaves the bucket entries in place
+						final long newPointer = appendRecordToPartition(partitionNumber, record);
+						bucket.putLong(pointerOffset, newPointer);
+						this.partitions.get(partitionNumber).setCompaction(false);
+						return;
+					}
 				}
 				else {
 					numInSegment++;
@@ -526,11 +540,8 @@ public class CompactingHashTable<T> extends AbstractMutableHashTable<T>{
 			long newForwardPointer = bucket.getLong(bucketInSegmentOffset + HEADER_FORWARD_OFFSET);
 			if (newForwardPointer == BUCKET_FORWARD_POINTER_NOT_SET) {
 				// nothing found. append and insert
-				long pointer = partition.appendRecord(record);
-				insertBucketEntryFromSearch(partition, originalBucket, bucket, originalBucketOffset, bucketInSegmentOffset, countInSegment, currentForwardPointer, searchHashCode, pointer);
-				if((pointer >> this.pageSizeInBits) > this.compactionMemory.getBlockCount()) {
-					this.compactionMemory.allocateSegments((int)(pointer >> this.pageSizeInBits));
-				}
+				final long pointer = appendRecordToPartition(partitionNumber, record);
+				insertBucketEntryFromSearch(this.partitions.get(partitionNumber), originalBucket, bucket, originalBucketOffset, bucketInSegmentOffset, countInSegment, searchHashCode, pointer);
 				return;
 			}
 			
@@ -540,9 +551,67 @@ public class CompactingHashTable<T> extends AbstractMutableHashTable<T>{
 			countInSegment = bucket.getInt(bucketInSegmentOffset + HEADER_COUNT_OFFSET);
 			posInSegment = bucketInSegmentOffset + BUCKET_HEADER_LENGTH;
 			numInSegment = 0;
-			currentForwardPointer = newForwardPointer;
 		}
 	}
+	
+	/**
+	 * Appends the record to the given partition. If the memory runs out, the partition is compacted first.
+	 * If that does not reclaim enough memory, other partitions are spilled, if the table may spill.
+	 * 
+	 * @param partitionNumber The number of the partition, which must be in memory.
+	 * @param record The record to append.
+	 * @return The pointer to the appended record.
+	 * @throws IOException Thrown, if spilling a partition failed.
+	 */
+	private long appendRecordToPartition(int partitionNumber, T record) throws IOException {
+		long pointer;
+		try {
+			pointer = this.partitions.get(partitionNumber).appendRecord(record);
+		} catch (EOFException e) {
+			pointer = reclaimMemoryAndAppend(partitionNumber, record);
+		} catch (IndexOutOfBoundsException e) {
+			pointer = reclaimMemoryAndAppend(partitionNumber, record);
+		}
+		
+		if ((pointer >> this.pageSizeInBits) > this.compactionMemory.getBlockCount()) {
+			this.compactionMemory.allocateSegments((int) (pointer >> this.pageSizeInBits));
+		}
+		return pointer;
+	}
+	
+	private long reclaimMemoryAndAppend(int partitionNumber, T record) throws IOException {
+		// system is out of memory so we attempt to reclaim memory with a copy compact run
+		try {
+			compactPartition(partitionNumber);
+		} catch (EOFException ex) {
+			throw memoryRanOut(ex);
+		} catch (IndexOutOfBoundsException ex) {
+			throw memoryRanOut(ex);
+		}
+		
+		// retry append, making room by spilling other partitions as long as possible
+		while (true) {
+			try {
+				return this.partitions.get(partitionNumber).appendRecord(record);
+			} catch (EOFException ex) {
+				if (!spillPartition(partitionNumber)) {
+					throw memoryRanOut(ex);
+				}
+			} catch (IndexOutOfBoundsException ex) {
+				if (!spillPartition(partitionNumber)) {
+					throw memoryRanOut(ex);
+				}
+			}
+		}
+	}
+	
+	private RuntimeException memoryRanOut(Exception cause) {
+		return new RuntimeException("Memory ran out. Compaction failed. numPartitions: " + this.partitions.size() + 
+				" minPartition: " + getMinPartition() +
+				" maxPartition: " + getMaxPartition() +
+				" bucketSize: " + this.buckets.length +
+				" Message: " + cause.getMessage());
+	}
 
 	private final void insertBucketEntryFromStart(InMemoryPartition<T> p, MemorySegment bucket, 
 			int bucketInSegmentPos, int hashCode, long pointer)
@@ -597,7 +666,7 @@ public class CompactingHashTable<T> extends AbstractMutableHashTable<T>{
 			// first, see if there is space for an overflow bucket remaining in the last overflow segment
 			if (p.nextOverflowBucket == 0) {
 				// no space left in last bucket, or no bucket yet, so create an overflow segment
-				overflowSeg = getNextBuffer();
+				overflowSeg = getNextBuffer(p.getPartitionNumber());
 				overflowBucketOffset = 0;
 				overflowBucketNum = p.numOverflowSegments;
 				
@@ -637,7 +706,9 @@ public class CompactingHashTable<T> extends AbstractMutableHashTable<T>{
 		}
 	}
 	
-	private final void insertBucketEntryFromSearch(InMemoryPartition<T> partition, MemorySegment originalBucket, MemorySegment currentBucket, int originalBucketOffset, int currentBucketOffset, int countInCurrentBucket, long currentForwardPointer, int hashCode, long pointer) {
+	private final void insertBucketEntryFromSearch(InMemoryPartition<T> partition, MemorySegment originalBucket, MemorySegment currentBucket, int originalBucketOffset, int currentBucketOffset, int countInCurrentBucket, int hashCode, long pointer)
+	throws IOException
+	{
 		if (countInCurrentBucket < NUM_ENTRIES_PER_BUCKET) {
 			// we are good in our current bucket, put the values
 			currentBucket.putInt(currentBucketOffset + BUCKET_HEADER_LENGTH + (countInCurrentBucket * HASH_CODE_LEN), hashCode);	// hash code
@@ -653,7 +724,7 @@ public class CompactingHashTable<T> extends AbstractMutableHashTable<T>{
 			// first, see if there is space for an overflow bucket remaining in the last overflow segment
 			if (partition.nextOverflowBucket == 0) {
 				// no space left in last bucket, or no bucket yet, so create an overflow segment
-				overflowSeg = getNextBuffer();
+				overflowSeg = getNextBuffer(partition.getPartitionNumber());
 				overflowBucketOffset = 0;
 				overflowBucketNum = partition.numOverflowSegments;
 				
@@ -677,10 +748,10 @@ public class CompactingHashTable<T> extends AbstractMutableHashTable<T>{
 			// of a new segment
 			partition.nextOverflowBucket = (partition.nextOverflowBucket == this.bucketsPerSegmentMask ? 0 : partition.nextOverflowBucket + 1);
 			
-			// insert the new overflow bucket in the chain of buckets
-			// 1) set the old forward pointer
+			// insert the new overflow bucket at the head of the chain of buckets
+			// 1) set the old forward pointer of the bucket in the main table
 			// 2) let the bucket in the main table point to this one
-			overflowSeg.putLong(overflowBucketOffset + HEADER_FORWARD_OFFSET, currentForwardPointer);
+			overflowSeg.putLong(overflowBucketOffset + HEADER_FORWARD_OFFSET, originalBucket.getLong(originalBucketOffset + HEADER_FORWARD_OFFSET));
 			final long pointerToNewBucket = (((long) overflowBucketNum) << 32) | ((long) overflowBucketOffset);
 			originalBucket.putLong(originalBucketOffset + HEADER_FORWARD_OFFSET, pointerToNewBucket);
 			
@@ -770,6 +841,22 @@ public class CompactingHashTable<T> extends AbstractMutableHashTable<T>{
 			//throw new RuntimeException("The hash table ran out of memory.");
 		}
 	}
+	
+	/**
+	 * Gets a buffer for the structures of the given partition, spilling other partitions if no memory is left.
+	 * 
+	 * @param partitionNumber The number of the partition that requests the buffer.
+	 * @return The buffer.
+	 * @throws IOException Thrown, if spilling a partition failed.
+	 */
+	private final MemorySegment getNextBuffer(int partitionNumber) throws IOException {
+		while (this.availableMemory.isEmpty()) {
+			if (!spillPartition(partitionNumber)) {
+				break;
+			}
+		}
+		return getNextBuffer();
+	}
 
 	// --------------------------------------------------------------------------------------------
 	//                             Utility Computational Functions
@@ -857,60 +944,32 @@ public class CompactingHashTable<T> extends AbstractMutableHashTable<T>{
 		if(this.partitions.get(partitionNumber).isCompacted()) {
 			return;
 		}
-		// release all segments owned by compaction partition
-		this.compactionMemory.clearAllMemory(availableMemory);
+		// reuse the segments owned by compaction partition, overwriting its records
 		this.compactionMemory.allocateSegments(1);
+		this.compactionMemory.discardRecords();
 		T tempHolder = this.buildSideSerializer.createInstance();
 		InMemoryPartition<T> partition = this.partitions.remove(partitionNumber);
 		final int numPartitions = this.partitions.size() + 1; // dropped one earlier
-		long pointer = 0L;
-		int pointerOffset = 0;
-		int bucketOffset = 0;
-		final int bucketsPerSegment = this.bucketsPerSegmentMask + 1;
-		for (int i = 0, bucket = partitionNumber; i < this.buckets.length && bucket < this.numBuckets; i++) {
-			MemorySegment segment = this.buckets[i];
-			// go over all buckets in the segment belonging to the partition
-			for (int k = bucket % bucketsPerSegment; k < bucketsPerSegment && bucket < this.numBuckets; k += numPartitions, bucket += numPartitions) {
-				bucketOffset = k * HASH_BUCKET_SIZE;
-				if((int)segment.get(bucketOffset + HEADER_PARTITION_OFFSET) != partitionNumber) {
-					throw new IOException("Accessed wrong bucket! ");
-				}
+		// go over all buckets of the partition, including their overflow buckets
+		for (int bucketNum = partitionNumber; bucketNum < this.numBuckets; bucketNum += numPartitions) {
+			MemorySegment segment = this.buckets[bucketNum >>> this.bucketsPerSegmentBits];
+			int bucketOffset = (bucketNum & this.bucketsPerSegmentMask) << NUM_INTRA_BUCKET_BITS;
+			if((int)segment.get(bucketOffset + HEADER_PARTITION_OFFSET) != partitionNumber) {
+				throw new IOException("Accessed wrong bucket! ");
+			}
+			while (true) {
 				int count = segment.getInt(bucketOffset + HEADER_COUNT_OFFSET);
-				for (int j = 0; j < NUM_ENTRIES_PER_BUCKET && j < count; j++) {
-					pointerOffset = bucketOffset + BUCKET_POINTER_START_OFFSET + (j * POINTER_LEN);
-					pointer = segment.getLong(pointerOffset);
-					partition.readRecordAt(pointer, tempHolder);
-					pointer = this.compactionMemory.appendRecord(tempHolder);
-					segment.putLong(pointerOffset, pointer);
+				for (int j = 0; j < count; j++) {
+					int pointerOffset = bucketOffset + BUCKET_POINTER_START_OFFSET + (j * POINTER_LEN);
+					partition.readRecordAt(segment.getLong(pointerOffset), tempHolder);
+					segment.putLong(pointerOffset, this.compactionMemory.appendRecord(tempHolder));
 				}
 				long overflowPointer = segment.getLong(bucketOffset + HEADER_FORWARD_OFFSET);
-				if(overflowPointer != BUCKET_FORWARD_POINTER_NOT_SET) {
-					// scan overflow buckets
-					int current = NUM_ENTRIES_PER_BUCKET;
-					bucketOffset = (int) (overflowPointer & 0xffffffff);
-					pointerOffset = ((int) (overflowPointer & 0xffffffff)) + BUCKET_POINTER_START_OFFSET;
-					int overflowSegNum = (int) (overflowPointer >>> 32);
-					count += partition.overflowSegments[overflowSegNum].getInt(bucketOffset + HEADER_COUNT_OFFSET);
-					while(current < count) {
-						pointer = partition.overflowSegments[overflowSegNum].getLong(pointerOffset);
-						partition.readRecordAt(pointer, tempHolder);
-						pointer = this.compactionMemory.appendRecord(tempHolder);
-						partition.overflowSegments[overflowSegNum].putLong(pointerOffset, pointer);
-						current++;
-						if(current % NUM_ENTRIES_PER_BUCKET == 0) {
-							count += partition.overflowSegments[overflowSegNum].getInt(bucketOffset + HEADER_COUNT_OFFSET);
-							overflowPointer = partition.overflowSegments[overflowSegNum].getLong(bucketOffset + HEADER_FORWARD_OFFSET);
-							if(overflowPointer == BUCKET_FORWARD_POINTER_NOT_SET) {
-								break;
-							}
-							overflowSegNum = (int) (overflowPointer >>> 32);
-							bucketOffset = (int) (overflowPointer & 0xffffffff);
-							pointerOffset = ((int) (overflowPointer & 0xffffffff)) + BUCKET_POINTER_START_OFFSET;
-						} else {
-							pointerOffset += POINTER_LEN;
-						}
-					}
+				if(overflowPointer == BUCKET_FORWARD_POINTER_NOT_SET) {
+					break;
 				}
+				segment = partition.overflowSegments[(int) (overflowPointer >>> 32)];
+				bucketOffset = (int) (overflowPointer & 0xffffffff);
 			}
 		}
 		// swap partition with compaction partition
@@ -923,6 +982,10 @@ public class CompactingHashTable<T> extends AbstractMutableHashTable<T>{
 		this.partitions.get(partitionNumber).setCompaction(true);
 		this.compactionMemory.resetRecordCounter();
 		this.compactionMemory.setPartitionNumber(-1);
+		// the overflow buckets now belong to the compacted partition only
+		this.compactionMemory.overflowSegments = new MemorySegment[2];
+		this.compactionMemory.numOverflowSegments = 0;
+		this.compactionMemory.nextOverflowBucket = 0;
 		// try to allocate maximum segment count
 		int maxSegmentNumber = 0;
 		for (InMemoryPartition<T> e : this.partitions) {
@@ -936,6 +999,188 @@ public class CompactingHashTable<T> extends AbstractMutableHashTable<T>{
 		}
 	}
 	
+	// --------------------------------------------------------------------------------------------
+	//                             Spilling and Restoring of Partitions
+	// --------------------------------------------------------------------------------------------
+	
+	/**
+	 * Marks the given partition as accessed and reads it back into memory, if it has been spilled.
+	 * 
+	 * @param partitionNumber The number of the partition.
+	 * @throws IOException Thrown, if the partition could not be read back.
+	 */
+	private void ensurePartitionInMemory(int partitionNumber) throws IOException {
+		if (this.spilledPartitions != null) {
+			this.partitionAccessTimes[partitionNumber] = ++this.accessCounter;
+			if (this.spilledPartitions[partitionNumber] != null) {
+				restorePartition(partitionNumber);
+			}
+		}
+	}
+	
+	/**
+	 * Spills the partition that was accessed least recently to disk and releases its memory. Only partitions
+	 * that hold records are spilled. The live records are written to a new channel, and the partition's
+	 * buckets are reset, such that the partition occupies no memory beyond its share of the bucket table.
+	 * 
+	 * @param excludedPartition The number of the partition that must not be spilled, because it is currently accessed.
+	 * @return True, if a partition was spilled, false, if the table does not spill or no partition qualifies.
+	 * @throws IOException Thrown, if the partition could not be written.
+	 */
+	private boolean spillPartition(int excludedPartition) throws IOException {
+		if (this.spilledPartitions == null) {
+			return false;
+		}
+		
+		// pick the coldest partition
+		int partitionNumber = -1;
+		for (int i = 0; i < this.partitions.size(); i++) {
+			if (i != excludedPartition && this.spilledPartitions[i] == null && this.partitions.get(i).getRecordCount() > 0 &&
+					(partitionNumber == -1 || this.partitionAccessTimes[i] < this.partitionAccessTimes[partitionNumber]))
+			{
+				partitionNumber = i;
+			}
+		}
+		if (partitionNumber == -1) {
+			return false;
+		}
+		
+		final InMemoryPartition<T> partition = this.partitions.get(partitionNumber);
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("Spilling hash table partition: " + partition);
+		}
+		
+		final BlockChannelWriter writer = this.ioManager.createBlockChannelWriter(this.currentEnumerator.next());
+		final ChannelWriterOutputView out = new ChannelWriterOutputView(writer, this.spillWriteBuffers, this.segmentSize,
+			this.ioManager.getSpillCompressionCodec());
+		final T record = this.buildSideSerializer.createInstance();
+		final int numPartitions = this.partitions.size();
+		long numRecords = 0;
+		
+		// go over all buckets of the partition, including their overflow buckets
+		for (int bucketNum = partitionNumber; bucketNum < this.numBuckets; bucketNum += numPartitions) {
+			final MemorySegment bucket = this.buckets[bucketNum >>> this.bucketsPerSegmentBits];
+			final int bucketOffset = (bucketNum & this.bucketsPerSegmentMask) << NUM_INTRA_BUCKET_BITS;
+			
+			MemorySegment seg = bucket;
+			int segOffset = bucketOffset;
+			while (true) {
+				final int count = seg.getInt(segOffset + HEADER_COUNT_OFFSET);
+				for (int i = 0; i < count; i++) {
+					partition.readRecordAt(seg.getLong(segOffset + BUCKET_POINTER_START_OFFSET + (i * POINTER_LEN)), record);
+					this.buildSideSerializer.serialize(record, out);
+				}
+				numRecords += count;
+				
+				final long forwardPointer = seg.getLong(segOffset + HEADER_FORWARD_OFFSET);
+				if (forwardPointer == BUCKET_FORWARD_POINTER_NOT_SET) {
+					break;
+				}
+				seg = partition.overflowSegments[(int) (forwardPointer >>> 32)];
+				segOffset = (int) (forwardPointer & 0xffffffff);
+			}
+			
+			bucket.putInt(bucketOffset + HEADER_COUNT_OFFSET, 0);
+			bucket.putLong(bucketOffset + HEADER_FORWARD_OFFSET, BUCKET_FORWARD_POINTER_NOT_SET);
+		}
+		
+		out.close();
+		partition.clearAllMemory(this.availableMemory);
+		
+		this.spilledPartitions[partitionNumber] = new SpilledPartition(writer, out.getBlockCount(), numRecords);
+		this.numSpills++;
+		return true;
+	}
+	
+	/**
+	 * Reads a spilled partition back into memory, by inserting its records into a new partition.
+	 * Other partitions are spilled, if the memory runs out while doing so.
+	 * 
+	 * @param partitionNumber The number of the spilled partition.
+	 * @throws IOException Thrown, if the partition could not be read, or another partition could not be spilled.
+	 */
+	private void restorePartition(int partitionNumber) throws IOException {
+		final SpilledPartition spilled = this.spilledPartitions[partitionNumber];
+		
+		// the new partition needs its first page right away
+		while (this.availableMemory.isEmpty()) {
+			if (!spillPartition(partitionNumber)) {
+				throw new RuntimeException("Memory ran out. Cannot read spilled partition " + partitionNumber + " back into memory.");
+			}
+		}
+		
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("Reading spilled hash table partition " + partitionNumber + " back into memory (" + 
+				spilled.numRecords + " records, " + spilled.blockCount + " blocks).");
+		}
+		
+		this.spilledPartitions[partitionNumber] = null;
+		this.partitions.set(partitionNumber, new InMemoryPartition<T>(this.buildSideSerializer, partitionNumber,
+			new ListMemorySegmentSource(this.availableMemory), this.segmentSize, this.pageSizeInBits));
+		
+		final BlockChannelReader reader = this.ioManager.createBlockChannelReader(spilled.writer.getChannelID());
+		final ChannelReaderInputView in = new ChannelReaderInputView(reader, this.spillReadBuffers, spilled.blockCount, false);
+		final T record = this.buildSideSerializer.createInstance();
+		
+		// the partition is no longer marked as spilled, so the records go straight into it
+		for (long i = 0; i < spilled.numRecords; i++) {
+			this.buildSideSerializer.deserialize(record, in);
+			insert(record);
+		}
+		
+		in.close();
+		reader.deleteChannel();
+	}
+	
+	/**
+	 * Deletes the files of all spilled partitions and returns the buffers reserved for spilling.
+	 */
+	private void releaseSpilledPartitions() {
+		// an abandoned iteration may still have read requests outstanding on the spill read buffers
+		if (this.openIteratorView != null) {
+			try {
+				this.openIteratorView.close();
+			} catch (IOException ioex) {
+				LOG.error("Closing the reader of a spilled partition failed: " + ioex.getMessage(), ioex);
+			}
+			this.openIteratorView = null;
+		}
+		
+		if (this.spilledPartitions != null) {
+			for (int i = 0; i < this.spilledPartitions.length; i++) {
+				if (this.spilledPartitions[i] != null) {
+					this.spilledPartitions[i].writer.deleteChannel();
+				}
+			}
+			this.spilledPartitions = null;
+			this.partitionAccessTimes = null;
+		}
+		
+		this.currentEnumerator = null;
+		
+		this.availableMemory.addAll(this.spillWriteBuffers);
+		this.spillWriteBuffers.clear();
+		this.availableMemory.addAll(this.spillReadBuffers);
+		this.spillReadBuffers.clear();
+	}
+	
+	/**
+	 * Gets the number of partitions that are currently spilled.
+	 * 
+	 * @return The number of spilled partitions.
+	 */
+	public int getNumSpilledPartitions() {
+		int num = 0;
+		if (this.spilledPartitions != null) {
+			for (int i = 0; i < this.spilledPartitions.length; i++) {
+				if (this.spilledPartitions[i] != null) {
+					num++;
+				}
+			}
+		}
+		return num;
+	}
+	
 	/**
 	 * Compacts partition but may not reclaim all garbage
 	 * 
@@ -972,7 +1217,8 @@ public class CompactingHashTable<T> extends AbstractMutableHashTable<T>{
 	}
 	
 	/**
-	 * Iterator that traverses the whole hash table once
+	 * Iterator that traverses the whole hash table once. The records of spilled partitions are read
+	 * directly from their files, after all buckets have been traversed.
 	 * 
 	 * If entries are inserted during iteration they may be overlooked by the iterator
 	 */
@@ -987,6 +1233,10 @@ public class CompactingHashTable<T> extends AbstractMutableHashTable<T>{
 		private int currentBucketOffset = 0;
 		private int bucketsPerSegment;
 		
+		private int currentSpilledPartition = 0;
+		private ChannelReaderInputView spilledPartitionView;
+		private long numSpilledRecordsLeft;
+		
 		private boolean done;
 		
 		private EntryIterator(CompactingHashTable<T> compactingHashTable) {
@@ -1018,7 +1268,7 @@ public class CompactingHashTable<T> extends AbstractMutableHashTable<T>{
 
 		private boolean fillCache() throws IOException {
 			if(currentBucketIndex >= table.numBuckets) {
-				return false;
+				return table.spilledPartitions != null && fillCacheFromSpilledPartition();
 			}
 			MemorySegment bucket = table.buckets[currentSegmentIndex];
 			// get the basic characteristics of the bucket
@@ -1067,16 +1317,48 @@ public class CompactingHashTable<T> extends AbstractMutableHashTable<T>{
 			return true;
 		}
 		
+		private boolean fillCacheFromSpilledPartition() throws IOException {
+			// the buckets of spilled partitions are empty, so their records have not been returned yet
+			while (spilledPartitionView == null) {
+				if (currentSpilledPartition >= table.spilledPartitions.length) {
+					return false;
+				}
+				final SpilledPartition spilled = table.spilledPartitions[currentSpilledPartition++];
+				if (spilled != null) {
+					final BlockChannelReader reader = table.ioManager.createBlockChannelReader(spilled.writer.getChannelID());
+					spilledPartitionView = new ChannelReaderInputView(reader, table.spillReadBuffers, spilled.blockCount, false);
+					table.openIteratorView = spilledPartitionView;
+					numSpilledRecordsLeft = spilled.numRecords;
+				}
+			}
+			
+			if (numSpilledRecordsLeft > 0) {
+				T target = table.buildSideSerializer.createInstance();
+				table.buildSideSerializer.deserialize(target, spilledPartitionView);
+				cache.add(target);
+				numSpilledRecordsLeft--;
+			}
+			if (numSpilledRecordsLeft == 0) {
+				spilledPartitionView.close();
+				spilledPartitionView = null;
+				table.openIteratorView = null;
+			}
+			return true;
+		}
 	}
 	
 	public final class HashTableProber<PT> extends AbstractHashTableProber<PT, T>{
 		
-		private InMemoryPartition<T> partition;
+		private int partitionNumber;
 		
 		private MemorySegment bucket;
 		
 		private int pointerOffsetInBucket;
 		
+		private int numSpillsAtMatch;
+		
+		private T tempHolder;
+		
 		
 		private HashTableProber(TypeComparator<PT> probeTypeComparator, TypePairComparator<PT, T> pairComparator)
 		{
@@ -1094,6 +1376,12 @@ public class CompactingHashTable<T> extends AbstractMutableHashTable<T>{
 			
 			// get the basic characteristics of the bucket
 			final int partitionNumber = bucket.get(bucketInSegmentOffset + HEADER_PARTITION_OFFSET);
+			try {
+				ensurePartitionInMemory(partitionNumber);
+			}
+			catch (IOException e) {
+				throw new RuntimeException("Error reading spilled partition back into the hashtable: " + e.getMessage(), e);
+			}
 			final InMemoryPartition<T> partition = partitions.get(partitionNumber);
 			final MemorySegment[] overflowSegments = partition.overflowSegments;
 			
@@ -1123,9 +1411,10 @@ public class CompactingHashTable<T> extends AbstractMutableHashTable<T>{
 							partition.readRecordAt(pointer, targetForMatch);
 							
 							if (this.pairComparator.equalToReference(targetForMatch)) {
-								this.partition = partition;
+								this.partitionNumber = partitionNumber;
 								this.bucket = bucket;
 								this.pointerOffsetInBucket = pointerOffset;
+								this.numSpillsAtMatch = numSpills;
 								return true;
 							}
 						}
@@ -1154,9 +1443,36 @@ public class CompactingHashTable<T> extends AbstractMutableHashTable<T>{
 		}
 		
 		public void updateMatch(T record) throws IOException {
-			long newPointer = this.partition.appendRecord(record);
+			if (this.numSpillsAtMatch != numSpills) {
+				// partitions were spilled since the match was found, so its bucket entry may be gone
+				if (this.tempHolder == null) {
+					this.tempHolder = buildSideSerializer.createInstance();
+				}
+				insertOrReplaceRecord(record, this.tempHolder);
+				return;
+			}
+			
+			long newPointer = appendRecordToPartition(this.partitionNumber, record);
 			this.bucket.putLong(this.pointerOffsetInBucket, newPointer);
-			this.partition.setCompaction(false); //FIXME Do we really create garbage here?
+			partitions.get(this.partitionNumber).setCompaction(false); //FIXME Do we really create garbage here?
+		}
+	}
+	
+	/**
+	 * The file of a spilled partition, together with the number of blocks and records it holds.
+	 */
+	private static final class SpilledPartition {
+		
+		private final BlockChannelWriter writer;	// the closed writer, which is kept to delete the file
+		
+		private final int blockCount;
+		
+		private final long numRecords;
+		
+		private SpilledPartition(BlockChannelWriter writer, int blockCount, long numRecords) {
+			this.writer = writer;
+			this.blockCount = blockCount;
+			this.numRecords = numRecords;
 		}
 	}
 }
@@ -327,7 +327,8 @@ public class HashPartition<BT, PT> extends AbstractPagedInputView implements See
 			this.probeSideChannel = ioAccess.createBlockChannelWriter(probeChannelEnumerator.next(), bufferReturnQueue);
 			// creating the ChannelWriterOutputView without memory will cause it to draw one segment from the
 			// write behind queue, which is the spare segment we had above.
-			this.probeSideBuffer = new ChannelWriterOutputView(this.probeSideChannel, this.memorySegmentSize);
+			this.probeSideBuffer = new ChannelWriterOutputView(this.probeSideChannel, this.memorySegmentSize,
+				ioAccess.getSpillCompressionCodec());
 		}
 	}
 	
@@ -456,7 +457,8 @@ public class HashPartition<BT, PT> extends AbstractPagedInputView implements See
 		}
 		// ATTENTION: The following lines are duplicated code from finalizeBuildPhase
 		this.probeSideChannel = ioAccess.createBlockChannelWriter(probeChannelEnumerator.next(), bufferReturnQueue);
-		this.probeSideBuffer = new ChannelWriterOutputView(this.probeSideChannel, this.memorySegmentSize);
+		this.probeSideBuffer = new ChannelWriterOutputView(this.probeSideChannel, this.memorySegmentSize,
+			ioAccess.getSpillCompressionCodec());
 	}
 		
 
@@ -207,6 +207,16 @@ public class InMemoryPartition<T> {
 		this.writeView.resetTo(tmpPointer);
 	}
 	
+	/**
+	 * discards all records, but keeps the pages, which are overwritten by subsequent appends
+	 * and should only be used on compaction partition
+	 */
+	public void discardRecords() {
+		this.writeView.resetTo(0L);
+		this.recordCounter = 0L;
+		this.compacted = true;
+	}
+	
 	/**
 	 * releases all of the partition's segments (pages and overflow buckets)
 	 * 
@@ -219,6 +229,8 @@ public class InMemoryPartition<T> {
 				target.add(this.overflowSegments[k]);
 			}
 		}
+		this.numOverflowSegments = 0;
+		this.nextOverflowBucket = 0;
 		
 		// return the partition buffers
 		target.addAll(this.partitionPages);
@@ -284,11 +296,18 @@ public class InMemoryPartition<T> {
 
 		@Override
 		protected MemorySegment nextSegment(MemorySegment current, int bytesUsed) throws IOException {
-			MemorySegment next = this.memSource.nextSegment();
-			if(next == null) {
-				throw new EOFException();
+			final int nextPosInArray = this.currentPageNumber + 1 - this.segmentNumberOffset;
+			final MemorySegment next;
+			if (nextPosInArray < this.pages.size()) {
+				// the page is left over from a reset, so we reuse it
+				next = this.pages.get(nextPosInArray);
+			} else {
+				next = this.memSource.nextSegment();
+				if(next == null) {
+					throw new EOFException();
+				}
+				this.pages.add(next);
 			}
-			this.pages.add(next);
 			
 			this.currentPageNumber++;
 			return next;
@@ -299,13 +318,19 @@ public class InMemoryPartition<T> {
 		}
 		
 		private int resetTo(long pointer) {
-			final int pageNum  = (int) (pointer >>> this.sizeBits);
-			final int offset = (int) (pointer & this.sizeMask);
+			int pageNum  = (int) (pointer >>> this.sizeBits);
+			int offset = (int) (pointer & this.sizeMask);
+			int posInArray = pageNum - this.segmentNumberOffset;
 			
-			this.currentPageNumber = pageNum;
+			if (offset == 0 && posInArray > 0 && posInArray == this.pages.size()) {
+				// the pointer points right behind the last page, which is where the view was positioned
+				pageNum--;
+				posInArray--;
+				offset = this.sizeMask + 1;
+			}
 			
-			int posInArray = pageNum - this.segmentNumberOffset;
 			seekOutput(this.pages.get(posInArray), offset);
+			this.currentPageNumber = pageNum;
 			
 			return posInArray;
 		}
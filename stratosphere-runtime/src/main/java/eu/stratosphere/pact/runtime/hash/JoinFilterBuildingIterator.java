@@ -0,0 +1,125 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2013 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+
+package eu.stratosphere.pact.runtime.hash;
+
+import java.io.IOException;
+
+import eu.stratosphere.api.common.typeutils.TypeComparator;
+import eu.stratosphere.core.memory.MemorySegment;
+import eu.stratosphere.pact.runtime.shipping.JoinFilterEvent;
+import eu.stratosphere.pact.runtime.util.BloomFilter;
+import eu.stratosphere.util.MutableObjectIterator;
+
+/**
+ * An iterator that wraps the build side input of a hash join and adds the hash codes of the keys of all records
+ * that pass through it to a bloom filter. After the build side has been consumed, the filter can be published to
+ * the producers of the probe side as a {@link JoinFilterEvent}.
+ * <p>
+ * Since the number of build side records is not known in advance, the filter is built with its maximum size and
+ * folded to a size that matches the number of records when the event is created.
+ *
+ * @param <T> The type of the build side records.
+ */
+public class JoinFilterBuildingIterator<T> implements MutableObjectIterator<T> {
+	
+	/**
+	 * The maximum size of the filter, in bytes. Must be a power of two.
+	 */
+	public static final int MAX_FILTER_SIZE = 1024 * 1024;
+	
+	/**
+	 * The minimum size of the published filter, in bytes. Must be a power of two.
+	 */
+	public static final int MIN_FILTER_SIZE = 64;
+	
+	/**
+	 * The number of hash functions. Four functions are close to optimal for the 8 to 16 bits per entry
+	 * that the folded filters have.
+	 */
+	private static final int NUM_HASH_FUNCTIONS = 4;
+	
+	/**
+	 * The minimum number of bits per entry for the filter to be worth publishing.
+	 */
+	private static final int MIN_BITS_PER_ENTRY = 4;
+	
+	
+	private final MutableObjectIterator<T> input;
+	
+	private final TypeComparator<T> comparator;
+	
+	private final byte[] bits;
+	
+	private final BloomFilter filter;
+	
+	private long count;
+	
+	
+	/**
+	 * Creates a new iterator adding the records of the given input to the filter.
+	 * 
+	 * @param input The build side input.
+	 * @param comparator The comparator to compute the hash codes of the build side keys. The same comparator
+	 *                   must be used by the probe side producers to hash partition their records.
+	 */
+	public JoinFilterBuildingIterator(MutableObjectIterator<T> input, TypeComparator<T> comparator) {
+		this.input = input;
+		this.comparator = comparator;
+		this.bits = new byte[MAX_FILTER_SIZE];
+		this.filter = BloomFilter.wrap(new MemorySegment(this.bits), 0, MAX_FILTER_SIZE, NUM_HASH_FUNCTIONS);
+	}
+
+	@Override
+	public T next(T reuse) throws IOException {
+		final T next = this.input.next(reuse);
+		if (next != null) {
+			this.filter.addHash(this.comparator.hash(next));
+			this.count++;
+		}
+		return next;
+	}
+	
+	/**
+	 * Gets the number of records that have been added to the filter.
+	 * 
+	 * @return The number of records added to the filter.
+	 */
+	public long getCount() {
+		return this.count;
+	}
+	
+	/**
+	 * Creates the event that carries the filter over all records that were added so far. If too many records have
+	 * been added for the filter to be selective, no event is created.
+	 * 
+	 * @param senderIndex The index of the join task in its subtask group.
+	 * @return The event, or <code>null</code>, if the filter would not be selective enough.
+	 */
+	public JoinFilterEvent createEvent(int senderIndex) {
+		if (this.count * MIN_BITS_PER_ENTRY > ((long) MAX_FILTER_SIZE) * 8) {
+			return null;
+		}
+		
+		// fold the filter to about one byte per entry
+		int size = MIN_FILTER_SIZE;
+		while (size < this.count && size < MAX_FILTER_SIZE) {
+			size <<= 1;
+		}
+		
+		final byte[] folded = new byte[size];
+		this.filter.foldInto(folded, size);
+		return new JoinFilterEvent(senderIndex, NUM_HASH_FUNCTIONS, folded);
+	}
+}
@@ -37,6 +37,7 @@ import eu.stratosphere.nephele.services.iomanager.HeaderlessChannelReaderInputVi
 import eu.stratosphere.nephele.services.iomanager.IOManager;
 import eu.stratosphere.pact.runtime.io.ChannelReaderInputViewIterator;
 import eu.stratosphere.pact.runtime.iterative.io.HashPartitionIterator;
+import eu.stratosphere.pact.runtime.util.BloomFilter;
 import eu.stratosphere.pact.runtime.util.MathUtils;
 import eu.stratosphere.util.MutableObjectIterator;
 
@@ -183,7 +184,11 @@ public class MutableHashTable<BT, PT> implements MemorySegmentSource {
 	 */
 	private static final long BUCKET_FORWARD_POINTER_NOT_SET = ~0x0L;
 	
-//	private static final byte BUCKET_STATUS_SPILLED = 1;
+	/**
+	 * Constant for the bucket status, indicating that the bucket belongs to a spilled partition and
+	 * that its entries have been replaced by a bloom filter over the hash codes of the partition's records.
+	 */
+	private static final byte BUCKET_STATUS_SPILLED = 1;
 	
 	/**
 	 * Constant for the bucket status, indicating that the bucket is in memory.
@@ -341,6 +346,17 @@ public class MutableHashTable<BT, PT> implements MemorySegmentSource {
 	
 	protected boolean furtherPartitioning = false;
 	
+	/**
+	 * Flag indicating whether the buckets of spilled partitions are turned into bloom filters, which are
+	 * used to drop probe-side records that cannot have a match before they are spilled.
+	 */
+	protected final boolean useBloomFilters;
+	
+	/**
+	 * The bloom filter that operates on the buckets of spilled partitions, if bloom filters are used.
+	 */
+	private BloomFilter bloomFilter;
+	
 	private boolean running = true;
 
 	// ------------------------------------------------------------------------
@@ -359,6 +375,24 @@ public class MutableHashTable<BT, PT> implements MemorySegmentSource {
 			TypeComparator<BT> buildSideComparator, TypeComparator<PT> probeSideComparator,
 			TypePairComparator<PT, BT> comparator, List<MemorySegment> memorySegments,
 			IOManager ioManager, int avgRecordLen)
+	{
+		this(buildSideSerializer, probeSideSerializer, buildSideComparator, probeSideComparator, comparator,
+			memorySegments, ioManager, avgRecordLen, false);
+	}
+	
+	public MutableHashTable(TypeSerializer<BT> buildSideSerializer, TypeSerializer<PT> probeSideSerializer,
+			TypeComparator<BT> buildSideComparator, TypeComparator<PT> probeSideComparator,
+			TypePairComparator<PT, BT> comparator, List<MemorySegment> memorySegments,
+			IOManager ioManager, boolean useBloomFilters)
+	{
+		this(buildSideSerializer, probeSideSerializer, buildSideComparator, probeSideComparator, comparator,
+			memorySegments, ioManager, DEFAULT_RECORD_LEN, useBloomFilters);
+	}
+	
+	public MutableHashTable(TypeSerializer<BT> buildSideSerializer, TypeSerializer<PT> probeSideSerializer,
+			TypeComparator<BT> buildSideComparator, TypeComparator<PT> probeSideComparator,
+			TypePairComparator<PT, BT> comparator, List<MemorySegment> memorySegments,
+			IOManager ioManager, int avgRecordLen, boolean useBloomFilters)
 	{
 		// some sanity checks first
 		if (memorySegments == null) {
@@ -377,6 +411,7 @@ public class MutableHashTable<BT, PT> implements MemorySegmentSource {
 		this.recordComparator = comparator;
 		this.availableMemory = memorySegments;
 		this.ioManager = ioManager;
+		this.useBloomFilters = useBloomFilters;
 		
 		this.avgRecordLen = avgRecordLen > 0 ? avgRecordLen : 
 				buildSideSerializer.getLength() == -1 ? DEFAULT_RECORD_LEN : buildSideSerializer.getLength();
@@ -466,6 +501,13 @@ public class MutableHashTable<BT, PT> implements MemorySegmentSource {
 				return true;
 			}
 			else {
+				// drop the record if the bloom filter of the spilled bucket tells that it cannot have a match
+				if (bucket.get(bucketInSegmentOffset + HEADER_STATUS_OFFSET) == BUCKET_STATUS_SPILLED) {
+					this.bloomFilter.setBitsLocation(bucket, bucketInSegmentOffset + BUCKET_HEADER_LENGTH);
+					if (!this.bloomFilter.testHash(hash)) {
+						continue;
+					}
+				}
 				p.insertIntoProbeBuffer(next);
 			}
 		}
@@ -692,6 +734,7 @@ public class MutableHashTable<BT, PT> implements MemorySegmentSource {
 		final int numBuckets = getInitialTableSize(this.availableMemory.size(), this.segmentSize, 
 			partitionFanOut, this.avgRecordLen);
 		initTable(numBuckets, (byte) partitionFanOut);
+		initBloomFilter(numBuckets);
 		
 		final TypeComparator<BT> buildTypeComparator = this.buildSideComparator;
 		BT record = this.buildSideSerializer.createInstance();
@@ -799,6 +842,7 @@ public class MutableHashTable<BT, PT> implements MemorySegmentSource {
 			
 			// set up the table structure. the write behind buffers are taken away, as are one buffer per partition
 			initTable(bucketCount, (byte) partitionFanOut);
+			initBloomFilter(bucketCount);
 			
 			// go over the complete input and insert every element into the hash table
 			// first set up the reader with some memory.
@@ -856,6 +900,10 @@ public class MutableHashTable<BT, PT> implements MemorySegmentSource {
 			// record was inserted into an in-memory partition. a pointer must be inserted into the buckets
 			insertBucketEntry(p, bucket, bucketInSegmentPos, hashCode, pointer);
 		}
+		else {
+			// record went to a spilled partition. it must be reflected in the bucket's bloom filter
+			addToSpilledBucket(bucket, bucketInSegmentPos, hashCode);
+		}
 	}
 	
 	/**
@@ -926,7 +974,8 @@ public class MutableHashTable<BT, PT> implements MemorySegmentSource {
 					// no memory available to create overflow bucket. we need to spill a partition
 					final int spilledPart = spillPartition();
 					if (spilledPart == p.getPartitionNumber()) {
-						// this bucket is no longer in-memory
+						// this bucket is no longer in-memory. the entry must still be reflected in the bloom filter
+						addToSpilledBucket(bucket, bucketInSegmentPos, hashCode);
 						return;
 					}
 					overflowSeg = getNextBuffer();
@@ -1095,6 +1144,12 @@ public class MutableHashTable<BT, PT> implements MemorySegmentSource {
 		}
 		final HashPartition<BT, PT> p = partitions.get(largestPartNum);
 		
+		// turn the partition's buckets into bloom filters. that must happen before spilling, because
+		// spilling releases the overflow buckets.
+		if (this.bloomFilter != null) {
+			buildBloomFiltersForPartition(p);
+		}
+		
 		// spill the partition
 		int numBuffersFreed = p.spillPartition(this.availableMemory, this.ioManager, 
 										this.currentEnumerator.next(), this.writeBehindBuffers);
@@ -1108,6 +1163,97 @@ public class MutableHashTable<BT, PT> implements MemorySegmentSource {
 		return largestPartNum;
 	}
 	
+	/**
+	 * Replaces the entries of all buckets of the given partition by a bloom filter over the hash codes of the
+	 * entries, including the entries in the overflow buckets. The bucket status is set to spilled.
+	 * 
+	 * @param p The partition that is about to be spilled.
+	 */
+	final void buildBloomFiltersForPartition(final HashPartition<BT, PT> p) {
+		final int partitionNumber = p.getPartitionNumber();
+		final int bucketsPerSegment = this.bucketsPerSegmentMask + 1;
+		final BloomFilter filter = this.bloomFilter;
+		
+		int[] hashCodes = new int[NUM_ENTRIES_PER_BUCKET];
+		
+		for (int i = 0, bucketNum = 0; i < this.buckets.length && bucketNum < this.numBuckets; i++) {
+			final MemorySegment segment = this.buckets[i];
+			
+			for (int k = 0; k < bucketsPerSegment && bucketNum < this.numBuckets; k++, bucketNum++) {
+				final int bucketOffset = k * HASH_BUCKET_SIZE;
+				if (segment.get(bucketOffset + HEADER_PARTITION_OFFSET) != partitionNumber) {
+					continue;
+				}
+				
+				// collect the hash codes of the bucket and its overflow buckets first, because the
+				// bloom filter overwrites the space that holds them
+				int numHashCodes = 0;
+				MemorySegment seg = segment;
+				int segOffset = bucketOffset;
+				while (true) {
+					final int count = seg.getShort(segOffset + HEADER_COUNT_OFFSET);
+					if (numHashCodes + count > hashCodes.length) {
+						final int[] newHashCodes = new int[Math.max(hashCodes.length * 2, numHashCodes + count)];
+						System.arraycopy(hashCodes, 0, newHashCodes, 0, numHashCodes);
+						hashCodes = newHashCodes;
+					}
+					for (int e = 0; e < count; e++) {
+						hashCodes[numHashCodes++] = seg.getInt(segOffset + BUCKET_HEADER_LENGTH + (e * HASH_CODE_LEN));
+					}
+					
+					final long forwardPointer = seg.getLong(segOffset + HEADER_FORWARD_OFFSET);
+					if (forwardPointer == BUCKET_FORWARD_POINTER_NOT_SET) {
+						break;
+					}
+					seg = p.overflowSegments[(int) (forwardPointer >>> 32)];
+					segOffset = (int) (forwardPointer & 0xffffffff);
+				}
+				
+				filter.setBitsLocation(segment, bucketOffset + BUCKET_HEADER_LENGTH);
+				filter.reset();
+				for (int e = 0; e < numHashCodes; e++) {
+					filter.addHash(hashCodes[e]);
+				}
+				
+				segment.put(bucketOffset + HEADER_STATUS_OFFSET, BUCKET_STATUS_SPILLED);
+				segment.putShort(bucketOffset + HEADER_COUNT_OFFSET, (short) 0);
+				segment.putLong(bucketOffset + HEADER_FORWARD_OFFSET, BUCKET_FORWARD_POINTER_NOT_SET);
+			}
+		}
+	}
+	
+	/**
+	 * Adds the hash code of a record that went to a spilled partition to the bloom filter of its bucket.
+	 * Does nothing, if the bucket carries no bloom filter.
+	 */
+	private final void addToSpilledBucket(final MemorySegment bucket, final int bucketInSegmentPos, final int hashCode) {
+		if (bucket.get(bucketInSegmentPos + HEADER_STATUS_OFFSET) == BUCKET_STATUS_SPILLED) {
+			this.bloomFilter.setBitsLocation(bucket, bucketInSegmentPos + BUCKET_HEADER_LENGTH);
+			this.bloomFilter.addHash(hashCode);
+		}
+	}
+	
+	/**
+	 * Creates the bloom filter for the buckets of the current table, if bloom filters are used.
+	 * The filter is sized for the case that the build side is as large as the memory multiple times over,
+	 * because the build side of a spilled partition is by definition larger than its share of the memory.
+	 * 
+	 * @param numBuckets The number of buckets in the current table.
+	 */
+	private void initBloomFilter(int numBuckets) {
+		if (!this.useBloomFilters) {
+			this.bloomFilter = null;
+			return;
+		}
+		
+		final long totalSize = ((long) this.segmentSize) * this.totalNumBuffers;
+		final long numRecordsStorable = totalSize / (this.avgRecordLen + RECORD_OVERHEAD_BYTES);
+		final long expectedPerBucket = (MAX_RECURSION_DEPTH + 1) * numRecordsStorable / numBuckets;
+		
+		final int expectedEntries = (int) Math.min(Integer.MAX_VALUE, Math.max(NUM_ENTRIES_PER_BUCKET, expectedPerBucket));
+		this.bloomFilter = new BloomFilter(expectedEntries, HASH_BUCKET_SIZE - BUCKET_HEADER_LENGTH);
+	}
+	
 	/**
 	 * This method makes sure that at least a certain number of memory segments is in the list of free segments.
 	 * Free memory can be in the list of free segments, or in the return-queue where segments used to write behind are
@@ -0,0 +1,621 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2013 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.pact.runtime.hash;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import eu.stratosphere.api.common.functions.GenericReduce;
+import eu.stratosphere.api.common.typeutils.TypeComparator;
+import eu.stratosphere.api.common.typeutils.TypeSerializer;
+import eu.stratosphere.core.memory.MemorySegment;
+import eu.stratosphere.nephele.services.memorymanager.AbstractPagedInputView;
+import eu.stratosphere.nephele.services.memorymanager.AbstractPagedOutputView;
+import eu.stratosphere.pact.runtime.util.MathUtils;
+import eu.stratosphere.util.Collector;
+
+/**
+ * An in-memory hash table that combines records with equal keys through a reduce function, as used by
+ * hash-based combiners. Records with a key that is not yet contained in the table are inserted, records whose
+ * key is already contained are reduced with the contained record, and the result replaces it.
+ * <p>
+ * The table never spills. If it runs out of memory, the caller is expected to emit its contents
+ * (see {@link #emitAndReset(Collector)}) and continue with an empty table. This is valid for combiners,
+ * which may produce multiple partially aggregated records per key.
+ * <p>
+ * The table consists of an array of buckets and a record area. Each bucket holds an 8 byte pointer to the first
+ * entry of its chain. The entries are appended to the record area and have the following layout:
+ *
+ * <pre>
+ * +------------------------------------------------------------------------------------------
+ * | next-entry-in-chain-pointer (8 bytes) | hashCode (4 bytes) | record length (4 bytes) |
+ * | serialized record (record length bytes) ...
+ * +------------------------------------------------------------------------------------------
+ * </pre>
+ *
+ * The header of an entry never crosses a memory segment boundary. When a record is updated with a reduce
+ * result of the same serialized length, the result is written in place. Otherwise, the result is appended and
+ * the pointer in the chain is updated, leaving the old record behind as garbage until the table is reset.
+ *
+ * @param <T> The type of the records in the table.
+ */
+public class ReduceHashTable<T> {
+
+	// ------------------------------------------------------------------------
+	//                         Internal Constants
+	// ------------------------------------------------------------------------
+
+	/**
+	 * The minimum number of memory segments: one for the buckets, one for the staging area
+	 * and at least one for the records.
+	 */
+	private static final int MIN_NUM_MEMORY_SEGMENTS = 3;
+
+	/**
+	 * The default record width that is used when no width is given. The record width is used
+	 * to determine the ratio of memory segments for the buckets and for the record area.
+	 */
+	private static final int DEFAULT_RECORD_LEN = 24;
+
+	/**
+	 * The length of a pointer in a bucket or in the header of an entry.
+	 */
+	private static final int POINTER_LEN = 8;
+
+	/**
+	 * The offset of the hash code in the header of an entry.
+	 */
+	private static final int HEADER_HASH_CODE_OFFSET = 8;
+
+	/**
+	 * The offset of the record length in the header of an entry.
+	 */
+	private static final int HEADER_LENGTH_OFFSET = 12;
+
+	/**
+	 * The length of the header of an entry.
+	 */
+	private static final int ENTRY_HEADER_LEN = 16;
+
+	/**
+	 * Constant for the pointer that marks the end of a chain.
+	 */
+	private static final long END_OF_CHAIN = -1L;
+
+	// ------------------------------------------------------------------------
+	//                              Members
+	// ------------------------------------------------------------------------
+
+	private final TypeSerializer<T> serializer;
+
+	private final TypeComparator<T> comparator;
+
+	/**
+	 * The memory segments that are currently not used by the table.
+	 */
+	private final ArrayList<MemorySegment> availableMemory;
+
+	/**
+	 * The memory segments that form the record area.
+	 */
+	private final ArrayList<MemorySegment> recordSegments;
+
+	private final int segmentSize;
+
+	private final int segmentSizeBits;
+
+	private final int segmentSizeMask;
+
+	private final int avgRecordLen;
+
+	private final T reuse;
+
+	private MemorySegment[] buckets;
+
+	private int numBucketsMask;
+
+	private int bucketsPerSegmentBits;
+
+	private int bucketsPerSegmentMask;
+
+	private MemorySegment stagingSegment;
+
+	private RecordAreaOutputView recordOutput;
+
+	private RecordAreaInputView recordInput;
+
+	private StagingOutputView stagingOutput;
+
+	private StagingInputView stagingInput;
+
+	private long numEntries;
+
+	private boolean open;
+
+	// ------------------------------------------------------------------------
+	//                         Construction and Teardown
+	// ------------------------------------------------------------------------
+
+	public ReduceHashTable(TypeSerializer<T> serializer, TypeComparator<T> comparator, List<MemorySegment> memorySegments) {
+		this(serializer, comparator, memorySegments, DEFAULT_RECORD_LEN);
+	}
+
+	public ReduceHashTable(TypeSerializer<T> serializer, TypeComparator<T> comparator,
+			List<MemorySegment> memorySegments, int avgRecordLen)
+	{
+		if (serializer == null || comparator == null || memorySegments == null) {
+			throw new NullPointerException();
+		}
+		if (memorySegments.size() < MIN_NUM_MEMORY_SEGMENTS) {
+			throw new IllegalArgumentException("Too few memory segments provided. The hash table needs at least " +
+				MIN_NUM_MEMORY_SEGMENTS + " memory segments.");
+		}
+
+		this.serializer = serializer;
+		this.comparator = comparator;
+		this.availableMemory = new ArrayList<MemorySegment>(memorySegments);
+		this.recordSegments = new ArrayList<MemorySegment>(memorySegments.size());
+		this.avgRecordLen = serializer.getLength() > 0 ? serializer.getLength() : avgRecordLen;
+
+		// the size must be a power of 2 for the pointer arithmetic
+		this.segmentSize = memorySegments.get(0).size();
+		if ((this.segmentSize & this.segmentSize - 1) != 0) {
+			throw new IllegalArgumentException("Hash Table requires buffers whose size is a power of 2.");
+		}
+		if (this.segmentSize <= 2 * ENTRY_HEADER_LEN) {
+			throw new IllegalArgumentException("Hash Table requires buffers of more than " + (2 * ENTRY_HEADER_LEN) + " bytes.");
+		}
+		this.segmentSizeBits = MathUtils.log2strict(this.segmentSize);
+		this.segmentSizeMask = this.segmentSize - 1;
+
+		this.reuse = serializer.createInstance();
+	}
+
+	// ------------------------------------------------------------------------
+	//                              Life-Cycle
+	// ------------------------------------------------------------------------
+
+	/**
+	 * Sets up the bucket table and the record area.
+	 */
+	public void open() {
+		if (this.open) {
+			throw new IllegalStateException("Hash Table cannot be opened, because it is currently not closed.");
+		}
+		this.open = true;
+
+		// determine the number of segments for the buckets, such that a full record area results roughly in
+		// a load factor of one
+		final int numSegments = this.availableMemory.size();
+		final int bucketsPerSegment = this.segmentSize / POINTER_LEN;
+		final long numRecordsStorable = ((long) numSegments) * this.segmentSize / (this.avgRecordLen + ENTRY_HEADER_LEN + POINTER_LEN);
+		final long numBucketSegmentsNeeded = numRecordsStorable / bucketsPerSegment;
+		final int numBucketSegments = MathUtils.roundDownToPowerOf2(
+			(int) Math.max(1, Math.min(numBucketSegmentsNeeded, (numSegments - 2) / 2)));
+
+		this.bucketsPerSegmentBits = MathUtils.log2strict(bucketsPerSegment);
+		this.bucketsPerSegmentMask = bucketsPerSegment - 1;
+		this.numBucketsMask = numBucketSegments * bucketsPerSegment - 1;
+
+		this.buckets = new MemorySegment[numBucketSegments];
+		for (int i = 0; i < numBucketSegments; i++) {
+			this.buckets[i] = nextFreeSegment();
+		}
+		clearBuckets();
+
+		this.stagingSegment = nextFreeSegment();
+		this.stagingOutput = new StagingOutputView(this.stagingSegment, this.segmentSize);
+		this.stagingInput = new StagingInputView(this.stagingSegment);
+
+		this.recordSegments.add(nextFreeSegment());
+		this.recordOutput = new RecordAreaOutputView(this.recordSegments.get(0), this.segmentSize);
+		this.recordInput = new RecordAreaInputView(this.recordSegments.get(0));
+		this.numEntries = 0;
+	}
+
+	/**
+	 * Closes the hash table and releases all memory segments to the list of free memory.
+	 */
+	public void close() {
+		if (!this.open) {
+			return;
+		}
+		this.open = false;
+
+		for (int i = 0; i < this.buckets.length; i++) {
+			this.availableMemory.add(this.buckets[i]);
+		}
+		this.buckets = null;
+
+		this.availableMemory.add(this.stagingSegment);
+		this.stagingSegment = null;
+
+		this.availableMemory.addAll(this.recordSegments);
+		this.recordSegments.clear();
+	}
+
+	/**
+	 * Gets all memory of the hash table. Must only be called after the table was closed.
+	 *
+	 * @return All memory segments of the hash table.
+	 */
+	public List<MemorySegment> getFreeMemory() {
+		if (this.open) {
+			throw new IllegalStateException("Cannot return memory while the hash table is open.");
+		}
+		return this.availableMemory;
+	}
+
+	/**
+	 * Gets the number of distinct keys in the table.
+	 *
+	 * @return The number of entries in the table.
+	 */
+	public long getNumEntries() {
+		return this.numEntries;
+	}
+
+	// ------------------------------------------------------------------------
+	//                              Operations
+	// ------------------------------------------------------------------------
+
+	/**
+	 * Looks up the entry with the same key as the given record. If such an entry exists, the entry and the record
+	 * are combined with the given reduce function and the result replaces the entry. Otherwise, the record is
+	 * inserted as a new entry.
+	 * <p>
+	 * If the table has no memory left to insert the record, this method returns false and leaves the table
+	 * unchanged. If the table has no memory left to store the result of the reduce function, the result is
+	 * emitted to the given collector and the entry is removed from the table.
+	 *
+	 * @param record The record to insert or combine.
+	 * @param reducer The reduce function that combines two records with the same key.
+	 * @param overflowOutput The collector that receives reduce results that cannot be stored in the table.
+	 * @return True, if the record was processed, false if the table has not enough memory left to insert it.
+	 *
+	 * @throws Exception Thrown, if the reduce function, the serialization, or the collector throws an exception.
+	 */
+	public boolean processRecordWithReduce(T record, GenericReduce<T> reducer, Collector<T> overflowOutput) throws Exception {
+		final int hashCode = hash(this.comparator.hash(record));
+		final int bucket = hashCode & this.numBucketsMask;
+		final MemorySegment bucketSegment = this.buckets[bucket >>> this.bucketsPerSegmentBits];
+		final int bucketOffset = (bucket & this.bucketsPerSegmentMask) << 3;
+
+		this.comparator.setReference(record);
+
+		long previous = END_OF_CHAIN;
+		long pointer = bucketSegment.getLong(bucketOffset);
+
+		while (pointer != END_OF_CHAIN) {
+			final MemorySegment seg = this.recordSegments.get((int) (pointer >>> this.segmentSizeBits));
+			final int offset = (int) (pointer & this.segmentSizeMask);
+
+			if (seg.getInt(offset + HEADER_HASH_CODE_OFFSET) == hashCode) {
+				this.recordInput.setReadPosition(pointer + ENTRY_HEADER_LEN);
+				final T stored = this.serializer.deserialize(this.reuse, this.recordInput);
+
+				if (this.comparator.equalToReference(stored)) {
+					final T result = reducer.reduce(stored, record);
+					updateEntry(pointer, seg, offset, previous, bucketSegment, bucketOffset, result, overflowOutput);
+					return true;
+				}
+			}
+
+			previous = pointer;
+			pointer = seg.getLong(offset);
+		}
+
+		// no entry with the same key, insert the record as the new head of the chain
+		final long newPointer = appendEntry(record, hashCode, bucketSegment.getLong(bucketOffset));
+		if (newPointer == END_OF_CHAIN) {
+			return false;
+		}
+		bucketSegment.putLong(bucketOffset, newPointer);
+		this.numEntries++;
+		return true;
+	}
+
+	/**
+	 * Emits all entries of the table to the given collector and removes them from the table.
+	 *
+	 * @param output The collector to emit the entries to.
+	 * @throws Exception Thrown, if the deserialization or the collector throws an exception.
+	 */
+	public void emitAndReset(Collector<T> output) throws Exception {
+		final int numBuckets = this.numBucketsMask + 1;
+
+		for (int bucket = 0; bucket < numBuckets; bucket++) {
+			final MemorySegment bucketSegment = this.buckets[bucket >>> this.bucketsPerSegmentBits];
+			long pointer = bucketSegment.getLong((bucket & this.bucketsPerSegmentMask) << 3);
+
+			while (pointer != END_OF_CHAIN) {
+				this.recordInput.setReadPosition(pointer + ENTRY_HEADER_LEN);
+				output.collect(this.serializer.deserialize(this.serializer.createInstance(), this.recordInput));
+
+				pointer = this.recordSegments.get((int) (pointer >>> this.segmentSizeBits)).getLong((int) (pointer & this.segmentSizeMask));
+			}
+		}
+
+		reset();
+	}
+
+	/**
+	 * Removes all entries from the table and returns the memory of the record area, except for one
+	 * segment, to the free memory.
+	 */
+	public void reset() {
+		clearBuckets();
+
+		for (int i = this.recordSegments.size() - 1; i > 0; i--) {
+			this.availableMemory.add(this.recordSegments.remove(i));
+		}
+		this.recordOutput.seekTo(0);
+		this.numEntries = 0;
+	}
+
+	// ------------------------------------------------------------------------
+	//                              Internals
+	// ------------------------------------------------------------------------
+
+	private void updateEntry(long pointer, MemorySegment seg, int offset, long previous,
+			MemorySegment bucketSegment, int bucketOffset, T result, Collector<T> overflowOutput)
+	throws Exception
+	{
+		final int storedLength = seg.getInt(offset + HEADER_LENGTH_OFFSET);
+
+		// serialize the result to the staging area to determine its length
+		boolean staged;
+		this.stagingOutput.reset();
+		try {
+			this.serializer.serialize(result, this.stagingOutput);
+			staged = true;
+		} catch (EOFException e) {
+			// larger than a page, cannot be staged
+			staged = false;
+		}
+
+		if (staged && this.stagingOutput.getCurrentPositionInSegment() == storedLength) {
+			// same length, overwrite the record in place
+			final long currentEnd = this.recordOutput.getCurrentPointer();
+			this.recordOutput.seekTo(pointer + ENTRY_HEADER_LEN);
+			this.stagingInput.reset(storedLength);
+			this.recordOutput.write(this.stagingInput, storedLength);
+			this.recordOutput.seekTo(currentEnd);
+			return;
+		}
+
+		// append the result as a new entry that takes the place of the old one in the chain
+		final long next = seg.getLong(offset);
+		final long newPointer = appendEntry(result, seg.getInt(offset + HEADER_HASH_CODE_OFFSET), next);
+
+		if (newPointer != END_OF_CHAIN) {
+			linkEntry(previous, bucketSegment, bucketOffset, newPointer);
+		} else {
+			// no memory left for the result. emit it and unlink the old entry
+			overflowOutput.collect(result);
+			linkEntry(previous, bucketSegment, bucketOffset, next);
+			this.numEntries--;
+		}
+	}
+
+	private void linkEntry(long previous, MemorySegment bucketSegment, int bucketOffset, long target) {
+		if (previous == END_OF_CHAIN) {
+			bucketSegment.putLong(bucketOffset, target);
+		} else {
+			this.recordSegments.get((int) (previous >>> this.segmentSizeBits)).putLong((int) (previous & this.segmentSizeMask), target);
+		}
+	}
+
+	/**
+	 * Appends an entry for the given record to the record area.
+	 *
+	 * @return The pointer to the entry, or {@code END_OF_CHAIN}, if the record area ran out of memory.
+	 */
+	private long appendEntry(T record, int hashCode, long next) throws IOException {
+		final RecordAreaOutputView out = this.recordOutput;
+		final long oldEnd = out.getCurrentPointer();
+
+		try {
+			// make sure that the header does not cross a segment boundary
+			out.alignForHeader();
+
+			final long pointer = out.getCurrentPointer();
+			final MemorySegment headerSegment = out.getCurrentSegment();
+			final int headerOffset = out.getCurrentPositionInSegment();
+
+			out.skipBytesToWrite(ENTRY_HEADER_LEN);
+			this.serializer.serialize(record, out);
+
+			headerSegment.putLong(headerOffset, next);
+			headerSegment.putInt(headerOffset + HEADER_HASH_CODE_OFFSET, hashCode);
+			headerSegment.putInt(headerOffset + HEADER_LENGTH_OFFSET, (int) (out.getCurrentPointer() - pointer - ENTRY_HEADER_LEN));
+			return pointer;
+		}
+		catch (EOFException e) {
+			out.seekTo(oldEnd);
+			return END_OF_CHAIN;
+		}
+	}
+
+	private void clearBuckets() {
+		for (int i = 0; i < this.buckets.length; i++) {
+			final MemorySegment seg = this.buckets[i];
+			for (int k = 0; k < this.segmentSize; k += POINTER_LEN) {
+				seg.putLong(k, END_OF_CHAIN);
+			}
+		}
+	}
+
+	private MemorySegment nextFreeSegment() {
+		final int s = this.availableMemory.size();
+		return s > 0 ? this.availableMemory.remove(s - 1) : null;
+	}
+
+	/**
+	 * This function hashes an integer value. It is adapted from Bob Jenkins' website
+	 * <a href="http://www.burtleburtle.net/bob/hash/integer.html">http://www.burtleburtle.net/bob/hash/integer.html</a>.
+	 * The hash function has the <i>full avalanche</i> property, meaning that every bit of the value to be hashed
+	 * affects every bit of the hash value.
+	 *
+	 * @param code The integer to be hashed.
+	 * @return The hash code for the integer.
+	 */
+	private static final int hash(int code) {
+		code = (code + 0x7ed55d16) + (code << 12);
+		code = (code ^ 0xc761c23c) ^ (code >>> 19);
+		code = (code + 0x165667b1) + (code << 5);
+		code = (code + 0xd3a2646c) ^ (code << 9);
+		code = (code + 0xfd7046c5) + (code << 3);
+		code = (code ^ 0xb55a4f09) ^ (code >>> 16);
+		return code;
+	}
+
+	// ============================================================================================
+
+	/**
+	 * The output view that appends to the record area. It takes new segments from the free memory once
+	 * it moves past the last segment of the record area.
+	 */
+	private final class RecordAreaOutputView extends AbstractPagedOutputView {
+
+		private int currentSegmentIndex;
+
+		private RecordAreaOutputView(MemorySegment firstSegment, int segmentSize) {
+			super(firstSegment, segmentSize, 0);
+		}
+
+		@Override
+		protected MemorySegment nextSegment(MemorySegment current, int positionInCurrent) throws EOFException {
+			final int nextIndex = this.currentSegmentIndex + 1;
+			if (nextIndex < recordSegments.size()) {
+				this.currentSegmentIndex = nextIndex;
+				return recordSegments.get(nextIndex);
+			}
+
+			final MemorySegment next = nextFreeSegment();
+			if (next == null) {
+				throw new EOFException();
+			}
+			recordSegments.add(next);
+			this.currentSegmentIndex = nextIndex;
+			return next;
+		}
+
+		private void alignForHeader() throws IOException {
+			if (segmentSize - getCurrentPositionInSegment() <= ENTRY_HEADER_LEN) {
+				advance();
+			}
+		}
+
+		private long getCurrentPointer() {
+			return (((long) this.currentSegmentIndex) << segmentSizeBits) + getCurrentPositionInSegment();
+		}
+
+		private void seekTo(long pointer) {
+			int index = (int) (pointer >>> segmentSizeBits);
+			int offset = (int) (pointer & segmentSizeMask);
+
+			// a pointer to the end of the last segment addresses the beginning of a segment that does not exist yet
+			if (offset == 0 && index > 0 && index == recordSegments.size()) {
+				index--;
+				offset = segmentSize;
+			}
+
+			this.currentSegmentIndex = index;
+			seekOutput(recordSegments.get(index), offset);
+		}
+	}
+
+	/**
+	 * The input view that reads records at arbitrary positions of the record area.
+	 */
+	private final class RecordAreaInputView extends AbstractPagedInputView {
+
+		private int currentSegmentIndex;
+
+		private RecordAreaInputView(MemorySegment firstSegment) {
+			super(firstSegment, 0, 0);
+		}
+
+		@Override
+		protected MemorySegment nextSegment(MemorySegment current) throws EOFException {
+			if (++this.currentSegmentIndex < recordSegments.size()) {
+				return recordSegments.get(this.currentSegmentIndex);
+			} else {
+				throw new EOFException();
+			}
+		}
+
+		@Override
+		protected int getLimitForSegment(MemorySegment segment) {
+			return segmentSize;
+		}
+
+		private void setReadPosition(long pointer) {
+			this.currentSegmentIndex = (int) (pointer >>> segmentSizeBits);
+			seekInput(recordSegments.get(this.currentSegmentIndex), (int) (pointer & segmentSizeMask), segmentSize);
+		}
+	}
+
+	/**
+	 * The output view that serializes reduce results into the single staging segment.
+	 */
+	private static final class StagingOutputView extends AbstractPagedOutputView {
+
+		private final MemorySegment segment;
+
+		private StagingOutputView(MemorySegment segment, int segmentSize) {
+			super(segment, segmentSize, 0);
+			this.segment = segment;
+		}
+
+		@Override
+		protected MemorySegment nextSegment(MemorySegment current, int positionInCurrent) throws EOFException {
+			throw new EOFException();
+		}
+
+		private void reset() {
+			seekOutput(this.segment, 0);
+		}
+	}
+
+	/**
+	 * The input view that reads the staged reduce result back from the staging segment.
+	 */
+	private static final class StagingInputView extends AbstractPagedInputView {
+
+		private final MemorySegment segment;
+
+		private StagingInputView(MemorySegment segment) {
+			super(segment, 0, 0);
+			this.segment = segment;
+		}
+
+		@Override
+		protected MemorySegment nextSegment(MemorySegment current) throws EOFException {
+			throw new EOFException();
+		}
+
+		@Override
+		protected int getLimitForSegment(MemorySegment segment) {
+			return 0;
+		}
+
+		private void reset(int limit) {
+			seekInput(this.segment, 0, limit);
+		}
+	}
+}
@@ -0,0 +1,141 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2013 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.pact.runtime.io;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import eu.stratosphere.core.memory.MemorySegment;
+import eu.stratosphere.nephele.services.iomanager.BlockChannelReader;
+import eu.stratosphere.nephele.services.iomanager.ChannelReaderInputView;
+
+
+/**
+ * A {@link ChannelReaderInputView} that adapts its read-ahead to the rate at which it is consumed. Besides its
+ * own segments, the view borrows segments from a {@link ReadAheadSegmentPool} that it shares with other views.
+ * <p>
+ * Whenever the view consumes a block and finds that the next block has not been read yet, the consumer is about
+ * to wait for the I/O thread. The view then borrows segments from the pool and issues them as one batched read
+ * request. Consecutive stalls double the size of the batch. Whenever the view finds a surplus of blocks that have
+ * been read but not consumed, it returns a segment to the pool, down to the number of its own segments. That way,
+ * the spare memory moves to the inputs of a merge that the merge consumes from fastest.
+ */
+public class PrefetchingChannelReaderInputView extends ChannelReaderInputView
+{
+	/**
+	 * The number of blocks that must be read and waiting for the view to give back borrowed segments.
+	 */
+	private static final int SURPLUS_BLOCKS = 2;
+	
+	/**
+	 * The initial number of segments borrowed at once.
+	 */
+	private static final int INITIAL_BATCH_SIZE = 2;
+	
+	/**
+	 * The maximal number of segments borrowed at once.
+	 */
+	private static final int MAX_BATCH_SIZE = 16;
+	
+	// --------------------------------------------------------------------------------------------
+	
+	private final ReadAheadSegmentPool pool;		// the pool of spare segments
+	
+	private final int minSegments;					// the number of segments the view never gives back
+	
+	private final List<MemorySegment> batch;		// the list for the segments of a batched request
+	
+	private int batchSize;							// the number of segments to borrow on the next stall
+	
+	// --------------------------------------------------------------------------------------------
+	
+	/**
+	 * Creates a new view that reads from the given channel, expecting a specified number of blocks in the channel.
+	 * 
+	 * @param reader The reader that reads the data from disk back into memory.
+	 * @param memory The segments owned by the view. It never returns these to the pool.
+	 * @param numBlocks The number of blocks this channel will read.
+	 * @param pool The pool of spare segments shared with other views.
+	 * @param waitForFirstBlock A flag indicating weather this constructor call should block
+	 *                          until the first block has returned from the asynchronous I/O reader.
+	 * 
+	 * @throws IOException Thrown, if the read requests for the first blocks fail to be
+	 *                     served by the reader.
+	 */
+	public PrefetchingChannelReaderInputView(BlockChannelReader reader, List<MemorySegment> memory, int numBlocks,
+			ReadAheadSegmentPool pool, boolean waitForFirstBlock)
+	throws IOException
+	{
+		// the pool is not set during the super constructor, so the first requests are regular ones
+		super(reader, memory, numBlocks, false);
+		
+		if (pool == null) {
+			throw new NullPointerException();
+		}
+		
+		this.pool = pool;
+		this.minSegments = memory.size();
+		this.batch = new ArrayList<MemorySegment>(MAX_BATCH_SIZE);
+		this.batchSize = INITIAL_BATCH_SIZE;
+		
+		if (waitForFirstBlock) {
+			waitForFirstBlock();
+		}
+	}
+	
+	// --------------------------------------------------------------------------------------------
+	
+	@Override
+	protected void sendReadRequest(MemorySegment seg) throws IOException
+	{
+		final ReadAheadSegmentPool pool = this.pool;
+		if (pool == null) {
+			// called from the constructor of the super class
+			super.sendReadRequest(seg);
+			return;
+		}
+		
+		final int queued = this.reader.getReturnQueue().size();
+		
+		// give borrowed segments back, if they are not needed any more
+		if (this.numSegments > this.minSegments && (this.numRequestsRemaining == 0 || queued >= SURPLUS_BLOCKS)) {
+			pool.release(seg);
+			this.numSegments--;
+			this.batchSize = INITIAL_BATCH_SIZE;
+			return;
+		}
+		
+		super.sendReadRequest(seg);
+		
+		// if the next block is not there yet, the consumer is faster than the read-ahead
+		if (queued == 0 && this.numRequestsRemaining != 0 && pool.size() > 0) {
+			int num = this.batchSize;
+			if (this.numRequestsRemaining > 0) {
+				num = Math.min(num, this.numRequestsRemaining);
+			}
+			
+			final List<MemorySegment> batch = this.batch;
+			final int taken = pool.take(batch, num);
+			this.reader.readBlocks(batch);
+			batch.clear();
+			
+			this.numSegments += taken;
+			if (this.numRequestsRemaining > 0) {
+				this.numRequestsRemaining -= taken;
+			}
+			this.batchSize = Math.min(this.batchSize * 2, MAX_BATCH_SIZE);
+		}
+	}
+}
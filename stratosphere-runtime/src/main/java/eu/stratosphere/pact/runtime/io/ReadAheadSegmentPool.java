@@ -0,0 +1,94 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2013 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.pact.runtime.io;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.List;
+
+import eu.stratosphere.core.memory.MemorySegment;
+
+
+/**
+ * A pool of spare memory segments that a group of {@link PrefetchingChannelReaderInputView}s borrow from to
+ * read further ahead, and that they return segments to when they have read far enough ahead. The pool is
+ * shared by the inputs of one merge, so that the inputs that are consumed fastest get the most read-ahead.
+ * <p>
+ * The pool is not thread-safe. All views sharing it must be consumed by the same thread, as is the case for
+ * the inputs of a merge.
+ */
+public final class ReadAheadSegmentPool
+{
+	private final ArrayDeque<MemorySegment> segments;
+	
+	
+	public ReadAheadSegmentPool()
+	{
+		this.segments = new ArrayDeque<MemorySegment>();
+	}
+	
+	public ReadAheadSegmentPool(Collection<MemorySegment> segments)
+	{
+		this.segments = new ArrayDeque<MemorySegment>(segments);
+	}
+	
+	// --------------------------------------------------------------------------------------------
+	
+	/**
+	 * Moves up to the given number of segments from the pool into the given list.
+	 * 
+	 * @param target The list to add the segments to.
+	 * @param num The maximal number of segments to take.
+	 * @return The number of segments that were taken.
+	 */
+	public int take(List<MemorySegment> target, int num)
+	{
+		int taken = 0;
+		while (taken < num && !this.segments.isEmpty()) {
+			target.add(this.segments.poll());
+			taken++;
+		}
+		return taken;
+	}
+	
+	/**
+	 * Returns a segment to the pool.
+	 * 
+	 * @param segment The segment to return.
+	 */
+	public void release(MemorySegment segment)
+	{
+		this.segments.add(segment);
+	}
+	
+	/**
+	 * Adds the given segments to the pool.
+	 * 
+	 * @param segments The segments to add.
+	 */
+	public void releaseAll(Collection<MemorySegment> segments)
+	{
+		this.segments.addAll(segments);
+	}
+	
+	/**
+	 * Gets the number of segments currently in the pool.
+	 * 
+	 * @return The number of segments in the pool.
+	 */
+	public int size()
+	{
+		return this.segments.size();
+	}
+}
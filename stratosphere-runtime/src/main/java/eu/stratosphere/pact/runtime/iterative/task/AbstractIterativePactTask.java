@@ -167,6 +167,11 @@ public abstract class AbstractIterativePactTask<S extends Function, OT> extends
 		return this.superstepNum;
 	}
 
+	@Override
+	protected int getBroadcastVariableSuperstep() {
+		return currentIteration();
+	}
+
 	protected void incrementIterationCounter() {
 		this.superstepNum++;
 	}
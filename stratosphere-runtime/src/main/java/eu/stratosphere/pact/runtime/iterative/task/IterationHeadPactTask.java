@@ -25,6 +25,8 @@ import eu.stratosphere.api.common.typeutils.TypeComparator;
 import eu.stratosphere.api.common.typeutils.TypeComparatorFactory;
 import eu.stratosphere.api.common.typeutils.TypeSerializer;
 import eu.stratosphere.api.common.typeutils.TypeSerializerFactory;
+import eu.stratosphere.configuration.ConfigConstants;
+import eu.stratosphere.configuration.GlobalConfiguration;
 import eu.stratosphere.core.io.IOReadableWritable;
 import eu.stratosphere.core.memory.DataInputView;
 import eu.stratosphere.core.memory.MemorySegment;
@@ -166,7 +168,11 @@ public class IterationHeadPactTask<X, Y, S extends Function, OT> extends Abstrac
 		try {
 			int numPages = getMemoryManager().computeNumberOfPages(hashjoinMemorySize);
 			memSegments = getMemoryManager().allocatePages(getOwningNepheleTask(), numPages);
-			hashTable = new CompactingHashTable<BT>(solutionTypeSerializer, solutionTypeComparator, memSegments);
+			
+			final boolean spilling = GlobalConfiguration.getBoolean(ConfigConstants.SOLUTION_SET_SPILLING_KEY,
+				ConfigConstants.DEFAULT_SOLUTION_SET_SPILLING);
+			hashTable = new CompactingHashTable<BT>(solutionTypeSerializer, solutionTypeComparator, memSegments,
+				spilling ? getIOManager() : null);
 			success = true;
 			return hashTable;
 		} finally {
@@ -0,0 +1,95 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2013 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+
+package eu.stratosphere.pact.runtime.shipping;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+import eu.stratosphere.core.memory.MemorySegment;
+import eu.stratosphere.nephele.event.task.AbstractTaskEvent;
+import eu.stratosphere.pact.runtime.util.BloomFilter;
+
+/**
+ * Event that carries a bloom filter over the join keys of a hash join's build side to the tasks producing the
+ * probe side. The producers use the filter to drop records that are sent to the join task that published
+ * the event and cannot find a join partner there.
+ * <p>
+ * The filter is built over the hash codes that the key comparator computes on the records, which are the same
+ * hash codes the producers use to partition the probe side.
+ */
+public class JoinFilterEvent extends AbstractTaskEvent {
+
+	private int senderIndex;
+
+	private int numHashFunctions;
+
+	private byte[] bits;
+
+	/**
+	 * Default constructor for deserialization.
+	 */
+	public JoinFilterEvent() {}
+
+	/**
+	 * Creates a new event carrying the given filter bits.
+	 *
+	 * @param senderIndex The index of the join task in its subtask group, which is the channel index under which
+	 *                    the producers send records to that task.
+	 * @param numHashFunctions The number of hash functions of the filter.
+	 * @param bits The bits of the filter.
+	 */
+	public JoinFilterEvent(int senderIndex, int numHashFunctions, byte[] bits) {
+		if (bits == null || bits.length == 0) {
+			throw new IllegalArgumentException("The filter bits must not be empty.");
+		}
+		this.senderIndex = senderIndex;
+		this.numHashFunctions = numHashFunctions;
+		this.bits = bits;
+	}
+
+	// --------------------------------------------------------------------------------------------
+
+	public int getSenderIndex() {
+		return this.senderIndex;
+	}
+
+	/**
+	 * Creates a bloom filter that works on the bits carried by this event.
+	 *
+	 * @return The bloom filter.
+	 */
+	public BloomFilter getFilter() {
+		return BloomFilter.wrap(new MemorySegment(this.bits), 0, this.bits.length, this.numHashFunctions);
+	}
+
+	// --------------------------------------------------------------------------------------------
+
+	@Override
+	public void write(DataOutput out) throws IOException {
+		out.writeInt(this.senderIndex);
+		out.writeInt(this.numHashFunctions);
+		out.writeInt(this.bits.length);
+		out.write(this.bits);
+	}
+
+	@Override
+	public void read(DataInput in) throws IOException {
+		this.senderIndex = in.readInt();
+		this.numHashFunctions = in.readInt();
+		this.bits = new byte[in.readInt()];
+		in.readFully(this.bits);
+	}
+}
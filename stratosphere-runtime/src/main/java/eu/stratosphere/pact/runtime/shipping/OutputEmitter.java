@@ -15,11 +15,16 @@ package eu.stratosphere.pact.runtime.shipping;
 
 import eu.stratosphere.api.common.distributions.DataDistribution;
 import eu.stratosphere.api.common.typeutils.TypeComparator;
+import eu.stratosphere.nephele.event.task.AbstractTaskEvent;
+import eu.stratosphere.nephele.event.task.EventListener;
 import eu.stratosphere.nephele.io.ChannelSelector;
 import eu.stratosphere.pact.runtime.plugable.SerializationDelegate;
+import eu.stratosphere.pact.runtime.util.BloomFilter;
 
 
-public class OutputEmitter<T> implements ChannelSelector<SerializationDelegate<T>> {
+public class OutputEmitter<T> implements ChannelSelector<SerializationDelegate<T>>, EventListener {
+	
+	private static final int[] NO_CHANNELS = new int[0];
 	
 	private final ShipStrategyType strategy;		// the shipping strategy used by this output emitter
 	
@@ -28,6 +33,8 @@ public class OutputEmitter<T> implements ChannelSelector<SerializationDelegate<T
 	private int nextChannelToSendTo = 0;		// counter to go over channels round robin
 	
 	private final TypeComparator<T> comparator;	// the comparator for hashing / sorting
+	
+	private volatile BloomFilter[] joinFilters;	// the join filters published by the receivers, per channel
 
 	// ------------------------------------------------------------------------
 	// Constructors
@@ -117,6 +124,33 @@ public class OutputEmitter<T> implements ChannelSelector<SerializationDelegate<T
 	
 	// --------------------------------------------------------------------------------------------
 
+	/**
+	 * Receives the {@link JoinFilterEvent}s published by the receivers of a hash partitioned output. Records
+	 * that are hash partitioned to a receiver which published a filter are dropped, if the filter reports
+	 * that the receiver has no join partner for them.
+	 * <p>
+	 * The events are delivered by the network threads, concurrently to the selection of channels.
+	 */
+	@Override
+	public void eventOccurred(AbstractTaskEvent event) {
+		if (event instanceof JoinFilterEvent && this.strategy == ShipStrategyType.PARTITION_HASH) {
+			final JoinFilterEvent filterEvent = (JoinFilterEvent) event;
+			final int channel = filterEvent.getSenderIndex();
+			
+			synchronized (this) {
+				final BloomFilter[] current = this.joinFilters;
+				final BloomFilter[] filters = new BloomFilter[Math.max(channel + 1, current == null ? 0 : current.length)];
+				if (current != null) {
+					System.arraycopy(current, 0, filters, 0, current.length);
+				}
+				filters[channel] = filterEvent.getFilter();
+				this.joinFilters = filters;
+			}
+		}
+	}
+	
+	// --------------------------------------------------------------------------------------------
+
 	private final int[] robin(int numberOfChannels) {
 		if (this.channels == null || this.channels.length != 1) {
 			this.channels = new int[1];
@@ -157,6 +191,14 @@ public class OutputEmitter<T> implements ChannelSelector<SerializationDelegate<T
 		} else {
 			this.channels[0] = hash % numberOfChannels;
 		}
+		
+		final BloomFilter[] filters = this.joinFilters;
+		if (filters != null) {
+			final int channel = this.channels[0];
+			if (channel < filters.length && filters[channel] != null && !filters[channel].testHash(hash)) {
+				return NO_CHANNELS;
+			}
+		}
 		return this.channels;
 	}
 	
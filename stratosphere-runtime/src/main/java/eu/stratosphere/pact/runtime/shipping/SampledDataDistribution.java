@@ -0,0 +1,156 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2013 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.pact.runtime.shipping;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Iterator;
+
+import eu.stratosphere.api.common.distributions.DataDistribution;
+import eu.stratosphere.pact.runtime.task.RegularPactTask;
+import eu.stratosphere.types.Key;
+import eu.stratosphere.types.Record;
+
+/**
+ * A data distribution whose bucket boundaries are not known when the job is compiled, but are determined at
+ * runtime from a sample of the data. The compiler uses this distribution for range partitionings for which the
+ * program gives no distribution. The boundaries arrive at the partitioning task as a broadcast variable that
+ * holds one record per boundary, in the order of the partitioning. Because the output emitters request the
+ * boundaries only when they partition the first record, the broadcast variable is read before any boundary is
+ * needed.
+ */
+public class SampledDataDistribution implements DataDistribution {
+	
+	private static final long serialVersionUID = 1L;
+	
+	private String broadcastVariableName;
+	
+	private int[] keyPositions;
+	
+	private String[] keyTypeNames;
+	
+	private transient RegularPactTask<?, ?> task;
+	
+	private transient Key<?>[][] boundaries;
+	
+	
+	public SampledDataDistribution() {}
+	
+	public SampledDataDistribution(String broadcastVariableName, int[] keyPositions, Class<? extends Key<?>>[] keyTypes) {
+		if (broadcastVariableName == null || keyPositions == null || keyTypes == null) {
+			throw new NullPointerException();
+		}
+		if (keyPositions.length == 0 || keyPositions.length != keyTypes.length) {
+			throw new IllegalArgumentException("The key positions and types must describe at least one field.");
+		}
+		
+		this.broadcastVariableName = broadcastVariableName;
+		this.keyPositions = keyPositions;
+		this.keyTypeNames = new String[keyTypes.length];
+		for (int i = 0; i < keyTypes.length; i++) {
+			this.keyTypeNames[i] = keyTypes[i].getName();
+		}
+	}
+	
+	// --------------------------------------------------------------------------------------------
+	
+	/**
+	 * Binds this distribution to the task that partitions the data. The boundaries are taken from the task's
+	 * broadcast variable, and the key types are loaded through the task's user code class loader.
+	 * 
+	 * @param task The task that holds the broadcast variable with the boundaries.
+	 */
+	public void bind(RegularPactTask<?, ?> task) {
+		this.task = task;
+		this.boundaries = null;
+	}
+	
+	public String getBroadcastVariableName() {
+		return this.broadcastVariableName;
+	}
+
+	@Override
+	public Key<?>[] getBucketBoundary(int bucketNum, int totalNumBuckets) {
+		if (this.boundaries == null) {
+			if (this.task == null || this.task.getRuntimeContext() == null) {
+				throw new IllegalStateException("The sampled data distribution has not been bound to a task.");
+			}
+			this.boundaries = extractBoundaries(this.task.getRuntimeContext().<Record>getBroadcastVariable(
+				this.broadcastVariableName), this.task.getUserCodeClassLoader());
+		}
+		
+		if (totalNumBuckets != this.boundaries.length + 1) {
+			throw new IllegalStateException("The sample provided " + this.boundaries.length + " boundaries, but " +
+					(totalNumBuckets - 1) + " are required.");
+		}
+		return this.boundaries[bucketNum];
+	}
+
+	@Override
+	public int getNumberOfFields() {
+		return this.keyPositions.length;
+	}
+	
+	private Key<?>[][] extractBoundaries(Collection<Record> records, ClassLoader cl) {
+		@SuppressWarnings("unchecked")
+		final Class<? extends Key<?>>[] keyTypes = new Class[this.keyTypeNames.length];
+		for (int i = 0; i < keyTypes.length; i++) {
+			try {
+				@SuppressWarnings("unchecked")
+				final Class<? extends Key<?>> keyType = (Class<? extends Key<?>>) Class.forName(this.keyTypeNames[i], true, cl).asSubclass(Key.class);
+				keyTypes[i] = keyType;
+			} catch (ClassNotFoundException cnfex) {
+				throw new RuntimeException("Could not load key type '" + this.keyTypeNames[i] + "'.", cnfex);
+			}
+		}
+		
+		final Key<?>[][] boundaries = new Key[records.size()][];
+		final Iterator<Record> recordIter = records.iterator();
+		for (int i = 0; i < boundaries.length; i++) {
+			final Record record = recordIter.next();
+			final Key<?>[] keys = new Key[keyTypes.length];
+			for (int k = 0; k < keys.length; k++) {
+				keys[k] = record.getField(this.keyPositions[k], keyTypes[k]);
+			}
+			boundaries[i] = keys;
+		}
+		return boundaries;
+	}
+	
+	// --------------------------------------------------------------------------------------------
+
+	@Override
+	public void write(DataOutput out) throws IOException {
+		out.writeUTF(this.broadcastVariableName);
+		out.writeInt(this.keyPositions.length);
+		for (int i = 0; i < this.keyPositions.length; i++) {
+			out.writeInt(this.keyPositions[i]);
+			out.writeUTF(this.keyTypeNames[i]);
+		}
+	}
+
+	@Override
+	public void read(DataInput in) throws IOException {
+		this.broadcastVariableName = in.readUTF();
+		final int numFields = in.readInt();
+		this.keyPositions = new int[numFields];
+		this.keyTypeNames = new String[numFields];
+		for (int i = 0; i < numFields; i++) {
+			this.keyPositions[i] = in.readInt();
+			this.keyTypeNames[i] = in.readUTF();
+		}
+	}
+}
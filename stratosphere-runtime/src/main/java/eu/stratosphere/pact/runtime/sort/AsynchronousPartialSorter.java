@@ -65,7 +65,7 @@ public class AsynchronousPartialSorter<E> extends UnilateralSortMerger<E> {
 		super(memoryManager, null, input, parentTask, serializerFactory, comparator, totalMemory,
 			totalMemory < 2 * MIN_NUM_SORT_MEM_SEGMENTS * memoryManager.getPageSize() ? 1 : 
 				Math.max((int) Math.ceil(((double) totalMemory) / MAX_MEM_PER_PARTIAL_SORT), 2),
-			2, 0.0f, true);
+			1, 2, 0.0f, true);
 	}
 	
 
@@ -144,9 +144,43 @@ public class CombiningUnilateralSortMerger<E> extends UnilateralSortMerger<E> {
 			long totalMemory, int numSortBuffers, int maxNumFileHandles, 
 			float startSpillingFraction)
 	throws IOException, MemoryAllocationException
+	{
+		this(combineStub, memoryManager, ioManager, input, parentTask, serializerFactory, comparator,
+			totalMemory, numSortBuffers, 1, maxNumFileHandles, startSpillingFraction);
+	}
+	
+	/**
+	 * Creates a new sorter that reads the data from a given reader and provides an iterator returning that
+	 * data in a sorted manner. The memory is divided among sort buffers, write buffers and read buffers
+	 * automatically. If more than one sort thread is used, several filled buffers are sorted concurrently.
+	 * 
+	 * @param combineStub The stub used to combine values with the same key.
+	 * @param memoryManager The memory manager from which to allocate the memory.
+	 * @param ioManager The I/O manager, which is used to write temporary files to disk.
+	 * @param input The input that is sorted by this sorter.
+	 * @param parentTask The parent task, which owns all resources used by this sorter.
+	 * @param serializerFactory The type serializer.
+	 * @param comparator The type comparator establishing the order relation.
+	 * @param totalMemory The total amount of memory dedicated to sorting, merging and I/O.
+	 * @param numSortBuffers The number of distinct buffers to use creation of the initial runs.
+	 * @param numSortThreads The number of threads that sort the buffers.
+	 * @param maxNumFileHandles The maximum number of files to be merged at once.
+	 * @param startSpillingFraction The faction of the buffers that have to be filled before the spilling thread
+	 *                              actually begins spilling data to disk.
+	 * 
+	 * @throws IOException Thrown, if an error occurs initializing the resources for external sorting.
+	 * @throws MemoryAllocationException Thrown, if not enough memory can be obtained from the memory manager to
+	 *                                   perform the sort.
+	 */
+	public CombiningUnilateralSortMerger(GenericCombine<E> combineStub, MemoryManager memoryManager, IOManager ioManager,
+			MutableObjectIterator<E> input, AbstractInvokable parentTask, 
+			TypeSerializerFactory<E> serializerFactory, TypeComparator<E> comparator,
+			long totalMemory, int numSortBuffers, int numSortThreads, int maxNumFileHandles, 
+			float startSpillingFraction)
+	throws IOException, MemoryAllocationException
 	{
 		super(memoryManager, ioManager, input, parentTask, serializerFactory, comparator,
-			totalMemory, numSortBuffers, maxNumFileHandles, startSpillingFraction, false);
+			totalMemory, numSortBuffers, numSortThreads, maxNumFileHandles, startSpillingFraction, false);
 		
 		this.combineStub = combineStub;
 	}
@@ -311,7 +345,7 @@ public class CombiningUnilateralSortMerger<E> extends UnilateralSortMerger<E> {
 																channel, this.numWriteBuffersToCluster);
 				registerOpenChannelToBeRemovedAtShudown(writer);
 				final ChannelWriterOutputView output = new ChannelWriterOutputView(writer, this.writeMemory,
-																			this.memManager.getPageSize());
+																			this.memManager.getPageSize(), this.ioManager.getSpillCompressionCodec());
 
 				// write sort-buffer to channel
 				if (LOG.isDebugEnabled()) {
@@ -468,7 +502,7 @@ public class CombiningUnilateralSortMerger<E> extends UnilateralSortMerger<E> {
 															mergedChannelID, this.numWriteBuffersToCluster);
 			registerOpenChannelToBeRemovedAtShudown(writer);
 			final ChannelWriterOutputView output = new ChannelWriterOutputView(writer, writeBuffers, 
-																			this.memManager.getPageSize());
+																			this.memManager.getPageSize(), this.ioManager.getSpillCompressionCodec());
 			
 			final WriterCollector<E> collector = new WriterCollector<E>(output, this.serializer);
 			final GenericCombine<E> combineStub = CombiningUnilateralSortMerger.this.combineStub;
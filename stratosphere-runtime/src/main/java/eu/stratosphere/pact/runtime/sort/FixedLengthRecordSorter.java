@@ -29,7 +29,7 @@ import eu.stratosphere.util.MutableObjectIterator;
 /**
  * 
  */
-public final class FixedLengthRecordSorter<T> implements InMemorySorter<T> {
+public final class FixedLengthRecordSorter<T> implements InMemorySorter<T>, NormalizedKeySortable {
 	
 	private static final int MIN_REQUIRED_BUFFERS = 3;
 
@@ -303,6 +303,28 @@ public final class FixedLengthRecordSorter<T> implements InMemorySorter<T> {
 	public int size() {
 		return this.numRecords;
 	}
+	
+	@Override
+	public int getNormalizedKeyLength() {
+		return this.numKeyBytes;
+	}
+	
+	/**
+	 * Always true, because this sorter orders the records by their normalized keys only.
+	 */
+	@Override
+	public boolean isNormalizedKeyFullyDetermining() {
+		return true;
+	}
+	
+	@Override
+	public int getNormalizedKeyByte(int i, int byteIndex) {
+		final int bufferNum = i / this.recordsPerSegment;
+		final int segmentOffset = (i % this.recordsPerSegment) * this.recordSize;
+		
+		final int b = this.sortBuffer.get(bufferNum).get(segmentOffset + byteIndex) & 0xff;
+		return this.useNormKeyUninverted ? b : 0xff - b;
+	}
 
 	// -------------------------------------------------------------------------
 	
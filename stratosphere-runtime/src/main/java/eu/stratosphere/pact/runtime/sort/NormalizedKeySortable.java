@@ -0,0 +1,47 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2013 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.pact.runtime.sort;
+
+/**
+ * An {@link IndexedSortable} whose elements carry a binary normalized key, which allows sorting them by the
+ * bytes of the key, for example with a {@link RadixSort}.
+ */
+public interface NormalizedKeySortable extends IndexedSortable {
+
+	/**
+	 * Gets the number of bytes of the normalized key of each element.
+	 * 
+	 * @return The length of the normalized key, in bytes. Zero, if the elements have no normalized key.
+	 */
+	int getNormalizedKeyLength();
+
+	/**
+	 * Checks whether the normalized keys fully determine the order of the elements. If not, elements with
+	 * equal normalized keys must be ordered through {@link #compare(int, int)}.
+	 * 
+	 * @return True, if the normalized keys fully determine the order, false otherwise.
+	 */
+	boolean isNormalizedKeyFullyDetermining();
+
+	/**
+	 * Gets a byte of the normalized key of the element at the given position. The byte is returned as an
+	 * unsigned value, such that ordering the elements by their key bytes in ascending order yields the
+	 * order established by {@link #compare(int, int)}. Any inversion of the key is already applied.
+	 * 
+	 * @param i The position of the element.
+	 * @param byteIndex The index of the byte within the normalized key.
+	 * @return The key byte, as a value between 0 and 255.
+	 */
+	int getNormalizedKeyByte(int i, int byteIndex);
+}
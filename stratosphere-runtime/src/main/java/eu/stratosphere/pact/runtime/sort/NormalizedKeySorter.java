@@ -30,7 +30,7 @@ import eu.stratosphere.util.MutableObjectIterator;
 /**
  * 
  */
-public final class NormalizedKeySorter<T> implements InMemorySorter<T>
+public final class NormalizedKeySorter<T> implements InMemorySorter<T>, NormalizedKeySortable
 {
 	private static final int OFFSET_LEN = 8;
 	
@@ -372,6 +372,25 @@ public final class NormalizedKeySorter<T> implements InMemorySorter<T>
 	public int size() {
 		return this.numRecords;
 	}
+	
+	@Override
+	public int getNormalizedKeyLength() {
+		return this.numKeyBytes;
+	}
+	
+	@Override
+	public boolean isNormalizedKeyFullyDetermining() {
+		return this.normalizedKeyFullyDetermines;
+	}
+	
+	@Override
+	public int getNormalizedKeyByte(int i, int byteIndex) {
+		final int bufferNum = i / this.indexEntriesPerSegment;
+		final int segmentOffset = (i % this.indexEntriesPerSegment) * this.indexEntrySize;
+		
+		final int b = this.sortIndex.get(bufferNum).get(segmentOffset + OFFSET_LEN + byteIndex) & 0xff;
+		return this.useNormKeyUninverted ? b : 0xff - b;
+	}
 
 	// -------------------------------------------------------------------------
 	
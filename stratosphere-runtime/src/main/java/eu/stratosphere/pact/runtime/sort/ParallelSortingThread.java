@@ -0,0 +1,176 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2013 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+
+package eu.stratosphere.pact.runtime.sort;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import eu.stratosphere.nephele.template.AbstractInvokable;
+import eu.stratosphere.pact.runtime.sort.UnilateralSortMerger.CircularElement;
+import eu.stratosphere.pact.runtime.sort.UnilateralSortMerger.CircularQueues;
+import eu.stratosphere.pact.runtime.sort.UnilateralSortMerger.ThreadBase;
+
+/**
+ * The thread that sorts filled buffers with several worker threads. The thread takes the buffers from the
+ * sort queue and hands them to the workers, such that multiple buffers are sorted concurrently. The sorted
+ * buffers and the markers are passed on to the spilling thread in the order in which they were taken from
+ * the sort queue, because the spilling thread relies on all buffers preceding the markers.
+ */
+final class ParallelSortingThread<E> extends ThreadBase<E> {
+	
+	private static final Log LOG = LogFactory.getLog(ParallelSortingThread.class);
+	
+	private final IndexedSorter sorter;
+	
+	private final IndexedSorter radixSorter;
+	
+	private final ExecutorService workers;
+	
+	private final Map<Long, CircularElement<E>> finished;	// the finished elements, waiting for their predecessors
+	
+	private long nextToForward;								// the sequence number of the next element to forward
+
+	/**
+	 * Creates a new parallel sorting thread.
+	 * 
+	 * @param exceptionHandler The exception handler to call for all exceptions.
+	 * @param queues The queues used to pass buffers between the threads.
+	 * @param parentTask The task that started this thread. If non-null, it is used to register this thread.
+	 * @param numWorkers The number of threads that sort buffers concurrently.
+	 */
+	public ParallelSortingThread(ExceptionHandler<IOException> exceptionHandler, CircularQueues<E> queues,
+			AbstractInvokable parentTask, int numWorkers)
+	{
+		super(exceptionHandler, "SortMerger sorting thread", queues, parentTask);
+		
+		// members
+		this.sorter = new QuickSort();
+		this.radixSorter = new RadixSort();
+		this.finished = new HashMap<Long, CircularElement<E>>();
+		this.workers = Executors.newFixedThreadPool(numWorkers, new ThreadFactory() {
+			
+			private int num;
+			
+			@Override
+			public Thread newThread(Runnable r) {
+				final Thread t = new Thread(r, "SortMerger sorting worker " + (++this.num));
+				t.setDaemon(true);
+				t.setUncaughtExceptionHandler(ParallelSortingThread.this);
+				return t;
+			}
+		});
+	}
+
+	/**
+	 * Entry point of the thread.
+	 */
+	public void go() throws IOException
+	{
+		long sequenceNumber = 0;
+		boolean alive = true;
+		
+		try {
+			// loop as long as the thread is marked alive
+			while (isRunning() && alive) {
+				final CircularElement<E> element;
+				try {
+					element = this.queues.sort.take();
+				}
+				catch (InterruptedException iex) {
+					if (isRunning()) {
+						if (LOG.isErrorEnabled()) {
+							LOG.error(
+								"Sorting thread was interrupted (without being shut down) while grabbing a buffer. " +
+								"Retrying to grab buffer...");
+						}
+						continue;
+					}
+					else {
+						return;
+					}
+				}
+				
+				final long seq = sequenceNumber++;
+				
+				if (element != UnilateralSortMerger.<E>endMarker() && element != UnilateralSortMerger.<E>spillingMarker()) {
+					this.workers.execute(new Runnable() {
+						@Override
+						public void run() {
+							if (LOG.isDebugEnabled()) {
+								LOG.debug("Sorting buffer " + element.id + ".");
+							}
+							
+							if (RadixSort.isApplicable(element.buffer)) {
+								ParallelSortingThread.this.radixSorter.sort(element.buffer);
+							} else {
+								ParallelSortingThread.this.sorter.sort(element.buffer);
+							}
+							
+							if (LOG.isDebugEnabled()) {
+								LOG.debug("Sorted buffer " + element.id + ".");
+							}
+							forward(seq, element);
+						}
+					});
+				}
+				else {
+					if (element == UnilateralSortMerger.<E>endMarker()) {
+						if (LOG.isDebugEnabled()) {
+							LOG.debug("Sorting thread done.");
+						}
+						alive = false;
+					}
+					forward(seq, element);
+				}
+			}
+		}
+		finally {
+			// let the workers finish the buffers they are working on
+			this.workers.shutdown();
+		}
+	}
+	
+	/**
+	 * Passes the given element on to the spilling thread, after all elements with lower sequence
+	 * numbers have been passed on.
+	 * 
+	 * @param seq The sequence number of the element.
+	 * @param element The element to pass on.
+	 */
+	private void forward(long seq, CircularElement<E> element) {
+		synchronized (this.finished) {
+			this.finished.put(seq, element);
+			
+			CircularElement<E> next;
+			while ((next = this.finished.remove(this.nextToForward)) != null) {
+				this.queues.spill.add(next);
+				this.nextToForward++;
+			}
+		}
+	}
+	
+	@Override
+	public void shutdown() {
+		super.shutdown();
+		this.workers.shutdownNow();
+	}
+}
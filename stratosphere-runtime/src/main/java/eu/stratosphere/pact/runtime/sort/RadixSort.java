@@ -0,0 +1,145 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2013 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.pact.runtime.sort;
+
+/**
+ * A most-significant-digit radix sort over the bytes of the normalized keys of a {@link NormalizedKeySortable}.
+ * The sort distributes the elements in place into one bucket per key byte value (American flag sort), using
+ * only the swap operation of the sortable, and recurses into the buckets with the next key byte. Small buckets
+ * and buckets whose keys are exhausted without fully determining the order are sorted with {@link QuickSort}.
+ * <p>
+ * For keys that are fully normalized, such as integer keys, the sort needs no comparisons at all and touches
+ * every element only a few times per key byte. Sortables that do not have normalized keys are sorted with
+ * {@link QuickSort} entirely.
+ * <p>
+ * The sorter keeps no state between calls, so a single instance may be used by several threads concurrently.
+ */
+public final class RadixSort implements IndexedSorter {
+
+	/**
+	 * Ranges with fewer elements than this are handed to the comparison based sort.
+	 */
+	private static final int SMALL_RANGE_THRESHOLD = 64;
+
+	private static final int NUM_BUCKETS = 256;
+
+	private static final IndexedSorter fallback = new QuickSort();
+
+	public RadixSort() {
+	}
+
+	/**
+	 * Checks whether the given sortable can be sorted without any comparison, by the bytes of its normalized keys.
+	 * 
+	 * @param s The sortable to check.
+	 * @return True, if the sortable has normalized keys that fully determine the order, false otherwise.
+	 */
+	public static boolean isApplicable(IndexedSortable s) {
+		if (s instanceof NormalizedKeySortable) {
+			final NormalizedKeySortable nks = (NormalizedKeySortable) s;
+			return nks.getNormalizedKeyLength() > 0 && nks.isNormalizedKeyFullyDetermining();
+		} else {
+			return false;
+		}
+	}
+
+	@Override
+	public void sort(IndexedSortable s, int l, int r) {
+		if (!(s instanceof NormalizedKeySortable) || ((NormalizedKeySortable) s).getNormalizedKeyLength() <= 0) {
+			fallback.sort(s, l, r);
+			return;
+		}
+
+		final NormalizedKeySortable nks = (NormalizedKeySortable) s;
+		final int keyLen = nks.getNormalizedKeyLength();
+
+		// one array of bucket boundaries per key byte, plus the fill pointers that are only used while distributing
+		final int[][] bucketBounds = new int[keyLen][NUM_BUCKETS + 1];
+		final int[] next = new int[NUM_BUCKETS];
+
+		sortInternal(nks, l, r, 0, keyLen, nks.isNormalizedKeyFullyDetermining(), bucketBounds, next);
+	}
+
+	@Override
+	public void sort(IndexedSortable s) {
+		sort(s, 0, s.size());
+	}
+
+	private static void sortInternal(NormalizedKeySortable s, int l, int r, int keyByte, int keyLen,
+			boolean fullyDetermining, int[][] bucketBounds, int[] next)
+	{
+		// skip the key bytes in which all elements of the range are equal
+		int[] bounds;
+		while (true) {
+			if (keyByte >= keyLen) {
+				// the key is exhausted. all elements have the same normalized key
+				if (!fullyDetermining) {
+					fallback.sort(s, l, r);
+				}
+				return;
+			}
+			if (r - l < SMALL_RANGE_THRESHOLD) {
+				fallback.sort(s, l, r);
+				return;
+			}
+
+			// count the occurrences of each byte value
+			bounds = bucketBounds[keyByte];
+			for (int b = 0; b <= NUM_BUCKETS; b++) {
+				bounds[b] = 0;
+			}
+			for (int i = l; i < r; i++) {
+				bounds[s.getNormalizedKeyByte(i, keyByte) + 1]++;
+			}
+			if (bounds[s.getNormalizedKeyByte(l, keyByte) + 1] == r - l) {
+				keyByte++;
+			} else {
+				break;
+			}
+		}
+
+		// turn the counts into bucket boundaries
+		bounds[0] = l;
+		for (int b = 1; b <= NUM_BUCKETS; b++) {
+			bounds[b] += bounds[b - 1];
+		}
+		for (int b = 0; b < NUM_BUCKETS; b++) {
+			next[b] = bounds[b];
+		}
+
+		// distribute the elements: swap each element into the next free slot of its bucket
+		for (int b = 0; b < NUM_BUCKETS; b++) {
+			final int end = bounds[b + 1];
+			int i = next[b];
+			while (i < end) {
+				final int v = s.getNormalizedKeyByte(i, keyByte);
+				if (v == b) {
+					i++;
+				} else {
+					s.swap(i, next[v]++);
+				}
+			}
+			next[b] = end;
+		}
+
+		// recurse into the buckets with the next key byte
+		for (int b = 0; b < NUM_BUCKETS; b++) {
+			final int start = bounds[b];
+			final int end = bounds[b + 1];
+			if (end - start > 1) {
+				sortInternal(s, start, end, keyByte + 1, keyLen, fullyDetermining, bucketBounds, next);
+			}
+		}
+	}
+}
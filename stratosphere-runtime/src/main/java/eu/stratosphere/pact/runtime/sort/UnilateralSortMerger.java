@@ -17,6 +17,8 @@ import java.io.File;
 import java.io.IOException;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
@@ -44,6 +46,8 @@ import eu.stratosphere.nephele.services.memorymanager.MemoryAllocationException;
 import eu.stratosphere.nephele.services.memorymanager.MemoryManager;
 import eu.stratosphere.nephele.template.AbstractInvokable;
 import eu.stratosphere.pact.runtime.io.ChannelReaderInputViewIterator;
+import eu.stratosphere.pact.runtime.io.PrefetchingChannelReaderInputView;
+import eu.stratosphere.pact.runtime.io.ReadAheadSegmentPool;
 import eu.stratosphere.pact.runtime.util.EmptyMutableObjectIterator;
 import eu.stratosphere.util.Collector;
 import eu.stratosphere.util.MutableObjectIterator;
@@ -98,6 +102,11 @@ public class UnilateralSortMerger<E> implements Sorter<E> {
 	 * The thread that merges the buffer handed from the reading thread.
 	 */
 	private final ThreadBase<E> sortThread;
+	
+	/**
+	 * The number of threads that sort the buffers concurrently.
+	 */
+	protected final int numSortThreads;
 
 	/**
 	 * The thread that handles spilling to secondary storage.
@@ -222,7 +231,40 @@ public class UnilateralSortMerger<E> implements Sorter<E> {
 	throws IOException, MemoryAllocationException
 	{
 		this(memoryManager, ioManager, input, parentTask, serializerFactory, comparator,
-			totalMemory, numSortBuffers, maxNumFileHandles, startSpillingFraction, false);
+			totalMemory, numSortBuffers, 1, maxNumFileHandles, startSpillingFraction, false);
+	}
+	
+	/**
+	 * Creates a new sorter that reads the data from a given reader and provides an iterator returning that
+	 * data in a sorted manner. The memory is divided among sort buffers, write buffers and read buffers
+	 * automatically. If more than one sort thread is used, several filled buffers are sorted concurrently.
+	 * 
+	 * @param memoryManager The memory manager from which to allocate the memory.
+	 * @param ioManager The I/O manager, which is used to write temporary files to disk.
+	 * @param input The input that is sorted by this sorter.
+	 * @param parentTask The parent task, which owns all resources used by this sorter.
+	 * @param serializerFactory The type serializer.
+	 * @param comparator The type comparator establishing the order relation.
+	 * @param totalMemory The total amount of memory dedicated to sorting, merging and I/O.
+	 * @param numSortBuffers The number of distinct buffers to use creation of the initial runs.
+	 * @param numSortThreads The number of threads that sort the buffers.
+	 * @param maxNumFileHandles The maximum number of files to be merged at once.
+	 * @param startSpillingFraction The faction of the buffers that have to be filled before the spilling thread
+	 *                              actually begins spilling data to disk.
+	 * 
+	 * @throws IOException Thrown, if an error occurs initializing the resources for external sorting.
+	 * @throws MemoryAllocationException Thrown, if not enough memory can be obtained from the memory manager to
+	 *                                   perform the sort.
+	 */
+	public UnilateralSortMerger(MemoryManager memoryManager, IOManager ioManager,
+			MutableObjectIterator<E> input, AbstractInvokable parentTask, 
+			TypeSerializerFactory<E> serializerFactory, TypeComparator<E> comparator,
+			long totalMemory, int numSortBuffers, int numSortThreads, int maxNumFileHandles, 
+			float startSpillingFraction)
+	throws IOException, MemoryAllocationException
+	{
+		this(memoryManager, ioManager, input, parentTask, serializerFactory, comparator,
+			totalMemory, numSortBuffers, numSortThreads, maxNumFileHandles, startSpillingFraction, false);
 	}
 	
 	/**
@@ -236,6 +278,7 @@ public class UnilateralSortMerger<E> implements Sorter<E> {
 	 * @param comparator The type comparator establishing the order relation.
 	 * @param totalMemory The total amount of memory dedicated to sorting, merging and I/O.
 	 * @param numSortBuffers The number of distinct buffers to use creation of the initial runs.
+	 * @param numSortThreads The number of threads that sort the buffers.
 	 * @param maxNumFileHandles The maximum number of files to be merged at once.
 	 * @param startSpillingFraction The faction of the buffers that have to be filled before the spilling thread
 	 *                              actually begins spilling data to disk.
@@ -249,7 +292,7 @@ public class UnilateralSortMerger<E> implements Sorter<E> {
 	protected UnilateralSortMerger(MemoryManager memoryManager, IOManager ioManager,
 			MutableObjectIterator<E> input, AbstractInvokable parentTask, 
 			TypeSerializerFactory<E> serializerFactory, TypeComparator<E> comparator,
-			long totalMemory, int numSortBuffers, int maxNumFileHandles, 
+			long totalMemory, int numSortBuffers, int numSortThreads, int maxNumFileHandles, 
 			float startSpillingFraction, boolean noSpillingMemory)
 	throws IOException, MemoryAllocationException
 	{
@@ -263,8 +306,12 @@ public class UnilateralSortMerger<E> implements Sorter<E> {
 		if (maxNumFileHandles < 2) {
 			throw new IllegalArgumentException("Merger cannot work with less than two file handles.");
 		}
+		if (numSortThreads < 1) {
+			throw new IllegalArgumentException("The sorter needs at least one sorting thread.");
+		}
 		
 		this.memoryManager = memoryManager;
+		this.numSortThreads = numSortThreads;
 		
 		// adjust the memory quotas to the page size
 		final int numPagesTotal = memoryManager.computeNumberOfPages(totalMemory);
@@ -319,6 +366,12 @@ public class UnilateralSortMerger<E> implements Sorter<E> {
 			else {
 				numSortBuffers = 1;
 			}
+			
+			// with several sort threads, have enough buffers to keep them busy while the input is read
+			if (numSortThreads > 1) {
+				numSortBuffers = Math.max(numSortBuffers,
+					Math.min(numSortThreads + 1, sortMemPages / MIN_NUM_SORT_MEM_SEGMENTS));
+			}
 		}
 		final int numSegmentsPerSortBuffer = sortMemPages / numSortBuffers;
 		
@@ -327,7 +380,7 @@ public class UnilateralSortMerger<E> implements Sorter<E> {
 				sortMemory + " bytes total) divided over " + numSortBuffers + " sort buffers (" + 
 				numSegmentsPerSortBuffer + " pages per buffer). Using " + numWriteBuffers + 
 				" buffers for writing sorted results and merging maximally " + maxNumFileHandles +
-				" streams at once.");
+				" streams at once. Sorting with " + numSortThreads + " thread(s).");
 		}
 		
 		this.writeMemory = new ArrayList<MemorySegment>(numWriteBuffers);
@@ -581,7 +634,11 @@ public class UnilateralSortMerger<E> implements Sorter<E> {
 	protected ThreadBase<E> getSortingThread(ExceptionHandler<IOException> exceptionHandler, CircularQueues<E> queues,
 			AbstractInvokable parentTask)
 	{
-		return new SortingThread<E>(exceptionHandler, queues, parentTask);
+		if (this.numSortThreads > 1) {
+			return new ParallelSortingThread<E>(exceptionHandler, queues, parentTask, this.numSortThreads);
+		} else {
+			return new SortingThread<E>(exceptionHandler, queues, parentTask);
+		}
 	}
 
 
@@ -1078,6 +1135,8 @@ public class UnilateralSortMerger<E> implements Sorter<E> {
 	protected static class SortingThread<E> extends ThreadBase<E> {
 		
 		private final IndexedSorter sorter;
+		
+		private final IndexedSorter radixSorter;
 
 		/**
 		 * Creates a new sorting thread.
@@ -1092,6 +1151,7 @@ public class UnilateralSortMerger<E> implements Sorter<E> {
 
 			// members
 			this.sorter = new QuickSort();
+			this.radixSorter = new RadixSort();
 		}
 
 		/**
@@ -1126,7 +1186,12 @@ public class UnilateralSortMerger<E> implements Sorter<E> {
 						LOG.debug("Sorting buffer " + element.id + ".");
 					}
 					
-					this.sorter.sort(element.buffer);
+					// buffers whose normalized keys fully determine the order are sorted without comparisons
+					if (RadixSort.isApplicable(element.buffer)) {
+						this.radixSorter.sort(element.buffer);
+					} else {
+						this.sorter.sort(element.buffer);
+					}
 					
 					if (LOG.isDebugEnabled()) {
 						LOG.debug("Sorted buffer " + element.id + ".");
@@ -1302,7 +1367,7 @@ public class UnilateralSortMerger<E> implements Sorter<E> {
 																channel, this.numWriteBuffersToCluster);
 				registerOpenChannelToBeRemovedAtShudown(writer);
 				final ChannelWriterOutputView output = new ChannelWriterOutputView(writer, this.writeMemory,
-																			this.memManager.getPageSize());
+																			this.memManager.getPageSize(), this.ioManager.getSpillCompressionCodec());
 
 				// write sort-buffer to channel
 				if (LOG.isDebugEnabled()) {
@@ -1404,6 +1469,9 @@ public class UnilateralSortMerger<E> implements Sorter<E> {
 		
 		/**
 		 * Returns an iterator that iterates over the merged result from all given channels.
+		 * <p>
+		 * Each channel keeps half of its input segments. The other halves go into a pool that is shared by all
+		 * channels, from which the channels that the merge consumes fastest borrow segments to read further ahead.
 		 * 
 		 * @param channelIDs The channels that are to be merged and returned.
 		 * @param inputSegments The buffers to be used for reading. The list contains for each channel one
@@ -1422,23 +1490,25 @@ public class UnilateralSortMerger<E> implements Sorter<E> {
 			}
 			
 			final List<MutableObjectIterator<E>> iterators = new ArrayList<MutableObjectIterator<E>>(channelIDs.size());
+			final ReadAheadSegmentPool pool = new ReadAheadSegmentPool();
 			
 			for (int i = 0; i < channelIDs.size(); i++) {
 				final ChannelWithBlockCount channel = channelIDs.get(i);
 				final List<MemorySegment> segsForChannel = inputSegments.get(i);
 				
-				// create a reader. if there are multiple segments for the reader, issue multiple together per I/O request
-				final BlockChannelReader reader = segsForChannel.size() >= 4 ? 
-					this.ioManager.createBlockChannelReader(channel.getChannel(), segsForChannel.size() / 2) :
-					this.ioManager.createBlockChannelReader(channel.getChannel());
+				// keep the larger half of the segments for the channel, the rest is shared
+				final int numOwnSegments = (segsForChannel.size() + 1) / 2;
+				pool.releaseAll(segsForChannel.subList(numOwnSegments, segsForChannel.size()));
+				
+				final BlockChannelReader reader = this.ioManager.createBlockChannelReader(channel.getChannel());
 					
 				readerList.add(reader);
 				registerOpenChannelToBeRemovedAtShudown(reader);
 				unregisterChannelToBeRemovedAtShudown(channel.getChannel());
 				
 				// wrap channel reader as a view, to get block spanning record deserialization
-				final ChannelReaderInputView inView = new ChannelReaderInputView(reader, segsForChannel, 
-																			channel.getBlockCount(), false);
+				final ChannelReaderInputView inView = new PrefetchingChannelReaderInputView(reader,
+					segsForChannel.subList(0, numOwnSegments), channel.getBlockCount(), pool, false);
 				iterators.add(new ChannelReaderInputViewIterator<E>(inView, null, this.serializer));
 			}
 
@@ -1446,50 +1516,48 @@ public class UnilateralSortMerger<E> implements Sorter<E> {
 		}
 
 		/**
-		 * Merges the given sorted runs to a smaller number of sorted runs. 
+		 * Merges some of the given sorted runs into one, such that the number of runs goes towards the maximal
+		 * fan-in of the final merge. The merge picks the smallest runs, and only as many of them as needed to
+		 * reach the maximal fan-in, if possible. Calling this method repeatedly until the number of runs does not
+		 * exceed the fan-in therefore builds a cascade of merges that rewrites as little data as possible, rather
+		 * than rewriting all runs in every round.
 		 * 
 		 * @param channelIDs The IDs of the sorted runs that need to be merged.
+		 * @param allReadBuffers The buffers to be used by the readers.
 		 * @param writeBuffers The buffers to be used by the writers.
-		 * @param writeBufferSize The size of the write buffers.
-		 * @param  readMemorySize The amount of memory dedicated to the readers.
-		 * @return A list of the IDs of the merged channels.
+		 * @return A list of the IDs of the remaining and the merged channels.
 		 * @throws IOException Thrown, if the readers or writers encountered an I/O problem.
-		 * @throws MemoryAllocationException Thrown, if the specified memory is insufficient to merge the channels
-		 *                                   or if the memory manager could not provide the requested memory.
 		 */
 		protected final List<ChannelWithBlockCount> mergeChannelList(final List<ChannelWithBlockCount> channelIDs,
 					final List<MemorySegment> allReadBuffers, final List<MemorySegment> writeBuffers)
 		throws IOException
 		{
-			final double numMerges = Math.ceil(channelIDs.size() / ((double) this.maxNumFileHandles));
-			final int channelsToMergePerStep = (int) Math.ceil(channelIDs.size() / numMerges);
+			final int channelsToMerge = Math.min(this.maxNumFileHandles, channelIDs.size() - this.maxNumFileHandles + 1);
 			
-			// allocate the memory for the merging step
-			final List<List<MemorySegment>> readBuffers = new ArrayList<List<MemorySegment>>(channelsToMergePerStep);
-			getSegmentsForReaders(readBuffers, allReadBuffers, channelsToMergePerStep);
+			// pick the smallest runs
+			final ArrayList<ChannelWithBlockCount> sorted = new ArrayList<ChannelWithBlockCount>(channelIDs);
+			Collections.sort(sorted, new Comparator<ChannelWithBlockCount>() {
+				@Override
+				public int compare(ChannelWithBlockCount o1, ChannelWithBlockCount o2) {
+					return o1.getBlockCount() < o2.getBlockCount() ? -1 : o1.getBlockCount() == o2.getBlockCount() ? 0 : 1;
+				}
+			});
 			
-			// the list containing the IDs of the merged channels
-			final ArrayList<ChannelWithBlockCount> mergedChannelIDs = new ArrayList<ChannelWithBlockCount>((int) (numMerges + 1));
-
-			final ArrayList<ChannelWithBlockCount> channelsToMergeThisStep = new ArrayList<ChannelWithBlockCount>(channelsToMergePerStep);
-			int channelNum = 0;
-			while (isRunning() && channelNum < channelIDs.size()) {
-				channelsToMergeThisStep.clear();
-
-				for (int i = 0; i < channelsToMergePerStep && channelNum < channelIDs.size(); i++, channelNum++) {
-					channelsToMergeThisStep.add(channelIDs.get(channelNum));
-				}
-				
-				// merge only, if there is more than one channel
-				if (channelsToMergeThisStep.size() < 2)  {
-					mergedChannelIDs.addAll(channelsToMergeThisStep);
-				}
-				else {
-					mergedChannelIDs.add(mergeChannels(channelsToMergeThisStep, readBuffers, writeBuffers));
-				}
+			if (LOG.isDebugEnabled()) {
+				LOG.debug("Merging the " + channelsToMerge + " smallest of " + channelIDs.size() + " sorted runs.");
 			}
 			
-			return mergedChannelIDs;
+			// allocate the memory for the merging step
+			final List<List<MemorySegment>> readBuffers = new ArrayList<List<MemorySegment>>(channelsToMerge);
+			getSegmentsForReaders(readBuffers, allReadBuffers, channelsToMerge);
+			
+			final ChannelWithBlockCount merged = mergeChannels(
+				new ArrayList<ChannelWithBlockCount>(sorted.subList(0, channelsToMerge)), readBuffers, writeBuffers);
+			
+			final List<ChannelWithBlockCount> remaining = new ArrayList<ChannelWithBlockCount>(
+				sorted.subList(channelsToMerge, sorted.size()));
+			remaining.add(merged);
+			return remaining;
 		}
 
 		/**
@@ -1518,7 +1586,7 @@ public class UnilateralSortMerger<E> implements Sorter<E> {
 															mergedChannelID, this.numWriteBuffersToCluster);
 			registerOpenChannelToBeRemovedAtShudown(writer);
 			final ChannelWriterOutputView output = new ChannelWriterOutputView(writer, writeBuffers, 
-																			this.memManager.getPageSize());
+																			this.memManager.getPageSize(), this.ioManager.getSpillCompressionCodec());
 
 			// read the merged stream and write the data back
 			final TypeSerializer<E> serializer = this.serializer;
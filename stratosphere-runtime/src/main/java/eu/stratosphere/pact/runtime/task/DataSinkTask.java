@@ -136,8 +136,9 @@ public class DataSinkTask<IT> extends AbstractOutputTask {
 							getEnvironment().getMemoryManager(), 
 							getEnvironment().getIOManager(),
 							this.reader, this, this.inputTypeSerializerFactory, compFact.createComparator(),
-							this.config.getMemoryInput(0), this.config.getFilehandlesInput(0),
-							this.config.getSpillingThresholdInput(0));
+							this.config.getMemoryInput(0), -1,
+							RegularPactTask.getNumSortThreads(this.config.getNumSortThreadsInput(0)),
+							this.config.getFilehandlesInput(0), this.config.getSpillingThresholdInput(0));
 					
 					this.localStrategy = sorter;
 					this.input = sorter.getIterator();
@@ -32,6 +32,11 @@ public enum DriverStrategy {
 	UNARY_NO_OP(NoOpDriver.class, null, PIPELINED, PIPELINED, false),
 	// a binary no-op operator. non implementation available
 	BINARY_NO_OP(null, null, PIPELINED, PIPELINED, false),
+	
+	// draws a fixed size random sample from the input
+	SAMPLE(ReservoirSamplingDriver.class, null, FULL_DAM, false),
+	// computes the boundaries of a range partitioning from a sample
+	RANGE_BOUNDARIES(RangeBoundaryDriver.class, null, FULL_DAM, true),
 
 	// the old mapper
 	COLLECTOR_MAP(CollectorMapDriver.class, ChainedCollectorMapDriver.class, PIPELINED, false),
@@ -49,8 +54,12 @@ public enum DriverStrategy {
 
 	// grouping the inputs and apply the Reduce Function
 	SORTED_REDUCE(ReduceDriver.class, null, PIPELINED, true),
+	// aggregating the inputs in a hash table by applying the Reduce Function, falls back to sorting if memory runs out
+	HASHED_REDUCE(ReduceHashDriver.class, null, FULL_DAM, true),
 	// sorted partial reduce is the combiner for the Reduce. same function, but potentially not fully sorted
 	SORTED_PARTIAL_REDUCE(ReduceCombineDriver.class, null, MATERIALIZING, true),
+	// hashed partial reduce is a combiner for the Reduce that aggregates the records in a hash table
+	HASHED_PARTIAL_REDUCE(ReduceHashCombineDriver.class, null, MATERIALIZING, true),
 	
 	// grouping the inputs and apply the GroupReduce function
 	SORTED_GROUP_REDUCE(GroupReduceDriver.class, null, PIPELINED, true),
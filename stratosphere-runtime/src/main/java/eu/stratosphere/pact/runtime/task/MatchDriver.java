@@ -13,6 +13,8 @@
 
 package eu.stratosphere.pact.runtime.task;
 
+import java.io.IOException;
+
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
@@ -20,10 +22,14 @@ import eu.stratosphere.api.common.functions.GenericJoiner;
 import eu.stratosphere.api.common.typeutils.TypeComparator;
 import eu.stratosphere.api.common.typeutils.TypePairComparatorFactory;
 import eu.stratosphere.api.common.typeutils.TypeSerializer;
+import eu.stratosphere.configuration.ConfigConstants;
+import eu.stratosphere.configuration.GlobalConfiguration;
 import eu.stratosphere.nephele.services.iomanager.IOManager;
 import eu.stratosphere.nephele.services.memorymanager.MemoryManager;
 import eu.stratosphere.pact.runtime.hash.BuildFirstHashMatchIterator;
 import eu.stratosphere.pact.runtime.hash.BuildSecondHashMatchIterator;
+import eu.stratosphere.pact.runtime.hash.JoinFilterBuildingIterator;
+import eu.stratosphere.pact.runtime.shipping.JoinFilterEvent;
 import eu.stratosphere.pact.runtime.sort.MergeMatchIterator;
 import eu.stratosphere.pact.runtime.task.util.JoinTaskIterator;
 import eu.stratosphere.pact.runtime.task.util.TaskConfig;
@@ -89,8 +95,8 @@ public class MatchDriver<IT1, IT2, OT> implements PactDriver<GenericJoiner<IT1,
 		// test minimum memory requirements
 		final DriverStrategy ls = config.getDriverStrategy();
 		
-		final MutableObjectIterator<IT1> in1 = this.taskContext.getInput(0);
-		final MutableObjectIterator<IT2> in2 = this.taskContext.getInput(1);
+		MutableObjectIterator<IT1> in1 = this.taskContext.getInput(0);
+		MutableObjectIterator<IT2> in2 = this.taskContext.getInput(1);
 		
 		// get the key positions and types
 		final TypeSerializer<IT1> serializer1 = this.taskContext.<IT1>getInputSerializer(0).getSerializer();
@@ -103,6 +109,26 @@ public class MatchDriver<IT1, IT2, OT> implements PactDriver<GenericJoiner<IT1,
 		if (pairComparatorFactory == null) {
 			throw new Exception("Missing pair comparator factory for Match driver");
 		}
+		
+		final boolean useBloomFilters = GlobalConfiguration.getBoolean(ConfigConstants.HASH_JOIN_BLOOM_FILTERS_KEY,
+			ConfigConstants.DEFAULT_HASH_JOIN_BLOOM_FILTERS);
+		
+		// if requested, collect the build side keys in a filter for the producers of the probe side
+		JoinFilterBuildingIterator<?> joinFilter = null;
+		int probeSideInput = -1;
+		if (config.getUseJoinFilter()) {
+			if (ls == DriverStrategy.HYBRIDHASH_BUILD_FIRST) {
+				final JoinFilterBuildingIterator<IT1> filteringIn = new JoinFilterBuildingIterator<IT1>(in1, comparator1.duplicate());
+				in1 = filteringIn;
+				joinFilter = filteringIn;
+				probeSideInput = 1;
+			} else if (ls == DriverStrategy.HYBRIDHASH_BUILD_SECOND) {
+				final JoinFilterBuildingIterator<IT2> filteringIn = new JoinFilterBuildingIterator<IT2>(in2, comparator2.duplicate());
+				in2 = filteringIn;
+				joinFilter = filteringIn;
+				probeSideInput = 0;
+			}
+		}
 
 		// create and return MatchTaskIterator according to provided local strategy.
 		switch (ls) {
@@ -114,12 +140,12 @@ public class MatchDriver<IT1, IT2, OT> implements PactDriver<GenericJoiner<IT1,
 			case HYBRIDHASH_BUILD_FIRST:
 				this.matchIterator = new BuildFirstHashMatchIterator<IT1, IT2, OT>(in1, in2, serializer1, comparator1,
 					serializer2, comparator2, pairComparatorFactory.createComparator21(comparator1, comparator2),
-					memoryManager, ioManager, this.taskContext.getOwningNepheleTask(), availableMemory);
+					memoryManager, ioManager, this.taskContext.getOwningNepheleTask(), availableMemory, useBloomFilters);
 				break;
 			case HYBRIDHASH_BUILD_SECOND:
 				this.matchIterator = new BuildSecondHashMatchIterator<IT1, IT2, OT>(in1, in2, serializer1, comparator1,
 						serializer2, comparator2, pairComparatorFactory.createComparator12(comparator1, comparator2),
-						memoryManager, ioManager, this.taskContext.getOwningNepheleTask(), availableMemory);
+						memoryManager, ioManager, this.taskContext.getOwningNepheleTask(), availableMemory, useBloomFilters);
 				break;
 			default:
 				throw new Exception("Unsupported driver strategy for Match driver: " + ls.name());
@@ -129,10 +155,36 @@ public class MatchDriver<IT1, IT2, OT> implements PactDriver<GenericJoiner<IT1,
 		// and blocks until the iterator is ready
 		this.matchIterator.open();
 		
+		if (joinFilter != null) {
+			publishJoinFilter(joinFilter, probeSideInput);
+		}
+		
 		if (LOG.isDebugEnabled()) {
 			LOG.debug(this.taskContext.formatLogString("Match task iterator ready."));
 		}
 	}
+	
+	/**
+	 * Publishes the filter over the build side keys to the producers of the probe side. The hash join has
+	 * consumed its build side completely at this point. The filter is only an optimization, so a failure
+	 * to send it does not fail the task.
+	 */
+	private void publishJoinFilter(JoinFilterBuildingIterator<?> joinFilter, int probeSideInput) throws InterruptedException {
+		final JoinFilterEvent event = joinFilter.createEvent(this.taskContext.getOwningNepheleTask().getIndexInSubtaskGroup());
+		if (event == null) {
+			if (LOG.isDebugEnabled()) {
+				LOG.debug(this.taskContext.formatLogString("Build side has too many records (" + joinFilter.getCount() + 
+					") for a selective join filter."));
+			}
+			return;
+		}
+		
+		try {
+			this.taskContext.publishInputEvent(probeSideInput, event);
+		} catch (IOException ioex) {
+			LOG.warn(this.taskContext.formatLogString("Could not publish join filter: " + ioex.getMessage()));
+		}
+	}
 
 	@Override
 	public void run() throws Exception {
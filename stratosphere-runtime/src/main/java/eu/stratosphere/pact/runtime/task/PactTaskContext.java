@@ -13,8 +13,11 @@
 
 package eu.stratosphere.pact.runtime.task;
 
+import java.io.IOException;
+
 import eu.stratosphere.api.common.typeutils.TypeComparator;
 import eu.stratosphere.api.common.typeutils.TypeSerializerFactory;
+import eu.stratosphere.nephele.event.task.AbstractTaskEvent;
 import eu.stratosphere.nephele.services.iomanager.IOManager;
 import eu.stratosphere.nephele.services.memorymanager.MemoryManager;
 import eu.stratosphere.nephele.template.AbstractInvokable;
@@ -50,6 +53,14 @@ public interface PactTaskContext<S, OT> {
 	
 	<X> TypeComparator<X> getInputComparator(int index);
 	
+	/**
+	 * Sends the given event upstream to all tasks that produce the input with the given index.
+	 * 
+	 * @param index The index of the input.
+	 * @param event The event to send.
+	 */
+	void publishInputEvent(int index, AbstractTaskEvent event) throws IOException, InterruptedException;
+	
 	S getStub();
 	
 	Collector<OT> getOutputCollector();
@@ -0,0 +1,133 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2013 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.pact.runtime.task;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+
+import eu.stratosphere.api.common.functions.AbstractFunction;
+import eu.stratosphere.api.common.typeutils.TypeComparator;
+import eu.stratosphere.api.common.typeutils.TypeSerializer;
+import eu.stratosphere.pact.runtime.task.util.WeightedSample;
+import eu.stratosphere.util.Collector;
+import eu.stratosphere.util.MutableObjectIterator;
+
+/**
+ * A driver that computes the boundaries of a range partitioning from a sample of the data. It collects all sampled
+ * records, sorts them in the order of the partitioning and emits the records at the quantiles that split the sample
+ * into as many parts of equal weight as there are partitions. The sampled records arrive as {@link WeightedSample}s
+ * from the {@link ReservoirSamplingDriver}s, so that every record counts as many input records as its sampler saw
+ * per sampled record, and a small input is not split as finely as a large one. The boundaries are emitted in the order of the
+ * partitioning, as required by the {@link eu.stratosphere.pact.runtime.shipping.SampledDataDistribution}.
+ * 
+ * @param <T> The data type.
+ */
+public class RangeBoundaryDriver<T> implements PactDriver<AbstractFunction, T> {
+	
+	private PactTaskContext<AbstractFunction, T> taskContext;
+	
+	private int numPartitions;
+	
+	private volatile boolean running;
+	
+	
+	@Override
+	public void setup(PactTaskContext<AbstractFunction, T> context) {
+		this.taskContext = context;
+		this.running = true;
+	}
+
+	@Override
+	public int getNumberOfInputs() {
+		return 1;
+	}
+	
+	@Override
+	public Class<AbstractFunction> getStubType() {
+		return null;
+	}
+
+	@Override
+	public boolean requiresComparatorOnInput() {
+		return true;
+	}
+
+	@Override
+	public void prepare() throws Exception {
+		if (this.taskContext.getTaskConfig().getDriverStrategy() != DriverStrategy.RANGE_BOUNDARIES) {
+			throw new Exception("Invalid strategy " + this.taskContext.getTaskConfig().getDriverStrategy() + " for range boundary driver.");
+		}
+		this.numPartitions = this.taskContext.getTaskConfig().getNumRangePartitions();
+		if (this.numPartitions < 1) {
+			throw new Exception("No number of partitions given for range boundary driver.");
+		}
+	}
+
+	@Override
+	public void run() throws Exception {
+		final MutableObjectIterator<WeightedSample<T>> input = this.taskContext.getInput(0);
+		final TypeSerializer<WeightedSample<T>> serializer =
+				this.taskContext.<WeightedSample<T>>getInputSerializer(0).getSerializer();
+		final Collector<T> output = this.taskContext.getOutputCollector();
+		
+		final ArrayList<WeightedSample<T>> sample = new ArrayList<WeightedSample<T>>();
+		double totalWeight = 0.0;
+		WeightedSample<T> record = serializer.createInstance();
+		while (this.running && ((record = input.next(record)) != null)) {
+			sample.add(record);
+			totalWeight += record.getWeight();
+			record = serializer.createInstance();
+		}
+		
+		// sort the sample in the order of the partitioning. the reference based comparison respects the
+		// sort directions of the keys
+		final TypeComparator<T> firstComparator = this.taskContext.getInputComparator(0);
+		final TypeComparator<T> secondComparator = firstComparator.duplicate();
+		Collections.sort(sample, new Comparator<WeightedSample<T>>() {
+			@Override
+			public int compare(WeightedSample<T> first, WeightedSample<T> second) {
+				firstComparator.setReference(first.getRecord());
+				secondComparator.setReference(second.getRecord());
+				return secondComparator.compareToReference(firstComparator);
+			}
+		});
+		
+		// an empty sample means an empty input, for which no boundaries are needed
+		final int numSamples = sample.size();
+		if (numSamples == 0 || totalWeight <= 0.0) {
+			return;
+		}
+		
+		// the i-th boundary is the first record at which the accumulated weight reaches i / numPartitions
+		// of the total weight
+		double accumulatedWeight = 0.0;
+		int index = -1;
+		for (int i = 1; this.running && i < this.numPartitions; i++) {
+			final double boundaryWeight = totalWeight * i / this.numPartitions;
+			while (index < numSamples - 1 && (index < 0 || accumulatedWeight < boundaryWeight)) {
+				accumulatedWeight += sample.get(++index).getWeight();
+			}
+			output.collect(sample.get(index).getRecord());
+		}
+	}
+	
+	@Override
+	public void cleanup() {}
+
+	@Override
+	public void cancel() {
+		this.running = false;
+	}
+}
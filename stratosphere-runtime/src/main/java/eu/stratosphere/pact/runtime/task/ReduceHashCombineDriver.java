@@ -0,0 +1,161 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2013 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.pact.runtime.task;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import eu.stratosphere.api.common.functions.GenericReduce;
+import eu.stratosphere.api.common.typeutils.TypeComparator;
+import eu.stratosphere.api.common.typeutils.TypeSerializer;
+import eu.stratosphere.api.common.typeutils.TypeSerializerFactory;
+import eu.stratosphere.core.memory.MemorySegment;
+import eu.stratosphere.nephele.services.memorymanager.MemoryManager;
+import eu.stratosphere.pact.runtime.hash.ReduceHashTable;
+import eu.stratosphere.util.Collector;
+import eu.stratosphere.util.MutableObjectIterator;
+
+/**
+ * Combine operator for Reduce functions, standalone (not chained).
+ * Aggregates the records in a hash table and emits the table's contents whenever it is full.
+ * Never spills. May produce multiple partially aggregated records per key.
+ * <p>
+ * Compared to the sort-based {@link ReduceCombineDriver}, this combiner does not need to store every record,
+ * but only one record per distinct key. It is therefore much cheaper for inputs with few distinct keys
+ * or many duplicates, such as in a distinct operation.
+ *
+ * @param <T> The data type consumed and produced by the combiner.
+ */
+public class ReduceHashCombineDriver<T> implements PactDriver<GenericReduce<T>, T> {
+
+	private static final Log LOG = LogFactory.getLog(ReduceHashCombineDriver.class);
+
+
+	private PactTaskContext<GenericReduce<T>, T> taskContext;
+
+	private TypeSerializer<T> serializer;
+
+	private TypeComparator<T> comparator;
+
+	private GenericReduce<T> reducer;
+
+	private Collector<T> output;
+
+
+	private MemoryManager memManager;
+
+	private ReduceHashTable<T> table;
+
+
+	private volatile boolean running;
+
+	// ------------------------------------------------------------------------
+
+	@Override
+	public void setup(PactTaskContext<GenericReduce<T>, T> context) {
+		this.taskContext = context;
+		this.running = true;
+	}
+
+	@Override
+	public int getNumberOfInputs() {
+		return 1;
+	}
+
+	@Override
+	public Class<GenericReduce<T>> getStubType() {
+		@SuppressWarnings("unchecked")
+		final Class<GenericReduce<T>> clazz = (Class<GenericReduce<T>>) (Class<?>) GenericReduce.class;
+		return clazz;
+	}
+
+	@Override
+	public boolean requiresComparatorOnInput() {
+		return true;
+	}
+
+	@Override
+	public void prepare() throws Exception {
+		if (this.taskContext.getTaskConfig().getDriverStrategy() != DriverStrategy.HASHED_PARTIAL_REDUCE) {
+			throw new Exception("Invalid strategy " + this.taskContext.getTaskConfig().getDriverStrategy() + " for hash combiner.");
+		}
+
+		this.memManager = this.taskContext.getMemoryManager();
+		final int numMemoryPages = this.memManager.computeNumberOfPages(this.taskContext.getTaskConfig().getMemoryDriver());
+
+		// instantiate the serializer / comparator
+		final TypeSerializerFactory<T> serializerFactory = this.taskContext.getInputSerializer(0);
+		this.serializer = serializerFactory.getSerializer();
+		this.comparator = this.taskContext.getInputComparator(0);
+		this.reducer = this.taskContext.getStub();
+		this.output = this.taskContext.getOutputCollector();
+
+		final List<MemorySegment> memory = this.memManager.allocatePages(this.taskContext.getOwningNepheleTask(), numMemoryPages);
+		this.table = new ReduceHashTable<T>(this.serializer, this.comparator.duplicate(), memory);
+		this.table.open();
+	}
+
+	@Override
+	public void run() throws Exception {
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("Hash combiner starting.");
+		}
+
+		final MutableObjectIterator<T> in = this.taskContext.getInput(0);
+		final TypeSerializer<T> serializer = this.serializer;
+		final GenericReduce<T> function = this.reducer;
+		final Collector<T> output = this.output;
+		final ReduceHashTable<T> table = this.table;
+
+		T value = serializer.createInstance();
+
+		while (this.running && (value = in.next(value)) != null) {
+
+			// try to combine the record in the table first
+			if (table.processRecordWithReduce(value, function, output)) {
+				continue;
+			}
+
+			// the table is full. emit its contents and start with an empty table
+			table.emitAndReset(output);
+
+			if (!table.processRecordWithReduce(value, function, output)) {
+				throw new IOException("Cannot write record to empty hash table. Record too large.");
+			}
+		}
+
+		// emit the final batch
+		if (this.running) {
+			table.emitAndReset(output);
+		}
+	}
+
+	@Override
+	public void cleanup() {
+		if (this.table != null) {
+			this.table.close();
+			this.memManager.release(this.table.getFreeMemory());
+			this.table = null;
+		}
+	}
+
+	@Override
+	public void cancel() {
+		this.running = false;
+		cleanup();
+	}
+}
@@ -0,0 +1,395 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2013 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.pact.runtime.task;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import eu.stratosphere.api.common.functions.GenericReduce;
+import eu.stratosphere.api.common.typeutils.TypeComparator;
+import eu.stratosphere.api.common.typeutils.TypePairComparator;
+import eu.stratosphere.api.common.typeutils.TypeSerializer;
+import eu.stratosphere.core.memory.MemorySegment;
+import eu.stratosphere.nephele.services.iomanager.BlockChannelReader;
+import eu.stratosphere.nephele.services.iomanager.BlockChannelWriter;
+import eu.stratosphere.nephele.services.iomanager.ChannelReaderInputView;
+import eu.stratosphere.nephele.services.iomanager.ChannelWriterOutputView;
+import eu.stratosphere.nephele.services.iomanager.IOManager;
+import eu.stratosphere.nephele.services.memorymanager.MemoryManager;
+import eu.stratosphere.pact.runtime.hash.CompactingHashTable;
+import eu.stratosphere.pact.runtime.sort.Sorter;
+import eu.stratosphere.pact.runtime.sort.UnilateralSortMerger;
+import eu.stratosphere.pact.runtime.task.util.TaskConfig;
+import eu.stratosphere.util.Collector;
+import eu.stratosphere.util.MutableObjectIterator;
+
+/**
+ * Reduce driver that aggregates the records in a hash table, rather than reducing a sorted input.
+ * Every record is reduced with the record of the same key in the table and the result replaces it.
+ * After the input is exhausted, the table holds exactly one record per key, which are emitted.
+ * <p>
+ * The driver is meant for inputs with few distinct keys, whose aggregates fit into memory. If the table
+ * runs out of memory, the driver falls back to sorting: it writes the partial aggregates of the table to
+ * disk, releases the table's memory, and reduces the sorted union of the partial aggregates and the
+ * remaining input, like the {@link ReduceDriver}. Immutable types are always sorted, because the hash table
+ * deserializes records into reused objects.
+ *
+ * @see GenericReduce
+ */
+public class ReduceHashDriver<T> implements PactDriver<GenericReduce<T>, T> {
+
+	private static final Log LOG = LogFactory.getLog(ReduceHashDriver.class);
+
+	/**
+	 * The number of memory pages that are kept aside from the hash table, to write its contents
+	 * to disk and read them back when falling back to sorting.
+	 */
+	private static final int NUM_FALLBACK_IO_PAGES = 2;
+
+
+	private PactTaskContext<GenericReduce<T>, T> taskContext;
+
+	private TypeSerializer<T> serializer;
+
+	private TypeComparator<T> comparator;
+
+
+	private MemoryManager memManager;
+
+	private CompactingHashTable<T> table;
+
+	private List<MemorySegment> fallbackMemory;
+
+	private long tableMemorySize;
+
+	private SpilledTableIterator spilledTable;
+
+	private Sorter<T> sorter;
+
+
+	private volatile boolean running;
+
+	// ------------------------------------------------------------------------
+
+	@Override
+	public void setup(PactTaskContext<GenericReduce<T>, T> context) {
+		this.taskContext = context;
+		this.running = true;
+	}
+
+	@Override
+	public int getNumberOfInputs() {
+		return 1;
+	}
+
+	@Override
+	public Class<GenericReduce<T>> getStubType() {
+		@SuppressWarnings("unchecked")
+		final Class<GenericReduce<T>> clazz = (Class<GenericReduce<T>>) (Class<?>) GenericReduce.class;
+		return clazz;
+	}
+
+	@Override
+	public boolean requiresComparatorOnInput() {
+		return true;
+	}
+
+	// --------------------------------------------------------------------------------------------
+
+	@Override
+	public void prepare() throws Exception {
+		final TaskConfig config = this.taskContext.getTaskConfig();
+		if (config.getDriverStrategy() != DriverStrategy.HASHED_REDUCE) {
+			throw new Exception("Unrecognized driver strategy for hash Reduce driver: " + config.getDriverStrategy().name());
+		}
+
+		this.serializer = this.taskContext.<T>getInputSerializer(0).getSerializer();
+		this.comparator = this.taskContext.getInputComparator(0);
+
+		this.memManager = this.taskContext.getMemoryManager();
+		
+		if (this.serializer.isImmutableType()) {
+			// the hash table deserializes into reused objects, so immutable types are sorted right away
+			this.tableMemorySize = config.getMemoryDriver();
+			return;
+		}
+		
+		final int numMemoryPages = this.memManager.computeNumberOfPages(config.getMemoryDriver());
+		final List<MemorySegment> memory = this.memManager.allocatePages(this.taskContext.getOwningNepheleTask(), numMemoryPages);
+
+		// keep some pages aside for the fallback, the table spills through the I/O manager rather than failing
+		this.fallbackMemory = new ArrayList<MemorySegment>(NUM_FALLBACK_IO_PAGES);
+		for (int i = 0; i < NUM_FALLBACK_IO_PAGES; i++) {
+			this.fallbackMemory.add(memory.remove(memory.size() - 1));
+		}
+		this.tableMemorySize = ((long) memory.size()) * this.memManager.getPageSize();
+
+		this.table = new CompactingHashTable<T>(this.serializer, this.comparator.duplicate(), memory, this.taskContext.getIOManager());
+		this.table.open();
+	}
+
+	@Override
+	public void run() throws Exception {
+		if (LOG.isDebugEnabled()) {
+			LOG.debug(this.taskContext.formatLogString("Hash Reducer preprocessing done. Running Reducer code."));
+		}
+
+		// cache references on the stack
+		final MutableObjectIterator<T> input = this.taskContext.getInput(0);
+		final TypeSerializer<T> serializer = this.serializer;
+		final CompactingHashTable<T> table = this.table;
+		
+		final GenericReduce<T> function = this.taskContext.getStub();
+		
+		final Collector<T> output = this.taskContext.getOutputCollector();
+		
+		if (table == null) {
+			sortAndReduce(input, function, output);
+			return;
+		}
+		
+		final CompactingHashTable<T>.HashTableProber<T> prober =
+			table.getProber(this.comparator.duplicate(), new SameTypePairComparator<T>(this.comparator.duplicate()));
+
+		T value = serializer.createInstance();
+		final T stored = serializer.createInstance();
+
+		while (this.running && (value = input.next(value)) != null) {
+			if (prober.getMatchFor(value, stored)) {
+				prober.updateMatch(function.reduce(stored, value));
+			} else {
+				table.insert(value);
+			}
+
+			if (table.getNumSpilledPartitions() > 0) {
+				// the aggregates do not fit into memory
+				final MutableObjectIterator<T> remaining = spillTable(input);
+				if (remaining != null) {
+					sortAndReduce(remaining, function, output);
+				}
+				return;
+			}
+		}
+
+		// emit the aggregates
+		final MutableObjectIterator<T> entries = table.getEntryIterator();
+		while (this.running && (value = entries.next(value)) != null) {
+			output.collect(value);
+		}
+	}
+
+	/**
+	 * Writes the partial aggregates of the table to disk and releases the table's memory.
+	 * 
+	 * @param remainingInput The input records that have not been added to the table.
+	 * @return An iterator over the partial aggregates followed by the remaining input, or null, if the driver was canceled.
+	 */
+	private MutableObjectIterator<T> spillTable(MutableObjectIterator<T> remainingInput) throws IOException {
+		if (LOG.isInfoEnabled()) {
+			LOG.info(this.taskContext.formatLogString("Hash Reducer ran out of memory. Falling back to sorting."));
+		}
+
+		final IOManager ioManager = this.taskContext.getIOManager();
+		final TypeSerializer<T> serializer = this.serializer;
+
+		final BlockChannelWriter writer = ioManager.createBlockChannelWriter(ioManager.createChannel());
+		final ChannelWriterOutputView out = new ChannelWriterOutputView(writer, this.fallbackMemory,
+			this.memManager.getPageSize(), ioManager.getSpillCompressionCodec());
+
+		final MutableObjectIterator<T> entries = this.table.getEntryIterator();
+		long numAggregates = 0;
+		T value = serializer.createInstance();
+		while (this.running && (value = entries.next(value)) != null) {
+			serializer.serialize(value, out);
+			numAggregates++;
+		}
+		out.close();
+
+		this.table.close();
+		this.memManager.release(this.table.getFreeMemory());
+		this.table = null;
+
+		if (!this.running) {
+			writer.deleteChannel();
+			return null;
+		}
+
+		final BlockChannelReader reader = ioManager.createBlockChannelReader(writer.getChannelID());
+		final ChannelReaderInputView in = new ChannelReaderInputView(reader, this.fallbackMemory, out.getBlockCount(), false);
+		this.spilledTable = new SpilledTableIterator(reader, in, numAggregates, remainingInput);
+		return this.spilledTable;
+	}
+
+	/**
+	 * Sorts the given input with the memory of the hash table and reduces the sorted key groups.
+	 */
+	private void sortAndReduce(MutableObjectIterator<T> input, GenericReduce<T> function, Collector<T> output)
+	throws Exception
+	{
+		final TaskConfig config = this.taskContext.getTaskConfig();
+		final TypeSerializer<T> serializer = this.serializer;
+		final TypeComparator<T> comparator = this.comparator;
+
+		this.sorter = new UnilateralSortMerger<T>(this.memManager, this.taskContext.getIOManager(), input,
+			this.taskContext.getOwningNepheleTask(), this.taskContext.<T>getInputSerializer(0), comparator.duplicate(),
+			this.tableMemorySize, config.getFilehandlesDriver(), config.getSpillingThresholdDriver());
+
+		final MutableObjectIterator<T> sorted = this.sorter.getIterator();
+
+		T value = sorted.next(serializer.createInstance());
+
+		// iterate over key groups
+		while (this.running && value != null) {
+			comparator.setReference(value);
+			T res = value;
+
+			// iterate within a key group
+			while ((value = sorted.next(serializer.createInstance())) != null) {
+				if (comparator.equalToReference(value)) {
+					// same group, reduce
+					res = function.reduce(res, value);
+				} else {
+					// new key group
+					break;
+				}
+			}
+
+			output.collect(res);
+		}
+	}
+
+	@Override
+	public void cleanup() {
+		if (this.table != null) {
+			this.table.close();
+			this.memManager.release(this.table.getFreeMemory());
+			this.table = null;
+		}
+		if (this.sorter != null) {
+			try {
+				this.sorter.close();
+			} catch (Throwable t) {
+				LOG.error("Error closing the sorter of the hash Reduce driver: " + t.getMessage(), t);
+			}
+			this.sorter = null;
+		}
+		if (this.spilledTable != null) {
+			this.spilledTable.close();
+			this.spilledTable = null;
+		}
+		if (this.fallbackMemory != null) {
+			this.memManager.release(this.fallbackMemory);
+			this.fallbackMemory = null;
+		}
+	}
+
+	@Override
+	public void cancel() {
+		this.running = false;
+		if (this.table != null) {
+			this.table.abort();
+		}
+	}
+
+	// --------------------------------------------------------------------------------------------
+
+	/**
+	 * Returns the partial aggregates that were written to disk, followed by the remaining input.
+	 * The iterator is consumed by the reading thread of the sorter.
+	 */
+	private final class SpilledTableIterator implements MutableObjectIterator<T> {
+
+		private final BlockChannelReader reader;
+
+		private final ChannelReaderInputView in;
+
+		private final MutableObjectIterator<T> remainingInput;
+
+		private long numRemaining;
+
+		private boolean closed;
+
+		private SpilledTableIterator(BlockChannelReader reader, ChannelReaderInputView in, long numRecords,
+				MutableObjectIterator<T> remainingInput)
+		{
+			this.reader = reader;
+			this.in = in;
+			this.numRemaining = numRecords;
+			this.remainingInput = remainingInput;
+		}
+
+		@Override
+		public T next(T reuse) throws IOException {
+			if (this.numRemaining > 0) {
+				this.numRemaining--;
+				final T next = serializer.deserialize(reuse, this.in);
+				if (this.numRemaining == 0) {
+					close();
+				}
+				return next;
+			} else {
+				return this.remainingInput.next(reuse);
+			}
+		}
+
+		private synchronized void close() {
+			if (this.closed) {
+				return;
+			}
+			this.closed = true;
+
+			try {
+				this.in.close();
+			} catch (Throwable t) {
+				LOG.error("Error closing the partial aggregates of the hash Reduce driver: " + t.getMessage(), t);
+			}
+			this.reader.deleteChannel();
+		}
+	}
+
+	/**
+	 * Compares records of the same type with respect to their keys, to probe the hash table with the input records.
+	 */
+	private static final class SameTypePairComparator<T> extends TypePairComparator<T, T> {
+
+		private final TypeComparator<T> comparator;
+
+		private final TypeComparator<T> candidateComparator;
+
+		private SameTypePairComparator(TypeComparator<T> comparator) {
+			this.comparator = comparator;
+			this.candidateComparator = comparator.duplicate();
+		}
+
+		@Override
+		public void setReference(T reference) {
+			this.comparator.setReference(reference);
+		}
+
+		@Override
+		public boolean equalToReference(T candidate) {
+			return this.comparator.equalToReference(candidate);
+		}
+
+		@Override
+		public int compareToReference(T candidate) {
+			this.candidateComparator.setReference(candidate);
+			return this.comparator.compareToReference(this.candidateComparator);
+		}
+	}
+}
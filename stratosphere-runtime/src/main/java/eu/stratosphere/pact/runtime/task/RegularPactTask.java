@@ -34,11 +34,11 @@ import eu.stratosphere.configuration.ConfigConstants;
 import eu.stratosphere.configuration.Configuration;
 import eu.stratosphere.configuration.GlobalConfiguration;
 import eu.stratosphere.core.io.IOReadableWritable;
+import eu.stratosphere.nephele.event.task.AbstractTaskEvent;
 import eu.stratosphere.nephele.execution.Environment;
 import eu.stratosphere.nephele.execution.librarycache.LibraryCacheManager;
 import eu.stratosphere.nephele.io.AbstractRecordWriter;
 import eu.stratosphere.nephele.io.BroadcastRecordWriter;
-import eu.stratosphere.nephele.io.ChannelSelector;
 import eu.stratosphere.nephele.io.MutableReader;
 import eu.stratosphere.nephele.io.MutableRecordReader;
 import eu.stratosphere.nephele.io.MutableUnionRecordReader;
@@ -49,13 +49,17 @@ import eu.stratosphere.nephele.services.memorymanager.MemoryManager;
 import eu.stratosphere.nephele.template.AbstractInputTask;
 import eu.stratosphere.nephele.template.AbstractInvokable;
 import eu.stratosphere.nephele.template.AbstractTask;
+import eu.stratosphere.pact.runtime.broadcast.BroadcastVariableManager;
+import eu.stratosphere.pact.runtime.broadcast.BroadcastVariableMaterialization;
 import eu.stratosphere.pact.runtime.plugable.DeserializationDelegate;
 import eu.stratosphere.pact.runtime.plugable.SerializationDelegate;
 import eu.stratosphere.pact.runtime.resettable.SpillingResettableMutableObjectIterator;
+import eu.stratosphere.pact.runtime.shipping.JoinFilterEvent;
 import eu.stratosphere.pact.runtime.shipping.OutputCollector;
 import eu.stratosphere.pact.runtime.shipping.OutputEmitter;
 import eu.stratosphere.pact.runtime.shipping.RecordOutputCollector;
 import eu.stratosphere.pact.runtime.shipping.RecordOutputEmitter;
+import eu.stratosphere.pact.runtime.shipping.SampledDataDistribution;
 import eu.stratosphere.pact.runtime.shipping.ShipStrategyType;
 import eu.stratosphere.pact.runtime.sort.CombiningUnilateralSortMerger;
 import eu.stratosphere.pact.runtime.sort.UnilateralSortMerger;
@@ -83,6 +87,9 @@ public class RegularPactTask<S extends Function, OT> extends AbstractTask implem
 	private static final boolean USE_BROARDCAST_WRITERS = GlobalConfiguration.getBoolean(
 		ConfigConstants.USE_MULTICAST_FOR_BROADCAST, ConfigConstants.DEFAULT_USE_MULTICAST_FOR_BROADCAST);
 	
+	private static final boolean SHARE_BROADCAST_VARIABLES = GlobalConfiguration.getBoolean(
+		ConfigConstants.SHARED_BROADCAST_VARIABLES_KEY, ConfigConstants.DEFAULT_SHARED_BROADCAST_VARIABLES);
+	
 	// --------------------------------------------------------------------------------------------
 
 	/**
@@ -134,6 +141,12 @@ public class RegularPactTask<S extends Function, OT> extends AbstractTask implem
 	 */
 	protected MutableObjectIterator<?>[] broadcastInputIterators;
 	
+	/**
+	 * The materializations of the broadcast variables that this task shares with the other tasks on this instance.
+	 * An entry is null, if the variable is not shared or not yet read.
+	 */
+	protected BroadcastVariableMaterialization<?>[] sharedBroadcastVariables;
+	
 	protected int[] iterativeInputs;
 	
 	protected int[] iterativeBroadcastInputs;
@@ -451,16 +464,92 @@ public class RegularPactTask<S extends Function, OT> extends AbstractTask implem
 		final MutableObjectIterator<X> reader =  (MutableObjectIterator<X>) this.broadcastInputIterators[inputNum];
 		
 		@SuppressWarnings("unchecked")
-		final TypeSerializer<X> serializer =  (TypeSerializer<X>) this.broadcastInputSerializers[inputNum].getSerializer();
-
-		ArrayList<X> collection = new ArrayList<X>();
+		final TypeSerializerFactory<X> serializerFactory = (TypeSerializerFactory<X>) this.broadcastInputSerializers[inputNum];
+		final TypeSerializer<X> serializer = serializerFactory.getSerializer();
 		
-		X record = serializer.createInstance();
-		while (this.running && ((record = reader.next(record)) != null)) {
-			collection.add(record);
-			record = serializer.createInstance();
+		// records deserialize their fields lazily, even when they are only read, so they cannot be shared among tasks
+		final String sharingId = this.config.getBroadcastInputSharingId(inputNum);
+		if (!SHARE_BROADCAST_VARIABLES || sharingId == null || serializerFactory.getDataType().equals(Record.class)) {
+			ArrayList<X> collection = new ArrayList<X>();
+			
+			X record = serializer.createInstance();
+			while (this.running && ((record = reader.next(record)) != null)) {
+				collection.add(record);
+				record = serializer.createInstance();
+			}
+			context.setBroadcastVariable(bcVarName, collection);
+			return;
+		}
+		
+		// the variable of the previous superstep is not needed any more
+		releaseSharedBroadcastVariable(inputNum);
+		
+		final String key = BroadcastVariableManager.createKey(getEnvironment().getJobID(), sharingId, getBroadcastVariableSuperstep());
+		final BroadcastVariableMaterialization<X> materialization = BroadcastVariableManager.instance().acquire(key);
+		synchronized (this.sharedBroadcastVariables) {
+			this.sharedBroadcastVariables[inputNum] = materialization;
+		}
+		
+		if (materialization.claim()) {
+			// this task materializes the variable for all tasks on this instance
+			try {
+				ArrayList<X> collection = new ArrayList<X>();
+				
+				X record = serializer.createInstance();
+				while (this.running && ((record = reader.next(record)) != null)) {
+					collection.add(record);
+					record = serializer.createInstance();
+				}
+				
+				if (this.running) {
+					materialization.publish(collection);
+				} else {
+					materialization.fail(new IOException("The materializing task was canceled."));
+				}
+			} catch (IOException ioex) {
+				materialization.fail(ioex);
+				throw ioex;
+			} catch (RuntimeException rex) {
+				materialization.fail(rex);
+				throw rex;
+			}
+		} else {
+			// another task materializes the variable. consume this task's copy of the data without keeping it
+			X record = serializer.createInstance();
+			while (this.running && record != null) {
+				record = reader.next(record);
+			}
+		}
+		
+		if (this.running) {
+			context.setBroadcastVariable(bcVarName, materialization.getData());
+		}
+	}
+	
+	/**
+	 * Gets the superstep in which the broadcast variables are read, which is part of the key under which they are
+	 * shared with the other tasks on this instance. Tasks outside of iterations read them only once.
+	 * 
+	 * @return The current superstep, or <code>0</code>, if the task is not part of an iteration.
+	 */
+	protected int getBroadcastVariableSuperstep() {
+		return 0;
+	}
+	
+	/**
+	 * Releases this task's reference to the shared materialization of the given broadcast input, if it holds one.
+	 * 
+	 * @param inputNum The number of the broadcast input.
+	 */
+	protected void releaseSharedBroadcastVariable(int inputNum) {
+		final BroadcastVariableMaterialization<?> materialization;
+		synchronized (this.sharedBroadcastVariables) {
+			materialization = this.sharedBroadcastVariables[inputNum];
+			this.sharedBroadcastVariables[inputNum] = null;
+		}
+		if (materialization != null) {
+			BroadcastVariableManager.instance().release(materialization);
 		}
-		context.setBroadcastVariable(bcVarName, collection);
 	}
 	
 	protected void run() throws Exception {
@@ -630,6 +719,11 @@ public class RegularPactTask<S extends Function, OT> extends AbstractTask implem
 				}
 			}
 		}
+		if (this.sharedBroadcastVariables != null) {
+			for (int i = 0; i < this.sharedBroadcastVariables.length; i++) {
+				releaseSharedBroadcastVariable(i);
+			}
+		}
 	}
 
 	
@@ -787,6 +881,7 @@ public class RegularPactTask<S extends Function, OT> extends AbstractTask implem
 	protected void initBroadcastInputsSerializers(int numBroadcastInputs) throws Exception {
 		this.broadcastInputSerializers = new TypeSerializerFactory[numBroadcastInputs];
 		this.broadcastInputIterators = new MutableObjectIterator[numBroadcastInputs];
+		this.sharedBroadcastVariables = new BroadcastVariableMaterialization[numBroadcastInputs];
 
 		for (int i = 0; i < numBroadcastInputs; i++) {
 			//  ---------------- create the serializer first ---------------------
@@ -947,8 +1042,8 @@ public class RegularPactTask<S extends Function, OT> extends AbstractTask implem
 				@SuppressWarnings({ "rawtypes", "unchecked" })
 				UnilateralSortMerger<?> sorter = new UnilateralSortMerger(getMemoryManager(), getIOManager(),
 					this.inputIterators[inputNum], this, this.inputSerializers[inputNum], getLocalStrategyComparator(inputNum),
-					this.config.getMemoryInput(inputNum), this.config.getFilehandlesInput(inputNum),
-					this.config.getSpillingThresholdInput(inputNum));
+					this.config.getMemoryInput(inputNum), -1, getNumSortThreads(this.config.getNumSortThreadsInput(inputNum)),
+					this.config.getFilehandlesInput(inputNum), this.config.getSpillingThresholdInput(inputNum));
 				// set the input to null such that it will be lazily fetched from the input strategy
 				this.inputs[inputNum] = null;
 				this.localStrategies[inputNum] = sorter;
@@ -983,8 +1078,8 @@ public class RegularPactTask<S extends Function, OT> extends AbstractTask implem
 				CombiningUnilateralSortMerger<?> cSorter = new CombiningUnilateralSortMerger(
 					(GenericCombine) localStub, getMemoryManager(), getIOManager(), this.inputIterators[inputNum], 
 					this, this.inputSerializers[inputNum], getLocalStrategyComparator(inputNum),
-					this.config.getMemoryInput(inputNum), this.config.getFilehandlesInput(inputNum),
-					this.config.getSpillingThresholdInput(inputNum));
+					this.config.getMemoryInput(inputNum), -1, getNumSortThreads(this.config.getNumSortThreadsInput(inputNum)),
+					this.config.getFilehandlesInput(inputNum), this.config.getSpillingThresholdInput(inputNum));
 				cSorter.setUdfConfiguration(this.config.getStubParameters());
 				
 				// set the input to null such that it will be lazily fetched from the input strategy
@@ -1049,6 +1144,15 @@ public class RegularPactTask<S extends Function, OT> extends AbstractTask implem
 		Environment env = getEnvironment();
 		return new RuntimeUDFContext(taskName, env.getCurrentNumberOfSubtasks(), env.getIndexInSubtaskGroup(), env.getCopyTask());
 	}
+	
+	/**
+	 * Gets the runtime context of the task's function, which holds the broadcast variables.
+	 * 
+	 * @return The runtime context, or null, if the task has not been initialized yet.
+	 */
+	public RuntimeUDFContext getRuntimeContext() {
+		return this.runtimeUdfContext;
+	}
 
 	// --------------------------------------------------------------------------------------------
 	//                                   Task Context Signature
@@ -1165,6 +1269,15 @@ public class RegularPactTask<S extends Function, OT> extends AbstractTask implem
 		return comparator;
 	}
 
+
+	@Override
+	public void publishInputEvent(int index, AbstractTaskEvent event) throws IOException, InterruptedException {
+		if (index < 0 || index >= this.driver.getNumberOfInputs()) {
+			throw new IndexOutOfBoundsException();
+		}
+		this.inputReaders[index].publishEvent(event);
+	}
+
 	// ============================================================================================
 	//                                     Static Utilities
 	//
@@ -1172,6 +1285,26 @@ public class RegularPactTask<S extends Function, OT> extends AbstractTask implem
 	//                   logging, exception handling, and error messages.
 	// ============================================================================================
 
+	// --------------------------------------------------------------------------------------------
+	//                                       Sorting
+	// --------------------------------------------------------------------------------------------
+	
+	/**
+	 * Resolves the number of sort threads from the task configuration, falling back to the task manager's
+	 * setting, if the task configuration does not specify it.
+	 * 
+	 * @param configured The number of sort threads from the task configuration, or -1, if not specified.
+	 * @return The number of threads to sort with.
+	 */
+	public static int getNumSortThreads(int configured) {
+		if (configured > 0) {
+			return configured;
+		}
+		final int numThreads = GlobalConfiguration.getInteger(ConfigConstants.SORT_THREADS_KEY,
+			ConfigConstants.DEFAULT_SORT_THREADS);
+		return numThreads > 0 ? numThreads : ConfigConstants.DEFAULT_SORT_THREADS;
+	}
+	
 	// --------------------------------------------------------------------------------------------
 	//                                       Logging
 	// --------------------------------------------------------------------------------------------
@@ -1264,6 +1397,13 @@ public class RegularPactTask<S extends Function, OT> extends AbstractTask implem
 						throw new Exception("Incompatibe serializer-/comparator factories.");
 					}
 					final DataDistribution distribution = config.getOutputDataDistribution(i, cl);
+					if (distribution instanceof SampledDataDistribution) {
+						// the boundaries come from a sample, which the task receives as a broadcast variable
+						if (!(task instanceof RegularPactTask)) {
+							throw new Exception("Range partitioning with sampled boundaries is only possible in a regular task.");
+						}
+						((SampledDataDistribution) distribution).bind((RegularPactTask<?, ?>) task);
+					}
 					oe = new RecordOutputEmitter(strategy, comparator, distribution);
 				}
 
@@ -1303,7 +1443,7 @@ public class RegularPactTask<S extends Function, OT> extends AbstractTask implem
 				final TypeComparatorFactory<T> compFactory = config.getOutputComparator(i, cl);
 				final DataDistribution dataDist = config.getOutputDataDistribution(i, cl);
 
-				final ChannelSelector<SerializationDelegate<T>> oe;
+				final OutputEmitter<T> oe;
 				if (compFactory == null) {
 					oe = new OutputEmitter<T>(strategy);
 				} else if (dataDist == null){
@@ -1321,11 +1461,20 @@ public class RegularPactTask<S extends Function, OT> extends AbstractTask implem
 						writers.add(new BroadcastRecordWriter<SerializationDelegate<T>>((AbstractInputTask<?>) task, delegateClazz));
 					}
 				} else {
+					final RecordWriter<SerializationDelegate<T>> writer;
 					if (task instanceof AbstractTask) {
-						writers.add(new RecordWriter<SerializationDelegate<T>>((AbstractTask) task, delegateClazz, oe));
+						writer = new RecordWriter<SerializationDelegate<T>>((AbstractTask) task, delegateClazz, oe);
 					} else if (task instanceof AbstractInputTask<?>) {
-						writers.add(new RecordWriter<SerializationDelegate<T>>((AbstractInputTask<?>) task, delegateClazz, oe));
+						writer = new RecordWriter<SerializationDelegate<T>>((AbstractInputTask<?>) task, delegateClazz, oe);
+					} else {
+						continue;
+					}
+					
+					// hash joins may publish filters over their build side keys to the producers of the probe side
+					if (strategy == ShipStrategyType.PARTITION_HASH) {
+						writer.subscribeToEvent(oe, JoinFilterEvent.class);
 					}
+					writers.add(writer);
 				}
 			}
 			if (eventualOutputs != null) {
@@ -0,0 +1,118 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2013 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.pact.runtime.task;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+import eu.stratosphere.api.common.functions.AbstractFunction;
+import eu.stratosphere.api.common.typeutils.TypeSerializer;
+import eu.stratosphere.pact.runtime.task.util.WeightedSample;
+import eu.stratosphere.util.Collector;
+import eu.stratosphere.util.MutableObjectIterator;
+
+/**
+ * A driver that draws a uniform random sample of fixed size from its input, using reservoir sampling, and emits
+ * the sample once the input is exhausted. The sample is held in memory, so its size should be moderate.
+ * <p>
+ * Every sampled record is emitted as a {@link WeightedSample} whose weight is the number of records the driver saw
+ * per sampled record. The samples of several instances of this driver can thus be combined into a sample of their
+ * union, even if the instances saw inputs of very different sizes.
+ * 
+ * @param <T> The data type.
+ */
+public class ReservoirSamplingDriver<T> implements PactDriver<AbstractFunction, WeightedSample<T>> {
+	
+	private PactTaskContext<AbstractFunction, WeightedSample<T>> taskContext;
+	
+	private int sampleSize;
+	
+	private volatile boolean running;
+	
+	
+	@Override
+	public void setup(PactTaskContext<AbstractFunction, WeightedSample<T>> context) {
+		this.taskContext = context;
+		this.running = true;
+	}
+
+	@Override
+	public int getNumberOfInputs() {
+		return 1;
+	}
+	
+	@Override
+	public Class<AbstractFunction> getStubType() {
+		return null;
+	}
+
+	@Override
+	public boolean requiresComparatorOnInput() {
+		return false;
+	}
+
+	@Override
+	public void prepare() throws Exception {
+		if (this.taskContext.getTaskConfig().getDriverStrategy() != DriverStrategy.SAMPLE) {
+			throw new Exception("Invalid strategy " + this.taskContext.getTaskConfig().getDriverStrategy() + " for sampling driver.");
+		}
+		this.sampleSize = this.taskContext.getTaskConfig().getSampleSize();
+		if (this.sampleSize < 1) {
+			throw new Exception("No sample size given for sampling driver.");
+		}
+	}
+
+	@Override
+	public void run() throws Exception {
+		// cache references on the stack
+		final MutableObjectIterator<T> input = this.taskContext.getInput(0);
+		final TypeSerializer<T> serializer = this.taskContext.<T>getInputSerializer(0).getSerializer();
+		final Collector<WeightedSample<T>> output = this.taskContext.getOutputCollector();
+		final int sampleSize = this.sampleSize;
+		final Random random = new Random();
+		
+		final ArrayList<T> sample = new ArrayList<T>(sampleSize);
+		T record = serializer.createInstance();
+		long numSeen = 0;
+		
+		while (this.running && ((record = input.next(record)) != null)) {
+			if (numSeen < sampleSize) {
+				sample.add(serializer.copy(record, serializer.createInstance()));
+			} else {
+				// the record replaces a sampled one with probability sampleSize / (numSeen + 1)
+				final long pos = (long) (random.nextDouble() * (numSeen + 1));
+				if (pos < sampleSize) {
+					serializer.copy(record, sample.get((int) pos));
+				}
+			}
+			numSeen++;
+		}
+		
+		// every sampled record stands for the same number of seen records
+		final WeightedSample<T> weighted = new WeightedSample<T>();
+		weighted.setWeight(sample.isEmpty() ? 0.0 : ((double) numSeen) / sample.size());
+		for (int i = 0; this.running && i < sample.size(); i++) {
+			weighted.setRecord(sample.get(i));
+			output.collect(weighted);
+		}
+	}
+	
+	@Override
+	public void cleanup() {}
+
+	@Override
+	public void cancel() {
+		this.running = false;
+	}
+}
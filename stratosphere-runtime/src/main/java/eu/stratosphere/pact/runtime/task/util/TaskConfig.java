@@ -68,6 +68,12 @@ public class TaskConfig {
 	private static final String DRIVER_COMPARATOR_PARAMETERS_PREFIX = "driver.comp.params.";
 	
 	private static final String DRIVER_PAIR_COMPARATOR_FACTORY = "driver.paircomp";
+	
+	private static final String DRIVER_JOIN_FILTER = "driver.join-filter";
+	
+	private static final String DRIVER_SAMPLE_SIZE = "driver.sample-size";
+	
+	private static final String DRIVER_NUM_RANGE_PARTITIONS = "driver.range-partitions";
 
 	// -------------------------------------- Inputs ----------------------------------------------
 
@@ -112,6 +118,8 @@ public class TaskConfig {
 	
 	private static final String BROADCAST_INPUT_NAME_PREFIX = "in.broadcast.name.";
 	
+	private static final String BROADCAST_INPUT_SHARING_ID_PREFIX = "in.broadcast.sharing.";
+	
 	
 	// -------------------------------------- Outputs ---------------------------------------------
 	
@@ -151,6 +159,8 @@ public class TaskConfig {
 	
 	private static final String FILEHANDLES_INPUT_PREFIX = "filehandles.input.";
 	
+	private static final String SORT_THREADS_INPUT_PREFIX = "sort-threads.input.";
+	
 	private static final String SORT_SPILLING_THRESHOLD_DRIVER = "sort-spill-threshold.driver";
 	
 	private static final String SORT_SPILLING_THRESHOLD_INPUT_PREFIX = "sort-spill-threshold.input.";
@@ -333,6 +343,52 @@ public class TaskConfig {
 			DRIVER_COMPARATOR_PARAMETERS_PREFIX + inputNum + SEPARATOR, cl);
 	}
 	
+	/**
+	 * Sets whether a hash join publishes a bloom filter over the keys of its build side to the producers
+	 * of its probe side, which drop the records that cannot find a join partner.
+	 * 
+	 * @param useJoinFilter True, if the join filter should be published, false otherwise.
+	 */
+	public void setUseJoinFilter(boolean useJoinFilter) {
+		this.config.setBoolean(DRIVER_JOIN_FILTER, useJoinFilter);
+	}
+	
+	public boolean getUseJoinFilter() {
+		return this.config.getBoolean(DRIVER_JOIN_FILTER, false);
+	}
+	
+	/**
+	 * Sets the number of records that a sampling driver draws from its input.
+	 * 
+	 * @param sampleSize The number of records in the sample.
+	 */
+	public void setSampleSize(int sampleSize) {
+		if (sampleSize < 1) {
+			throw new IllegalArgumentException();
+		}
+		this.config.setInteger(DRIVER_SAMPLE_SIZE, sampleSize);
+	}
+	
+	public int getSampleSize() {
+		return this.config.getInteger(DRIVER_SAMPLE_SIZE, -1);
+	}
+	
+	/**
+	 * Sets the number of partitions that a driver computing range partition boundaries creates boundaries for.
+	 * 
+	 * @param numPartitions The number of partitions.
+	 */
+	public void setNumRangePartitions(int numPartitions) {
+		if (numPartitions < 1) {
+			throw new IllegalArgumentException();
+		}
+		this.config.setInteger(DRIVER_NUM_RANGE_PARTITIONS, numPartitions);
+	}
+	
+	public int getNumRangePartitions() {
+		return this.config.getInteger(DRIVER_NUM_RANGE_PARTITIONS, -1);
+	}
+	
 	public void setDriverPairComparator(TypePairComparatorFactory<?, ?> factory) {
 		final Class<?> clazz = factory.getClass();
 		InstantiationUtil.checkForInstantiation(clazz);
@@ -470,6 +526,18 @@ public class TaskConfig {
 		return this.config.getString(BROADCAST_INPUT_NAME_PREFIX + groupIndex, String.format("broadcastVar%04d", groupIndex));
 	}
 	
+	/**
+	 * Sets the identifier under which the tasks of this vertex that run on the same instance share the
+	 * materialized broadcast variable. Broadcast inputs without an identifier are never shared.
+	 */
+	public void setBroadcastInputSharingId(String id, int groupIndex) {
+		this.config.setString(BROADCAST_INPUT_SHARING_ID_PREFIX + groupIndex, id);
+	}
+	
+	public String getBroadcastInputSharingId(int groupIndex) {
+		return this.config.getString(BROADCAST_INPUT_SHARING_ID_PREFIX + groupIndex, null);
+	}
+	
 	// --------------------------------------------------------------------------------------------
 	//                                        Outputs
 	// --------------------------------------------------------------------------------------------
@@ -619,6 +687,25 @@ public class TaskConfig {
 	
 	// --------------------------------------------------------------------------------------------
 	
+	public void setNumSortThreadsInput(int inputNum, int numThreads) {
+		if (numThreads < 1) {
+			throw new IllegalArgumentException();
+		}
+		this.config.setInteger(SORT_THREADS_INPUT_PREFIX + inputNum, numThreads);
+	}
+
+	/**
+	 * Gets the number of threads that sort the in-memory buffers of the sorter on the given input.
+	 * 
+	 * @param inputNum The number of the input.
+	 * @return The number of sort threads, or -1, if the task manager's default is to be used.
+	 */
+	public int getNumSortThreadsInput(int inputNum) {
+		return this.config.getInteger(SORT_THREADS_INPUT_PREFIX + inputNum, -1);
+	}
+	
+	// --------------------------------------------------------------------------------------------
+	
 	public void setSpillingThresholdDriver(float threshold) {
 		if (threshold < 0.0f || threshold > 1.0f) {
 			throw new IllegalArgumentException();
@@ -0,0 +1,213 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2013 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.pact.runtime.util;
+
+import eu.stratosphere.core.memory.MemorySegment;
+
+/**
+ * A bloom filter over 32 bit hash codes, whose bits are stored in a region of a memory segment.
+ * The filter does not own its memory: the bit region is set via {@link #setBitsLocation(MemorySegment, int)},
+ * so that a single filter object can be used to work on many regions, such as the buckets of a hash table.
+ * <p>
+ * The filter derives its probe positions from the given hash code through double hashing. Because the hash codes
+ * are typically also used to pick the bucket or partition, the code is scrambled before it is used.
+ */
+public class BloomFilter {
+
+	private final int numBits;
+
+	private final int numHashFunctions;
+
+	private MemorySegment segment;
+
+	private int offset;
+
+	/**
+	 * Creates a new bloom filter that works on regions of the given size.
+	 *
+	 * @param expectedEntries The number of entries that are expected to be added to one region.
+	 * @param byteSize The size of the bit region, in bytes.
+	 */
+	public BloomFilter(int expectedEntries, int byteSize) {
+		if (expectedEntries <= 0) {
+			throw new IllegalArgumentException("The expected number of entries must be positive.");
+		}
+		if (byteSize <= 0) {
+			throw new IllegalArgumentException("The size of the bit region must be positive.");
+		}
+
+		this.numBits = byteSize << 3;
+		this.numHashFunctions = optimalNumOfHashFunctions(expectedEntries, this.numBits);
+	}
+
+	private BloomFilter(MemorySegment segment, int offset, int byteSize, int numHashFunctions) {
+		if (byteSize <= 0) {
+			throw new IllegalArgumentException("The size of the bit region must be positive.");
+		}
+		if (numHashFunctions <= 0) {
+			throw new IllegalArgumentException("The number of hash functions must be positive.");
+		}
+
+		this.numBits = byteSize << 3;
+		this.numHashFunctions = numHashFunctions;
+		setBitsLocation(segment, offset);
+	}
+
+	/**
+	 * Creates a bloom filter with a fixed number of hash functions on the given region. The bits in the region
+	 * are not cleared. This is used when the number of entries is not known in advance, or to work on bits that
+	 * were built elsewhere.
+	 *
+	 * @param segment The segment that holds the bits.
+	 * @param offset The offset of the bit region in the segment.
+	 * @param byteSize The size of the bit region, in bytes.
+	 * @param numHashFunctions The number of hash functions.
+	 * @return The bloom filter.
+	 */
+	public static BloomFilter wrap(MemorySegment segment, int offset, int byteSize, int numHashFunctions) {
+		return new BloomFilter(segment, offset, byteSize, numHashFunctions);
+	}
+
+	// --------------------------------------------------------------------------------------------
+
+	/**
+	 * Sets the region that the filter works on, starting at the given offset in the given segment.
+	 *
+	 * @param segment The segment that holds the bits.
+	 * @param offset The offset of the bit region in the segment.
+	 */
+	public void setBitsLocation(MemorySegment segment, int offset) {
+		this.segment = segment;
+		this.offset = offset;
+	}
+
+	/**
+	 * Clears all bits in the current region.
+	 */
+	public void reset() {
+		final int numBytes = this.numBits >>> 3;
+		for (int i = 0; i < numBytes; i++) {
+			this.segment.put(this.offset + i, (byte) 0);
+		}
+	}
+
+	/**
+	 * Adds the given hash code to the current region.
+	 *
+	 * @param hashCode The hash code to add.
+	 */
+	public void addHash(int hashCode) {
+		final int hash1 = scramble(hashCode);
+		final int hash2 = scramble(hash1);
+
+		for (int i = 1; i <= this.numHashFunctions; i++) {
+			int combined = hash1 + i * hash2;
+			if (combined < 0) {
+				combined = ~combined;
+			}
+			setBit(combined % this.numBits);
+		}
+	}
+
+	/**
+	 * Checks whether the given hash code may have been added to the current region. A return value of
+	 * <code>false</code> means that the hash code has definitely not been added.
+	 *
+	 * @param hashCode The hash code to check.
+	 * @return False, if the hash code was not added, true if it may have been added.
+	 */
+	public boolean testHash(int hashCode) {
+		final int hash1 = scramble(hashCode);
+		final int hash2 = scramble(hash1);
+
+		for (int i = 1; i <= this.numHashFunctions; i++) {
+			int combined = hash1 + i * hash2;
+			if (combined < 0) {
+				combined = ~combined;
+			}
+			if (!getBit(combined % this.numBits)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Folds the bits of the current region into a smaller region of the given size, by combining the bits of all
+	 * <code>targetByteSize</code> sized chunks with a bitwise OR. A filter of the smaller size with the same number
+	 * of hash functions answers on the folded bits as if all hash codes had been added to it directly, because
+	 * <code>(x % m) % n == x % n</code> whenever <code>n</code> divides <code>m</code>.
+	 *
+	 * @param target The array to hold the folded bits.
+	 * @param targetByteSize The size of the folded region, in bytes. Must divide the size of this filter's region.
+	 */
+	public void foldInto(byte[] target, int targetByteSize) {
+		final int numBytes = this.numBits >>> 3;
+		if (targetByteSize <= 0 || targetByteSize > target.length || numBytes % targetByteSize != 0) {
+			throw new IllegalArgumentException("The target size must divide the size of the filter's bit region.");
+		}
+
+		for (int i = 0; i < targetByteSize; i++) {
+			target[i] = 0;
+		}
+		for (int i = 0; i < numBytes; i++) {
+			final int pos = i % targetByteSize;
+			target[pos] = (byte) (target[pos] | this.segment.get(this.offset + i));
+		}
+	}
+
+	public int getNumBits() {
+		return this.numBits;
+	}
+
+	public int getNumHashFunctions() {
+		return this.numHashFunctions;
+	}
+
+	// --------------------------------------------------------------------------------------------
+
+	private void setBit(int index) {
+		final int pos = this.offset + (index >>> 3);
+		this.segment.put(pos, (byte) (this.segment.get(pos) | (1 << (index & 0x7))));
+	}
+
+	private boolean getBit(int index) {
+		return (this.segment.get(this.offset + (index >>> 3)) & (1 << (index & 0x7))) != 0;
+	}
+
+	/**
+	 * The finalization step of the Murmur3 hash function, used to decorrelate the probe positions
+	 * from the bits of the hash code that were used to select the region.
+	 */
+	private static int scramble(int code) {
+		code ^= code >>> 16;
+		code *= 0x85ebca6b;
+		code ^= code >>> 13;
+		code *= 0xc2b2ae35;
+		code ^= code >>> 16;
+		return code;
+	}
+
+	/**
+	 * Computes the number of hash functions that minimizes the false positive probability for
+	 * the given number of entries and bits, which is <code>(m / n) * ln(2)</code>.
+	 *
+	 * @param expectedEntries The number of expected entries (n).
+	 * @param numBits The number of bits (m).
+	 * @return The optimal number of hash functions, at least one.
+	 */
+	public static int optimalNumOfHashFunctions(long expectedEntries, long numBits) {
+		return Math.max(1, (int) Math.round((double) numBits / expectedEntries * Math.log(2)));
+	}
+}
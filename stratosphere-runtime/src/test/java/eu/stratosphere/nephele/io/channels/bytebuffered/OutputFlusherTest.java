@@ -0,0 +1,190 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2013 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.nephele.io.channels.bytebuffered;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import eu.stratosphere.core.memory.MemorySegment;
+import eu.stratosphere.nephele.event.task.AbstractEvent;
+import eu.stratosphere.nephele.io.channels.Buffer;
+import eu.stratosphere.nephele.io.channels.BufferFactory;
+import eu.stratosphere.nephele.io.channels.ChannelID;
+import eu.stratosphere.nephele.io.channels.serialization.IntType;
+import eu.stratosphere.nephele.io.compression.CompressionCodec;
+import eu.stratosphere.nephele.util.BufferPoolConnector;
+import eu.stratosphere.util.StringUtils;
+
+/**
+ * Tests that output channels with a buffer timeout ship their partially filled buffers.
+ */
+public class OutputFlusherTest {
+
+	private static final int BUFFER_SIZE = 4096;
+
+	/**
+	 * A record of four bytes, with its four byte length prefix.
+	 */
+	private static final int RECORD_SIZE = 8;
+
+	@Test
+	public void testFlushAfterTimeout() {
+		try {
+			final CollectingBroker broker = new CollectingBroker();
+			final NetworkOutputChannel<IntType> channel = createChannel(20, broker);
+
+			channel.writeRecord(new IntType(42));
+			channel.writeRecord(new IntType(43));
+
+			final Buffer buffer = broker.released.poll(10, TimeUnit.SECONDS);
+			assertNotNull("The partially filled buffer was not shipped after the timeout.", buffer);
+			assertEquals(2 * RECORD_SIZE, buffer.size());
+
+			// an empty buffer is not shipped
+			channel.writeRecord(new IntType(44));
+			final Buffer next = broker.released.poll(10, TimeUnit.SECONDS);
+			assertNotNull(next);
+			assertEquals(RECORD_SIZE, next.size());
+			assertNull(broker.released.poll(100, TimeUnit.MILLISECONDS));
+
+			channel.releaseAllResources();
+		} catch (Exception e) {
+			e.printStackTrace();
+			fail(StringUtils.stringifyException(e));
+		}
+	}
+
+	@Test
+	public void testFlushEveryRecord() {
+		try {
+			final CollectingBroker broker = new CollectingBroker();
+			final NetworkOutputChannel<IntType> channel = createChannel(0, broker);
+
+			for (int i = 0; i < 3; i++) {
+				channel.writeRecord(new IntType(i));
+				final Buffer buffer = broker.released.poll();
+				assertNotNull("The buffer was not shipped after the record.", buffer);
+				assertEquals(RECORD_SIZE, buffer.size());
+			}
+
+			channel.releaseAllResources();
+		} catch (Exception e) {
+			e.printStackTrace();
+			fail(StringUtils.stringifyException(e));
+		}
+	}
+
+	@Test
+	public void testNoFlushWithoutTimeout() {
+		try {
+			final CollectingBroker broker = new CollectingBroker();
+			final NetworkOutputChannel<IntType> channel = createChannel(-1, broker);
+
+			channel.writeRecord(new IntType(42));
+			assertNull(broker.released.poll(200, TimeUnit.MILLISECONDS));
+
+			channel.flush();
+			assertEquals(RECORD_SIZE, broker.released.poll().size());
+
+			channel.releaseAllResources();
+		} catch (Exception e) {
+			e.printStackTrace();
+			fail(StringUtils.stringifyException(e));
+		}
+	}
+
+	@Test
+	public void testNoFlushWithoutCredit() {
+		try {
+			final CollectingBroker broker = new CollectingBroker();
+			broker.receiverReady = false;
+			final NetworkOutputChannel<IntType> channel = createChannel(20, broker);
+
+			channel.writeRecord(new IntType(42));
+			assertNull(broker.released.poll(200, TimeUnit.MILLISECONDS));
+
+			// the buffer is shipped once the receiver can accept it
+			broker.receiverReady = true;
+			final Buffer buffer = broker.released.poll(10, TimeUnit.SECONDS);
+			assertNotNull("The partially filled buffer was not shipped after the receiver became ready.", buffer);
+			assertEquals(RECORD_SIZE, buffer.size());
+
+			channel.releaseAllResources();
+		} catch (Exception e) {
+			e.printStackTrace();
+			fail(StringUtils.stringifyException(e));
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidTimeout() {
+		createChannel(-2, new CollectingBroker());
+	}
+
+	// --------------------------------------------------------------------------------------------
+
+	private static NetworkOutputChannel<IntType> createChannel(long timeout, ByteBufferedOutputChannelBroker broker) {
+		final NetworkOutputChannel<IntType> channel = new NetworkOutputChannel<IntType>(null, 0, new ChannelID(),
+			new ChannelID(), CompressionCodec.NONE);
+		channel.setBufferTimeout(timeout);
+		channel.setByteBufferedOutputChannelBroker(broker);
+		return channel;
+	}
+
+	/**
+	 * A broker that hands out fresh buffers and collects the buffers that the channel ships.
+	 */
+	private static final class CollectingBroker implements ByteBufferedOutputChannelBroker {
+
+		private final BlockingQueue<Buffer> released = new LinkedBlockingQueue<Buffer>();
+
+		private volatile boolean receiverReady = true;
+
+		@Override
+		public Buffer requestEmptyWriteBuffer() {
+			return BufferFactory.createFromMemory(BUFFER_SIZE, new MemorySegment(new byte[BUFFER_SIZE]),
+				new BufferPoolConnector(new LinkedBlockingQueue<MemorySegment>()));
+		}
+
+		@Override
+		public void releaseWriteBuffer(Buffer buffer) {
+			buffer.flip();
+			this.released.add(buffer);
+		}
+
+		@Override
+		public boolean canReleaseWriteBufferWithoutBlocking() {
+			return this.receiverReady;
+		}
+
+		@Override
+		public boolean hasDataLeftToTransmit() {
+			return false;
+		}
+
+		@Override
+		public void transferEventToInputChannel(AbstractEvent event) throws IOException {
+			throw new IOException("Unexpected event.");
+		}
+	}
+}
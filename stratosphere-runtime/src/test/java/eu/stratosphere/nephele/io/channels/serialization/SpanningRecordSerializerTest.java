@@ -0,0 +1,265 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2013 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.nephele.io.channels.serialization;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import org.junit.Test;
+
+import eu.stratosphere.core.memory.MemorySegment;
+import eu.stratosphere.nephele.io.channels.BufferFactory;
+import eu.stratosphere.nephele.io.channels.DefaultDeserializer;
+import eu.stratosphere.nephele.io.channels.MemoryBuffer;
+import eu.stratosphere.nephele.io.channels.SerializationBuffer;
+import eu.stratosphere.nephele.io.channels.SpanningRecordSerializer;
+import eu.stratosphere.nephele.util.BufferPoolConnector;
+
+/**
+ * Tests that the records written by the {@link SpanningRecordSerializer} directly into memory buffers are
+ * read back correctly, both when they are contained in a single buffer and when they span several buffers.
+ */
+public class SpanningRecordSerializerTest
+{
+	private static final SerializationTestType[] TYPE_FACTORIES = new SerializationTestType[] {
+		new BooleanType(),
+		new ByteArrayType(),
+		new ByteSubArrayType(),
+		new ByteType(),
+		new CharType(),
+		new DoubleType(),
+		new FloatType(),
+		new IntType(),
+		new LongType(),
+		new ShortType(),
+		new UnsignedByteType(),
+		new UnsignedShortType(),
+		new UTFStringType()
+	};
+	
+	private static final long SEED = 64871654635745873L;
+	
+	private static final int NUM_RECORDS = 100000;
+	
+	// --------------------------------------------------------------------------------------------
+	
+	@Test
+	public void testIntegersWithAlignedBuffers()
+	{
+		try {
+			final Random rnd = new Random(SEED);
+			final List<SerializationTestType> records = new ArrayList<SerializationTestType>();
+			for (int i = 0; i < NUM_RECORDS; i++) {
+				records.add(new IntType(rnd.nextInt()));
+			}
+			testRoundTrip(records, 2048);
+		}
+		catch (Exception e) {
+			e.printStackTrace();
+			fail("Test encountered an unexpected exception.");
+		}
+	}
+	
+	@Test
+	public void testIntegersWithUnalignedBuffers()
+	{
+		try {
+			final Random rnd = new Random(SEED);
+			final List<SerializationTestType> records = new ArrayList<SerializationTestType>();
+			for (int i = 0; i < NUM_RECORDS; i++) {
+				records.add(new IntType(rnd.nextInt()));
+			}
+			testRoundTrip(records, 2047);
+		}
+		catch (Exception e) {
+			e.printStackTrace();
+			fail("Test encountered an unexpected exception.");
+		}
+	}
+	
+	@Test
+	public void testRandomTypes()
+	{
+		try {
+			final List<SerializationTestType> records = createRandomRecords();
+			
+			// the byte array records are larger than the buffers and span several of them
+			testRoundTrip(records, 512 * 7);
+			testRoundTrip(records, 1021);
+		}
+		catch (Exception e) {
+			e.printStackTrace();
+			fail("Test encountered an unexpected exception.");
+		}
+	}
+	
+	@Test
+	public void testSameFormatAsSerializationBuffer()
+	{
+		try {
+			final List<SerializationTestType> records = createRandomRecords().subList(0, 1000);
+			
+			final SerializationBuffer<SerializationTestType> serBuffer = new SerializationBuffer<SerializationTestType>();
+			final ByteCollector expected = new ByteCollector();
+			for (SerializationTestType record : records) {
+				serBuffer.serialize(record);
+				while (serBuffer.dataLeftFromPreviousSerialization()) {
+					serBuffer.read(expected);
+				}
+			}
+			
+			final ByteCollector actual = new ByteCollector();
+			for (MemoryBuffer buffer : serialize(records, 1000)) {
+				buffer.writeTo(actual);
+			}
+			
+			assertArrayEquals(expected.toByteArray(), actual.toByteArray());
+		}
+		catch (Exception e) {
+			e.printStackTrace();
+			fail("Test encountered an unexpected exception.");
+		}
+	}
+	
+	// --------------------------------------------------------------------------------------------
+	
+	private static List<SerializationTestType> createRandomRecords()
+	{
+		final Random rnd = new Random(SEED);
+		final List<SerializationTestType> records = new ArrayList<SerializationTestType>();
+		for (int i = 0; i < NUM_RECORDS; i++) {
+			records.add(TYPE_FACTORIES[rnd.nextInt(TYPE_FACTORIES.length)].getRandom(rnd));
+		}
+		return records;
+	}
+	
+	private static void testRoundTrip(List<SerializationTestType> records, int bufferSize) throws Exception
+	{
+		final List<MemoryBuffer> buffers = serialize(records, bufferSize);
+		final ArrayDeque<SerializationTestType> elements = new ArrayDeque<SerializationTestType>(records);
+		final DefaultDeserializer<SerializationTestType> deserializer = new DefaultDeserializer<SerializationTestType>(null);
+		
+		for (MemoryBuffer buffer : buffers) {
+			while (buffer.hasRemaining()) {
+				final SerializationTestType reference = elements.pollFirst();
+				assertNotNull("More data than records in the buffers.", reference);
+				
+				final SerializationTestType result = deserializer.readData(reference.getClass().newInstance(), buffer);
+				if (result == null) {
+					// the record continues in the next buffer
+					elements.addFirst(reference);
+				} else {
+					assertEquals("The deserialized element is not equal to the serialized element.", reference, result);
+				}
+			}
+		}
+		
+		assertEquals(0, elements.size());
+		assertFalse(deserializer.hasUnfinishedData());
+	}
+	
+	/**
+	 * Serializes the records the same way as the byte buffered output channel does, and returns the buffers
+	 * in read mode.
+	 */
+	private static List<MemoryBuffer> serialize(List<SerializationTestType> records, int bufferSize) throws IOException
+	{
+		final SpanningRecordSerializer<SerializationTestType> serializer = new SpanningRecordSerializer<SerializationTestType>();
+		final List<MemoryBuffer> buffers = new ArrayList<MemoryBuffer>();
+		
+		MemoryBuffer current = createBuffer(bufferSize);
+		for (SerializationTestType record : records) {
+			while (serializer.dataLeftFromPreviousSerialization()) {
+				serializer.read(current);
+				if (current.remaining() == 0) {
+					buffers.add(current);
+					current = createBuffer(bufferSize);
+				}
+			}
+			
+			serializer.serialize(record, current);
+			if (current.remaining() == 0) {
+				buffers.add(current);
+				current = createBuffer(bufferSize);
+			}
+		}
+		
+		while (serializer.dataLeftFromPreviousSerialization()) {
+			serializer.read(current);
+			buffers.add(current);
+			current = createBuffer(bufferSize);
+		}
+		if (current.position() > 0) {
+			buffers.add(current);
+		}
+		
+		for (MemoryBuffer buffer : buffers) {
+			buffer.flip();
+		}
+		return buffers;
+	}
+	
+	private static MemoryBuffer createBuffer(int bufferSize)
+	{
+		return BufferFactory.createFromMemory(bufferSize, new MemorySegment(new byte[bufferSize]),
+			new BufferPoolConnector(new LinkedBlockingQueue<MemorySegment>()));
+	}
+	
+	// ============================================================================================
+	
+	private static final class ByteCollector implements WritableByteChannel
+	{
+		private final List<Byte> bytes = new ArrayList<Byte>();
+		
+		@Override
+		public boolean isOpen() {
+			return true;
+		}
+
+		@Override
+		public void close()
+		{}
+
+		@Override
+		public int write(ByteBuffer src)
+		{
+			final int num = src.remaining();
+			while (src.hasRemaining()) {
+				this.bytes.add(src.get());
+			}
+			return num;
+		}
+		
+		public byte[] toByteArray()
+		{
+			final byte[] result = new byte[this.bytes.size()];
+			for (int i = 0; i < result.length; i++) {
+				result[i] = this.bytes.get(i);
+			}
+			return result;
+		}
+	}
+}
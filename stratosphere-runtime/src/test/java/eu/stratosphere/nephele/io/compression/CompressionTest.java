@@ -0,0 +1,166 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2013 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.nephele.io.compression;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import org.junit.Test;
+
+import eu.stratosphere.core.memory.MemorySegment;
+import eu.stratosphere.nephele.io.channels.BufferFactory;
+import eu.stratosphere.nephele.io.channels.MemoryBuffer;
+import eu.stratosphere.nephele.util.BufferPoolConnector;
+
+/**
+ * Tests the LZ4 block codec and the compression of network buffers.
+ */
+public class CompressionTest {
+
+	private static final int BUFFER_SIZE = 32 * 1024;
+
+	@Test
+	public void testRoundTripOfEdgeCases() throws IOException {
+		roundTrip(new byte[0]);
+		roundTrip(new byte[] { 42 });
+		roundTrip("short text".getBytes());
+
+		final byte[] zeros = new byte[100000];
+		final int compressedLength = roundTrip(zeros);
+		assertTrue("Runs of zeros were not compressed: " + compressedLength, compressedLength < 1000);
+	}
+
+	@Test
+	public void testRoundTripOfRandomData() throws IOException {
+		final Random rnd = new Random(42);
+		for (int size = 1; size < 100000; size *= 3) {
+			final byte[] data = new byte[size];
+			rnd.nextBytes(data);
+			roundTrip(data);
+		}
+	}
+
+	@Test
+	public void testRoundTripOfText() throws IOException {
+		final Random rnd = new Random(13);
+		final String[] words = { "stratosphere", "nephele", "pact", "record", "channel", "buffer", "the", "of" };
+		final StringBuilder bld = new StringBuilder();
+		while (bld.length() < 60000) {
+			bld.append(words[rnd.nextInt(words.length)]).append(rnd.nextInt(1000)).append(' ');
+		}
+
+		final byte[] data = bld.toString().getBytes();
+		final int compressedLength = roundTrip(data);
+		assertTrue("Text was not compressed: " + compressedLength, compressedLength < data.length / 2);
+	}
+
+	@Test
+	public void testCorruptBlock() {
+		final byte[] data = "abcabcabcabcabcabcabcabcabcabcabcabcabcabc".getBytes();
+		final byte[] compressed = new byte[new Lz4BlockCompressor().getMaxCompressedLength(data.length)];
+		final int compressedLength = new Lz4BlockCompressor().compress(data, 0, data.length, compressed, 0);
+
+		// truncating the block must be detected
+		try {
+			new Lz4BlockDecompressor().decompress(compressed, 0, compressedLength - 3, new byte[data.length], 0,
+				data.length);
+			fail("Truncated block was not detected");
+		} catch (IOException e) {
+			// expected
+		}
+
+		// a too small target must be detected
+		try {
+			new Lz4BlockDecompressor().decompress(compressed, 0, compressedLength, new byte[data.length], 0,
+				data.length - 1);
+			fail("Too small target was not detected");
+		} catch (IOException e) {
+			// expected
+		}
+	}
+
+	@Test
+	public void testBufferRoundTrip() throws IOException {
+		final byte[] text = new byte[BUFFER_SIZE];
+		for (int i = 0; i < text.length; i++) {
+			text[i] = (byte) ('a' + (i % 7));
+		}
+		final byte[] random = new byte[BUFFER_SIZE];
+		new Random(42).nextBytes(random);
+
+		final int compressedLength = bufferRoundTrip(text);
+		assertTrue("Buffer was not compressed: " + compressedLength, compressedLength < BUFFER_SIZE / 2);
+
+		// incompressible data is stored as it is, which must still fit into the buffer
+		assertEquals(BUFFER_SIZE - BufferCompressor.TRAILER_LENGTH, bufferRoundTrip(random));
+	}
+
+	// --------------------------------------------------------------------------------------------
+
+	private static int roundTrip(final byte[] data) throws IOException {
+		final Lz4BlockCompressor compressor = new Lz4BlockCompressor();
+		final byte[] compressed = new byte[compressor.getMaxCompressedLength(data.length) + 3];
+		final int compressedLength = compressor.compress(data, 0, data.length, compressed, 3);
+		assertTrue(compressedLength <= compressor.getMaxCompressedLength(data.length));
+
+		final byte[] restored = new byte[data.length + 5];
+		final int restoredLength = new Lz4BlockDecompressor().decompress(compressed, 3, compressedLength, restored, 5,
+			data.length);
+		assertEquals(data.length, restoredLength);
+
+		final byte[] actual = new byte[data.length];
+		System.arraycopy(restored, 5, actual, 0, data.length);
+		assertArrayEquals(data, actual);
+		return compressedLength;
+	}
+
+	/**
+	 * Fills a buffer with as much of the given data as fits, compresses and decompresses it, and returns the
+	 * number of bytes that the buffer holds on the wire, excluding the trailer.
+	 */
+	private static int bufferRoundTrip(final byte[] data) throws IOException {
+		final MemoryBuffer buffer = BufferFactory.createFromMemory(BUFFER_SIZE, new MemorySegment(new byte[BUFFER_SIZE]),
+			new BufferPoolConnector(new LinkedBlockingQueue<MemorySegment>()));
+
+		final BufferCompressor compressor = new BufferCompressor(CompressionCodec.LZ4.createCompressor());
+		compressor.reserveTrailer(buffer);
+		final int written = buffer.write(ByteBuffer.wrap(data));
+		assertEquals(BUFFER_SIZE - BufferCompressor.TRAILER_LENGTH, written);
+
+		compressor.compress(buffer);
+		buffer.flip();
+		final int onWire = buffer.remaining() - BufferCompressor.TRAILER_LENGTH;
+
+		final BufferDecompressor decompressor = new BufferDecompressor(CompressionCodec.LZ4.createDecompressor());
+		decompressor.decompress(buffer);
+		assertEquals(written, decompressor.remaining());
+
+		final ByteBuffer target = ByteBuffer.allocate(BUFFER_SIZE);
+		assertEquals(written, decompressor.read(target));
+		assertEquals(-1, decompressor.read(target));
+		target.flip();
+		assertEquals(written, target.remaining());
+		for (int i = 0; i < written; i++) {
+			assertEquals(data[i], target.get(i));
+		}
+		return onWire;
+	}
+}
@@ -58,6 +58,10 @@ public class IOManagerPerformanceBenchmark
 	
 	private static final int NUM_INTS_WRITTEN = 100000000;
 	
+	private static final long NUM_BYTES_IN_BLOCKS = 512L * 1024 * 1024;
+	
+	private static final int NUM_BLOCKS_IN_FLIGHT = 8;
+	
 	
 	private static final AbstractInvokable memoryOwner = new DefaultMemoryManagerTest.DummyInvokable();
 	
@@ -91,13 +95,30 @@ public class IOManagerPerformanceBenchmark
 		LOG.info("Starting speed test with IO Manager...");
 		
 		for (int num : NUM_SEGMENTS) {
-			testChannelWithSegments(num);
+			testChannelWithSegments(this.memManager, num);
+		}
+	}
+	
+	@Test
+	public void speedTestIOManagerOffHeap() throws Exception
+	{
+		LOG.info("Starting speed test with IO Manager and off-heap memory...");
+		
+		final DefaultMemoryManager offHeapManager = new DefaultMemoryManager(MEMORY_SIZE, DefaultMemoryManager.DEFAULT_PAGE_SIZE, true);
+		try {
+			for (int num : NUM_SEGMENTS) {
+				testChannelWithSegments(offHeapManager, num);
+			}
+			Assert.assertTrue("Not all memory was returned to the memory manager in the test.", offHeapManager.verifyEmpty());
+		}
+		finally {
+			offHeapManager.shutdown();
 		}
 	}
 
-	private final void testChannelWithSegments(int numSegments) throws Exception
+	private final void testChannelWithSegments(DefaultMemoryManager memManager, int numSegments) throws Exception
 	{
-		final List<MemorySegment> memory = this.memManager.allocatePages(memoryOwner, numSegments);
+		final List<MemorySegment> memory = memManager.allocatePages(memoryOwner, numSegments);
 		final Channel.ID channel = this.ioManager.createChannel();
 		
 		BlockChannelWriter writer = null;
@@ -105,7 +126,7 @@ public class IOManagerPerformanceBenchmark
 		
 		try {	
 			writer = this.ioManager.createBlockChannelWriter(channel);
-			final ChannelWriterOutputView out = new ChannelWriterOutputView(writer, memory, this.memManager.getPageSize());
+			final ChannelWriterOutputView out = new ChannelWriterOutputView(writer, memory, memManager.getPageSize());
 			
 			long writeStart = System.currentTimeMillis();
 			
@@ -142,7 +163,95 @@ public class IOManagerPerformanceBenchmark
 			reader.deleteChannel();
 			reader = null;
 			
-			LOG.info("IOManager with " + numSegments + " mem segments: write " + writeElapsed + " msecs, read " + readElapsed + " msecs.");
+			LOG.info("IOManager with " + numSegments + (memManager.isOffHeap() ? " off-heap" : " heap") + 
+				" mem segments: write " + writeElapsed + " msecs, read " + readElapsed + " msecs.");
+			
+			memManager.release(memory);
+		}
+		finally {
+			if (reader != null) {
+				reader.closeAndDelete();
+			}
+			if (writer != null) {
+				writer.closeAndDelete();
+			}
+		}
+	}
+
+	/**
+	 * Writes and reads whole blocks without serializing records, to isolate the cost of moving the blocks
+	 * between the segments and the file. Heap segments are copied by the JDK through a temporary direct
+	 * buffer, while off-heap segments are handed to the file channel directly.
+	 */
+	@Test
+	public void speedTestBlocksHeapVersusOffHeap() throws Exception
+	{
+		LOG.info("Starting speed test for block I/O with heap and off-heap segments...");
+		
+		for (int pageSize : SEGMENT_SIZES_ALIGNED) {
+			final DefaultMemoryManager heapManager = new DefaultMemoryManager(MEMORY_SIZE, pageSize, false);
+			final DefaultMemoryManager offHeapManager = new DefaultMemoryManager(MEMORY_SIZE, pageSize, true);
+			try {
+				testBlockTransfers(heapManager);
+				testBlockTransfers(offHeapManager);
+			}
+			finally {
+				heapManager.shutdown();
+				offHeapManager.shutdown();
+			}
+		}
+	}
+	
+	private final void testBlockTransfers(DefaultMemoryManager memManager) throws Exception
+	{
+		final List<MemorySegment> memory = memManager.allocatePages(memoryOwner, NUM_BLOCKS_IN_FLIGHT);
+		final int pageSize = memManager.getPageSize();
+		final long numBlocks = NUM_BYTES_IN_BLOCKS / pageSize;
+		final Channel.ID channel = this.ioManager.createChannel();
+		
+		BlockChannelWriter writer = null;
+		BlockChannelReader reader = null;
+		
+		try {
+			writer = this.ioManager.createBlockChannelWriter(channel);
+			final long writeStart = System.nanoTime();
+			for (long i = 0; i < numBlocks; i++) {
+				final MemorySegment seg = memory.isEmpty() ? writer.getNextReturnedSegment() : memory.remove(memory.size() - 1);
+				seg.putLong(0, i);
+				writer.writeBlock(seg);
+			}
+			writer.close();
+			final long writeElapsed = System.nanoTime() - writeStart;
+			writer.getReturnQueue().drainTo(memory);
+			writer = null;
+			
+			reader = this.ioManager.createBlockChannelReader(channel);
+			final long readStart = System.nanoTime();
+			long issued = 0;
+			while (!memory.isEmpty() && issued < numBlocks) {
+				reader.readBlock(memory.remove(memory.size() - 1));
+				issued++;
+			}
+			for (long i = 0; i < numBlocks; i++) {
+				final MemorySegment seg = reader.getNextReturnedSegment();
+				if (seg.getLong(0) != i) {
+					throw new IOException("Block " + i + " was read out of order.");
+				}
+				if (issued < numBlocks) {
+					reader.readBlock(seg);
+					issued++;
+				} else {
+					memory.add(seg);
+				}
+			}
+			reader.closeAndDelete();
+			final long readElapsed = System.nanoTime() - readStart;
+			reader = null;
+			
+			final long mbytes = (numBlocks * pageSize) >>> 20;
+			LOG.info("Blocks of " + pageSize + " bytes in " + (memManager.isOffHeap() ? "off-heap" : "heap") + 
+				" segments: write " + (mbytes * 1000000000L / Math.max(writeElapsed, 1)) + " MB/s, read " +
+				(mbytes * 1000000000L / Math.max(readElapsed, 1)) + " MB/s.");
 			
 			memManager.release(memory);
 		}
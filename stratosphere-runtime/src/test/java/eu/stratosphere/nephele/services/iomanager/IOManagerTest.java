@@ -15,6 +15,7 @@ package eu.stratosphere.nephele.services.iomanager;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
 
 import junit.framework.Assert;
@@ -188,6 +189,269 @@ public class IOManagerTest
 		}
 	}
 
+	@Test
+	public void channelReadBatchedSegments()
+	{
+		final int NUM_IOS = 1111;
+		final int NUM_SEGS = 16;
+		
+		try {
+			final List<MemorySegment> memSegs = this.memoryManager.allocatePages(new DummyInvokable(), NUM_SEGS);
+			final Channel.ID channelID = this.ioManager.createChannel();
+			final BlockChannelWriter writer = this.ioManager.createBlockChannelWriter(channelID);
+			
+			for (int i = 0; i < NUM_IOS; i++) {
+				final MemorySegment memSeg = memSegs.isEmpty() ? writer.getNextReturnedSegment() : memSegs.remove(0);
+				
+				for (int pos = 0; pos < memSeg.size(); pos += 4) {
+					memSeg.putInt(pos, i);
+				}
+				
+				writer.writeBlock(memSeg);
+			}
+			writer.close();
+			
+			// get back the memory
+			while (memSegs.size() < NUM_SEGS) {
+				memSegs.add(writer.getNextReturnedSegment());
+			}
+			
+			// read the blocks in batches of varying size, the last batch reaches beyond the end of the file
+			final BlockChannelReader reader = this.ioManager.createBlockChannelReader(channelID);
+			final List<MemorySegment> batch = new ArrayList<MemorySegment>();
+			int numRead = 0;
+			int batchSize = 1;
+			while (numRead < NUM_IOS) {
+				for (int i = 0; i < batchSize; i++) {
+					batch.add(memSegs.remove(0));
+				}
+				reader.readBlocks(batch);
+				batch.clear();
+				
+				for (int i = 0; i < batchSize; i++, numRead++) {
+					final MemorySegment memSeg = reader.getNextReturnedSegment();
+					if (numRead < NUM_IOS) {
+						for (int pos = 0; pos < memSeg.size(); pos += 4) {
+							if (memSeg.getInt(pos) != numRead) {
+								Assert.fail("Read memory segment contains invalid data.");
+							}
+						}
+					}
+					memSegs.add(memSeg);
+				}
+				batchSize = batchSize % NUM_SEGS + 1;
+			}
+			
+			reader.closeAndDelete();
+			Assert.assertEquals(NUM_SEGS, memSegs.size());
+			this.memoryManager.release(memSegs);
+			
+		} catch (Exception ex) {
+			ex.printStackTrace();
+			Assert.fail("TEst encountered an exception: " + ex.getMessage());
+		}
+	}
+
+	@Test
+	public void channelReadWriteBundledRequests()
+	{
+		final int NUM_IOS = 1111;
+		final int NUM_SEGS = 16;
+		final int NUM_TO_COMBINE = 5;
+		
+		try {
+			final List<MemorySegment> memSegs = this.memoryManager.allocatePages(new DummyInvokable(), NUM_SEGS);
+			final Channel.ID channelID = this.ioManager.createChannel();
+			final BlockChannelWriter writer = this.ioManager.createBlockChannelWriter(channelID, NUM_TO_COMBINE);
+			
+			for (int i = 0; i < NUM_IOS; i++) {
+				final MemorySegment memSeg = memSegs.isEmpty() ? writer.getNextReturnedSegment() : memSegs.remove(0);
+				
+				for (int pos = 0; pos < memSeg.size(); pos += 4) {
+					memSeg.putInt(pos, i);
+				}
+				
+				writer.writeBlock(memSeg);
+			}
+			// the last requests do not fill a bundle and must be written on close
+			writer.close();
+			
+			// get back the memory
+			while (memSegs.size() < NUM_SEGS) {
+				memSegs.add(writer.getNextReturnedSegment());
+			}
+			
+			final BlockChannelReader reader = this.ioManager.createBlockChannelReader(channelID, NUM_TO_COMBINE);
+			
+			// issue fewer reads than a bundle holds, the reader must not wait for more of them
+			for (int i = 0; i < NUM_TO_COMBINE - 2; i++) {
+				reader.readBlock(memSegs.remove(0));
+			}
+			int numIssued = NUM_TO_COMBINE - 2;
+			
+			for (int i = 0; i < NUM_IOS; i++) {
+				final MemorySegment memSeg = reader.getNextReturnedSegment();
+				for (int pos = 0; pos < memSeg.size(); pos += 4) {
+					if (memSeg.getInt(pos) != i) {
+						Assert.fail("Read memory segment contains invalid data.");
+					}
+				}
+				
+				if (numIssued < NUM_IOS) {
+					reader.readBlock(memSeg);
+					numIssued++;
+				} else {
+					memSegs.add(memSeg);
+				}
+				while (numIssued < NUM_IOS && !memSegs.isEmpty()) {
+					reader.readBlock(memSegs.remove(0));
+					numIssued++;
+				}
+			}
+			
+			reader.closeAndDelete();
+			Assert.assertEquals(NUM_SEGS, memSegs.size());
+			this.memoryManager.release(memSegs);
+			
+		} catch (Exception ex) {
+			ex.printStackTrace();
+			Assert.fail("TEst encountered an exception: " + ex.getMessage());
+		}
+	}
+	
+	@Test
+	public void channelReadWriteOffHeapSegments()
+	{
+		final int NUM_IOS = 555;
+		final int NUM_SEGS = 8;
+		
+		final DefaultMemoryManager offHeapManager = new DefaultMemoryManager(NUM_SEGS * 32 * 1024, 32 * 1024, true);
+		try {
+			final List<MemorySegment> memSegs = offHeapManager.allocatePages(new DummyInvokable(), NUM_SEGS);
+			final Channel.ID channelID = this.ioManager.createChannel();
+			
+			// single and bundled requests must both go directly from and to the off-heap memory
+			final BlockChannelWriter writer = this.ioManager.createBlockChannelWriter(channelID, 3);
+			for (int i = 0; i < NUM_IOS; i++) {
+				final MemorySegment memSeg = memSegs.isEmpty() ? writer.getNextReturnedSegment() : memSegs.remove(0);
+				Assert.assertTrue(memSeg.isOffHeap());
+				for (int pos = 0; pos < memSeg.size(); pos += 4) {
+					memSeg.putInt(pos, i);
+				}
+				writer.writeBlock(memSeg);
+			}
+			writer.close();
+			writer.getReturnQueue().drainTo(memSegs);
+			
+			final BlockChannelReader reader = this.ioManager.createBlockChannelReader(channelID);
+			int numIssued = 0;
+			while (!memSegs.isEmpty()) {
+				reader.readBlock(memSegs.remove(0));
+				numIssued++;
+			}
+			for (int i = 0; i < NUM_IOS; i++) {
+				final MemorySegment memSeg = reader.getNextReturnedSegment();
+				for (int pos = 0; pos < memSeg.size(); pos += 4) {
+					if (memSeg.getInt(pos) != i) {
+						Assert.fail("Read memory segment contains invalid data.");
+					}
+				}
+				if (numIssued < NUM_IOS) {
+					reader.readBlock(memSeg);
+					numIssued++;
+				} else {
+					memSegs.add(memSeg);
+				}
+			}
+			reader.closeAndDelete();
+			
+			Assert.assertEquals(NUM_SEGS, memSegs.size());
+			offHeapManager.release(memSegs);
+			Assert.assertTrue(offHeapManager.verifyEmpty());
+			
+		} catch (Exception ex) {
+			ex.printStackTrace();
+			Assert.fail("TEst encountered an exception: " + ex.getMessage());
+		}
+		finally {
+			offHeapManager.shutdown();
+		}
+	}
+	
+	@Test
+	public void multipleThreadsPerPath()
+	{
+		final int NUM_CHANNELS = 8;
+		final int NUM_IOS = 200;
+		final int NUM_SEGS_PER_CHANNEL = 4;
+		
+		final IOManager ioMan = new IOManager(new String[] { System.getProperty("java.io.tmpdir") },
+			this.ioManager.getSpillCompressionCodec(), 3);
+		try {
+			final List<MemorySegment> memSegs = this.memoryManager.allocatePages(new DummyInvokable(), NUM_CHANNELS * NUM_SEGS_PER_CHANNEL);
+			
+			final Channel.ID[] ids = new Channel.ID[NUM_CHANNELS];
+			final BlockChannelWriter[] writers = new BlockChannelWriter[NUM_CHANNELS];
+			for (int c = 0; c < NUM_CHANNELS; c++) {
+				ids[c] = ioMan.createChannel();
+				writers[c] = ioMan.createBlockChannelWriter(ids[c]);
+				for (int k = 0; k < NUM_SEGS_PER_CHANNEL; k++) {
+					writers[c].getReturnQueue().add(memSegs.remove(0));
+				}
+			}
+			
+			// interleave the writes to the channels, each channel must keep its blocks in order
+			for (int i = 0; i < NUM_IOS; i++) {
+				for (int c = 0; c < NUM_CHANNELS; c++) {
+					final MemorySegment memSeg = writers[c].getNextReturnedSegment();
+					for (int pos = 0; pos < memSeg.size(); pos += 4) {
+						memSeg.putInt(pos, c * NUM_IOS + i);
+					}
+					writers[c].writeBlock(memSeg);
+				}
+			}
+			
+			final BlockChannelReader[] readers = new BlockChannelReader[NUM_CHANNELS];
+			for (int c = 0; c < NUM_CHANNELS; c++) {
+				writers[c].close();
+				readers[c] = ioMan.createBlockChannelReader(ids[c]);
+				while (!writers[c].getReturnQueue().isEmpty()) {
+					readers[c].readBlock(writers[c].getReturnQueue().poll());
+				}
+			}
+			
+			for (int i = 0; i < NUM_IOS; i++) {
+				for (int c = 0; c < NUM_CHANNELS; c++) {
+					final MemorySegment memSeg = readers[c].getNextReturnedSegment();
+					for (int pos = 0; pos < memSeg.size(); pos += 4) {
+						if (memSeg.getInt(pos) != c * NUM_IOS + i) {
+							Assert.fail("Read memory segment contains invalid data.");
+						}
+					}
+					if (i < NUM_IOS - NUM_SEGS_PER_CHANNEL) {
+						readers[c].readBlock(memSeg);
+					} else {
+						memSegs.add(memSeg);
+					}
+				}
+			}
+			
+			for (int c = 0; c < NUM_CHANNELS; c++) {
+				readers[c].closeAndDelete();
+			}
+			Assert.assertEquals(NUM_CHANNELS * NUM_SEGS_PER_CHANNEL, memSegs.size());
+			this.memoryManager.release(memSegs);
+			
+		} catch (Exception ex) {
+			ex.printStackTrace();
+			Assert.fail("TEst encountered an exception: " + ex.getMessage());
+		}
+		finally {
+			ioMan.shutdown();
+			Assert.assertTrue("IO Manager has not properly shut down.", ioMan.isProperlyShutDown());
+		}
+	}
+
 	// ============================================================================================
 	
 	final class FailingSegmentReadRequest implements ReadRequest
@@ -0,0 +1,130 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2013 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.nephele.services.memorymanager;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import eu.stratosphere.core.memory.MemorySegment;
+import eu.stratosphere.nephele.services.memorymanager.spi.DefaultMemoryManager;
+
+/**
+ * Runs the memory segment tests on off-heap segments, and tests the interplay of heap and off-heap segments.
+ */
+public class OffHeapMemorySegmentTest extends MemorySegmentTest {
+
+	@Override
+	protected DefaultMemoryManager createMemoryManager() {
+		return new DefaultMemoryManager(MANAGED_MEMORY_SIZE, PAGE_SIZE, true);
+	}
+
+	@Test
+	public void testOffHeapAllocation() throws Exception {
+		final DefaultMemoryManager manager = createMemoryManager();
+		assertTrue(manager.isOffHeap());
+		
+		final List<MemorySegment> segments = manager.allocatePages(new DefaultMemoryManagerTest.DummyInvokable(), 8);
+		for (MemorySegment seg : segments) {
+			assertTrue(seg.isOffHeap());
+			assertEquals(PAGE_SIZE, seg.size());
+			
+			final ByteBuffer wrapper = seg.wrap(0, seg.size());
+			assertTrue(wrapper.isDirect());
+			assertEquals(PAGE_SIZE, wrapper.remaining());
+		}
+		
+		// pages must not overlap
+		for (int i = 0; i < segments.size(); i++) {
+			segments.get(i).putInt(0, i);
+			segments.get(i).putInt(PAGE_SIZE - 4, i);
+		}
+		for (int i = 0; i < segments.size(); i++) {
+			assertEquals(i, segments.get(i).getInt(0));
+			assertEquals(i, segments.get(i).getInt(PAGE_SIZE - 4));
+		}
+		
+		final MemorySegment released = segments.get(0);
+		manager.release(segments);
+		assertTrue(released.isFreed());
+		try {
+			released.getInt(0);
+			fail("Access to a freed segment must fail.");
+		} catch (IndexOutOfBoundsException e) {
+			// expected
+		}
+		assertTrue(manager.verifyEmpty());
+		manager.shutdown();
+	}
+	
+	@Test
+	public void testCopiesBetweenHeapAndOffHeap() throws Exception {
+		final int size = 4096;
+		final Random rnd = new Random(RANDOM_SEED);
+		
+		final MemorySegment heap = new MemorySegment(new byte[size]);
+		final MemorySegment offHeap = new MemorySegment(ByteBuffer.allocateDirect(size));
+		
+		final byte[] data = new byte[size];
+		rnd.nextBytes(data);
+		heap.put(0, data);
+		
+		// heap to off-heap, and back into another heap segment
+		heap.copyTo(0, offHeap, 0, size);
+		final MemorySegment heap2 = new MemorySegment(ByteBuffer.wrap(new byte[size]));
+		offHeap.copyTo(0, heap2, 0, size);
+		assertEquals(0, MemorySegment.compare(heap, offHeap, 0, 0, size));
+		assertEquals(0, MemorySegment.compare(heap, heap2, 0, 0, size));
+		
+		// swapping regions between the two kinds of segments
+		offHeap.put(100, (byte) (data[100] + 1));
+		MemorySegment.swapBytes(heap, offHeap, new byte[64], 64, 64, 64);
+		assertEquals((byte) (data[100] + 1), heap.get(100));
+		assertEquals(data[100], offHeap.get(100));
+		
+		// streams and byte buffers
+		final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		heap2.put(0, data);
+		heap2.copyTo(0, offHeap, 0, size);
+		offHeap.get(new DataOutputStream(baos), 10, size - 20);
+		final MemorySegment fromStream = new MemorySegment(ByteBuffer.allocateDirect(size));
+		fromStream.put(new DataInputStream(new ByteArrayInputStream(baos.toByteArray())), 10, size - 20);
+		assertEquals(0, MemorySegment.compare(heap2, fromStream, 10, 10, size - 20));
+		
+		final ByteBuffer target = ByteBuffer.allocate(100);
+		offHeap.get(200, target, 100);
+		target.flip();
+		final MemorySegment fromBuffer = new MemorySegment(ByteBuffer.allocateDirect(size));
+		fromBuffer.put(300, target, 100);
+		assertEquals(0, target.remaining());
+		assertEquals(0, MemorySegment.compare(heap2, fromBuffer, 200, 300, 100));
+		
+		try {
+			offHeap.copyTo(size - 10, heap, 0, 11);
+			fail("IndexOutOfBoundsException expected");
+		} catch (IndexOutOfBoundsException e) {
+			// expected
+		}
+	}
+}
@@ -0,0 +1,403 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2013 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.nephele.taskmanager.bufferprovider;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+import eu.stratosphere.nephele.io.channels.Buffer;
+import eu.stratosphere.util.StringUtils;
+
+/**
+ * Tests the wait statistics of the {@link LocalBufferPool} and the {@link LocalBufferPoolRebalancer}.
+ */
+public class LocalBufferPoolRebalancerTest {
+
+	private static final int BUFFER_SIZE = 1024;
+
+	@Test
+	public void testWaitStatistics() {
+		try {
+			final LocalBufferPool pool = new LocalBufferPool(1, false);
+			final Buffer first = pool.requestEmptyBuffer(BUFFER_SIZE);
+			assertNotNull(first);
+
+			final BlockingRequester requester = new BlockingRequester(pool);
+			requester.start();
+			waitForWaitingRequests(pool, 1);
+
+			assertEquals(1, pool.getNumberOfWaitingRequests());
+
+			first.recycleBuffer();
+			requester.join();
+
+			assertNotNull(requester.result.get());
+			assertEquals(0, pool.getNumberOfWaitingRequests());
+			assertTrue(pool.getNumberOfBlockedRequests() > 0L);
+			assertTrue(pool.getTotalWaitTime() > 0L);
+			assertEquals(pool.getTotalWaitTime(), pool.resetRecentWaitTime());
+			assertEquals(0L, pool.resetRecentWaitTime());
+
+			requester.result.get().recycleBuffer();
+			pool.destroy();
+		} catch (Exception e) {
+			e.printStackTrace();
+			fail(StringUtils.stringifyException(e));
+		}
+	}
+
+	@Test
+	public void testNonBlockingWaitStatistics() {
+		try {
+			final LocalBufferPool pool = new LocalBufferPool(1, false);
+			final Buffer first = pool.requestEmptyBuffer(BUFFER_SIZE);
+			assertNotNull(first);
+
+			// A failed non-blocking request waits until the listener it registered is notified
+			assertNull(pool.requestEmptyBuffer(BUFFER_SIZE));
+			final TestListener listener = new TestListener();
+			assertTrue(pool.registerBufferAvailabilityListener(listener));
+			assertEquals(0, pool.getNumberOfWaitingRequests());
+			assertEquals(1, pool.getBacklog());
+			assertEquals(1L, pool.getNumberOfBlockedRequests());
+
+			Thread.sleep(50);
+
+			// The wait time of a request which is still waiting must be reported exactly once
+			final long beforeFirstReset = System.currentTimeMillis();
+			assertTrue(pool.resetRecentWaitTime() >= 50L);
+			Thread.sleep(50);
+			final long secondReset = pool.resetRecentWaitTime();
+			assertTrue(secondReset >= 50L);
+			assertTrue(secondReset <= System.currentTimeMillis() - beforeFirstReset);
+
+			first.recycleBuffer();
+			assertTrue(listener.notified.get());
+			assertEquals(0, pool.getBacklog());
+
+			// Once a buffer is available again, no more wait time accumulates
+			final long totalWaitTime = pool.getTotalWaitTime();
+			pool.resetRecentWaitTime();
+			Thread.sleep(20);
+			assertEquals(0L, pool.resetRecentWaitTime());
+			assertEquals(totalWaitTime, pool.getTotalWaitTime());
+
+			pool.destroy();
+		} catch (Exception e) {
+			e.printStackTrace();
+			fail(StringUtils.stringifyException(e));
+		}
+	}
+
+	@Test
+	public void testRebalanceTowardsNonBlockingRequester() {
+		try {
+			final LocalBufferPool idlePool = new LocalBufferPool(4, false);
+			final LocalBufferPool hotPool = new LocalBufferPool(1, false);
+
+			final List<Buffer> buffers = new ArrayList<Buffer>();
+			for (int i = 0; i < 4; ++i) {
+				buffers.add(idlePool.requestEmptyBuffer(BUFFER_SIZE));
+			}
+			for (final Buffer buffer : buffers) {
+				buffer.recycleBuffer();
+			}
+
+			// The hot pool is drained by non-blocking requests, as an input gate is
+			final Buffer first = hotPool.requestEmptyBuffer(BUFFER_SIZE);
+			assertNull(hotPool.requestEmptyBuffer(BUFFER_SIZE));
+			final TestListener listener = new TestListener();
+			assertTrue(hotPool.registerBufferAvailabilityListener(listener));
+			Thread.sleep(50);
+
+			final List<LocalBufferPoolOwner> owners = new ArrayList<LocalBufferPoolOwner>();
+			owners.add(new TestOwner(idlePool, 1));
+			owners.add(new TestOwner(hotPool, 1));
+
+			assertEquals(2, LocalBufferPoolRebalancer.rebalance(owners));
+			assertEquals(2, idlePool.getDesignatedNumberOfBuffers());
+			assertEquals(3, hotPool.getDesignatedNumberOfBuffers());
+			assertFalse(listener.notified.get());
+
+			// The next request is served from the moved buffers
+			final Buffer second = hotPool.requestEmptyBuffer(BUFFER_SIZE);
+			assertNotNull(second);
+
+			second.recycleBuffer();
+			first.recycleBuffer();
+			idlePool.destroy();
+			hotPool.destroy();
+		} catch (Exception e) {
+			e.printStackTrace();
+			fail(StringUtils.stringifyException(e));
+		}
+	}
+
+	@Test
+	public void testRecycleListener() {
+		try {
+			final LocalBufferPool pool = new LocalBufferPool(2, false);
+			final TestRecycleListener listener = new TestRecycleListener();
+
+			final Buffer observed = pool.requestEmptyBuffer(BUFFER_SIZE, listener);
+			final Buffer unobserved = pool.requestEmptyBuffer(BUFFER_SIZE);
+			assertNotNull(observed);
+			assertNotNull(unobserved);
+
+			unobserved.recycleBuffer();
+			assertEquals(0, listener.numberOfRecycledBuffers);
+
+			// The listener is notified once the buffer is back in the pool
+			observed.recycleBuffer();
+			assertEquals(1, listener.numberOfRecycledBuffers);
+			assertEquals(2, pool.getNumberOfAvailableBuffers());
+
+			pool.destroy();
+		} catch (Exception e) {
+			e.printStackTrace();
+			fail(StringUtils.stringifyException(e));
+		}
+	}
+
+	@Test
+	public void testReservedBuffers() {
+		try {
+			final LocalBufferPool idlePool = new LocalBufferPool(8, false);
+			final LocalBufferPool hotPool = new LocalBufferPool(1, false);
+
+			// Two users share eight buffers, but reserve at most three each
+			assertEquals(3, idlePool.reserveBuffers(2, 3));
+			assertEquals(3, idlePool.reserveBuffers(2, 3));
+			assertEquals(6, idlePool.getReservedNumberOfBuffers());
+
+			// The designated number of buffers never falls below the reserved buffers
+			idlePool.setDesignatedNumberOfBuffers(2);
+			assertEquals(6, idlePool.getDesignatedNumberOfBuffers());
+			idlePool.setDesignatedNumberOfBuffers(8);
+
+			final List<Buffer> buffers = new ArrayList<Buffer>();
+			for (int i = 0; i < 8; ++i) {
+				buffers.add(idlePool.requestEmptyBuffer(BUFFER_SIZE));
+			}
+			for (final Buffer buffer : buffers) {
+				buffer.recycleBuffer();
+			}
+
+			final Buffer first = hotPool.requestEmptyBuffer(BUFFER_SIZE);
+			assertNull(hotPool.requestEmptyBuffer(BUFFER_SIZE));
+			assertTrue(hotPool.registerBufferAvailabilityListener(new TestListener()));
+			Thread.sleep(20);
+
+			final List<LocalBufferPoolOwner> owners = new ArrayList<LocalBufferPoolOwner>();
+			owners.add(new TestOwner(idlePool, 2));
+			owners.add(new TestOwner(hotPool, 1));
+
+			// Only the unreserved buffers are given away
+			assertEquals(1, LocalBufferPoolRebalancer.rebalance(owners));
+			assertEquals(7, idlePool.getDesignatedNumberOfBuffers());
+			assertEquals(2, hotPool.getDesignatedNumberOfBuffers());
+
+			first.recycleBuffer();
+			idlePool.destroy();
+			hotPool.destroy();
+		} catch (Exception e) {
+			e.printStackTrace();
+			fail(StringUtils.stringifyException(e));
+		}
+	}
+
+	@Test
+	public void testReservationsBoundedByGlobalPool() {
+		try {
+			final GlobalBufferPool globalBufferPool = GlobalBufferPool.getInstance();
+			final int unreserved = globalBufferPool.getTotalNumberOfBuffers() - globalBufferPool.getReservedNumberOfBuffers();
+
+			// Every user of the pool asks for one buffer, even though there are more users than global buffers
+			final LocalBufferPool pool = new LocalBufferPool(1, false);
+			int reserved = 0;
+			for (int i = 0; i < unreserved + 10; ++i) {
+				reserved += pool.reserveBuffers(unreserved + 10, 1);
+			}
+			assertEquals(unreserved, reserved);
+			assertEquals(unreserved, pool.getReservedNumberOfBuffers());
+
+			// Once the global buffers are reserved, other pools cannot reserve any
+			final LocalBufferPool otherPool = new LocalBufferPool(8, false);
+			assertEquals(0, otherPool.reserveBuffers(1, 8));
+
+			// Destroying the pool releases its reservations
+			pool.destroy();
+			assertEquals(8, otherPool.reserveBuffers(1, 8));
+			otherPool.destroy();
+			assertEquals(unreserved, globalBufferPool.getTotalNumberOfBuffers() - globalBufferPool.getReservedNumberOfBuffers());
+		} catch (Exception e) {
+			fail(StringUtils.stringifyException(e));
+		}
+	}
+
+	@Test
+	public void testRebalanceTowardsWaitingPool() {
+		try {
+			final LocalBufferPool idlePool = new LocalBufferPool(10, false);
+			final LocalBufferPool hotPool = new LocalBufferPool(1, false);
+
+			// Let the idle pool hoard ten unused buffers
+			final List<Buffer> buffers = new ArrayList<Buffer>();
+			for (int i = 0; i < 10; ++i) {
+				buffers.add(idlePool.requestEmptyBuffer(BUFFER_SIZE));
+			}
+			for (final Buffer buffer : buffers) {
+				buffer.recycleBuffer();
+			}
+			assertEquals(10, idlePool.getNumberOfAvailableBuffers());
+
+			final Buffer first = hotPool.requestEmptyBuffer(BUFFER_SIZE);
+			final BlockingRequester requester = new BlockingRequester(hotPool);
+			requester.start();
+			waitForWaitingRequests(hotPool, 1);
+
+			final List<LocalBufferPoolOwner> owners = new ArrayList<LocalBufferPoolOwner>();
+			owners.add(new TestOwner(idlePool, 1));
+			owners.add(new TestOwner(hotPool, 1));
+
+			// The idle pool gives away half of its unused buffers above one buffer per channel
+			assertEquals(5, LocalBufferPoolRebalancer.rebalance(owners));
+			assertEquals(5, idlePool.getDesignatedNumberOfBuffers());
+			assertEquals(5, idlePool.getRequestedNumberOfBuffers());
+			assertEquals(6, hotPool.getDesignatedNumberOfBuffers());
+
+			// The waiting request must be served from the moved buffers
+			requester.join();
+			assertNotNull(requester.result.get());
+
+			// Without demand, nothing is moved. The requester waited until the rebalancing finished, so the wait time
+			// of the current period must be discarded first.
+			requester.result.get().recycleBuffer();
+			first.recycleBuffer();
+			hotPool.resetRecentWaitTime();
+			assertEquals(0, LocalBufferPoolRebalancer.rebalance(owners));
+			assertEquals(5, idlePool.getDesignatedNumberOfBuffers());
+			assertEquals(6, hotPool.getDesignatedNumberOfBuffers());
+
+			idlePool.destroy();
+			hotPool.destroy();
+		} catch (Exception e) {
+			e.printStackTrace();
+			fail(StringUtils.stringifyException(e));
+		}
+	}
+
+	private static void waitForWaitingRequests(final LocalBufferPool pool, final int numberOfRequests)
+			throws InterruptedException {
+
+		while (pool.getNumberOfWaitingRequests() < numberOfRequests) {
+			Thread.sleep(10);
+		}
+
+		// Make sure the wait time is measurable
+		Thread.sleep(50);
+	}
+
+	private static final class BlockingRequester extends Thread {
+
+		private final LocalBufferPool pool;
+
+		private final AtomicReference<Buffer> result = new AtomicReference<Buffer>();
+
+		private BlockingRequester(final LocalBufferPool pool) {
+			this.pool = pool;
+		}
+
+		@Override
+		public void run() {
+			try {
+				this.result.set(this.pool.requestEmptyBufferBlocking(BUFFER_SIZE));
+			} catch (Exception e) {
+				e.printStackTrace();
+			}
+		}
+	}
+
+	private static final class TestListener implements BufferAvailabilityListener {
+
+		private final AtomicBoolean notified = new AtomicBoolean();
+
+		@Override
+		public void bufferAvailable() {
+			this.notified.set(true);
+		}
+	}
+
+	private static final class TestRecycleListener implements BufferRecycleListener {
+
+		private volatile int numberOfRecycledBuffers = 0;
+
+		@Override
+		public void bufferRecycled() {
+			++this.numberOfRecycledBuffers;
+		}
+	}
+
+	private static final class TestOwner implements LocalBufferPoolOwner {
+
+		private final LocalBufferPool pool;
+
+		private final int numberOfChannels;
+
+		private TestOwner(final LocalBufferPool pool, final int numberOfChannels) {
+			this.pool = pool;
+			this.numberOfChannels = numberOfChannels;
+		}
+
+		@Override
+		public int getNumberOfChannels() {
+			return this.numberOfChannels;
+		}
+
+		@Override
+		public void setDesignatedNumberOfBuffers(final int numberOfBuffers) {
+			this.pool.setDesignatedNumberOfBuffers(numberOfBuffers);
+		}
+
+		@Override
+		public LocalBufferPool getLocalBufferPool() {
+			return this.pool;
+		}
+
+		@Override
+		public void clearLocalBufferPool() {
+			this.pool.destroy();
+		}
+
+		@Override
+		public void logBufferUtilization() {
+		}
+
+		@Override
+		public void reportAsynchronousEvent() {
+			this.pool.reportAsynchronousEvent();
+		}
+	}
+}
@@ -0,0 +1,188 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2013 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.nephele.taskmanager.bytebuffered;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.util.Queue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import org.junit.Test;
+
+import eu.stratosphere.core.memory.MemorySegment;
+import eu.stratosphere.nephele.io.channels.BufferFactory;
+import eu.stratosphere.nephele.io.channels.ChannelID;
+import eu.stratosphere.nephele.io.channels.MemoryBuffer;
+import eu.stratosphere.nephele.io.channels.bytebuffered.ByteBufferedChannelCloseEvent;
+import eu.stratosphere.nephele.jobgraph.JobID;
+import eu.stratosphere.nephele.taskmanager.transferenvelope.DefaultSerializer;
+import eu.stratosphere.nephele.taskmanager.transferenvelope.TransferEnvelope;
+import eu.stratosphere.nephele.util.BufferPoolConnector;
+import eu.stratosphere.util.StringUtils;
+
+/**
+ * Tests that the gathering writes of the {@link OutgoingConnection} produce the same byte stream as the serialization
+ * of the envelopes one after the other.
+ */
+public class OutgoingConnectionTest {
+
+	private static final int NUMBER_OF_ENVELOPES = 500;
+
+	private static final int MAX_BUFFER_SIZE = 32768;
+
+	private final JobID jobID = new JobID();
+
+	private final ChannelID sourceChannelID = new ChannelID();
+
+	@Test
+	public void testGatheringWrites() {
+
+		OutgoingConnectionThread connectionThread = null;
+		ServerSocket serverSocket = null;
+
+		try {
+			// Serialize the envelopes one by one to obtain the expected byte stream
+			final Queue<MemorySegment> expectedRecycled = new LinkedBlockingQueue<MemorySegment>();
+			final ByteArrayOutputStream expectedStream = new ByteArrayOutputStream();
+			final WritableByteChannel expectedChannel = Channels.newChannel(expectedStream);
+			final DefaultSerializer serializer = new DefaultSerializer();
+			for (int i = 0; i < NUMBER_OF_ENVELOPES; ++i) {
+				final TransferEnvelope envelope = createEnvelope(i, expectedRecycled);
+				serializer.setTransferEnvelope(envelope);
+				while (serializer.write(expectedChannel));
+				if (envelope.getBuffer() != null) {
+					envelope.getBuffer().recycleBuffer();
+				}
+			}
+			final byte[] expected = expectedStream.toByteArray();
+
+			serverSocket = new ServerSocket(0);
+			final Receiver receiver = new Receiver(serverSocket, expected.length);
+			receiver.start();
+
+			connectionThread = new OutgoingConnectionThread();
+			connectionThread.start();
+
+			final RemoteReceiver remoteReceiver = new RemoteReceiver(new InetSocketAddress("localhost",
+				serverSocket.getLocalPort()), 0);
+			final OutgoingConnection connection = new OutgoingConnection(remoteReceiver, connectionThread, 10);
+
+			final Queue<MemorySegment> recycled = new LinkedBlockingQueue<MemorySegment>();
+			for (int i = 0; i < NUMBER_OF_ENVELOPES; ++i) {
+				connection.queueEnvelope(createEnvelope(i, recycled));
+			}
+
+			receiver.join(60000);
+			if (receiver.error != null) {
+				throw receiver.error;
+			}
+
+			assertArrayEquals(expected, receiver.received.toByteArray());
+
+			// All buffers must be recycled once they are transmitted
+			final long deadline = System.currentTimeMillis() + 10000;
+			while (recycled.size() < expectedRecycled.size() && System.currentTimeMillis() < deadline) {
+				Thread.sleep(10);
+			}
+			assertEquals(expectedRecycled.size(), recycled.size());
+		} catch (Exception e) {
+			e.printStackTrace();
+			fail(StringUtils.stringifyException(e));
+		} finally {
+			if (connectionThread != null) {
+				connectionThread.interrupt();
+			}
+			if (serverSocket != null) {
+				try {
+					serverSocket.close();
+				} catch (Exception e) {
+					// ignore
+				}
+			}
+		}
+	}
+
+	/**
+	 * Creates the envelope with the given sequence number. Every seventh envelope carries an event, every fifth has no
+	 * buffer, the others have buffers of varying size on the heap or off-heap.
+	 */
+	private TransferEnvelope createEnvelope(final int sequenceNumber, final Queue<MemorySegment> recycled) {
+
+		final TransferEnvelope envelope = new TransferEnvelope(sequenceNumber, this.jobID, this.sourceChannelID);
+
+		if (sequenceNumber % 7 == 0) {
+			envelope.addEvent(new ByteBufferedChannelCloseEvent());
+		}
+
+		if (sequenceNumber % 5 != 0) {
+			final int size = (sequenceNumber * 7919) % MAX_BUFFER_SIZE;
+			final MemorySegment segment = (sequenceNumber % 2 == 0) ? new MemorySegment(new byte[MAX_BUFFER_SIZE])
+				: new MemorySegment(ByteBuffer.allocateDirect(MAX_BUFFER_SIZE));
+			final MemoryBuffer buffer = BufferFactory.createFromMemory(size, segment, new BufferPoolConnector(recycled));
+			for (int i = 0; i < size; ++i) {
+				segment.put(i, (byte) (sequenceNumber + i));
+			}
+			buffer.position(size);
+			buffer.flip();
+			envelope.setBuffer(buffer);
+		}
+
+		return envelope;
+	}
+
+	private static final class Receiver extends Thread {
+
+		private final ServerSocket serverSocket;
+
+		private final int expectedLength;
+
+		private final ByteArrayOutputStream received = new ByteArrayOutputStream();
+
+		private volatile Exception error;
+
+		private Receiver(final ServerSocket serverSocket, final int expectedLength) {
+			this.serverSocket = serverSocket;
+			this.expectedLength = expectedLength;
+		}
+
+		@Override
+		public void run() {
+			try {
+				final Socket socket = this.serverSocket.accept();
+				final InputStream in = socket.getInputStream();
+				final byte[] buf = new byte[8192];
+				while (this.received.size() < this.expectedLength) {
+					final int read = in.read(buf);
+					if (read < 0) {
+						break;
+					}
+					this.received.write(buf, 0, read);
+				}
+				socket.close();
+			} catch (Exception e) {
+				this.error = e;
+			}
+		}
+	}
+}
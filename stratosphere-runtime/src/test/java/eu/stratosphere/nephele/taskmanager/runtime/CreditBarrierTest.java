@@ -0,0 +1,183 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2013 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.nephele.taskmanager.runtime;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Queue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import eu.stratosphere.core.memory.MemorySegment;
+import eu.stratosphere.nephele.io.channels.BufferFactory;
+import eu.stratosphere.nephele.io.channels.ChannelID;
+import eu.stratosphere.nephele.io.channels.bytebuffered.ByteBufferedChannelCloseEvent;
+import eu.stratosphere.nephele.jobgraph.JobID;
+import eu.stratosphere.nephele.taskmanager.bytebuffered.AbstractOutputChannelForwarder;
+import eu.stratosphere.nephele.taskmanager.bytebuffered.ChannelCreditEvent;
+import eu.stratosphere.nephele.taskmanager.transferenvelope.TransferEnvelope;
+import eu.stratosphere.nephele.util.BufferPoolConnector;
+import eu.stratosphere.util.StringUtils;
+
+/**
+ * Tests that the {@link CreditBarrier} forwards buffers only as far as the receiver has granted credit.
+ */
+public class CreditBarrierTest {
+
+	private final JobID jobID = new JobID();
+
+	private final ChannelID channelID = new ChannelID();
+
+	private final Queue<MemorySegment> recycled = new LinkedBlockingQueue<MemorySegment>();
+
+	private int sequenceNumber = 0;
+
+	@Test
+	public void testForwardWithCredit() {
+		try {
+			final CollectingForwarder collector = new CollectingForwarder();
+			final CreditBarrier barrier = new CreditBarrier(this.channelID, 2, collector);
+
+			barrier.push(createEnvelope(true));
+			barrier.push(createEnvelope(true));
+			assertEquals(2, collector.forwarded.size());
+			assertFalse(barrier.hasCredit());
+
+			// envelopes with events only do not need credit
+			final TransferEnvelope event = createEnvelope(false);
+			event.addEvent(new ByteBufferedChannelCloseEvent());
+			barrier.push(event);
+			assertEquals(3, collector.forwarded.size());
+
+			barrier.processEvent(new ChannelCreditEvent(1));
+			assertTrue(barrier.hasCredit());
+		} catch (Exception e) {
+			e.printStackTrace();
+			fail(StringUtils.stringifyException(e));
+		}
+	}
+
+	@Test
+	public void testWaitForCredit() {
+		try {
+			final CollectingForwarder collector = new CollectingForwarder();
+			final CreditBarrier barrier = new CreditBarrier(this.channelID, 1, collector);
+
+			barrier.push(createEnvelope(true));
+			assertNotNull(collector.forwarded.poll());
+
+			final Pusher pusher = new Pusher(barrier, createEnvelope(true));
+			pusher.start();
+
+			// the envelope must be held back until the receiver grants credit
+			assertNull(collector.forwarded.poll(200, TimeUnit.MILLISECONDS));
+			barrier.processEvent(new ChannelCreditEvent(1));
+			assertNotNull(collector.forwarded.poll(10, TimeUnit.SECONDS));
+
+			pusher.join();
+			assertNull(pusher.error);
+		} catch (Exception e) {
+			e.printStackTrace();
+			fail(StringUtils.stringifyException(e));
+		}
+	}
+
+	@Test
+	public void testDestroyReleasesWaitingSender() {
+		try {
+			final CollectingForwarder collector = new CollectingForwarder();
+			final CreditBarrier barrier = new CreditBarrier(this.channelID, 1, collector);
+
+			barrier.push(createEnvelope(true));
+			collector.forwarded.poll();
+
+			final Pusher pusher = new Pusher(barrier, createEnvelope(true));
+			pusher.start();
+			Thread.sleep(100);
+
+			barrier.destroy();
+			pusher.join(10000);
+			assertFalse("The sender still waits for credit after the channel was destroyed.", pusher.isAlive());
+			assertNull(pusher.error);
+
+			// the buffer of the held back envelope is recycled instead of forwarded
+			assertTrue(collector.forwarded.isEmpty());
+			assertEquals(1, this.recycled.size());
+		} catch (Exception e) {
+			e.printStackTrace();
+			fail(StringUtils.stringifyException(e));
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidInitialCredit() {
+		new CreditBarrier(this.channelID, 0, new CollectingForwarder());
+	}
+
+	// --------------------------------------------------------------------------------------------
+
+	private TransferEnvelope createEnvelope(boolean withBuffer) {
+		final TransferEnvelope envelope = new TransferEnvelope(this.sequenceNumber++, this.jobID, this.channelID);
+		if (withBuffer) {
+			envelope.setBuffer(BufferFactory.createFromMemory(128, new MemorySegment(new byte[128]),
+				new BufferPoolConnector(this.recycled)));
+		}
+		return envelope;
+	}
+
+	private static final class CollectingForwarder extends AbstractOutputChannelForwarder {
+
+		private final BlockingQueue<TransferEnvelope> forwarded = new LinkedBlockingQueue<TransferEnvelope>();
+
+		private CollectingForwarder() {
+			super(null);
+		}
+
+		@Override
+		public void push(TransferEnvelope transferEnvelope) {
+			this.forwarded.add(transferEnvelope);
+		}
+	}
+
+	private static final class Pusher extends Thread {
+
+		private final CreditBarrier barrier;
+
+		private final TransferEnvelope envelope;
+
+		private volatile Throwable error;
+
+		private Pusher(CreditBarrier barrier, TransferEnvelope envelope) {
+			this.barrier = barrier;
+			this.envelope = envelope;
+		}
+
+		@Override
+		public void run() {
+			try {
+				this.barrier.push(this.envelope);
+			} catch (Throwable t) {
+				this.error = t;
+			}
+		}
+	}
+}
@@ -103,7 +103,7 @@ public class DefaultSerializerTest {
 		try {
 
 			// Generate test file
-			final File testFile = generateDataStream();
+			final File testFile = generateDataStream(false);
 
 			// Analyze the test file
 			analyzeStream(testFile);
@@ -116,14 +116,37 @@ public class DefaultSerializerTest {
 		}
 	}
 
+	/**
+	 * This test checks that writing the header of a {@link TransferEnvelope} separately from its buffer's data results
+	 * in the same byte stream as the regular serialization.
+	 */
+	@Test
+	public void testHeaderSerialization() {
+
+		try {
+
+			final File testFile = generateDataStream(true);
+
+			analyzeStream(testFile);
+
+			testFile.delete();
+
+		} catch (IOException e) {
+			fail(e.getMessage());
+		}
+	}
+
 	/**
 	 * Generates and serializes a series of {@link TransferEnvelope} objects to a random file.
 	 * 
+	 * @param separateHeader
+	 *        <code>true</code> to write the envelope headers and the buffer data separately, <code>false</code> to
+	 *        write the envelopes as a whole
 	 * @return the file containing the serializes envelopes
 	 * @throws IOException
 	 *         thrown if an I/O error occurs while writing the envelopes
 	 */
-	private File generateDataStream() throws IOException {
+	private File generateDataStream(final boolean separateHeader) throws IOException {
 
 		final File outputFile = new File(ServerTestUtils.getTempDir() + File.separator
 			+ ServerTestUtils.getRandomFilename());
@@ -158,7 +181,14 @@ public class DefaultSerializerTest {
 
 			// set envelope to be serialized and write it to file channel
 			serializer.setTransferEnvelope(transferEnvelope);
-			while (serializer.write(fileChannel));
+			if (separateHeader) {
+				while (serializer.writeHeader(fileChannel));
+				while (buffer.hasRemaining()) {
+					buffer.writeTo(fileChannel);
+				}
+			} else {
+				while (serializer.write(fileChannel));
+			}
 
 			// Put buffer back to the recycling queue
 			buffer.recycleBuffer();
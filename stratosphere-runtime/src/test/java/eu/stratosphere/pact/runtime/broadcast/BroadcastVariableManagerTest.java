@@ -0,0 +1,168 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2013 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+
+package eu.stratosphere.pact.runtime.broadcast;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import eu.stratosphere.nephele.jobgraph.JobID;
+
+public class BroadcastVariableManagerTest
+{
+	@Test
+	public void testMaterializeOnceAndShare() throws Exception
+	{
+		final BroadcastVariableManager manager = new BroadcastVariableManager();
+		final String key = BroadcastVariableManager.createKey(new JobID(), "vertex#model", 0);
+
+		final int numTasks = 8;
+		final AtomicInteger numMaterializations = new AtomicInteger();
+		final List<List<Integer>> results = new ArrayList<List<Integer>>();
+		final List<Throwable> errors = new ArrayList<Throwable>();
+
+		final List<BroadcastVariableMaterialization<Integer>> handles = new ArrayList<BroadcastVariableMaterialization<Integer>>();
+		final Thread[] tasks = new Thread[numTasks];
+		for (int i = 0; i < numTasks; i++) {
+			final BroadcastVariableMaterialization<Integer> materialization = manager.acquire(key);
+			handles.add(materialization);
+
+			tasks[i] = new Thread() {
+				@Override
+				public void run() {
+					try {
+						if (materialization.claim()) {
+							numMaterializations.incrementAndGet();
+							List<Integer> data = new ArrayList<Integer>();
+							for (int k = 0; k < 1000; k++) {
+								data.add(k);
+							}
+							materialization.publish(data);
+						}
+						List<Integer> data = materialization.getData();
+						synchronized (results) {
+							results.add(data);
+						}
+					} catch (Throwable t) {
+						synchronized (errors) {
+							errors.add(t);
+						}
+					}
+				}
+			};
+		}
+		for (Thread t : tasks) {
+			t.start();
+		}
+		for (Thread t : tasks) {
+			t.join();
+		}
+
+		assertTrue("Tasks failed: " + errors, errors.isEmpty());
+		assertEquals(1, numMaterializations.get());
+		assertEquals(numTasks, results.size());
+		for (List<Integer> data : results) {
+			assertSame(results.get(0), data);
+			assertEquals(1000, data.size());
+		}
+
+		// the variable is retained until the last reference is released
+		assertEquals(1, manager.getNumberOfVariables());
+		for (int i = 0; i < numTasks - 1; i++) {
+			manager.release(handles.get(i));
+			assertEquals(1, manager.getNumberOfVariables());
+		}
+		manager.release(handles.get(numTasks - 1));
+		assertEquals(0, manager.getNumberOfVariables());
+
+		// a new acquisition materializes the variable anew
+		BroadcastVariableMaterialization<Integer> next = manager.acquire(key);
+		assertNotSame(handles.get(0), next);
+		assertTrue(next.claim());
+		manager.release(next);
+	}
+
+	@Test
+	public void testSeparateKeys()
+	{
+		final BroadcastVariableManager manager = new BroadcastVariableManager();
+		final JobID jobId = new JobID();
+
+		BroadcastVariableMaterialization<Object> first = manager.acquire(BroadcastVariableManager.createKey(jobId, "v#a", 1));
+		BroadcastVariableMaterialization<Object> second = manager.acquire(BroadcastVariableManager.createKey(jobId, "v#a", 2));
+		assertNotSame(first, second);
+		assertTrue(first.claim());
+		assertTrue(second.claim());
+		assertFalse(first.claim());
+		assertEquals(2, manager.getNumberOfVariables());
+
+		manager.release(first);
+		manager.release(second);
+		assertEquals(0, manager.getNumberOfVariables());
+	}
+
+	@Test
+	public void testFailurePropagation() throws Exception
+	{
+		final BroadcastVariableManager manager = new BroadcastVariableManager();
+		final String key = BroadcastVariableManager.createKey(new JobID(), "vertex#model", 0);
+
+		final BroadcastVariableMaterialization<Integer> materializer = manager.acquire(key);
+		final BroadcastVariableMaterialization<Integer> waiter = manager.acquire(key);
+		assertTrue(materializer.claim());
+		assertFalse(waiter.claim());
+
+		final List<Throwable> errors = new ArrayList<Throwable>();
+		Thread waitingTask = new Thread() {
+			@Override
+			public void run() {
+				try {
+					waiter.getData();
+				} catch (Throwable t) {
+					errors.add(t);
+				}
+			}
+		};
+		waitingTask.start();
+
+		materializer.fail(new IOException("test failure"));
+		waitingTask.join();
+
+		assertEquals(1, errors.size());
+		assertTrue(errors.get(0) instanceof IOException);
+		assertTrue(errors.get(0).getMessage().contains("test failure"));
+
+		manager.release(materializer);
+		manager.release(waiter);
+		assertEquals(0, manager.getNumberOfVariables());
+
+		try {
+			manager.release(waiter);
+			fail("Releasing more often than acquiring should fail.");
+		} catch (IllegalStateException e) {
+			// expected
+		}
+	}
+}
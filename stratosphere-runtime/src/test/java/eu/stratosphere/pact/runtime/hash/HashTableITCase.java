@@ -1230,6 +1230,88 @@ public class HashTableITCase {
 	 * Spills build records, so that probe records are also spilled. But only so
 	 * few probe records are used that some partitions remain empty.
 	 */
+	@Test
+	public void testSpillingHashJoinWithBloomFiltersIntPair() throws IOException
+	{
+		final int NUM_BUILD_KEYS = 500000;
+		final int NUM_PROBE_KEYS = 2000000;
+		final int BUILD_VALS_PER_KEY = 3;
+		final int PROBE_VALS_PER_KEY = 2;
+		
+		// only a quarter of the probe keys find a partner, the others must be dropped or probed without a match
+		MutableObjectIterator<IntPair> buildInput = new UniformIntPairGenerator(NUM_BUILD_KEYS, BUILD_VALS_PER_KEY, false);
+		MutableObjectIterator<IntPair> probeInput = new UniformIntPairGenerator(NUM_PROBE_KEYS, PROBE_VALS_PER_KEY, true);
+
+		// allocate the memory for the HashTable
+		List<MemorySegment> memSegments;
+		try {
+			memSegments = this.memManager.allocatePages(MEM_OWNER, 256);
+		}
+		catch (MemoryAllocationException maex) {
+			fail("Memory for the Join could not be provided.");
+			return;
+		}
+		
+		// create the map for validating the results
+		HashMap<Integer, Long> map = new HashMap<Integer, Long>(NUM_BUILD_KEYS);
+		
+		// ----------------------------------------------------------------------------------------
+		
+		final MutableHashTable<IntPair, IntPair> join = new MutableHashTable<IntPair, IntPair>(
+				this.pairBuildSideAccesssor, this.pairProbeSideAccesssor, 
+				this.pairBuildSideComparator, this.pairProbeSideComparator, this.pairComparator,
+				memSegments, ioManager, true);
+		join.open(buildInput, probeInput);
+	
+		IntPair record;
+		final IntPair recordReuse = new IntPair();
+
+		while (join.nextRecord())
+		{
+			int numBuildValues = 0;
+			int key = 0;
+			
+			HashBucketIterator<IntPair, IntPair> buildSide = join.getBuildSideIterator();
+			while ((record = buildSide.next(recordReuse)) != null) {
+				numBuildValues++;
+				key = record.getKey();
+			}
+			
+			if (numBuildValues == 0) {
+				continue;
+			}
+			Assert.assertEquals("Wrong number of build values.", BUILD_VALS_PER_KEY, numBuildValues);
+			
+			IntPair pr = join.getCurrentProbeRecord();
+			Assert.assertEquals("Probe-side key was different than build-side key.", key, pr.getKey()); 
+			
+			Long contained = map.get(key);
+			if (contained == null) {
+				contained = new Long(numBuildValues);
+			}
+			else {
+				contained = new Long(contained.longValue() + (numBuildValues));
+			}
+			
+			map.put(key, contained);
+		}
+		
+		join.close();
+		
+		Assert.assertEquals("Wrong number of keys", NUM_BUILD_KEYS, map.size());
+		for (Map.Entry<Integer, Long> entry : map.entrySet()) {
+			long val = entry.getValue();
+			int key = entry.getKey();
+	
+			Assert.assertEquals("Wrong number of values in per-key cross product for key " + key, 
+				PROBE_VALS_PER_KEY * BUILD_VALS_PER_KEY, val);
+		}
+		
+		// ----------------------------------------------------------------------------------------
+		
+		this.memManager.release(join.getFreedMemory());
+	}
+	
 	@Test
 	public void testSparseProbeSpillingIntPair() throws IOException, MemoryAllocationException
 	{
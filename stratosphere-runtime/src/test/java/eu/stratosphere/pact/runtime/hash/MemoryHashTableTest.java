@@ -18,6 +18,7 @@ package eu.stratosphere.pact.runtime.hash;
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
@@ -31,6 +32,7 @@ import eu.stratosphere.api.common.typeutils.TypeComparator;
 import eu.stratosphere.api.common.typeutils.TypePairComparator;
 import eu.stratosphere.api.common.typeutils.TypeSerializer;
 import eu.stratosphere.core.memory.MemorySegment;
+import eu.stratosphere.nephele.services.iomanager.IOManager;
 import eu.stratosphere.pact.runtime.test.util.UniformStringPairGenerator;
 import eu.stratosphere.pact.runtime.test.util.types.IntList;
 import eu.stratosphere.pact.runtime.test.util.types.IntListComparator;
@@ -344,6 +346,115 @@ public class MemoryHashTableTest {
 		}
 	}
 	
+	@Test
+	public void testSpillingBuildAndRetrieveAndUpdate() {
+		final IOManager ioManager = new IOManager();
+		try {
+			final int NUM_SPILLING_LISTS = 15000;
+			final int NUM_MEM_PAGES = 40;
+			
+			// every spilled partition that is accessed is read back, so we access only a sample of the records
+			final int SAMPLE_STEP = 10;
+			
+			final IntList[] lists = getRandomizedIntLists(NUM_SPILLING_LISTS, rnd);
+			
+			CompactingHashTable<IntList> table = new CompactingHashTable<IntList>(serializerV, comparatorV,
+				getMemory(NUM_MEM_PAGES, PAGE_SIZE), ioManager);
+			table.open();
+			
+			for (int i = 0; i < NUM_SPILLING_LISTS; i++) {
+				table.insert(lists[i]);
+			}
+			assertTrue("The table did not spill.", table.getNumSpilledPartitions() > 0);
+			
+			AbstractHashTableProber<IntList, IntList> prober = table.getProber(comparatorV, pairComparatorV);
+			IntList target = new IntList();
+			
+			for (int i = 0; i < NUM_SPILLING_LISTS; i += SAMPLE_STEP) {
+				assertTrue(prober.getMatchFor(lists[i], target));
+				assertArrayEquals(lists[i].getValue(), target.getValue());
+			}
+			
+			// replace records through the table, and through the prober
+			final IntList[] overwriteLists = getRandomizedIntLists(NUM_SPILLING_LISTS, rnd);
+			IntList tempHolder = new IntList();
+			for (int i = 0; i < NUM_SPILLING_LISTS; i += SAMPLE_STEP) {
+				if (i % (2 * SAMPLE_STEP) == 0) {
+					table.insertOrReplaceRecord(overwriteLists[i], tempHolder);
+				} else {
+					assertTrue(prober.getMatchFor(overwriteLists[i], target));
+					prober.updateMatch(overwriteLists[i]);
+				}
+				lists[i] = overwriteLists[i];
+			}
+			
+			for (int i = 0; i < NUM_SPILLING_LISTS; i += SAMPLE_STEP) {
+				assertTrue(prober.getMatchFor(lists[i], target));
+				assertArrayEquals(lists[i].getValue(), target.getValue());
+			}
+			
+			// the iterator returns the records of the resident and the spilled partitions
+			assertTrue("The table did not spill.", table.getNumSpilledPartitions() > 0);
+			MutableObjectIterator<IntList> iter = table.getEntryIterator();
+			boolean[] seen = new boolean[NUM_SPILLING_LISTS];
+			int count = 0;
+			while ((target = iter.next(target)) != null) {
+				assertFalse("Duplicate record " + target.getKey(), seen[target.getKey()]);
+				seen[target.getKey()] = true;
+				assertArrayEquals(lists[target.getKey()].getValue(), target.getValue());
+				count++;
+			}
+			assertEquals(NUM_SPILLING_LISTS, count);
+			
+			table.close();
+			assertEquals("Memory lost", NUM_MEM_PAGES, table.getFreeMemory().size());
+		}
+		catch (Exception e) {
+			e.printStackTrace();
+			fail("Error: " + e.getMessage());
+		}
+		finally {
+			ioManager.shutdown();
+		}
+	}
+	
+	@Test
+	public void testSpillingAbandonedIteration() {
+		final IOManager ioManager = new IOManager();
+		try {
+			final int NUM_SPILLING_LISTS = 15000;
+			final int NUM_MEM_PAGES = 40;
+			
+			final IntList[] lists = getRandomizedIntLists(NUM_SPILLING_LISTS, rnd);
+			
+			CompactingHashTable<IntList> table = new CompactingHashTable<IntList>(serializerV, comparatorV,
+				getMemory(NUM_MEM_PAGES, PAGE_SIZE), ioManager);
+			table.open();
+			
+			for (int i = 0; i < NUM_SPILLING_LISTS; i++) {
+				table.insert(lists[i]);
+			}
+			assertTrue("The table did not spill.", table.getNumSpilledPartitions() > 0);
+			
+			// the records of the spilled partitions come last, so the iteration stops inside a spilled partition
+			MutableObjectIterator<IntList> iter = table.getEntryIterator();
+			IntList target = new IntList();
+			for (int i = 0; i < NUM_SPILLING_LISTS - 1; i++) {
+				assertNotNull(iter.next(target));
+			}
+			
+			table.close();
+			assertEquals("Memory lost", NUM_MEM_PAGES, table.getFreeMemory().size());
+		}
+		catch (Exception e) {
+			e.printStackTrace();
+			fail("Error: " + e.getMessage());
+		}
+		finally {
+			ioManager.shutdown();
+		}
+	}
+	
 	@Test
 	public void testVariableLengthStringBuildAndRetrieve() {
 		
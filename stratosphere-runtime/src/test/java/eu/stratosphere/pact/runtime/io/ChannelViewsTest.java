@@ -23,6 +23,7 @@ import org.junit.Before;
 import org.junit.Test;
 
 import eu.stratosphere.core.memory.MemorySegment;
+import eu.stratosphere.nephele.io.compression.CompressionCodec;
 import eu.stratosphere.nephele.services.iomanager.BlockChannelReader;
 import eu.stratosphere.nephele.services.iomanager.BlockChannelWriter;
 import eu.stratosphere.nephele.services.iomanager.Channel;
@@ -361,4 +362,129 @@ public class ChannelViewsTest
 		this.memoryManager.release(inView.close());
 		reader.deleteChannel();
 	}
+	
+	@Test
+	public void testWriteReadCompressed() throws Exception
+	{
+		final TestData.Generator generator = new TestData.Generator(SEED, KEY_MAX, VALUE_SHORT_LENGTH, KeyMode.RANDOM, ValueMode.RANDOM_LENGTH);
+		final Channel.ID channel = this.ioManager.createChannel();
+		
+		// create the writer output view
+		List<MemorySegment> memory = this.memoryManager.allocatePages(this.parentTask, NUM_MEMORY_SEGMENTS);
+		final BlockChannelWriter writer = this.ioManager.createBlockChannelWriter(channel);
+		final ChannelWriterOutputView outView = new ChannelWriterOutputView(writer, memory, MEMORY_PAGE_SIZE, CompressionCodec.LZ4);
+		
+		// write a number of pairs
+		final Record rec = new Record();
+		for (int i = 0; i < NUM_PAIRS_SHORT; i++) {
+			generator.next(rec);
+			rec.write(outView);
+		}
+		this.memoryManager.release(outView.close());
+		
+		// create the reader input view
+		memory = this.memoryManager.allocatePages(this.parentTask, NUM_MEMORY_SEGMENTS);
+		final BlockChannelReader reader = this.ioManager.createBlockChannelReader(channel);
+		final ChannelReaderInputView inView = new ChannelReaderInputView(reader, memory, outView.getBlockCount(), true);
+		generator.reset();
+		
+		// read and re-generate all records and compare them
+		final Record readRec = new Record();
+		for (int i = 0; i < NUM_PAIRS_SHORT; i++) {
+			generator.next(rec);
+			readRec.read(inView);
+			
+			Key k1 = rec.getField(0, Key.class);
+			Value v1 = rec.getField(1, Value.class);
+			
+			Key k2 = readRec.getField(0, Key.class);
+			Value v2 = readRec.getField(1, Value.class);
+			
+			Assert.assertTrue("The re-generated and the read record do not match.", k1.equals(k2) && v1.equals(v2));
+		}
+		
+		this.memoryManager.release(inView.close());
+		reader.deleteChannel();
+	}
+	
+	@Test
+	public void testWriteReadCompressedOneBufferOnlyWithoutKnownBlockCount() throws Exception
+	{
+		final TestData.Generator generator = new TestData.Generator(SEED, KEY_MAX, VALUE_SHORT_LENGTH, KeyMode.RANDOM,
+			ValueMode.CONSTANT, new Value("a constant value, which is written with every record"));
+		final Channel.ID channel = this.ioManager.createChannel();
+		
+		// create the writer output view
+		List<MemorySegment> memory = this.memoryManager.allocatePages(this.parentTask, 1);
+		final BlockChannelWriter writer = this.ioManager.createBlockChannelWriter(channel);
+		final ChannelWriterOutputView outView = new ChannelWriterOutputView(writer, memory, MEMORY_PAGE_SIZE, CompressionCodec.LZ4);
+		
+		// write a number of pairs
+		final Record rec = new Record();
+		for (int i = 0; i < NUM_PAIRS_SHORT; i++) {
+			generator.next(rec);
+			rec.write(outView);
+		}
+		this.memoryManager.release(outView.close());
+		
+		// the constant values must compress to a fraction of the written bytes
+		final long uncompressedBlocks = outView.getBytesWritten() / (MEMORY_PAGE_SIZE - 8);
+		Assert.assertTrue("The data was not compressed.", outView.getBlockCount() < uncompressedBlocks / 4);
+		
+		// create the reader input view
+		memory = this.memoryManager.allocatePages(this.parentTask, 1);
+		final BlockChannelReader reader = this.ioManager.createBlockChannelReader(channel);
+		final ChannelReaderInputView inView = new ChannelReaderInputView(reader, memory, true);
+		generator.reset();
+		
+		// read and re-generate all records and compare them
+		try {
+			final Record readRec = new Record();
+			for (int i = 0; i < NUM_PAIRS_SHORT + 1; i++) {
+				generator.next(rec);
+				readRec.read(inView);
+				final Key k1 = rec.getField(0, Key.class);
+				final Value v1 = rec.getField(1, Value.class);
+				final Key k2 = readRec.getField(0, Key.class);
+				final Value v2 = readRec.getField(1, Value.class);
+				Assert.assertTrue("The re-generated and the read record do not match.", k1.equals(k2) && v1.equals(v2));
+			}
+			Assert.fail("Expected an EOFException which did not occur.");
+		}
+		catch (EOFException eofex) {
+			// expected
+		}
+		
+		this.memoryManager.release(inView.close());
+		reader.deleteChannel();
+	}
+	
+	@Test
+	public void testWriteReadCompressedEmpty() throws Exception
+	{
+		final Channel.ID channel = this.ioManager.createChannel();
+		
+		// create the writer output view and close it without writing anything
+		List<MemorySegment> memory = this.memoryManager.allocatePages(this.parentTask, NUM_MEMORY_SEGMENTS);
+		final BlockChannelWriter writer = this.ioManager.createBlockChannelWriter(channel);
+		final ChannelWriterOutputView outView = new ChannelWriterOutputView(writer, memory, MEMORY_PAGE_SIZE, CompressionCodec.LZ4);
+		this.memoryManager.release(outView.close());
+		Assert.assertEquals(1, outView.getBlockCount());
+		
+		// create the reader input view
+		memory = this.memoryManager.allocatePages(this.parentTask, NUM_MEMORY_SEGMENTS);
+		final BlockChannelReader reader = this.ioManager.createBlockChannelReader(channel);
+		final ChannelReaderInputView inView = new ChannelReaderInputView(reader, memory, outView.getBlockCount(), true);
+		
+		try {
+			inView.readInt();
+			Assert.fail("Expected an EOFException which did not occur.");
+		}
+		catch (EOFException eofex) {
+			// expected
+		}
+		
+		this.memoryManager.release(inView.close());
+		reader.deleteChannel();
+	}
 }
@@ -0,0 +1,187 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2013 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+
+package eu.stratosphere.pact.runtime.io;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.Assert;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import eu.stratosphere.core.memory.MemorySegment;
+import eu.stratosphere.nephele.services.iomanager.BlockChannelReader;
+import eu.stratosphere.nephele.services.iomanager.BlockChannelWriter;
+import eu.stratosphere.nephele.services.iomanager.Channel;
+import eu.stratosphere.nephele.services.iomanager.ChannelWriterOutputView;
+import eu.stratosphere.nephele.services.iomanager.IOManager;
+import eu.stratosphere.nephele.services.memorymanager.MemoryManager;
+import eu.stratosphere.nephele.services.memorymanager.spi.DefaultMemoryManager;
+import eu.stratosphere.nephele.template.AbstractTask;
+import eu.stratosphere.pact.runtime.test.util.DummyInvokable;
+import eu.stratosphere.pact.runtime.test.util.TestData;
+import eu.stratosphere.pact.runtime.test.util.TestData.Generator.KeyMode;
+import eu.stratosphere.pact.runtime.test.util.TestData.Generator.ValueMode;
+import eu.stratosphere.pact.runtime.test.util.TestData.Key;
+import eu.stratosphere.pact.runtime.test.util.TestData.Value;
+import eu.stratosphere.types.Record;
+
+
+/**
+ */
+public class PrefetchingChannelReaderInputViewTest
+{
+	private static final long SEED = 649180756312423613L;
+
+	private static final int KEY_MAX = Integer.MAX_VALUE;
+
+	private static final int VALUE_LENGTH = 114;
+
+	private static final int NUM_PAIRS = 200000;
+
+	private static final int MEMORY_SIZE = 1024 * 1024;
+	
+	private static final int MEMORY_PAGE_SIZE = 16 * 1024;
+	
+	private static final int NUM_OWN_SEGMENTS = 2;
+	
+	private static final int NUM_POOL_SEGMENTS = 12;
+	
+	private final AbstractTask parentTask = new DummyInvokable();
+
+	private IOManager ioManager;
+
+	private MemoryManager memoryManager;
+
+	// --------------------------------------------------------------------------------------------
+
+	@Before
+	public void beforeTest() {
+		this.memoryManager = new DefaultMemoryManager(MEMORY_SIZE, MEMORY_PAGE_SIZE);
+		this.ioManager = new IOManager();
+	}
+
+	@After
+	public void afterTest() {
+		this.ioManager.shutdown();
+		if (!this.ioManager.isProperlyShutDown()) {
+			Assert.fail("I/O Manager was not properly shut down.");
+		}
+		
+		if (memoryManager != null) {
+			Assert.assertTrue("Memory leak: not all segments have been returned to the memory manager.", 
+				this.memoryManager.verifyEmpty());
+			this.memoryManager.shutdown();
+			this.memoryManager = null;
+		}
+	}
+
+	// --------------------------------------------------------------------------------------------
+	
+	@Test
+	public void testSharedPoolWithUnevenConsumption() throws Exception
+	{
+		final TestData.Generator generator1 = new TestData.Generator(SEED, KEY_MAX, VALUE_LENGTH, KeyMode.RANDOM, ValueMode.RANDOM_LENGTH);
+		final TestData.Generator generator2 = new TestData.Generator(SEED + 1, KEY_MAX, VALUE_LENGTH, KeyMode.RANDOM, ValueMode.RANDOM_LENGTH);
+		
+		final Channel.ID channel1 = this.ioManager.createChannel();
+		final Channel.ID channel2 = this.ioManager.createChannel();
+		final int numBlocks1 = writeChannel(channel1, generator1);
+		final int numBlocks2 = writeChannel(channel2, generator2);
+		
+		// create the two views that share a pool of spare segments
+		final ReadAheadSegmentPool pool = new ReadAheadSegmentPool(
+			this.memoryManager.allocatePages(this.parentTask, NUM_POOL_SEGMENTS));
+		
+		final BlockChannelReader reader1 = this.ioManager.createBlockChannelReader(channel1);
+		final PrefetchingChannelReaderInputView inView1 = new PrefetchingChannelReaderInputView(reader1,
+			this.memoryManager.allocatePages(this.parentTask, NUM_OWN_SEGMENTS), numBlocks1, pool, true);
+		
+		final BlockChannelReader reader2 = this.ioManager.createBlockChannelReader(channel2);
+		final PrefetchingChannelReaderInputView inView2 = new PrefetchingChannelReaderInputView(reader2,
+			this.memoryManager.allocatePages(this.parentTask, NUM_OWN_SEGMENTS), numBlocks2, pool, true);
+		
+		generator1.reset();
+		generator2.reset();
+		
+		// consume the first channel ten times as fast as the second one
+		final Record rec = new Record();
+		final Record readRec = new Record();
+		int read2 = 0;
+		for (int i = 0; i < NUM_PAIRS; i++) {
+			generator1.next(rec);
+			readRec.read(inView1);
+			assertEquals(rec, readRec);
+			
+			if (i % 10 == 0) {
+				generator2.next(rec);
+				readRec.read(inView2);
+				assertEquals(rec, readRec);
+				read2++;
+			}
+		}
+		
+		// the first channel is exhausted, so it must have given back all borrowed segments
+		final List<MemorySegment> returned = new ArrayList<MemorySegment>();
+		returned.addAll(inView1.close());
+		Assert.assertEquals(NUM_OWN_SEGMENTS, returned.size());
+		
+		// the second channel may now use the whole pool
+		for (; read2 < NUM_PAIRS; read2++) {
+			generator2.next(rec);
+			readRec.read(inView2);
+			assertEquals(rec, readRec);
+		}
+		returned.addAll(inView2.close());
+		
+		Assert.assertEquals("Segments were lost or duplicated.", 2 * NUM_OWN_SEGMENTS + NUM_POOL_SEGMENTS,
+			returned.size() + pool.size());
+		
+		final List<MemorySegment> poolSegments = new ArrayList<MemorySegment>();
+		pool.take(poolSegments, pool.size());
+		this.memoryManager.release(poolSegments);
+		this.memoryManager.release(returned);
+		reader1.deleteChannel();
+		reader2.deleteChannel();
+	}
+	
+	// --------------------------------------------------------------------------------------------
+	
+	private int writeChannel(Channel.ID channel, TestData.Generator generator) throws Exception
+	{
+		final List<MemorySegment> memory = this.memoryManager.allocatePages(this.parentTask, NUM_OWN_SEGMENTS);
+		final BlockChannelWriter writer = this.ioManager.createBlockChannelWriter(channel);
+		final ChannelWriterOutputView outView = new ChannelWriterOutputView(writer, memory, MEMORY_PAGE_SIZE);
+		
+		final Record rec = new Record();
+		for (int i = 0; i < NUM_PAIRS; i++) {
+			generator.next(rec);
+			rec.write(outView);
+		}
+		this.memoryManager.release(outView.close());
+		return outView.getBlockCount();
+	}
+	
+	private static void assertEquals(Record expected, Record actual)
+	{
+		final Key k1 = expected.getField(0, Key.class);
+		final Value v1 = expected.getField(1, Value.class);
+		final Key k2 = actual.getField(0, Key.class);
+		final Value v2 = actual.getField(1, Value.class);
+		Assert.assertTrue("The re-generated and the read record do not match.", k1.equals(k2) && v1.equals(v2));
+	}
+}
@@ -25,6 +25,7 @@ import org.junit.Test;
 
 import eu.stratosphere.api.common.typeutils.TypeComparator;
 import eu.stratosphere.api.common.typeutils.TypeSerializerFactory;
+import eu.stratosphere.nephele.io.compression.CompressionCodec;
 import eu.stratosphere.nephele.services.iomanager.IOManager;
 import eu.stratosphere.nephele.services.memorymanager.MemoryManager;
 import eu.stratosphere.nephele.services.memorymanager.spi.DefaultMemoryManager;
@@ -192,6 +193,52 @@ public class ExternalSortITCase {
 		merger.close();
 	}
 
+	@Test
+	public void testInMemorySortUsing10BuffersWithParallelSortThreads() throws Exception {
+		// comparator
+		final Comparator<TestData.Key> keyComparator = new TestData.KeyComparator();
+		
+		final TestData.Generator generator = new TestData.Generator(SEED, KEY_MAX, VALUE_LENGTH, KeyMode.RANDOM, ValueMode.CONSTANT, VAL);
+		final MutableObjectIterator<Record> source = new TestData.GeneratorIterator(generator, NUM_PAIRS);
+
+		// merge iterator
+		LOG.debug("Initializing sortmerger...");
+		
+		Sorter<Record> merger = new UnilateralSortMerger<Record>(this.memoryManager, this.ioManager, 
+				source, this.parentTask, this.pactRecordSerializer, this.pactRecordComparator,
+				64 * 1024 * 1024, 10, 4, 2, 0.9f);
+
+		// emit data
+		LOG.debug("Reading and sorting data...");
+
+		// check order
+		MutableObjectIterator<Record> iterator = merger.getIterator();
+		
+		LOG.debug("Checking results...");
+		int pairsEmitted = 1;
+
+		Record rec1 = new Record();
+		Record rec2 = new Record();
+		
+		Assert.assertTrue((rec1 = iterator.next(rec1)) != null);
+		while ((rec2 = iterator.next(rec2)) != null) {
+			final Key k1 = rec1.getField(0, TestData.Key.class);
+			final Key k2 = rec2.getField(0, TestData.Key.class);
+			pairsEmitted++;
+			
+			Assert.assertTrue(keyComparator.compare(k1, k2) <= 0); 
+			
+			Record tmp = rec1;
+			rec1 = rec2;
+			k1.setKey(k2.getKey());
+			
+			rec2 = tmp;
+		}
+		Assert.assertTrue(NUM_PAIRS == pairsEmitted);
+		
+		merger.close();
+	}
+
 	@Test
 	public void testSpillingSort() throws Exception {
 		// comparator
@@ -238,6 +285,52 @@ public class ExternalSortITCase {
 		merger.close();
 	}
 
+	@Test
+	public void testSpillingSortWithParallelSortThreads() throws Exception {
+		// comparator
+		final Comparator<TestData.Key> keyComparator = new TestData.KeyComparator();
+		
+		final TestData.Generator generator = new TestData.Generator(SEED, KEY_MAX, VALUE_LENGTH, KeyMode.RANDOM, ValueMode.CONSTANT, VAL);
+		final MutableObjectIterator<Record> source = new TestData.GeneratorIterator(generator, NUM_PAIRS);
+
+		// merge iterator
+		LOG.debug("Initializing sortmerger...");
+		
+		Sorter<Record> merger = new UnilateralSortMerger<Record>(this.memoryManager, this.ioManager, 
+				source, this.parentTask, this.pactRecordSerializer, this.pactRecordComparator,
+				16 * 1024 * 1024, -1, 4, 64, 0.7f);
+
+		// emit data
+		LOG.debug("Reading and sorting data...");
+
+		// check order
+		MutableObjectIterator<Record> iterator = merger.getIterator();
+		
+		LOG.debug("Checking results...");
+		int pairsEmitted = 1;
+
+		Record rec1 = new Record();
+		Record rec2 = new Record();
+		
+		Assert.assertTrue((rec1 = iterator.next(rec1)) != null);
+		while ((rec2 = iterator.next(rec2)) != null) {
+			final Key k1 = rec1.getField(0, TestData.Key.class);
+			final Key k2 = rec2.getField(0, TestData.Key.class);
+			pairsEmitted++;
+			
+			Assert.assertTrue(keyComparator.compare(k1, k2) <= 0); 
+			
+			Record tmp = rec1;
+			rec1 = rec2;
+			k1.setKey(k2.getKey());
+			
+			rec2 = tmp;
+		}
+		Assert.assertTrue(NUM_PAIRS == pairsEmitted);
+		
+		merger.close();
+	}
+
 	@Test
 	public void testSpillingSortWithIntermediateMerge() throws Exception {
 		// amount of pairs
@@ -292,6 +385,57 @@ public class ExternalSortITCase {
 		merger.close();
 	}
 	
+	@Test
+	public void testCompressedSpillingSortWithIntermediateMerge() throws Exception {
+		// amount of pairs
+		final int PAIRS = 2000000;
+
+		// comparator
+		final Comparator<TestData.Key> keyComparator = new TestData.KeyComparator();
+
+		final TestData.Generator generator = new TestData.Generator(SEED, KEY_MAX, VALUE_LENGTH, KeyMode.RANDOM, ValueMode.FIX_LENGTH);
+		final MutableObjectIterator<Record> source = new TestData.GeneratorIterator(generator, PAIRS);
+		
+		// an I/O manager that compresses the spilled data
+		final IOManager compressingIOManager = new IOManager(new String[] { System.getProperty("java.io.tmpdir") },
+			CompressionCodec.LZ4);
+		
+		// merge iterator
+		LOG.debug("Initializing sortmerger...");
+		
+		Sorter<Record> merger = new UnilateralSortMerger<Record>(this.memoryManager, compressingIOManager, 
+				source, this.parentTask, this.pactRecordSerializer, this.pactRecordComparator,
+				16 * 1024 * 1024, 4, 0.7f);
+		
+		// check order
+		MutableObjectIterator<Record> iterator = merger.getIterator();
+		
+		LOG.debug("Checking results...");
+		int pairsRead = 1;
+
+		Record rec1 = new Record();
+		Record rec2 = new Record();
+		
+		Assert.assertTrue((rec1 = iterator.next(rec1)) != null);
+		while ((rec2 = iterator.next(rec2)) != null) {
+			final Key k1 = rec1.getField(0, TestData.Key.class);
+			final Key k2 = rec2.getField(0, TestData.Key.class);
+			pairsRead++;
+			
+			Assert.assertTrue(keyComparator.compare(k1, k2) <= 0); 
+			
+			Record tmp = rec1;
+			rec1 = rec2;
+			k1.setKey(k2.getKey());
+			rec2 = tmp;
+		}
+		Assert.assertEquals("Not all pairs were read back in.", PAIRS, pairsRead);
+		merger.close();
+		
+		compressingIOManager.shutdown();
+		Assert.assertTrue("I/O Manager was not properly shut down.", compressingIOManager.isProperlyShutDown());
+	}
+	
 	@Test
 	public void testSpillingSortWithIntermediateMergeIntPair() throws Exception {
 		// amount of pairs
@@ -0,0 +1,181 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2013 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+
+package eu.stratosphere.pact.runtime.sort;
+
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import eu.stratosphere.api.java.typeutils.runtime.record.RecordComparator;
+import eu.stratosphere.api.java.typeutils.runtime.record.RecordSerializer;
+import eu.stratosphere.core.memory.MemorySegment;
+import eu.stratosphere.nephele.services.memorymanager.spi.DefaultMemoryManager;
+import eu.stratosphere.pact.runtime.test.util.DummyInvokable;
+import eu.stratosphere.pact.runtime.test.util.RandomIntPairGenerator;
+import eu.stratosphere.pact.runtime.test.util.TestData;
+import eu.stratosphere.pact.runtime.test.util.TestData.Generator.KeyMode;
+import eu.stratosphere.pact.runtime.test.util.TestData.Generator.ValueMode;
+import eu.stratosphere.pact.runtime.test.util.TestData.Key;
+import eu.stratosphere.pact.runtime.test.util.TestData.Value;
+import eu.stratosphere.pact.runtime.test.util.types.IntPair;
+import eu.stratosphere.pact.runtime.test.util.types.IntPairComparator;
+import eu.stratosphere.pact.runtime.test.util.types.IntPairSerializer;
+import eu.stratosphere.types.Record;
+import eu.stratosphere.util.MutableObjectIterator;
+
+/**
+ */
+public class RadixSortTest
+{
+	private static final long SEED = 649180756312423613L;
+
+	private static final int KEY_MAX = Integer.MAX_VALUE;
+
+	private static final int VALUE_LENGTH = 118;
+
+	private static final int MEMORY_SIZE = 1024 * 1024 * 32;
+	
+	private static final int MEMORY_PAGE_SIZE = 32 * 1024; 
+
+	private DefaultMemoryManager memoryManager;
+
+
+	@Before
+	public void beforeTest() {
+		this.memoryManager = new DefaultMemoryManager(MEMORY_SIZE, MEMORY_PAGE_SIZE);
+	}
+
+	@After
+	public void afterTest() {
+		if (!this.memoryManager.verifyEmpty()) {
+			Assert.fail("Memory Leak: Some memory has not been returned to the memory manager.");
+		}
+		
+		if (this.memoryManager != null) {
+			this.memoryManager.shutdown();
+			this.memoryManager = null;
+		}
+	}
+	
+	// --------------------------------------------------------------------------------------------
+
+	@Test
+	public void testSortFixedLengthRecords() throws Exception
+	{
+		final List<MemorySegment> memory = this.memoryManager.allocatePages(new DummyInvokable(), MEMORY_SIZE / MEMORY_PAGE_SIZE);
+		final FixedLengthRecordSorter<IntPair> sorter = new FixedLengthRecordSorter<IntPair>(
+			new IntPairSerializer(), new IntPairComparator(), memory);
+		Assert.assertTrue(RadixSort.isApplicable(sorter));
+		
+		final RandomIntPairGenerator generator = new RandomIntPairGenerator(SEED);
+		IntPair record = new IntPair();
+		do {
+			generator.next(record);
+		}
+		while (sorter.write(record));
+		
+		new RadixSort().sort(sorter);
+		
+		final MutableObjectIterator<IntPair> iter = sorter.getIterator();
+		IntPair readTarget = new IntPair();
+		int count = 1;
+		int last = iter.next(readTarget).getKey();
+		while ((readTarget = iter.next(readTarget)) != null) {
+			final int current = readTarget.getKey();
+			if (current < last) {
+				Assert.fail("Next key is not larger or equal to previous key.");
+			}
+			last = current;
+			count++;
+		}
+		Assert.assertEquals(sorter.size(), count);
+		
+		this.memoryManager.release(sorter.dispose());
+	}
+	
+	@Test
+	public void testSortNormalizedKeys() throws Exception
+	{
+		@SuppressWarnings("unchecked")
+		final RecordComparator comparator = new RecordComparator(new int[] {0}, new Class[]{Key.class});
+		testSortRecords(comparator, new TestData.Generator(SEED, KEY_MAX, VALUE_LENGTH, KeyMode.RANDOM, ValueMode.RANDOM_LENGTH), true, true);
+	}
+	
+	@Test
+	public void testSortFewDistinctKeys() throws Exception
+	{
+		@SuppressWarnings("unchecked")
+		final RecordComparator comparator = new RecordComparator(new int[] {0}, new Class[]{Key.class});
+		testSortRecords(comparator, new TestData.Generator(SEED, 300, VALUE_LENGTH, KeyMode.RANDOM, ValueMode.RANDOM_LENGTH), true, true);
+	}
+	
+	@Test
+	public void testSortDescending() throws Exception
+	{
+		@SuppressWarnings("unchecked")
+		final RecordComparator comparator = new RecordComparator(new int[] {0}, new Class[]{Key.class}, new boolean[] {false});
+		testSortRecords(comparator, new TestData.Generator(SEED, KEY_MAX, VALUE_LENGTH, KeyMode.RANDOM, ValueMode.RANDOM_LENGTH), true, false);
+	}
+	
+	@Test
+	public void testSortPrefixOnlyKeys() throws Exception
+	{
+		// long strings, whose normalized key is only a prefix, are sorted by comparison where the prefixes are equal
+		@SuppressWarnings("unchecked")
+		final RecordComparator comparator = new RecordComparator(new int[] {1}, new Class[]{Value.class});
+		testSortRecords(comparator, new TestData.Generator(SEED, KEY_MAX, VALUE_LENGTH, KeyMode.RANDOM, ValueMode.RANDOM_LENGTH), false, true);
+	}
+	
+	// --------------------------------------------------------------------------------------------
+	
+	private void testSortRecords(RecordComparator comparator, TestData.Generator generator, boolean expectApplicable,
+			boolean ascending)
+	throws Exception
+	{
+		final List<MemorySegment> memory = this.memoryManager.allocatePages(new DummyInvokable(), MEMORY_SIZE / MEMORY_PAGE_SIZE);
+		final NormalizedKeySorter<Record> sorter = new NormalizedKeySorter<Record>(RecordSerializer.get(), comparator, memory);
+		Assert.assertEquals(expectApplicable, RadixSort.isApplicable(sorter));
+		
+		Record record = new Record();
+		do {
+			generator.next(record);
+		}
+		while (sorter.write(record));
+		
+		new RadixSort().sort(sorter);
+		
+		final MutableObjectIterator<Record> iter = sorter.getIterator();
+		Record last = new Record();
+		Record current = new Record();
+		int count = 1;
+		iter.next(last);
+		while ((current = iter.next(current)) != null) {
+			final int cmp = comparator.compare(last, current);
+			if (ascending ? cmp > 0 : cmp < 0) {
+				Assert.fail("Next record is not in order with the previous record.");
+			}
+			final Record tmp = last;
+			last = current;
+			current = tmp;
+			count++;
+		}
+		Assert.assertEquals(sorter.size(), count);
+		
+		this.memoryManager.release(sorter.dispose());
+	}
+}
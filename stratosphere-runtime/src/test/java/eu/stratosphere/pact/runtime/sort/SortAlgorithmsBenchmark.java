@@ -0,0 +1,111 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2013 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+
+package eu.stratosphere.pact.runtime.sort;
+
+import java.util.List;
+
+import eu.stratosphere.api.java.typeutils.runtime.record.RecordComparator;
+import eu.stratosphere.api.java.typeutils.runtime.record.RecordSerializer;
+import eu.stratosphere.core.memory.MemorySegment;
+import eu.stratosphere.nephele.services.memorymanager.spi.DefaultMemoryManager;
+import eu.stratosphere.pact.runtime.test.util.DummyInvokable;
+import eu.stratosphere.pact.runtime.test.util.RandomIntPairGenerator;
+import eu.stratosphere.pact.runtime.test.util.TestData;
+import eu.stratosphere.pact.runtime.test.util.TestData.Generator.KeyMode;
+import eu.stratosphere.pact.runtime.test.util.TestData.Generator.ValueMode;
+import eu.stratosphere.pact.runtime.test.util.TestData.Key;
+import eu.stratosphere.pact.runtime.test.util.types.IntPair;
+import eu.stratosphere.pact.runtime.test.util.types.IntPairComparator;
+import eu.stratosphere.pact.runtime.test.util.types.IntPairSerializer;
+import eu.stratosphere.types.Record;
+
+/**
+ * Compares the {@link RadixSort} with the comparison based {@link QuickSort} and {@link HeapSort} on
+ * sort buffers filled with fixed-length records and with variable-length records with integer keys.
+ */
+public class SortAlgorithmsBenchmark {
+	
+	private static final long SEED = 649180756312423613L;
+	
+	private static final int MEMORY_SIZE = 1024 * 1024 * 128;
+	
+	private static final int MEMORY_PAGE_SIZE = 32 * 1024;
+	
+	private static final int ROUNDS = 5;
+	
+	
+	public static void main(String[] args) throws Exception {
+		final DefaultMemoryManager memoryManager = new DefaultMemoryManager(MEMORY_SIZE, MEMORY_PAGE_SIZE);
+		final IndexedSorter[] sorters = new IndexedSorter[] { new QuickSort(), new HeapSort(), new RadixSort() };
+		
+		try {
+			// fixed-length records with a fully normalized int key
+			List<MemorySegment> memory = memoryManager.allocatePages(new DummyInvokable(), MEMORY_SIZE / MEMORY_PAGE_SIZE);
+			final FixedLengthRecordSorter<IntPair> fixedLengthSorter = new FixedLengthRecordSorter<IntPair>(
+				new IntPairSerializer(), new IntPairComparator(), memory);
+			
+			for (IndexedSorter sorter : sorters) {
+				long total = 0;
+				for (int round = 0; round < ROUNDS; round++) {
+					fixedLengthSorter.reset();
+					final RandomIntPairGenerator generator = new RandomIntPairGenerator(SEED);
+					final IntPair record = new IntPair();
+					do {
+						generator.next(record);
+					}
+					while (fixedLengthSorter.write(record));
+					
+					final long start = System.nanoTime();
+					sorter.sort(fixedLengthSorter);
+					total += System.nanoTime() - start;
+				}
+				System.out.println("Fixed-length records (" + fixedLengthSorter.size() + "), " +
+					sorter.getClass().getSimpleName() + ": " + (total / ROUNDS / 1000000) + " msecs");
+			}
+			memoryManager.release(fixedLengthSorter.dispose());
+			
+			// variable-length records with a fully normalized int key
+			memory = memoryManager.allocatePages(new DummyInvokable(), MEMORY_SIZE / MEMORY_PAGE_SIZE);
+			@SuppressWarnings("unchecked")
+			final RecordComparator comparator = new RecordComparator(new int[] {0}, new Class[]{Key.class});
+			final NormalizedKeySorter<Record> normKeySorter = new NormalizedKeySorter<Record>(
+				RecordSerializer.get(), comparator, memory);
+			
+			for (IndexedSorter sorter : sorters) {
+				long total = 0;
+				for (int round = 0; round < ROUNDS; round++) {
+					normKeySorter.reset();
+					final TestData.Generator generator = new TestData.Generator(SEED, Integer.MAX_VALUE, 20,
+						KeyMode.RANDOM, ValueMode.FIX_LENGTH);
+					final Record record = new Record();
+					do {
+						generator.next(record);
+					}
+					while (normKeySorter.write(record));
+					
+					final long start = System.nanoTime();
+					sorter.sort(normKeySorter);
+					total += System.nanoTime() - start;
+				}
+				System.out.println("Variable-length records (" + normKeySorter.size() + "), " +
+					sorter.getClass().getSimpleName() + ": " + (total / ROUNDS / 1000000) + " msecs");
+			}
+			memoryManager.release(normKeySorter.dispose());
+		}
+		finally {
+			memoryManager.shutdown();
+		}
+	}
+}
@@ -25,11 +25,15 @@ import eu.stratosphere.api.java.record.functions.JoinFunction;
 import eu.stratosphere.api.java.typeutils.runtime.record.RecordComparator;
 import eu.stratosphere.api.java.typeutils.runtime.record.RecordPairComparatorFactory;
 import eu.stratosphere.pact.runtime.test.util.DelayingInfinitiveInputIterator;
+import eu.stratosphere.pact.runtime.shipping.JoinFilterEvent;
 import eu.stratosphere.pact.runtime.test.util.DriverTestBase;
 import eu.stratosphere.pact.runtime.test.util.ExpectedTestException;
+import eu.stratosphere.pact.runtime.test.util.MockEnvironment;
+import eu.stratosphere.pact.runtime.test.util.MockInputSplitProvider;
 import eu.stratosphere.pact.runtime.test.util.NirvanaOutputList;
 import eu.stratosphere.pact.runtime.test.util.TaskCancelThread;
 import eu.stratosphere.pact.runtime.test.util.UniformRecordGenerator;
+import eu.stratosphere.pact.runtime.util.BloomFilter;
 import eu.stratosphere.types.IntValue;
 import eu.stratosphere.types.Key;
 import eu.stratosphere.types.Record;
@@ -555,6 +559,54 @@ public class MatchTaskTest extends DriverTestBase<GenericJoiner<Record, Record,
 		this.outList.clear();
 	}
 	
+	@Test
+	public void testHashMatchTaskWithJoinFilter() {
+		int keyCnt1 = 20;
+		int valCnt1 = 1;
+		
+		int keyCnt2 = 10;
+		int valCnt2 = 2;
+		
+		addInput(new UniformRecordGenerator(keyCnt1, valCnt1, false));
+		addInput(new UniformRecordGenerator(keyCnt2, valCnt2, false));
+		addInputComparator(this.comparator1);
+		addInputComparator(this.comparator2);
+		getTaskConfig().setDriverPairComparator(RecordPairComparatorFactory.get());
+		setOutput(this.outList);
+		getTaskConfig().setDriverStrategy(DriverStrategy.HYBRIDHASH_BUILD_SECOND);
+		getTaskConfig().setMemoryDriver(HASH_MEM);
+		getTaskConfig().setUseJoinFilter(true);
+		
+		final MockEnvironment env = new MockEnvironment(1024 * 1024, new MockInputSplitProvider());
+		getOwningNepheleTask().setEnvironment(env);
+		
+		MatchDriver<Record, Record, Record> testTask = new MatchDriver<Record, Record, Record>();
+		
+		try {
+			testDriver(testTask, MockMatchStub.class);
+		} catch (Exception e) {
+			e.printStackTrace();
+			Assert.fail("Test caused an exception.");
+		} finally {
+			env.getIOManager().shutdown();
+		}
+		
+		final int expCnt = valCnt1*valCnt2*Math.min(keyCnt1, keyCnt2);
+		Assert.assertEquals("Wrong result set size.", expCnt, this.outList.size());
+		this.outList.clear();
+		
+		// the filter over the second input's keys must have been sent to the producers of the first input
+		Assert.assertEquals(1, getPublishedInputEvents().size());
+		Assert.assertTrue(getPublishedInputEvents().get(0) instanceof JoinFilterEvent);
+		
+		final BloomFilter filter = ((JoinFilterEvent) getPublishedInputEvents().get(0)).getFilter();
+		final Record rec = new Record(new IntValue());
+		for (int i = 0; i < keyCnt2; i++) {
+			rec.setField(0, new IntValue(i));
+			Assert.assertTrue("Filter misses build side key " + i, filter.testHash(this.comparator2.hash(rec)));
+		}
+	}
+	
 	@Test
 	public void testHash2MatchTask() {
 		int keyCnt1 = 20;
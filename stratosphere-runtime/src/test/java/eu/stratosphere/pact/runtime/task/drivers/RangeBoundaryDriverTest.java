@@ -0,0 +1,142 @@
+/***********************************************************************************************************************
+ *
+ * Copyright (C) 2010-2013 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.pact.runtime.task.drivers;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import eu.stratosphere.api.common.functions.AbstractFunction;
+import eu.stratosphere.api.java.typeutils.runtime.record.RecordComparator;
+import eu.stratosphere.api.java.typeutils.runtime.record.RecordSerializer;
+import eu.stratosphere.pact.runtime.task.DriverStrategy;
+import eu.stratosphere.pact.runtime.task.RangeBoundaryDriver;
+import eu.stratosphere.pact.runtime.task.ReservoirSamplingDriver;
+import eu.stratosphere.pact.runtime.task.util.WeightedSample;
+import eu.stratosphere.pact.runtime.task.util.WeightedSampleSerializer;
+import eu.stratosphere.pact.runtime.util.RegularToMutableObjectIterator;
+import eu.stratosphere.types.IntValue;
+import eu.stratosphere.types.Record;
+import eu.stratosphere.util.StringUtils;
+
+public class RangeBoundaryDriverTest {
+	
+	private static final int SAMPLE_SIZE = 500;
+	
+	private static final int NUM_PARTITIONS = 4;
+	
+	/**
+	 * Samples two inputs of very different sizes and checks that the boundaries split their union into ranges of
+	 * about equal size, rather than giving the small input half of the ranges.
+	 */
+	@Test
+	public void testBoundariesOfSkewedInputSizes() {
+		try {
+			final int smallSize = 1000;
+			final int largeSize = 100000;
+			
+			final List<WeightedSample<Record>> samples = new ArrayList<WeightedSample<Record>>();
+			samples.addAll(sample(0, smallSize));
+			samples.addAll(sample(smallSize, largeSize));
+			
+			final WeightedSampleSerializer<Record> sampleSerializer = new WeightedSampleSerializer<Record>(RecordSerializer.get());
+			final TestTaskContext<AbstractFunction, Record> context = new TestTaskContext<AbstractFunction, Record>();
+			final GatheringCollector<Record> result = new GatheringCollector<Record>(RecordSerializer.get());
+			context.setDriverStrategy(DriverStrategy.RANGE_BOUNDARIES);
+			context.getTaskConfig().setNumRangePartitions(NUM_PARTITIONS);
+			context.setInput1(new RegularToMutableObjectIterator<WeightedSample<Record>>(samples.iterator(), sampleSerializer),
+				sampleSerializer);
+			context.setComparator1(createComparator());
+			context.setCollector(result);
+			
+			final RangeBoundaryDriver<Record> driver = new RangeBoundaryDriver<Record>();
+			driver.setup(context);
+			driver.prepare();
+			driver.run();
+			
+			final List<Record> boundaries = result.getList();
+			Assert.assertEquals(NUM_PARTITIONS - 1, boundaries.size());
+			
+			// the keys of the inputs are 0 to (smallSize + largeSize - 1), so a boundary key b puts b + 1 keys
+			// into the ranges up to its own
+			final int total = smallSize + largeSize;
+			int previous = -1;
+			for (int i = 0; i <= boundaries.size(); i++) {
+				final int upper = i < boundaries.size() ? boundaries.get(i).getField(0, IntValue.class).getValue() : total - 1;
+				final int rangeSize = upper - previous;
+				Assert.assertTrue("Range " + i + " holds " + rangeSize + " of " + total + " records.",
+					rangeSize > 0.8 * total / NUM_PARTITIONS && rangeSize < 1.2 * total / NUM_PARTITIONS);
+				previous = upper;
+			}
+		}
+		catch (Exception e) {
+			e.printStackTrace();
+			Assert.fail(StringUtils.stringifyException(e));
+		}
+	}
+	
+	@Test
+	public void testSampleWeights() {
+		try {
+			final List<WeightedSample<Record>> small = sample(0, SAMPLE_SIZE / 2);
+			Assert.assertEquals(SAMPLE_SIZE / 2, small.size());
+			for (WeightedSample<Record> s : small) {
+				Assert.assertEquals(1.0, s.getWeight(), 0.0);
+			}
+			
+			final List<WeightedSample<Record>> large = sample(0, SAMPLE_SIZE * 10);
+			Assert.assertEquals(SAMPLE_SIZE, large.size());
+			for (WeightedSample<Record> s : large) {
+				Assert.assertEquals(10.0, s.getWeight(), 0.0);
+			}
+		}
+		catch (Exception e) {
+			e.printStackTrace();
+			Assert.fail(StringUtils.stringifyException(e));
+		}
+	}
+	
+	// --------------------------------------------------------------------------------------------
+	
+	private static List<WeightedSample<Record>> sample(int firstKey, int numRecords) throws Exception {
+		final List<Record> input = new ArrayList<Record>(numRecords);
+		for (int i = 0; i < numRecords; i++) {
+			input.add(new Record(new IntValue(firstKey + i)));
+		}
+		
+		final TestTaskContext<AbstractFunction, WeightedSample<Record>> context =
+				new TestTaskContext<AbstractFunction, WeightedSample<Record>>();
+		final GatheringCollector<WeightedSample<Record>> result = new GatheringCollector<WeightedSample<Record>>(
+				new WeightedSampleSerializer<Record>(RecordSerializer.get()));
+		context.setDriverStrategy(DriverStrategy.SAMPLE);
+		context.getTaskConfig().setSampleSize(SAMPLE_SIZE);
+		context.setInput1(new RegularToMutableObjectIterator<Record>(input.iterator(), RecordSerializer.get()),
+			RecordSerializer.get());
+		context.setCollector(result);
+		
+		final ReservoirSamplingDriver<Record> driver = new ReservoirSamplingDriver<Record>();
+		driver.setup(context);
+		driver.prepare();
+		driver.run();
+		return result.getList();
+	}
+	
+	@SuppressWarnings("unchecked")
+	private static RecordComparator createComparator() {
+		return new RecordComparator(new int[] {0}, new Class[] {IntValue.class});
+	}
+}
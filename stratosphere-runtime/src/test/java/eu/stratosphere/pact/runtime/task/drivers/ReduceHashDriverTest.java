@@ -0,0 +1,275 @@
+/***********************************************************************************************************************
+ *
+ * Copyright (C) 2010-2013 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ **********************************************************************************************************************/
+
+package eu.stratosphere.pact.runtime.task.drivers;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import eu.stratosphere.api.common.functions.GenericReduce;
+import eu.stratosphere.api.common.typeutils.TypeComparator;
+import eu.stratosphere.api.java.functions.ReduceFunction;
+import eu.stratosphere.api.java.tuple.Tuple2;
+import eu.stratosphere.api.java.typeutils.TupleTypeInfo;
+import eu.stratosphere.api.java.typeutils.TypeExtractor;
+import eu.stratosphere.nephele.services.iomanager.IOManager;
+import eu.stratosphere.pact.runtime.task.DriverStrategy;
+import eu.stratosphere.pact.runtime.task.ReduceHashDriver;
+import eu.stratosphere.pact.runtime.util.EmptyMutableObjectIterator;
+import eu.stratosphere.pact.runtime.util.RegularToMutableObjectIterator;
+import eu.stratosphere.types.IntValue;
+import eu.stratosphere.types.StringValue;
+import eu.stratosphere.util.MutableObjectIterator;
+
+@SuppressWarnings("serial")
+public class ReduceHashDriverTest {
+	
+	private IOManager ioManager;
+	
+	@Before
+	public void startIOManager() {
+		this.ioManager = new IOManager();
+	}
+	
+	@After
+	public void shutdownIOManager() {
+		this.ioManager.shutdown();
+		Assert.assertTrue("I/O manager has not properly shut down.", this.ioManager.isProperlyShutDown());
+	}
+	
+	// --------------------------------------------------------------------------------------------
+
+	@Test
+	public void testReduceDriverEmpty() {
+		try {
+			TestTaskContext<GenericReduce<Tuple2<String, Integer>>, Tuple2<String, Integer>> context = createContext(2 * 1024 * 1024);
+			
+			List<Tuple2<String, Integer>> data = DriverTestData.createReduceImmutableData();
+			
+			TupleTypeInfo<Tuple2<String, Integer>> typeInfo = (TupleTypeInfo<Tuple2<String, Integer>>) TypeExtractor.getForObject(data.get(0));
+			MutableObjectIterator<Tuple2<String, Integer>> input = EmptyMutableObjectIterator.get();
+			TypeComparator<Tuple2<String, Integer>> comparator = typeInfo.createComparator(new int[]{0}, new boolean[] {true});
+			
+			GatheringCollector<Tuple2<String, Integer>> result = new GatheringCollector<Tuple2<String,Integer>>(typeInfo.createSerializer());
+			
+			context.setInput1(input, typeInfo.createSerializer());
+			context.setComparator1(comparator);
+			context.setCollector(result);
+			context.setUdf(new SumReducer());
+			
+			ReduceHashDriver<Tuple2<String, Integer>> driver = new ReduceHashDriver<Tuple2<String,Integer>>();
+			driver.setup(context);
+			driver.prepare();
+			driver.run();
+			driver.cleanup();
+			
+			Assert.assertEquals(0, result.getList().size());
+		}
+		catch (Exception e) {
+			System.err.println(e.getMessage());
+			e.printStackTrace();
+			Assert.fail(e.getMessage());
+		}
+	}
+	
+	@Test
+	public void testReduceDriverImmutable() {
+		try {
+			TestTaskContext<GenericReduce<Tuple2<String, Integer>>, Tuple2<String, Integer>> context = createContext(2 * 1024 * 1024);
+			
+			List<Tuple2<String, Integer>> data = DriverTestData.createReduceImmutableData();
+			Collections.shuffle(data);
+			
+			TupleTypeInfo<Tuple2<String, Integer>> typeInfo = (TupleTypeInfo<Tuple2<String, Integer>>) TypeExtractor.getForObject(data.get(0));
+			MutableObjectIterator<Tuple2<String, Integer>> input = new RegularToMutableObjectIterator<Tuple2<String, Integer>>(data.iterator(), typeInfo.createSerializer());
+			TypeComparator<Tuple2<String, Integer>> comparator = typeInfo.createComparator(new int[]{0}, new boolean[] {true});
+			
+			GatheringCollector<Tuple2<String, Integer>> result = new GatheringCollector<Tuple2<String,Integer>>(typeInfo.createSerializer());
+			
+			context.setInput1(input, typeInfo.createSerializer());
+			context.setComparator1(comparator);
+			context.setCollector(result);
+			context.setUdf(new SumReducer());
+			
+			ReduceHashDriver<Tuple2<String, Integer>> driver = new ReduceHashDriver<Tuple2<String,Integer>>();
+			driver.setup(context);
+			driver.prepare();
+			driver.run();
+			driver.cleanup();
+			
+			Map<String, Integer> expected = new HashMap<String, Integer>();
+			expected.put("a", 1);
+			expected.put("b", 2);
+			expected.put("c", 3);
+			expected.put("d", 9);
+			expected.put("e", 21);
+			expected.put("f", 42);
+			
+			Assert.assertEquals(expected, toMap(result.getList()));
+		}
+		catch (Exception e) {
+			System.err.println(e.getMessage());
+			e.printStackTrace();
+			Assert.fail(e.getMessage());
+		}
+	}
+	
+	@Test
+	public void testReduceDriverMutable() {
+		try {
+			TestTaskContext<GenericReduce<Tuple2<StringValue, IntValue>>, Tuple2<StringValue, IntValue>> context = 
+					new TestTaskContext<GenericReduce<Tuple2<StringValue, IntValue>>, Tuple2<StringValue, IntValue>>(2 * 1024 * 1024);
+			context.getTaskConfig().setMemoryDriver(2 * 1024 * 1024);
+			context.getTaskConfig().setFilehandlesDriver(64);
+			context.setIOManager(this.ioManager);
+			context.setDriverStrategy(DriverStrategy.HASHED_REDUCE);
+			
+			List<Tuple2<StringValue, IntValue>> data = DriverTestData.createReduceMutableData();
+			Collections.shuffle(data);
+			
+			TupleTypeInfo<Tuple2<StringValue, IntValue>> typeInfo = (TupleTypeInfo<Tuple2<StringValue, IntValue>>) TypeExtractor.getForObject(data.get(0));
+			MutableObjectIterator<Tuple2<StringValue, IntValue>> input = new RegularToMutableObjectIterator<Tuple2<StringValue, IntValue>>(data.iterator(), typeInfo.createSerializer());
+			TypeComparator<Tuple2<StringValue, IntValue>> comparator = typeInfo.createComparator(new int[]{0}, new boolean[] {true});
+			
+			GatheringCollector<Tuple2<StringValue, IntValue>> result = new GatheringCollector<Tuple2<StringValue, IntValue>>(typeInfo.createSerializer());
+			
+			context.setInput1(input, typeInfo.createSerializer());
+			context.setComparator1(comparator);
+			context.setCollector(result);
+			context.setUdf(new SumMutableReducer());
+			
+			ReduceHashDriver<Tuple2<StringValue, IntValue>> driver = new ReduceHashDriver<Tuple2<StringValue, IntValue>>();
+			driver.setup(context);
+			driver.prepare();
+			driver.run();
+			driver.cleanup();
+			
+			Map<String, Integer> sums = new HashMap<String, Integer>();
+			for (Tuple2<StringValue, IntValue> t : result.getList()) {
+				Assert.assertNull("Key was emitted twice.", sums.put(t.f0.getValue(), t.f1.getValue()));
+			}
+			
+			Assert.assertEquals(6, sums.size());
+			Assert.assertEquals(Integer.valueOf(1), sums.get("a"));
+			Assert.assertEquals(Integer.valueOf(2), sums.get("b"));
+			Assert.assertEquals(Integer.valueOf(3), sums.get("c"));
+			Assert.assertEquals(Integer.valueOf(9), sums.get("d"));
+			Assert.assertEquals(Integer.valueOf(21), sums.get("e"));
+			Assert.assertEquals(Integer.valueOf(42), sums.get("f"));
+		}
+		catch (Exception e) {
+			System.err.println(e.getMessage());
+			e.printStackTrace();
+			Assert.fail(e.getMessage());
+		}
+	}
+	
+	@Test
+	public void testReduceDriverFallsBackToSorting() {
+		try {
+			final int numKeys = 100000;
+			final int numRepetitions = 3;
+			
+			List<Tuple2<String, Integer>> data = new ArrayList<Tuple2<String, Integer>>(numKeys * numRepetitions);
+			for (int r = 0; r < numRepetitions; r++) {
+				for (int k = 0; k < numKeys; k++) {
+					data.add(new Tuple2<String, Integer>("key-" + k, 1));
+				}
+			}
+			Collections.shuffle(data);
+			
+			// the aggregates of all keys do not fit into the memory of the table
+			TestTaskContext<GenericReduce<Tuple2<String, Integer>>, Tuple2<String, Integer>> context = createContext(40 * 32 * 1024);
+			
+			TupleTypeInfo<Tuple2<String, Integer>> typeInfo = (TupleTypeInfo<Tuple2<String, Integer>>) TypeExtractor.getForObject(data.get(0));
+			MutableObjectIterator<Tuple2<String, Integer>> input = new RegularToMutableObjectIterator<Tuple2<String, Integer>>(data.iterator(), typeInfo.createSerializer());
+			TypeComparator<Tuple2<String, Integer>> comparator = typeInfo.createComparator(new int[]{0}, new boolean[] {true});
+			
+			GatheringCollector<Tuple2<String, Integer>> result = new GatheringCollector<Tuple2<String,Integer>>(typeInfo.createSerializer());
+			
+			context.setInput1(input, typeInfo.createSerializer());
+			context.setComparator1(comparator);
+			context.setCollector(result);
+			context.setUdf(new SumReducer());
+			
+			ReduceHashDriver<Tuple2<String, Integer>> driver = new ReduceHashDriver<Tuple2<String,Integer>>();
+			driver.setup(context);
+			driver.prepare();
+			driver.run();
+			driver.cleanup();
+			
+			Map<String, Integer> sums = toMap(result.getList());
+			Assert.assertEquals(numKeys, sums.size());
+			for (Integer sum : sums.values()) {
+				Assert.assertEquals(numRepetitions, sum.intValue());
+			}
+			
+			// all memory must have been returned
+			Assert.assertTrue(context.getMemoryManager().verifyEmpty());
+		}
+		catch (Exception e) {
+			System.err.println(e.getMessage());
+			e.printStackTrace();
+			Assert.fail(e.getMessage());
+		}
+	}
+	
+	// --------------------------------------------------------------------------------------------
+	
+	private TestTaskContext<GenericReduce<Tuple2<String, Integer>>, Tuple2<String, Integer>> createContext(long memory) {
+		TestTaskContext<GenericReduce<Tuple2<String, Integer>>, Tuple2<String, Integer>> context =
+				new TestTaskContext<GenericReduce<Tuple2<String,Integer>>, Tuple2<String,Integer>>(memory);
+		context.getTaskConfig().setMemoryDriver(memory);
+		context.getTaskConfig().setFilehandlesDriver(64);
+		context.setIOManager(this.ioManager);
+		context.setDriverStrategy(DriverStrategy.HASHED_REDUCE);
+		return context;
+	}
+	
+	private static Map<String, Integer> toMap(List<Tuple2<String, Integer>> records) {
+		Map<String, Integer> map = new HashMap<String, Integer>();
+		for (Tuple2<String, Integer> t : records) {
+			Assert.assertNull("Key was emitted twice.", map.put(t.f0, t.f1));
+		}
+		return map;
+	}
+	
+	// --------------------------------------------------------------------------------------------
+	//  Test UDFs
+	// --------------------------------------------------------------------------------------------
+	
+	public static final class SumReducer extends ReduceFunction<Tuple2<String, Integer>> {
+		@Override
+		public Tuple2<String, Integer> reduce(Tuple2<String, Integer> value1, Tuple2<String, Integer> value2) {
+			return new Tuple2<String, Integer>(value1.f0, value1.f1 + value2.f1);
+		}
+	}
+	
+	public static final class SumMutableReducer extends ReduceFunction<Tuple2<StringValue, IntValue>> {
+		@Override
+		public Tuple2<StringValue, IntValue> reduce(Tuple2<StringValue, IntValue> value1, Tuple2<StringValue, IntValue> value2) {
+			value1.f1.setValue(value1.f1.getValue() + value2.f1.getValue());
+			return value1;
+		}
+	}
+}
@@ -20,6 +20,7 @@ import eu.stratosphere.api.common.typeutils.TypeSerializer;
 import eu.stratosphere.api.common.typeutils.TypeSerializerFactory;
 import eu.stratosphere.api.java.typeutils.runtime.RuntimeStatefulSerializerFactory;
 import eu.stratosphere.configuration.Configuration;
+import eu.stratosphere.nephele.event.task.AbstractTaskEvent;
 import eu.stratosphere.nephele.services.iomanager.IOManager;
 import eu.stratosphere.nephele.services.memorymanager.MemoryManager;
 import eu.stratosphere.nephele.services.memorymanager.spi.DefaultMemoryManager;
@@ -54,6 +55,8 @@ public class TestTaskContext<S, T> implements PactTaskContext<S, T> {
 	private Collector<T> outputCollector;
 	
 	private MemoryManager memoryManager;
+	
+	private IOManager ioManager;
 
 	// --------------------------------------------------------------------------------------------
 	//  Constructors
@@ -111,6 +114,10 @@ public class TestTaskContext<S, T> implements PactTaskContext<S, T> {
 		this.outputCollector = collector;
 	}
 	
+	public void setIOManager(IOManager ioManager) {
+		this.ioManager = ioManager;
+	}
+	
 	public void setDriverStrategy(DriverStrategy strategy) {
 		this.config.setDriverStrategy(strategy);
 	}
@@ -136,7 +143,7 @@ public class TestTaskContext<S, T> implements PactTaskContext<S, T> {
 
 	@Override
 	public IOManager getIOManager() {
-		return null;
+		return this.ioManager;
 	}
 
 	@Override
@@ -178,6 +185,9 @@ public class TestTaskContext<S, T> implements PactTaskContext<S, T> {
 		}
 	}
 
+	@Override
+	public void publishInputEvent(int index, AbstractTaskEvent event) {}
+
 	@Override
 	public S getStub() {
 		return this.udf;
@@ -13,6 +13,8 @@
 
 package eu.stratosphere.pact.runtime.task.util;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
@@ -33,7 +35,9 @@ import eu.stratosphere.core.memory.DataInputView;
 import eu.stratosphere.core.memory.DataOutputView;
 import eu.stratosphere.core.memory.MemorySegment;
 import eu.stratosphere.nephele.io.ChannelSelector;
+import eu.stratosphere.pact.runtime.hash.JoinFilterBuildingIterator;
 import eu.stratosphere.pact.runtime.plugable.SerializationDelegate;
+import eu.stratosphere.pact.runtime.shipping.JoinFilterEvent;
 import eu.stratosphere.pact.runtime.shipping.OutputEmitter;
 import eu.stratosphere.pact.runtime.shipping.ShipStrategyType;
 import eu.stratosphere.types.DeserializationException;
@@ -43,6 +47,7 @@ import eu.stratosphere.types.KeyFieldOutOfBoundsException;
 import eu.stratosphere.types.NullKeyFieldException;
 import eu.stratosphere.types.Record;
 import eu.stratosphere.types.StringValue;
+import eu.stratosphere.util.MutableObjectIterator;
 
 public class OutputEmitterTest extends TestCase {
 	
@@ -373,6 +378,77 @@ public class OutputEmitterTest extends TestCase {
 		Assert.fail("Expected a NullKeyFieldException.");
 	}
 	
+	@Test
+	public void testPartitionHashWithJoinFilter() throws IOException {
+		final int numChans = 10;
+		final int filterChannel = 3;
+		final int numBuildKeys = 1000;
+		
+		// build the filter over the even keys, the way the join on channel 3 would
+		final MutableObjectIterator<Integer> buildSide = new MutableObjectIterator<Integer>() {
+			private int next = 0;
+			
+			@Override
+			public Integer next(Integer reuse) {
+				if (this.next >= 2 * numBuildKeys) {
+					return null;
+				}
+				final Integer value = this.next;
+				this.next += 2;
+				return value;
+			}
+		};
+		
+		final JoinFilterBuildingIterator<Integer> filterBuilder = new JoinFilterBuildingIterator<Integer>(buildSide, new TestIntComparator());
+		while (filterBuilder.next(null) != null);
+		assertEquals(numBuildKeys, filterBuilder.getCount());
+		
+		// ship the event through its serialization
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		filterBuilder.createEvent(filterChannel).write(new DataOutputStream(bytes));
+		final JoinFilterEvent event = new JoinFilterEvent();
+		event.read(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+		assertEquals(filterChannel, event.getSenderIndex());
+		
+		final OutputEmitter<Integer> oe = new OutputEmitter<Integer>(ShipStrategyType.PARTITION_HASH, new TestIntComparator());
+		oe.eventOccurred(event);
+		
+		final SerializationDelegate<Integer> delegate = new SerializationDelegate<Integer>(new IntSerializer());
+		int droppedMatching = 0;
+		int droppedNonMatching = 0;
+		int nonMatchingToFilterChannel = 0;
+		
+		for (int i = 0; i < 100 * numBuildKeys; i++) {
+			delegate.setInstance(i);
+			final int[] chans = oe.selectChannels(delegate, numChans);
+			
+			final boolean hasPartner = i % 2 == 0 && i < 2 * numBuildKeys;
+			if (i % numChans == filterChannel) {
+				if (!hasPartner) {
+					nonMatchingToFilterChannel++;
+				}
+				if (chans.length == 0) {
+					if (hasPartner) {
+						droppedMatching++;
+					} else {
+						droppedNonMatching++;
+					}
+				} else {
+					assertEquals(1, chans.length);
+					assertEquals(filterChannel, chans[0]);
+				}
+			} else {
+				// channels without a filter receive all their records
+				assertEquals(1, chans.length);
+				assertEquals(i % numChans, chans[0]);
+			}
+		}
+		
+		assertEquals("Records with a join partner must never be dropped.", 0, droppedMatching);
+		assertTrue("Too few records without join partner were dropped: " + droppedNonMatching + " of " + nonMatchingToFilterChannel,
+			droppedNonMatching > 0.9 * nonMatchingToFilterChannel);
+	}
+	
 	@SuppressWarnings("serial")
 	private static class TestIntComparator extends TypeComparator<Integer> {
 
@@ -26,6 +26,7 @@ import eu.stratosphere.api.common.functions.Function;
 import eu.stratosphere.api.common.typeutils.TypeComparator;
 import eu.stratosphere.api.common.typeutils.TypeSerializerFactory;
 import eu.stratosphere.configuration.Configuration;
+import eu.stratosphere.nephele.event.task.AbstractTaskEvent;
 import eu.stratosphere.nephele.services.iomanager.IOManager;
 import eu.stratosphere.nephele.services.memorymanager.MemoryManager;
 import eu.stratosphere.nephele.services.memorymanager.spi.DefaultMemoryManager;
@@ -57,6 +58,8 @@ public class DriverTestBase<S extends Function> implements PactTaskContext<S, Re
 	
 	private final List<UnilateralSortMerger<Record>> sorters;
 	
+	private final List<AbstractTaskEvent> publishedInputEvents;
+	
 	private final AbstractInvokable owner;
 	
 	private final Configuration config;
@@ -101,6 +104,7 @@ public class DriverTestBase<S extends Function> implements PactTaskContext<S, Re
 		this.inputs = new ArrayList<MutableObjectIterator<Record>>();
 		this.comparators = new ArrayList<TypeComparator<Record>>();
 		this.sorters = new ArrayList<UnilateralSortMerger<Record>>();
+		this.publishedInputEvents = new ArrayList<AbstractTaskEvent>();
 		
 		this.owner = new DummyInvokable();
 		
@@ -259,6 +263,15 @@ public class DriverTestBase<S extends Function> implements PactTaskContext<S, Re
 		return comparator;
 	}
 
+	@Override
+	public void publishInputEvent(int index, AbstractTaskEvent event) {
+		this.publishedInputEvents.add(event);
+	}
+	
+	public List<AbstractTaskEvent> getPublishedInputEvents() {
+		return this.publishedInputEvents;
+	}
+
 	@Override
 	public S getStub() {
 		return this.stub;
@@ -0,0 +1,139 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2013 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.pact.runtime.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import eu.stratosphere.core.memory.MemorySegment;
+
+public class BloomFilterTest
+{
+	@Test
+	public void testNoFalseNegatives()
+	{
+		final MemorySegment segment = new MemorySegment(new byte[1024]);
+		final BloomFilter filter = new BloomFilter(500, 512);
+		filter.setBitsLocation(segment, 256);
+		filter.reset();
+
+		final Random rnd = new Random(42);
+		final int[] hashes = new int[500];
+		for (int i = 0; i < hashes.length; i++) {
+			hashes[i] = rnd.nextInt();
+			filter.addHash(hashes[i]);
+		}
+
+		for (int i = 0; i < hashes.length; i++) {
+			assertTrue("False negative for hash " + hashes[i], filter.testHash(hashes[i]));
+		}
+
+		// the filter must not have touched the memory outside its region
+		for (int i = 0; i < 256; i++) {
+			assertEquals(0, segment.get(i));
+			assertEquals(0, segment.get(768 + i));
+		}
+	}
+
+	@Test
+	public void testFalsePositiveRate()
+	{
+		final int numEntries = 1000;
+		final MemorySegment segment = new MemorySegment(new byte[numEntries]);
+		final BloomFilter filter = new BloomFilter(numEntries, numEntries);
+		filter.setBitsLocation(segment, 0);
+		filter.reset();
+
+		// add consecutive codes, which is the worst case for a badly distributing filter
+		for (int i = 0; i < numEntries; i++) {
+			filter.addHash(i);
+		}
+
+		int falsePositives = 0;
+		for (int i = numEntries; i < numEntries + 100000; i++) {
+			if (filter.testHash(i)) {
+				falsePositives++;
+			}
+		}
+
+		// eight bits per entry give a theoretical false positive rate of about two percent
+		assertTrue("False positive rate too high: " + falsePositives, falsePositives < 5000);
+	}
+
+	@Test
+	public void testReset()
+	{
+		final MemorySegment segment = new MemorySegment(new byte[128]);
+		final BloomFilter filter = new BloomFilter(10, 128);
+		filter.setBitsLocation(segment, 0);
+		filter.reset();
+
+		filter.addHash(17);
+		assertTrue(filter.testHash(17));
+
+		filter.reset();
+		assertFalse(filter.testHash(17));
+	}
+
+	@Test
+	public void testNumHashFunctions()
+	{
+		assertEquals(1, BloomFilter.optimalNumOfHashFunctions(1000, 100));
+		assertEquals(6, BloomFilter.optimalNumOfHashFunctions(1000, 8192));
+	}
+
+	@Test
+	public void testFold()
+	{
+		final MemorySegment segment = new MemorySegment(new byte[4096]);
+		final BloomFilter filter = BloomFilter.wrap(segment, 0, 4096, 3);
+		filter.reset();
+
+		final Random rnd = new Random(42);
+		final int[] hashes = new int[200];
+		for (int i = 0; i < hashes.length; i++) {
+			hashes[i] = rnd.nextInt();
+			filter.addHash(hashes[i]);
+		}
+
+		final byte[] folded = new byte[256];
+		filter.foldInto(folded, 256);
+		final BloomFilter foldedFilter = BloomFilter.wrap(new MemorySegment(folded), 0, 256, 3);
+		assertEquals(3, foldedFilter.getNumHashFunctions());
+
+		// the folded filter must contain all hashes, and it must not be saturated
+		for (int i = 0; i < hashes.length; i++) {
+			assertTrue("False negative for hash " + hashes[i], foldedFilter.testHash(hashes[i]));
+		}
+		int positives = 0;
+		for (int i = 0; i < 10000; i++) {
+			if (foldedFilter.testHash(rnd.nextInt())) {
+				positives++;
+			}
+		}
+		assertTrue("False positive rate too high: " + positives, positives < 1000);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testFoldToNonDivisor()
+	{
+		final BloomFilter filter = BloomFilter.wrap(new MemorySegment(new byte[1024]), 0, 1024, 3);
+		filter.foldInto(new byte[300], 300);
+	}
+}